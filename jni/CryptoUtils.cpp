@@ -134,3 +134,106 @@ JNIEXPORT jboolean JNICALL Java_com_vvote_verifierlibrary_utils_crypto_CryptoUti
 	
   return result;
   }
+
+/*
+ * Reads a big endian 32 bit length from the records buffer
+*/
+static bool readLength(const unsigned char *records, jlong recordsLength, jlong &offset, jint &length) {
+  if (offset + 4 > recordsLength) {
+    return false;
+  }
+  length = (jint) (((unsigned int) records[offset] << 24) | ((unsigned int) records[offset + 1] << 16) | ((unsigned int) records[offset + 2] << 8) | (unsigned int) records[offset + 3]);
+  offset += 4;
+  if (length < 0 || offset + length > recordsLength) {
+    return false;
+  }
+  return true;
+}
+
+/*
+ * Carries out a verification on a batch of hash commitments held in a direct ByteBuffer.
+ * Each record is made up of the commitment, witness and random value, each preceded by
+ * its length as a big endian 32 bit integer. Bit i of the results buffer is set if
+ * record i verifies. Returns the number of records which verified or -1 if the
+ * buffers could not be read.
+*/
+JNIEXPORT jint JNICALL Java_com_vvote_verifierlibrary_utils_crypto_CryptoUtils_openSSLVerifyHashCommitments
+  (JNIEnv *env, jclass jClass, jobject records, jint recordsLength, jint count, jobject results){
+
+  const unsigned char * recordBytes = reinterpret_cast<const unsigned char *> (env->GetDirectBufferAddress(records));
+  unsigned char * resultBytes = reinterpret_cast<unsigned char *> (env->GetDirectBufferAddress(results));
+
+  if (recordBytes == NULL || resultBytes == NULL || count < 0) {
+    return -1;
+  }
+  if (recordsLength > env->GetDirectBufferCapacity(records) || (count + 7) / 8 > env->GetDirectBufferCapacity(results)) {
+    return -1;
+  }
+
+  memset(resultBytes, 0, (count + 7) / 8);
+
+  unsigned char md[SHA256_DIGEST_LENGTH];
+  unsigned char modifiedRand[SHA256_DIGEST_LENGTH];
+  const unsigned char * m_rand;
+  size_t m_randLength;
+
+  SHA256_CTX context;
+
+  jlong offset = 0;
+  jint commitLength, witnessLength, randomLength;
+  const unsigned char * commit;
+  const unsigned char * wit;
+  const unsigned char * rand;
+
+  jint verified = 0;
+
+  for (jint i = 0; i < count; i++) {
+
+    if (!readLength(recordBytes, recordsLength, offset, commitLength)) {
+      return -1;
+    }
+    commit = recordBytes + offset;
+    offset += commitLength;
+
+    if (!readLength(recordBytes, recordsLength, offset, witnessLength)) {
+      return -1;
+    }
+    wit = recordBytes + offset;
+    offset += witnessLength;
+
+    if (!readLength(recordBytes, recordsLength, offset, randomLength)) {
+      return -1;
+    }
+    rand = recordBytes + offset;
+    offset += randomLength;
+
+    // a commitment which is not a single digest can never match
+    if (commitLength != SHA256_DIGEST_LENGTH) {
+      continue;
+    }
+
+    // make sure the random value length is less than or equal to 32 otherwise hash it first
+    if (randomLength > SHA256_DIGEST_LENGTH) {
+      if (!SHA256_Init(&context) || !SHA256_Update(&context, rand, randomLength) || !SHA256_Final(modifiedRand, &context)) {
+        return -1;
+      }
+      m_rand = modifiedRand;
+      m_randLength = SHA256_DIGEST_LENGTH;
+    } else {
+      m_rand = rand;
+      m_randLength = randomLength;
+    }
+
+    // hash the witness followed by the random value
+    if (!SHA256_Init(&context) || !SHA256_Update(&context, wit, witnessLength) || !SHA256_Update(&context, m_rand, m_randLength) || !SHA256_Final(md, &context)) {
+      return -1;
+    }
+
+    if (memcmp(md, commit, SHA256_DIGEST_LENGTH) == 0) {
+      resultBytes[i >> 3] |= (unsigned char) (1 << (i & 7));
+      verified++;
+    }
+  }
+
+  return verified;
+  }
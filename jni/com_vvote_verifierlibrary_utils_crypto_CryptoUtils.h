@@ -15,6 +15,14 @@ extern "C" {
 JNIEXPORT jboolean JNICALL Java_com_vvote_verifierlibrary_utils_crypto_CryptoUtils_openSSLVerifyHashCommitment
   (JNIEnv *, jclass, jstring, jstring, jstring);
 
+/*
+ * Class:     com_vvote_verifierlibrary_utils_crypto_CryptoUtils
+ * Method:    openSSLVerifyHashCommitments
+ * Signature: (Ljava/nio/ByteBuffer;IILjava/nio/ByteBuffer;)I
+ */
+JNIEXPORT jint JNICALL Java_com_vvote_verifierlibrary_utils_crypto_CryptoUtils_openSSLVerifyHashCommitments
+  (JNIEnv *, jclass, jobject, jint, jint, jobject);
+
 #ifdef __cplusplus
 }
 #endif
@@ -30,8 +30,8 @@ public class CryptoConstants {
 	 */
 	public static class BallotGenerationVerifier {
 		/**
-		 * Holds name of the EC curve used to setup the EC curved used by
-		 * ECUtils
+		 * Holds name of the EC curve used to set up the curve context of the
+		 * Ballot Generation verifier
 		 */
 		public static final String CURVE_NAME = "P-256";
 
@@ -63,6 +63,11 @@ public class CryptoConstants {
 		 */
 		public static final String CURVE_NAME = "P-256";
 
+		/**
+		 * The window width, in bits, used for fixed-base multiplication tables
+		 */
+		public static final int FIXED_BASE_WINDOW_WIDTH = 6;
+
 		/**
 		 * Identifier for x coordinate of an EC point
 		 */
@@ -48,41 +48,6 @@ public class JSONConstants {
 		public static final String SCHEMA_PATH = "schemaPath";
 	}
 
-	/**
-	 * Constants for schema processing
-	 */
-	public static class SchemaProcessing {
-
-		/**
-		 * Location of the uncompiled script for schema validation
-		 */
-		public static final String SCHEMA_JS_LOCATION = "./schemas/validation/tv4.min.js";
-		/**
-		 * Identifier for the data variable
-		 */
-		public static final String DATA_VARIABLE = "data";
-		/**
-		 * Identifier for the schema variable
-		 */
-		public static final String SCHEMA_VARIABLE = "schema";
-		/**
-		 * Identifier for the is valid field
-		 */
-		public static final String IS_VALID = "valid";
-		/**
-		 * Identifier for the is missing flag
-		 */
-		public static final String IS_MISSING = "missing";
-		/**
-		 * Identifier for the is error flag
-		 */
-		public static final String IS_ERROR = "error";
-		/**
-		 * Name of the script engine to use for processing JSON schemas
-		 */
-		public static final String SCRIPT_ENGINE_NAME = "JavaScript";
-	}
-
 	/**
 	 * Identifies a separation between the prefix and number of a serial number
 	 */
@@ -26,6 +26,7 @@ import com.vvote.datafiles.exceptions.FileCommitException;
 import com.vvote.messages.typed.file.FileMessage;
 import com.vvote.verifierlibrary.utils.io.FileType;
 import com.vvote.verifierlibrary.utils.io.IOUtils;
+import com.vvote.verifierlibrary.utils.io.NestedZipFileSystem;
 
 /**
  * Abstract class for a committed file
@@ -118,20 +119,20 @@ public class FileCommit {
 	}
 
 	/**
-	 * All file commits will need to read their zip file
+	 * All file commits will need to read their zip file. The contents of a
+	 * generic file commit are consumed by file based readers so the inner zip
+	 * file is extracted, once per process, into the scratch directory of the
+	 * <code>NestedZipFileSystem</code> rather than next to the attachment
 	 * 
 	 * @return true if the file was read successfully
 	 */
 	public boolean readZipFile() {
 		try {
-			logger.info("Extracting zip file: {}/{}", this.getAttachmentFilePath(), this.message.getFileName());
+			logger.info("Reading zip file: {}/{}", this.getAttachmentFilePath(), this.message.getFileName());
 			
 			// get filename from the message
 			String outerZip = this.getAttachmentFilePath();
-			String extractedOuterZipPath = IOUtils.extractZipFile(outerZip);
-
-			String innerZip = IOUtils.join(extractedOuterZipPath, this.message.getFileName());
-			String extractedInnerZipPath = IOUtils.extractZipFile(innerZip);
+			String innerZip = this.message.getFileName();
 
 			// check the extension of the filename
 			if (!IOUtils.checkExtension(FileType.ZIP, outerZip)) {
@@ -145,7 +146,7 @@ public class FileCommit {
 				return false;
 			}
 			
-			this.mixDataPath = extractedInnerZipPath;
+			this.mixDataPath = NestedZipFileSystem.getInstance().extractArchive(outerZip, innerZip).getPath();
 			
 		} catch (IOException e) {
 			logger.error("There was a problem reading the file commit data from the commits data in the zip file", e);
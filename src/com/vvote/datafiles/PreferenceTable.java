@@ -0,0 +1,272 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.datafiles;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.vvote.messages.fields.MessageFields;
+
+/**
+ * Holds rows of preferences, such as the preferences cast for a race or a
+ * ballot output by the mixnet, as primitive values in a single flat array.
+ * Each row is a contiguous range of the array holding the preference given
+ * to each candidate position, or {@link #BLANK} if the position was left
+ * blank. Rows are only ever appended.
+ *
+ * The table is not synchronized. It can be read by many threads once it is
+ * no longer being modified
+ *
+ * @author James Rumble
+ *
+ */
+public final class PreferenceTable {
+
+	/**
+	 * The value held for a blank preference. Preferences start from 1
+	 */
+	public static final short BLANK = 0;
+
+	/**
+	 * The maximum number of preferences in a row
+	 */
+	public static final int MAX_ROW_LENGTH = 0xFFFF;
+
+	/**
+	 * The preferences of every row
+	 */
+	private short[] preferences;
+
+	/**
+	 * The start of each row in the preferences array followed by the end of
+	 * the last row
+	 */
+	private int[] rowStarts;
+
+	/**
+	 * The number of rows held
+	 */
+	private int rows = 0;
+
+	/**
+	 * The length of the longest row
+	 */
+	private int maxLength = 0;
+
+	/**
+	 * Constructor for an empty <code>PreferenceTable</code>
+	 */
+	public PreferenceTable() {
+		this.preferences = new short[256];
+		this.rowStarts = new int[17];
+	}
+
+	/**
+	 * Parses a single preference
+	 *
+	 * @param preference
+	 * @return the preference or {@link #BLANK} if the preference is blank
+	 * @throws NumberFormatException
+	 *             if the preference is not blank and not a number between 1
+	 *             and <code>Short.MAX_VALUE</code>
+	 */
+	public static short parsePreference(String preference) {
+		if (preference.length() == 0 || preference.equals(MessageFields.VoteMessage.PREFERENCE_IS_BLANK)) {
+			return BLANK;
+		}
+
+		int value = Integer.parseInt(preference);
+
+		if (value < 1 || value > Short.MAX_VALUE) {
+			throw new NumberFormatException("Preference out of range: " + preference);
+		}
+
+		return (short) value;
+	}
+
+	/**
+	 * Appends a row of preferences
+	 *
+	 * @param rowPreferences
+	 * @return the index of the new row
+	 * @throws NumberFormatException
+	 *             if any of the preferences cannot be parsed
+	 */
+	public int addRow(List<String> rowPreferences) {
+		int length = rowPreferences.size();
+
+		if (length > MAX_ROW_LENGTH) {
+			throw new IllegalArgumentException("A row cannot hold more than " + MAX_ROW_LENGTH + " preferences: " + length);
+		}
+
+		int start = this.rowStarts[this.rows];
+
+		if (start + length > this.preferences.length) {
+			this.preferences = Arrays.copyOf(this.preferences, Math.max(this.preferences.length * 2, start + length));
+		}
+
+		for (int i = 0; i < length; i++) {
+			this.preferences[start + i] = parsePreference(rowPreferences.get(i));
+		}
+
+		if (this.rows + 2 > this.rowStarts.length) {
+			this.rowStarts = Arrays.copyOf(this.rowStarts, this.rowStarts.length * 2);
+		}
+
+		this.rowStarts[++this.rows] = start + length;
+		this.maxLength = Math.max(this.maxLength, length);
+
+		return this.rows - 1;
+	}
+
+	/**
+	 * Checks that a row exists
+	 *
+	 * @param row
+	 */
+	private void checkRow(int row) {
+		if (row < 0 || row >= this.rows) {
+			throw new IndexOutOfBoundsException("Row: " + row + ", rows: " + this.rows);
+		}
+	}
+
+	/**
+	 * Gets the end of a row in the flat preferences
+	 *
+	 * @param row
+	 * @return the position after the last preference of the row
+	 */
+	public int end(int row) {
+		this.checkRow(row);
+		return this.rowStarts[row + 1];
+	}
+
+	/**
+	 * Gets a preference from the flat preferences
+	 *
+	 * @param position
+	 *            a position between <code>start(row)</code> and
+	 *            <code>end(row)</code> for some row
+	 * @return the preference or {@link #BLANK}
+	 */
+	public short get(int position) {
+		if (position < 0 || position >= this.rowStarts[this.rows]) {
+			throw new IndexOutOfBoundsException("Position: " + position + ", size: " + this.rowStarts[this.rows]);
+		}
+		return this.preferences[position];
+	}
+
+	/**
+	 * Gets the length of the longest row, which is the size needed for the
+	 * array passed to {@link #order(int, int[])}
+	 *
+	 * @return the length of the longest row
+	 */
+	public int getMaxLength() {
+		return this.maxLength;
+	}
+
+	/**
+	 * Gets the number of preferences in a row including blank preferences
+	 *
+	 * @param row
+	 * @return the length of the row
+	 */
+	public int length(int row) {
+		this.checkRow(row);
+		return this.rowStarts[row + 1] - this.rowStarts[row];
+	}
+
+	/**
+	 * Orders the candidate positions of a row by preference. The positions,
+	 * relative to the start of the row, of each preference which is not blank
+	 * are written to the provided array in preference order. If the same
+	 * preference was given to more than one position only the last of those
+	 * positions is kept
+	 *
+	 * @param row
+	 * @param order
+	 *            an array at least as long as the row which is also used as
+	 *            the working space for the sort
+	 * @return the number of positions written
+	 */
+	public int order(int row, int[] order) {
+		int end = this.end(row);
+		int start = this.rowStarts[row];
+
+		if (order.length < end - start) {
+			throw new IllegalArgumentException("The order array must be at least as long as the row: " + (end - start));
+		}
+
+		int count = 0;
+
+		// pack preference and position into a single int so a primitive sort
+		// orders by preference and then by position
+		for (int position = start; position < end; position++) {
+			if (this.preferences[position] != BLANK) {
+				order[count++] = (this.preferences[position] << 16) | (position - start);
+			}
+		}
+
+		Arrays.sort(order, 0, count);
+
+		int distinct = 0;
+
+		for (int i = 0; i < count; i++) {
+			if (i + 1 < count && (order[i] >>> 16) == (order[i + 1] >>> 16)) {
+				continue;
+			}
+			order[distinct++] = order[i] & 0xFFFF;
+		}
+
+		return distinct;
+	}
+
+	/**
+	 * Getter for the number of rows
+	 *
+	 * @return the number of rows
+	 */
+	public int size() {
+		return this.rows;
+	}
+
+	/**
+	 * Gets the start of a row in the flat preferences
+	 *
+	 * @param row
+	 * @return the position of the first preference of the row
+	 */
+	public int start(int row) {
+		this.checkRow(row);
+		return this.rowStarts[row];
+	}
+
+	/**
+	 * Releases any unused capacity once all rows have been added
+	 */
+	public void trimToSize() {
+		this.preferences = Arrays.copyOf(this.preferences, this.rowStarts[this.rows]);
+		this.rowStarts = Arrays.copyOf(this.rowStarts, this.rows + 1);
+	}
+
+	@Override
+	public String toString() {
+		return "PreferenceTable [rows=" + this.rows + ", preferences=" + this.rowStarts[this.rows] + "]";
+	}
+}
@@ -17,29 +17,29 @@
  */
 package com.vvote.datafiles.commits.auditcommit;
 
-import java.io.BufferedReader;
-import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Scanner;
+import java.io.InputStream;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.vvote.datafiles.FileCommit;
 import com.vvote.datafiles.exceptions.BallotAuditCommitException;
-import com.vvote.datafiles.exceptions.BallotGenCommitException;
 import com.vvote.datafiles.exceptions.FileCommitException;
 import com.vvote.messages.typed.file.BallotAuditCommitMessage;
 import com.vvote.thirdparty.json.orgjson.JSONException;
 import com.vvote.verifierlibrary.exceptions.JSONIOException;
+import com.vvote.verifierlibrary.utils.io.FileRegion;
 import com.vvote.verifierlibrary.utils.io.FileType;
 import com.vvote.verifierlibrary.utils.io.IOUtils;
+import com.vvote.verifierlibrary.utils.io.IndexedLineReader;
+import com.vvote.verifierlibrary.utils.io.NestedZipFileSystem;
+import com.vvote.verifierlibrary.utils.io.SerialNumberIndex;
+import com.vvote.verifierlibrary.utils.logging.ResultsLogger;
 
 /**
  * Provides a representation for a ballot audit commitment
@@ -57,7 +57,7 @@ public final class BallotAuditCommit extends FileCommit {
 	/**
 	 * Provides logging for the actual results produced in the verifier
 	 */
-	private static final Logger resultsLogger = LoggerFactory.getLogger("results");
+	private static final Logger resultsLogger = ResultsLogger.getLogger(BallotAuditCommit.class);
 
 	/**
 	 * The ballot audit commit message
@@ -80,22 +80,25 @@ public final class BallotAuditCommit extends FileCommit {
 	private final String ballotSubmitResponseFilename;
 	
 	/**
-	 * the audit data file path
+	 * The region holding the audit data file
 	 */
-	private String auditFilePath;
-	
+	private FileRegion auditFileRegion;
+
 	/**
-	 * Ballot submit response file path
+	 * Index of serial number : location of the randomness commitments inside
+	 * the audit data file
 	 */
-	private String ballotSubmitResponseFilePath;
+	private SerialNumberIndex auditIndex = null;
 
 	/**
 	 * Holds a map of serialNo : opened commitments to the randomness values
-	 * received from each mix server. Each BallotGenerationRandomness object
-	 * contains a list of opened commitments therefore each serial number
-	 * relates to a list of lists of opened randomness commitments
+	 * received from each mix server for the records currently loaded. Each
+	 * BallotGenerationRandomness object contains a list of opened commitments
+	 * therefore each serial number relates to a list of lists of opened
+	 * randomness commitments. Records are loaded and freed concurrently when
+	 * ballots are verified in parallel
 	 */
-	private final Map<String, BallotGenerationRandomness> randomnessCommitments;
+	private final ConcurrentMap<String, BallotGenerationRandomness> randomnessCommitments;
 
 	/**
 	 * Constructor for a ballot audit commit
@@ -133,7 +136,7 @@ public final class BallotAuditCommit extends FileCommit {
 			throw new BallotAuditCommitException("A BallotAuditCommit object must be provided with a ballot submit response filename");
 		}
 
-		this.randomnessCommitments = new HashMap<String, BallotGenerationRandomness>();
+		this.randomnessCommitments = new ConcurrentHashMap<String, BallotGenerationRandomness>();
 		if (!this.readZipFile()) {
 			logger.error("There was a problem reading the zip file attachment for the current BallotAuditCommitMessage object");
 			throw new BallotAuditCommitException("There was a problem reading the zip file attachment for the current BallotAuditCommitMessage object");
@@ -150,12 +153,13 @@ public final class BallotAuditCommit extends FileCommit {
 	}
 	
 	/**
-	 * Getter for the set of randomness commitment serial numbers
+	 * Getter for the set of randomness commitment serial numbers. Fixed once
+	 * the audit data file has been read
 	 * 
-	 * @return randomnessCommitments serial numbers
+	 * @return randomnessCommitments serial numbers in sorted order
 	 */
 	public final Set<String> getRandomnessCommitmentSerialNumbers() {
-		return Collections.unmodifiableSet(this.randomnessCommitments.keySet());
+		return this.auditIndex.getSerialNumbers();
 	}
 
 	/**
@@ -172,12 +176,12 @@ public final class BallotAuditCommit extends FileCommit {
 	 * file contains the opened commitments to the randomness values used for
 	 * encryption by the PoD Printers.
 	 * 
-	 * @param filename
+	 * @param region
 	 * 
 	 * @return true if the ballot generation audit file has been loaded
 	 *         successfully
 	 */
-	private boolean loadBallotGenerationAuditFile(String filename) {
+	private boolean loadBallotGenerationAuditFile(FileRegion region) {
 
 		if (this.randomnessCommitments != null) {
 			logger.debug("Loading in the ballot generation audit file");
@@ -187,7 +191,9 @@ public final class BallotAuditCommit extends FileCommit {
 			// Creates a representation for each line of the file
 			BallotGenerationRandomness currentPODRandomnessCommitment = null;
 
-			try (BufferedReader ballotGenerationAuditFileReader = new BufferedReader(new FileReader(filename))) {
+			this.auditIndex = new SerialNumberIndex(region);
+
+			try (IndexedLineReader ballotGenerationAuditFileReader = new IndexedLineReader(region.openStream())) {
 				// loop over each line of the ballotsGenAudit file
 				while ((line = ballotGenerationAuditFileReader.readLine()) != null) {
 					// each line is represented by a BallotGenerationRandomness
@@ -196,7 +202,7 @@ public final class BallotAuditCommit extends FileCommit {
 
 					// add each BallotGenerationRandomness object for easy
 					// access
-					this.randomnessCommitments.put(currentPODRandomnessCommitment.getSerialNo(), null);
+					this.auditIndex.add(currentPODRandomnessCommitment.getSerialNo(), ballotGenerationAuditFileReader);
 					
 					currentPODRandomnessCommitment = null;
 				}
@@ -222,7 +228,7 @@ public final class BallotAuditCommit extends FileCommit {
 	
 	/**
 	 * Gets a specific randomness commitment and loads it if has not already been
-	 * loaded
+	 * loaded. Safe to call from multiple threads
 	 * 
 	 * @param serialNo
 	 * @return a randomness commitment
@@ -231,77 +237,71 @@ public final class BallotAuditCommit extends FileCommit {
 
 		logger.debug("Getting committed ballot cipher: {}", serialNo);
 
-		BallotGenerationRandomness randomness = null;
-
-		if (this.randomnessCommitments.containsKey(serialNo)) {
-			randomness = this.randomnessCommitments.get(serialNo);
+		if (this.auditIndex.contains(serialNo)) {
+			BallotGenerationRandomness randomness = this.randomnessCommitments.get(serialNo);
 
 			if (randomness == null) {
 
 				logger.debug("Loading randomness commit from file: {}", serialNo);
 
 				try {
-					this.loadRandomness(serialNo);
-				} catch (JSONException | FileNotFoundException | BallotAuditCommitException e) {
+					randomness = this.loadRandomness(serialNo);
+				} catch (JSONException | IOException | BallotAuditCommitException e) {
 					logger.error("There was a problem reading the randomness generation data and getting the requested serial number: {}", serialNo);
 					return null;
 				}
+
+				if (randomness != null) {
+					// another thread may have loaded the same record
+					BallotGenerationRandomness existing = this.randomnessCommitments.putIfAbsent(serialNo, randomness);
+
+					if (existing != null) {
+						randomness = existing;
+					}
+				}
 			}
 
-			return this.randomnessCommitments.get(serialNo);
+			return randomness;
 		}
 		return null;
 	}
 
 	/**
-	 * Loads a specific randomness commitment from file
+	 * Loads a specific randomness commitment from file using the index built
+	 * when the audit data file was first read
 	 * 
 	 * @param serialNo
+	 * @return the randomness commitment or null if it could not be found
 	 * @throws JSONException
-	 * @throws BallotGenCommitException
-	 * @throws FileNotFoundException
-	 * @throws BallotAuditCommitException 
+	 * @throws IOException
+	 * @throws BallotAuditCommitException
 	 */
-	private void loadRandomness(String serialNo) throws JSONException, FileNotFoundException, BallotAuditCommitException {
-
-		try (Scanner scanner = new Scanner(new File(this.auditFilePath))) {
-
-			String line = null;
-
-			BallotGenerationRandomness randomness = null;
+	private BallotGenerationRandomness loadRandomness(String serialNo) throws JSONException, IOException, BallotAuditCommitException {
 
-			while (scanner.hasNextLine()) {
-				line = scanner.nextLine();
-				if (line.contains(serialNo)) {
-					randomness = new BallotGenerationRandomness(line);
+		String line = this.auditIndex.readLine(serialNo);
 
-					this.randomnessCommitments.put(randomness.getSerialNo(), randomness);
-					break;
-				}
-			}
-
-			scanner.close();
+		if (line != null) {
+			return new BallotGenerationRandomness(line);
 		}
+
+		return null;
 	}
 
 	/**
-	 * Helper method to read the contents of the file submission data
+	 * Helper method to read the contents of the file submission data. The audit
+	 * data and ballot submit response files are read directly from the inner
+	 * zip file held inside the attachment zip file without extracting either of
+	 * them
 	 */
 	@Override
 	public boolean readZipFile() {
 
 		try {
-			logger.info("Extracting zip file: {}/{}", this.getAttachmentFilePath(), this.message.getFileName());
-			
+			logger.info("Reading zip file: {}/{}", this.getAttachmentFilePath(), this.message.getFileName());
+
 			// get filename from the message
 			String outerZip = this.getAttachmentFilePath();
-			String extractedOuterZipPath = IOUtils.extractZipFile(outerZip);
-
-			String innerZip = IOUtils.join(extractedOuterZipPath, this.message.getFileName());
-			String extractedInnerZipPath = IOUtils.extractZipFile(innerZip);
-
-			this.auditFilePath = IOUtils.join(extractedInnerZipPath, this.auditDataFilename);
-			this.ballotSubmitResponseFilePath = IOUtils.join(extractedInnerZipPath, this.ballotSubmitResponseFilename);
+			String innerZip = this.message.getFileName();
 
 			// check the extension of the filename
 			if (!IOUtils.checkExtension(FileType.ZIP, outerZip)) {
@@ -315,25 +315,31 @@ public final class BallotAuditCommit extends FileCommit {
 				return false;
 			}
 
+			NestedZipFileSystem zipFileSystem = NestedZipFileSystem.getInstance();
+
+			this.auditFileRegion = zipFileSystem.getEntryRegion(outerZip, innerZip, this.auditDataFilename);
+
 			// verify the filesize of the attachment
-			long fileSize = new File(innerZip).length();
+			long fileSize = zipFileSystem.getEntrySize(outerZip, innerZip);
 
 			if (this.message.getFilesize() != fileSize) {
-				logger.error("The zip folder's size did not match the size included in the ballot audit commit message: {}, expected size: {}, actual size: {}", extractedInnerZipPath,
+				logger.error("The zip folder's size did not match the size included in the ballot audit commit message: {}, expected size: {}, actual size: {}", innerZip,
 						this.message.getFilesize(), fileSize);
-				resultsLogger.error("The zip folder's size did not match the size included in the ballot audit commit message: {}, expected size: {}, actual size: {}", extractedInnerZipPath,
+				resultsLogger.error("The zip folder's size did not match the size included in the ballot audit commit message: {}, expected size: {}, actual size: {}", innerZip,
 						this.message.getFilesize(), fileSize);
 			}
 
-			if (!this.loadBallotGenerationAuditFile(this.auditFilePath)) {
-				logger.error("There was a problem reading the audit data from the unzipped directory");
+			if (!this.loadBallotGenerationAuditFile(this.auditFileRegion)) {
+				logger.error("There was a problem reading the audit data from the zip file");
 				return false;
 			}
 
-			this.response = new BallotSubmitResponse(IOUtils.readJSONObjectFromFile(this.ballotSubmitResponseFilePath));
+			try (InputStream responseStream = zipFileSystem.openEntry(outerZip, innerZip, this.ballotSubmitResponseFilename)) {
+				this.response = new BallotSubmitResponse(IOUtils.readJSONObjectFromStream(responseStream, this.ballotSubmitResponseFilename));
+			}
 
 			if (this.response == null) {
-				logger.error("There was a problem reading the ballot submit response data file from the commits data in the zip file: {}", this.ballotSubmitResponseFilePath);
+				logger.error("There was a problem reading the ballot submit response data file from the commits data in the zip file: {}", this.ballotSubmitResponseFilename);
 				return false;
 			}
 
@@ -362,8 +368,6 @@ public final class BallotAuditCommit extends FileCommit {
 	 * @param serialNo
 	 */
 	public void freeRandomnessCommit(String serialNo) {
-		if (this.randomnessCommitments.containsKey(serialNo)) {
-			this.randomnessCommitments.put(serialNo, null);
-		}
+		this.randomnessCommitments.remove(serialNo);
 	}
 }
@@ -17,16 +17,11 @@
  */
 package com.vvote.datafiles.commits.gencommit;
 
-import java.io.BufferedReader;
-import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.Collections;
-import java.util.Map;
-import java.util.Scanner;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,9 +31,14 @@ import com.vvote.datafiles.exceptions.BallotGenCommitException;
 import com.vvote.datafiles.exceptions.FileCommitException;
 import com.vvote.messages.typed.file.BallotGenCommitMessage;
 import com.vvote.thirdparty.json.orgjson.JSONException;
-import com.vvote.verifierlibrary.utils.comparators.BallotSerialNumberComparator;
+import com.vvote.verifierlibrary.utils.crypto.CurveContext;
+import com.vvote.verifierlibrary.utils.io.FileRegion;
 import com.vvote.verifierlibrary.utils.io.FileType;
 import com.vvote.verifierlibrary.utils.io.IOUtils;
+import com.vvote.verifierlibrary.utils.io.IndexedLineReader;
+import com.vvote.verifierlibrary.utils.io.NestedZipFileSystem;
+import com.vvote.verifierlibrary.utils.io.SerialNumberIndex;
+import com.vvote.verifierlibrary.utils.logging.ResultsLogger;
 
 /**
  * Provides a representation for a ballot gen commitment
@@ -56,7 +56,7 @@ public final class BallotGenCommit extends FileCommit {
 	/**
 	 * Provides logging for the actual results produced in the verifier
 	 */
-	private static final Logger resultsLogger = LoggerFactory.getLogger("results");
+	private static final Logger resultsLogger = ResultsLogger.getLogger(BallotGenCommit.class);
 
 	/**
 	 * The ballot gen commit message
@@ -65,9 +65,10 @@ public final class BallotGenCommit extends FileCommit {
 
 	/**
 	 * A map of serial number to a committed ballot sent and stored on the
-	 * public WBB
+	 * public WBB for the ballots currently loaded. Ballots are loaded and
+	 * freed concurrently when ballots are verified in parallel
 	 */
-	private final Map<String, CommittedBallot> committedBallots;
+	private final ConcurrentMap<String, CommittedBallot> committedBallots;
 
 	/**
 	 * Ciphers data file name
@@ -75,9 +76,20 @@ public final class BallotGenCommit extends FileCommit {
 	private final String ciphersDataFilename;
 
 	/**
-	 * The path to the ciphers data file
+	 * The curve the committed ballot ciphers lie on
 	 */
-	private String ciphersDataFilePath = null;
+	private final CurveContext curveContext;
+
+	/**
+	 * The region holding the ciphers data file
+	 */
+	private FileRegion ciphersDataRegion = null;
+
+	/**
+	 * Index of serial number : location of the committed ballot inside the
+	 * ciphers data file
+	 */
+	private SerialNumberIndex ciphersIndex = null;
 
 	/**
 	 * Constructor for a ballot gen commit
@@ -85,10 +97,11 @@ public final class BallotGenCommit extends FileCommit {
 	 * @param message
 	 * @param attachmentFilePath
 	 * @param ciphersDataFilename
+	 * @param curveContext
 	 * @throws BallotGenCommitException
 	 * @throws FileCommitException
 	 */
-	public BallotGenCommit(BallotGenCommitMessage message, String attachmentFilePath, String ciphersDataFilename) throws BallotGenCommitException, FileCommitException {
+	public BallotGenCommit(BallotGenCommitMessage message, String attachmentFilePath, String ciphersDataFilename, CurveContext curveContext) throws BallotGenCommitException, FileCommitException {
 		super(attachmentFilePath);
 		logger.debug("Creating a new BallotGenCommit object");
 
@@ -106,7 +119,14 @@ public final class BallotGenCommit extends FileCommit {
 			throw new BallotGenCommitException("A BallotGenCommit object must be provided with the name of the file to find inside the zip file");
 		}
 
-		this.committedBallots = new TreeMap<String, CommittedBallot>(new BallotSerialNumberComparator());
+		if (curveContext != null) {
+			this.curveContext = curveContext;
+		} else {
+			logger.error("A BallotGenCommit object must be provided with the curve used for the ciphers");
+			throw new BallotGenCommitException("A BallotGenCommit object must be provided with the curve used for the ciphers");
+		}
+
+		this.committedBallots = new ConcurrentHashMap<String, CommittedBallot>();
 
 		if (!this.readZipFile()) {
 			logger.error("There was a problem reading the zip file attachment for the current BallotGenCommitMessage object");
@@ -115,21 +135,22 @@ public final class BallotGenCommit extends FileCommit {
 	}
 
 	/**
-	 * Getter for the file path of the ciphers data file
+	 * Getter for the region holding the ciphers data file
 	 * 
-	 * @return location of ciphersDataFilePath
+	 * @return ciphersDataRegion
 	 */
-	public final String getCiphersDataFilePath() {
-		return this.ciphersDataFilePath;
+	public final FileRegion getCiphersDataRegion() {
+		return this.ciphersDataRegion;
 	}
 
 	/**
-	 * Getter for the map of committed ballots
+	 * Getter for the serial numbers of the committed ballots held in the
+	 * ciphers data file. Fixed once the ciphers data file has been read
 	 * 
-	 * @return committedBallots
+	 * @return the serial numbers in sorted order
 	 */
 	public final Set<String> getCommittedBallotsSerialNumbers() {
-		return Collections.unmodifiableSet(this.committedBallots.keySet());
+		return this.ciphersIndex.getSerialNumbers();
 	}
 
 	/**
@@ -145,25 +166,27 @@ public final class BallotGenCommit extends FileCommit {
 	 * loads in the ciphers computed by POD printers which a number of are to be
 	 * verified. There will be many more ciphers present than are to be verified
 	 * 
-	 * @param filename
+	 * @param region
 	 * @return true if the ciphers are loaded correctly
 	 * @throws BallotGenCommitException
 	 */
-	private boolean loadCommittedCiphers(String filename) throws BallotGenCommitException {
+	private boolean loadCommittedCiphers(FileRegion region) throws BallotGenCommitException {
 
 		if (this.committedBallots != null) {
-			logger.debug("Loading in the committed ballot ciphers data file: {}", filename);
+			logger.debug("Loading in the committed ballot ciphers data file: {}", region);
 
 			String line = null;
 
 			CommittedBallot ballot = null;
 
-			try (BufferedReader committedBallotFileReader = new BufferedReader(new FileReader(filename))) {
+			this.ciphersIndex = new SerialNumberIndex(region);
+
+			try (IndexedLineReader committedBallotFileReader = new IndexedLineReader(region.openStream())) {
 				while ((line = committedBallotFileReader.readLine()) != null) {
 
-					ballot = new CommittedBallot(line);
+					ballot = new CommittedBallot(line, this.curveContext);
 
-					this.committedBallots.put(ballot.getSerialNo(), null);
+					this.ciphersIndex.add(ballot.getSerialNo(), committedBallotFileReader);
 
 					ballot = null;
 				}
@@ -186,22 +209,19 @@ public final class BallotGenCommit extends FileCommit {
 	}
 
 	/**
-	 * Helper method to read the contents of the file submission data
+	 * Helper method to read the contents of the file submission data. The
+	 * ciphers data file is read directly from the inner zip file held inside
+	 * the attachment zip file without extracting either of them
 	 */
 	@Override
 	public boolean readZipFile() {
 
 		try {
-			logger.info("Extracting zip file: {}/{}", this.getAttachmentFilePath(), this.message.getFileName());
+			logger.info("Reading zip file: {}/{}", this.getAttachmentFilePath(), this.message.getFileName());
 
 			// get filename from the message
 			String outerZip = this.getAttachmentFilePath();
-			String extractedOuterZipPath = IOUtils.extractZipFile(outerZip);
-
-			String innerZip = IOUtils.join(extractedOuterZipPath, this.message.getFileName());
-			String extractedInnerZipPath = IOUtils.extractZipFile(innerZip);
-
-			this.ciphersDataFilePath = IOUtils.join(extractedInnerZipPath, this.ciphersDataFilename);
+			String innerZip = this.message.getFileName();
 
 			// check the extension of the filename
 			if (!IOUtils.checkExtension(FileType.ZIP, outerZip)) {
@@ -215,17 +235,21 @@ public final class BallotGenCommit extends FileCommit {
 				return false;
 			}
 
+			NestedZipFileSystem zipFileSystem = NestedZipFileSystem.getInstance();
+
+			this.ciphersDataRegion = zipFileSystem.getEntryRegion(outerZip, innerZip, this.ciphersDataFilename);
+
 			// verify the filesize of the attachment
-			long fileSize = new File(innerZip).length();
+			long fileSize = zipFileSystem.getEntrySize(outerZip, innerZip);
 
 			if (this.message.getFilesize() != fileSize) {
-				logger.error("The zip folder's size did not match the size included in the ballot gen commit message: {}, expected size: {}, actual size: {}", this.ciphersDataFilePath,
+				logger.error("The zip folder's size did not match the size included in the ballot gen commit message: {}, expected size: {}, actual size: {}", innerZip,
 						this.message.getFilesize(), fileSize);
-				resultsLogger.error("The zip folder's size did not match the size included in the ballot gen commit message: {}, expected size: {}, actual size: {}", this.ciphersDataFilePath,
+				resultsLogger.error("The zip folder's size did not match the size included in the ballot gen commit message: {}, expected size: {}, actual size: {}", innerZip,
 						this.message.getFilesize(), fileSize);
 			}
 
-			if (!this.loadCommittedCiphers(this.ciphersDataFilePath)) {
+			if (!this.loadCommittedCiphers(this.ciphersDataRegion)) {
 				return false;
 			}
 		} catch (IOException e) {
@@ -241,13 +265,13 @@ public final class BallotGenCommit extends FileCommit {
 
 	@Override
 	public String toString() {
-		return "BallotGenCommit [message=" + this.message + ", committedBallots=" + this.committedBallots + ", ciphersDataFilename=" + this.ciphersDataFilename + ", ciphersDataFilePath="
-				+ this.ciphersDataFilePath + "]";
+		return "BallotGenCommit [message=" + this.message + ", committedBallots=" + this.committedBallots + ", ciphersDataFilename=" + this.ciphersDataFilename + ", ciphersDataRegion="
+				+ this.ciphersDataRegion + "]";
 	}
 
 	/**
 	 * Gets a specific generic ballot and loads it if has not already been
-	 * loaded
+	 * loaded. Safe to call from multiple threads
 	 * 
 	 * @param serialNo
 	 * @return a specific generic ballot
@@ -256,56 +280,54 @@ public final class BallotGenCommit extends FileCommit {
 
 		logger.debug("Getting committed ballot cipher: {}", serialNo);
 
-		CommittedBallot ballot = null;
-
-		if (this.committedBallots.containsKey(serialNo)) {
-			ballot = this.committedBallots.get(serialNo);
+		if (this.ciphersIndex.contains(serialNo)) {
+			CommittedBallot ballot = this.committedBallots.get(serialNo);
 
 			if (ballot == null) {
 
 				logger.debug("Loading committed ballot cipher from file: {}", serialNo);
 
 				try {
-					this.loadBallot(serialNo);
-				} catch (JSONException | BallotGenCommitException | FileNotFoundException e) {
+					ballot = this.loadBallot(serialNo);
+				} catch (JSONException | BallotGenCommitException | IOException e) {
 					logger.error("There was a problem reading the ballot generation data and getting the requested serial number: {}", serialNo);
 					return null;
 				}
+
+				if (ballot != null) {
+					// another thread may have loaded the same ballot
+					CommittedBallot existing = this.committedBallots.putIfAbsent(serialNo, ballot);
+
+					if (existing != null) {
+						ballot = existing;
+					}
+				}
 			}
 
-			return this.committedBallots.get(serialNo);
+			return ballot;
 		}
 		return null;
 	}
 
 	/**
-	 * Loads a specific generic ballot from file
+	 * Loads a specific generic ballot from file using the index built when the
+	 * ciphers data file was first read
 	 * 
 	 * @param serialNo
+	 * @return the committed ballot or null if it could not be found
 	 * @throws JSONException
 	 * @throws BallotGenCommitException
-	 * @throws FileNotFoundException
+	 * @throws IOException
 	 */
-	private void loadBallot(String serialNo) throws JSONException, BallotGenCommitException, FileNotFoundException {
-
-		try (Scanner scanner = new Scanner(new File(this.ciphersDataFilePath))) {
-
-			String line = null;
-
-			CommittedBallot ballot = null;
-
-			while (scanner.hasNextLine()) {
-				line = scanner.nextLine();
-				if (line.contains(serialNo)) {
-					ballot = new CommittedBallot(line);
+	private CommittedBallot loadBallot(String serialNo) throws JSONException, BallotGenCommitException, IOException {
 
-					this.committedBallots.put(ballot.getSerialNo(), ballot);
-					break;
-				}
-			}
+		String line = this.ciphersIndex.readLine(serialNo);
 
-			scanner.close();
+		if (line != null) {
+			return new CommittedBallot(line, this.curveContext);
 		}
+
+		return null;
 	}
 
 	/**
@@ -314,8 +336,6 @@ public final class BallotGenCommit extends FileCommit {
 	 * @param serialNumber
 	 */
 	public void freeCommittedBallot(String serialNumber) {
-		if (this.committedBallots.containsKey(serialNumber)) {
-			this.committedBallots.put(serialNumber, null);
-		}
+		this.committedBallots.remove(serialNumber);
 	}
 }
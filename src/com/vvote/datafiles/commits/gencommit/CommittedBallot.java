@@ -30,6 +30,7 @@ import com.vvote.ec.ElGamalECPoint;
 import com.vvote.thirdparty.json.orgjson.JSONArray;
 import com.vvote.thirdparty.json.orgjson.JSONException;
 import com.vvote.thirdparty.json.orgjson.JSONObject;
+import com.vvote.verifierlibrary.utils.crypto.CurveContext;
 import com.vvote.verifierlibrary.utils.crypto.ECUtils;
 
 /**
@@ -70,12 +71,14 @@ public class CommittedBallot {
 
 	/**
 	 * Constructor for a CommittedBallot from a JSON object. Sets the
-	 * appropriate variable and constructs the list of ElGamalECPoint's.
+	 * appropriate variable and constructs the list of ElGamalECPoint's on the
+	 * curve of the provided context.
 	 * 
 	 * @param json
+	 * @param context
 	 * @throws BallotGenCommitException
 	 */
-	private CommittedBallot(JSONObject json) throws BallotGenCommitException {
+	private CommittedBallot(JSONObject json, CurveContext context) throws BallotGenCommitException {
 
 		//logger.debug("Creating a new committed ballot object: {}", json);
 
@@ -90,7 +93,7 @@ public class CommittedBallot {
 			// array
 			for (int i = 0; i < ciphersArray.length(); i++) {
 
-				this.ciphers.add(ECUtils.constructElGamalECPointFromJSON(ciphersArray.getJSONObject(i)));
+				this.ciphers.add(ECUtils.constructElGamalECPointFromJSON(context, ciphersArray.getJSONObject(i)));
 			}
 		} catch (JSONException e) {
 			logger.error("Unable to create a CommittedBallot. Error: {}", e);
@@ -103,11 +106,12 @@ public class CommittedBallot {
 	 * a JSONObject and passes the CommittedBallot(JSONObject json) constructor.
 	 * 
 	 * @param string
+	 * @param context
 	 * @throws JSONException
 	 * @throws BallotGenCommitException
 	 */
-	public CommittedBallot(String string) throws JSONException, BallotGenCommitException {
-		this(new JSONObject(string));
+	public CommittedBallot(String string, CurveContext context) throws JSONException, BallotGenCommitException {
+		this(new JSONObject(string), context);
 	}
 
 	/**
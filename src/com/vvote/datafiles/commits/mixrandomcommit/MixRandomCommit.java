@@ -17,7 +17,6 @@
  */
 package com.vvote.datafiles.commits.mixrandomcommit;
 
-import java.io.File;
 import java.io.IOException;
 
 import org.slf4j.Logger;
@@ -27,8 +26,11 @@ import com.vvote.datafiles.FileCommit;
 import com.vvote.datafiles.exceptions.FileCommitException;
 import com.vvote.datafiles.exceptions.MixCommitException;
 import com.vvote.messages.typed.file.MixRandomCommitMessage;
+import com.vvote.verifierlibrary.utils.io.FileRegion;
 import com.vvote.verifierlibrary.utils.io.FileType;
 import com.vvote.verifierlibrary.utils.io.IOUtils;
+import com.vvote.verifierlibrary.utils.io.NestedZipFileSystem;
+import com.vvote.verifierlibrary.utils.logging.ResultsLogger;
 
 /**
  * Provides storage for both a mixrandomcommit message and its file
@@ -48,7 +50,7 @@ public final class MixRandomCommit extends FileCommit {
 	/**
 	 * Provides logging for the actual results produced in the verifier
 	 */
-	private static final Logger resultsLogger = LoggerFactory.getLogger("results");
+	private static final Logger resultsLogger = ResultsLogger.getLogger(MixRandomCommit.class);
 
 	/**
 	 * Stores the mixrandomcommit message
@@ -118,22 +120,19 @@ public final class MixRandomCommit extends FileCommit {
 	}
 
 	/**
-	 * Helper method to read the contents of the file submission data
+	 * Helper method to read the contents of the file submission data. The
+	 * commit data file is read directly from the inner zip file held inside the
+	 * attachment zip file without extracting either of them
 	 */
 	@Override
 	public boolean readZipFile() {
 		
 		try {
-			logger.info("Extracting zip file: {}/{}", this.getAttachmentFilePath(), this.message.getFileName());
+			logger.info("Reading zip file: {}/{}", this.getAttachmentFilePath(), this.message.getFileName());
 			
 			// get filename from the message
 			String outerZip = this.getAttachmentFilePath();
-			String extractedOuterZipPath = IOUtils.extractZipFile(outerZip);
-
-			String innerZip = IOUtils.join(extractedOuterZipPath, this.message.getFileName());
-			String extractedInnerZipPath = IOUtils.extractZipFile(innerZip);
-
-			String fileToRead = IOUtils.join(extractedInnerZipPath, this.commitDataFilename);
+			String innerZip = this.message.getFileName();
 
 			// check the extension of the filename
 			if (!IOUtils.checkExtension(FileType.ZIP, outerZip)) {
@@ -147,15 +146,19 @@ public final class MixRandomCommit extends FileCommit {
 				return false;
 			}
 
+			NestedZipFileSystem zipFileSystem = NestedZipFileSystem.getInstance();
+
+			FileRegion dataRegion = zipFileSystem.getEntryRegion(outerZip, innerZip, this.commitDataFilename);
+
 			// verify the filesize of the attachment
-			long fileSize = new File(innerZip).length();
+			long fileSize = zipFileSystem.getEntrySize(outerZip, innerZip);
 
 			if (this.message.getFilesize() != fileSize) {
-				logger.error("The zip folder's size did not match the size included in the mix random commit message: {}, expected size: {}, actual size: {}", fileToRead, this.message.getFilesize(), fileSize);
-				resultsLogger.error("The zip folder's size did not match the size included in the mix random commit message: {}, expected size: {}, actual size: {}", fileToRead, this.message.getFilesize(), fileSize);
+				logger.error("The zip folder's size did not match the size included in the mix random commit message: {}, expected size: {}, actual size: {}", innerZip, this.message.getFilesize(), fileSize);
+				resultsLogger.error("The zip folder's size did not match the size included in the mix random commit message: {}, expected size: {}, actual size: {}", innerZip, this.message.getFilesize(), fileSize);
 			}
 			
-			this.serverCommits = new RandomnessServerCommits(this.message.getBoothID(), fileToRead);
+			this.serverCommits = new RandomnessServerCommits(this.message.getBoothID(), dataRegion);
 			
 		} catch (IOException e) {
 			logger.error("There was a problem reading the mix commit data from the commits data in the zip file", e);
@@ -17,23 +17,20 @@
  */
 package com.vvote.datafiles.commits.mixrandomcommit;
 
-import java.io.BufferedReader;
-import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.Collections;
-import java.util.Map;
-import java.util.Scanner;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.vvote.datafiles.exceptions.MixCommitException;
 import com.vvote.thirdparty.json.orgjson.JSONException;
-import com.vvote.verifierlibrary.utils.comparators.BallotSerialNumberComparator;
+import com.vvote.verifierlibrary.utils.io.FileRegion;
+import com.vvote.verifierlibrary.utils.io.IndexedLineReader;
+import com.vvote.verifierlibrary.utils.io.SerialNumberIndex;
 
 /**
  * Holds all the commitments to randomness values made by a particular mix
@@ -60,45 +57,55 @@ public final class RandomnessServerCommits {
 	private final String serverName;
 
 	/**
-	 * File path for the specific server making commitments to randomness values
+	 * The region holding the commit data file for the specific server making
+	 * commitments to randomness values
 	 */
-	private final String filePath;
+	private final FileRegion dataRegion;
 
 	/**
-	 * Randomness commitments. SerialNo : MixRandomnessCommit (holds serial no,
-	 * randomness array)
+	 * Randomness commitments currently loaded. SerialNo : MixRandomnessCommit
+	 * (holds serial no, randomness array). Commitments are loaded and freed
+	 * concurrently when ballots are verified in parallel
 	 */
-	private final Map<String, MixCommitData> randomnessCommits;
+	private final ConcurrentMap<String, MixCommitData> randomnessCommits;
+
+	/**
+	 * Index of serial number : location of the randomness commitments inside
+	 * the commit data file
+	 */
+	private final SerialNumberIndex commitIndex;
 
 	/**
 	 * Constructor for a RandomnessServerCommits - takes in the server name and
-	 * server file path and then reads in the commitments to randomness values
-	 * itself
+	 * the region holding the server file and then reads in the commitments to
+	 * randomness values itself
 	 * 
 	 * @param serverName
-	 * @param filepath
+	 * @param dataRegion
 	 * @throws MixCommitException
 	 */
-	public RandomnessServerCommits(String serverName, String filepath) throws MixCommitException {
+	public RandomnessServerCommits(String serverName, FileRegion dataRegion) throws MixCommitException {
 
-		//logger.debug("Creating a new RandomnessServerCommits object: {}, {}", serverName, filepath);
+		//logger.debug("Creating a new RandomnessServerCommits object: {}, {}", serverName, dataRegion);
 
 		this.serverName = serverName;
-		this.filePath = filepath;
+		this.dataRegion = dataRegion;
 
-		this.randomnessCommits = new TreeMap<String, MixCommitData>(new BallotSerialNumberComparator());
+		this.randomnessCommits = new ConcurrentHashMap<String, MixCommitData>();
 
 		String line = null;
 		MixCommitData mixRandomnessCommit = null;
 
-		try (BufferedReader mixCommitReader = new BufferedReader(new FileReader(this.filePath))) {
+		this.commitIndex = new SerialNumberIndex(this.dataRegion);
+
+		try (IndexedLineReader mixCommitReader = new IndexedLineReader(this.dataRegion.openStream())) {
 			// loop through each line of each server file
 			while ((line = mixCommitReader.readLine()) != null) {
 				// create a separate mix randomness commit object for each
 				// line of each server file
 				mixRandomnessCommit = new MixCommitData(serverName, line);
 
-				this.randomnessCommits.put(mixRandomnessCommit.getSerialNo(), null);
+				this.commitIndex.add(mixRandomnessCommit.getSerialNo(), mixCommitReader);
 
 				mixRandomnessCommit = null;
 			}
@@ -118,12 +125,12 @@ public final class RandomnessServerCommits {
 	}
 
 	/**
-	 * Getter for the file path
+	 * Getter for the data region
 	 * 
-	 * @return the file path for the Randomness server commitment
+	 * @return the region holding the file for the Randomness server commitment
 	 */
-	public final String getFilePath() {
-		return this.filePath;
+	public final FileRegion getDataRegion() {
+		return this.dataRegion;
 	}
 
 	/**
@@ -137,65 +144,64 @@ public final class RandomnessServerCommits {
 
 		logger.debug("Getting mix random commit: {}", serialNo);
 
-		MixCommitData commit = null;
-
-		if (this.randomnessCommits.containsKey(serialNo)) {
-			commit = this.randomnessCommits.get(serialNo);
+		if (this.commitIndex.contains(serialNo)) {
+			MixCommitData commit = this.randomnessCommits.get(serialNo);
 
 			if (commit == null) {
 
 				logger.debug("Loading mix random commit data from file: {}", serialNo);
 
 				try {
-					this.loadCommit(serialNo);
-				} catch (JSONException | MixCommitException | FileNotFoundException e) {
+					commit = this.loadCommit(serialNo);
+				} catch (JSONException | MixCommitException | IOException e) {
 					logger.error("There was a problem reading the mix random commit data and getting the requested serial number: {}", serialNo);
 					return null;
 				}
+
+				if (commit != null) {
+					// another thread may have loaded the same commit
+					MixCommitData existing = this.randomnessCommits.putIfAbsent(serialNo, commit);
+
+					if (existing != null) {
+						commit = existing;
+					}
+				}
 			}
 
-			return this.randomnessCommits.get(serialNo);
+			return commit;
 		}
 		return null;
 	}
 
 	/**
-	 * Loads a specific mix random commit from file
+	 * Loads a specific mix random commit from file using the index built when
+	 * the commit data file was first read
 	 * 
 	 * @param serialNo
+	 * @return the mix random commit or null if it could not be found
 	 * @throws MixCommitException
 	 * @throws JSONException
-	 * @throws FileNotFoundException
+	 * @throws IOException
 	 */
-	private void loadCommit(String serialNo) throws JSONException, MixCommitException, FileNotFoundException {
-
-		try (Scanner scanner = new Scanner(new File(this.filePath))) {
+	private MixCommitData loadCommit(String serialNo) throws JSONException, MixCommitException, IOException {
 
-			String line = null;
+		String line = this.commitIndex.readLine(serialNo);
 
-			MixCommitData commit = null;
-
-			while (scanner.hasNextLine()) {
-				line = scanner.nextLine();
-				if (line.contains(serialNo)) {
-					commit = new MixCommitData(this.serverName, line);
-
-					this.randomnessCommits.put(commit.getSerialNo(), commit);
-					break;
-				}
-			}
-
-			scanner.close();
+		if (line != null) {
+			return new MixCommitData(this.serverName, line);
 		}
+
+		return null;
 	}
 
 	/**
-	 * Getter for an iterator over the MixRandomnessCommits
+	 * Getter for the serial numbers of the randomness commitments held in the
+	 * commit data file. Fixed once the file has been read
 	 * 
-	 * @return an unmodifiable version of the randomness commitments
+	 * @return the serial numbers in sorted order
 	 */
 	public final Set<String> getRandomnessCommitSerialNumbers() {
-		return Collections.unmodifiableSet(this.randomnessCommits.keySet());
+		return this.commitIndex.getSerialNumbers();
 	}
 
 	/**
@@ -216,12 +222,12 @@ public final class RandomnessServerCommits {
 	 *         has the random commits for the provided serial number
 	 */
 	public final boolean hasMixRandomCommit(String serialNo) {
-		return this.randomnessCommits.keySet().contains(serialNo);
+		return this.commitIndex.contains(serialNo);
 	}
 
 	@Override
 	public String toString() {
-		return "RandomnessServerCommits [serverName=" + this.serverName + ", filePath=" + this.filePath + ", randomnessCommits=" + this.randomnessCommits + "]";
+		return "RandomnessServerCommits [serverName=" + this.serverName + ", dataRegion=" + this.dataRegion + ", randomnessCommits=" + this.randomnessCommits + "]";
 	}
 
 	/**
@@ -229,8 +235,6 @@ public final class RandomnessServerCommits {
 	 * @param serialNumber
 	 */
 	public void freeMixRandomCommit(String serialNumber) {
-		if (this.randomnessCommits.containsKey(serialNumber)) {
-			this.randomnessCommits.put(serialNumber, null);
-		}
+		this.randomnessCommits.remove(serialNumber);
 	}
 }
@@ -0,0 +1,323 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.datafiles.commits.votes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vvote.datafiles.PreferenceTable;
+import com.vvote.datafiles.exceptions.VoteMessageCommitException;
+import com.vvote.messages.typed.vote.BallotPreferences;
+import com.vvote.messages.typed.vote.RacePreferences;
+import com.vvote.messages.typed.vote.RaceType;
+import com.vvote.messages.typed.vote.VoteMessage;
+import com.vvote.verifierlibrary.utils.serial.SerialNumber;
+import com.vvote.verifierlibrary.utils.serial.SerialNumberSet;
+
+/**
+ * Holds the votes cast in a columnar form. Only the parts of a
+ * <code>VoteMessage</code> needed for vote packing are kept - the serial
+ * number, the district, which races were used and the preferences for each
+ * race - as primitive columns indexed by vote, so a vote takes tens of bytes
+ * rather than a message with its JSON. The preferences for each vote are held
+ * in a <code>PreferenceTable</code> as three consecutive rows, one for each
+ * of the LA, LC ATL and LC BTL races, with an empty row for a race which was
+ * not used.
+ *
+ * The table is not synchronized. It can be read by many threads once it is
+ * no longer being modified
+ *
+ * @author James Rumble
+ *
+ */
+public final class VoteTable {
+
+	/**
+	 * Provides logging for the class
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(VoteTable.class);
+
+	/**
+	 * Race flag set when the LA race was used
+	 */
+	private static final byte LA_USED = 1;
+
+	/**
+	 * Race flag set when the LC race was voted ATL
+	 */
+	private static final byte LC_ATL_USED = 2;
+
+	/**
+	 * Race flag set when the LC race was voted BTL
+	 */
+	private static final byte LC_BTL_USED = 4;
+
+	/**
+	 * The serial numbers of the votes. The position of a serial number is
+	 * the index of its vote in the other columns
+	 */
+	private final SerialNumberSet serialNumbers;
+
+	/**
+	 * District index : district name
+	 */
+	private final List<String> districtNames;
+
+	/**
+	 * District name : district index
+	 */
+	private final Map<String, Integer> districtIndexes;
+
+	/**
+	 * The district index of each vote
+	 */
+	private short[] districts;
+
+	/**
+	 * The race flags of each vote
+	 */
+	private byte[] races;
+
+	/**
+	 * The preference table row holding the LA preferences of each vote. The LC
+	 * ATL and LC BTL preferences follow in the next two rows
+	 */
+	private int[] preferenceRows;
+
+	/**
+	 * The preferences of every vote
+	 */
+	private final PreferenceTable preferences;
+
+	/**
+	 * Constructor for an empty <code>VoteTable</code>
+	 */
+	public VoteTable() {
+		this.serialNumbers = new SerialNumberSet();
+		this.districtNames = new ArrayList<String>();
+		this.districtIndexes = new HashMap<String, Integer>();
+		this.districts = new short[16];
+		this.races = new byte[16];
+		this.preferenceRows = new int[16];
+		this.preferences = new PreferenceTable();
+	}
+
+	/**
+	 * Adds the vote held in a vote message. If a vote with the same serial
+	 * number has already been added it is replaced
+	 *
+	 * @param message
+	 * @return the index of the vote
+	 * @throws VoteMessageCommitException
+	 */
+	public int add(VoteMessage message) throws VoteMessageCommitException {
+
+		BallotPreferences ballotPreferences = message.getRaces();
+
+		int firstRow = this.preferences.size();
+
+		byte raceFlags = 0;
+
+		try {
+			if (this.addRace(ballotPreferences.getLaPreferences())) {
+				raceFlags |= LA_USED;
+			}
+			if (this.addRace(ballotPreferences.getLcATLPreferences())) {
+				raceFlags |= LC_ATL_USED;
+			}
+			if (this.addRace(ballotPreferences.getLcBTLPreferences())) {
+				raceFlags |= LC_BTL_USED;
+			}
+		} catch (IllegalArgumentException e) {
+			logger.error("Unable to add the preferences for vote: {}", message.getSerialNo(), e);
+			throw new VoteMessageCommitException("Unable to add the preferences for vote: " + message.getSerialNo(), e);
+		}
+
+		int vote = this.serialNumbers.insert(SerialNumber.key(message.getSerialNo()));
+
+		if (vote == this.districts.length) {
+			this.districts = Arrays.copyOf(this.districts, vote * 2);
+			this.races = Arrays.copyOf(this.races, vote * 2);
+			this.preferenceRows = Arrays.copyOf(this.preferenceRows, vote * 2);
+		}
+
+		this.districts[vote] = this.getDistrictIndex(message.getDistrict());
+		this.races[vote] = raceFlags;
+		this.preferenceRows[vote] = firstRow;
+
+		return vote;
+	}
+
+	/**
+	 * Adds the row of preferences for a single race, adding an empty row if
+	 * the race was not used
+	 *
+	 * @param racePreferences
+	 * @return true if the race was used
+	 */
+	private boolean addRace(RacePreferences racePreferences) {
+		if (racePreferences.isUsed()) {
+			this.preferences.addRow(racePreferences.getPreferencesArray());
+			return true;
+		}
+
+		this.preferences.addRow(Collections.<String> emptyList());
+		return false;
+	}
+
+	/**
+	 * Checks that a vote exists
+	 *
+	 * @param vote
+	 */
+	private void checkVote(int vote) {
+		if (vote < 0 || vote >= this.serialNumbers.size()) {
+			throw new IndexOutOfBoundsException("Vote: " + vote + ", votes: " + this.serialNumbers.size());
+		}
+	}
+
+	/**
+	 * Gets the district a vote was cast in
+	 *
+	 * @param vote
+	 * @return the district name
+	 */
+	public String getDistrict(int vote) {
+		this.checkVote(vote);
+		return this.districtNames.get(this.districts[vote]);
+	}
+
+	/**
+	 * Gets the index for a district name, adding the district if it has not
+	 * been seen before
+	 *
+	 * @param district
+	 * @return the district index
+	 */
+	private short getDistrictIndex(String district) {
+		Integer index = this.districtIndexes.get(district);
+
+		if (index == null) {
+			if (this.districtNames.size() > Short.MAX_VALUE) {
+				throw new IllegalStateException("Too many districts");
+			}
+			index = this.districtNames.size();
+			this.districtNames.add(district);
+			this.districtIndexes.put(district, index);
+		}
+
+		return index.shortValue();
+	}
+
+	/**
+	 * Gets the preference table row holding the preferences of a vote for a
+	 * race. The row is empty if the race was not used
+	 *
+	 * @param vote
+	 * @param race
+	 * @return the preference table row
+	 */
+	public int getPreferenceRow(int vote, RaceType race) {
+		this.checkVote(vote);
+		return this.preferenceRows[vote] + race.ordinal();
+	}
+
+	/**
+	 * Getter for the preferences of every vote
+	 *
+	 * @return the preference table
+	 */
+	public PreferenceTable getPreferences() {
+		return this.preferences;
+	}
+
+	/**
+	 * Gets the serial number key of a vote
+	 *
+	 * @param vote
+	 * @return the serial number key
+	 */
+	public long getSerialNumber(int vote) {
+		return this.serialNumbers.keyAt(vote);
+	}
+
+	/**
+	 * Gets the index of the vote with a serial number key
+	 *
+	 * @param key
+	 * @return the index of the vote or -1 if there is no vote with the serial
+	 *         number
+	 */
+	public int indexOf(long key) {
+		return this.serialNumbers.indexOf(key);
+	}
+
+	/**
+	 * Checks whether the LC race of a vote was voted ATL
+	 *
+	 * @param vote
+	 * @return true if the LC race was voted ATL
+	 */
+	public boolean isATL(int vote) {
+		this.checkVote(vote);
+		return (this.races[vote] & LC_ATL_USED) != 0;
+	}
+
+	/**
+	 * Checks whether the LA race of a vote was used
+	 *
+	 * @param vote
+	 * @return true if any LA preferences were given
+	 */
+	public boolean isLaUsed(int vote) {
+		this.checkVote(vote);
+		return (this.races[vote] & LA_USED) != 0;
+	}
+
+	/**
+	 * Checks whether the LC race of a vote was voted BTL
+	 *
+	 * @param vote
+	 * @return true if any LC BTL preferences were given
+	 */
+	public boolean isLcBTLUsed(int vote) {
+		this.checkVote(vote);
+		return (this.races[vote] & LC_BTL_USED) != 0;
+	}
+
+	/**
+	 * Getter for the number of votes
+	 *
+	 * @return the number of votes
+	 */
+	public int size() {
+		return this.serialNumbers.size();
+	}
+
+	@Override
+	public String toString() {
+		return "VoteTable [votes=" + this.serialNumbers.size() + ", districts=" + this.districtNames + ", preferences=" + this.preferences + "]";
+	}
+}
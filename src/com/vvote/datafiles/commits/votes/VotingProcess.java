@@ -22,11 +22,11 @@ import org.slf4j.LoggerFactory;
 
 import com.vvote.datafiles.exceptions.VoteMessageCommitException;
 import com.vvote.messages.typed.vote.PODMessage;
-import com.vvote.messages.typed.vote.VoteMessage;
+import com.vvote.verifierlibrary.utils.serial.SerialNumber;
 
 /**
- * Provides storage for a related pod message and vote message which share the
- * same serial number
+ * Provides storage for a related pod message and vote which share the same
+ * serial number. The vote is held as its index in a <code>VoteTable</code>
  * 
  * @author James Rumble
  * 
@@ -44,22 +44,24 @@ public class VotingProcess {
 	private final PODMessage podMessage;
 
 	/**
-	 * Holds the vote message
+	 * Holds the index of the vote in the vote table
 	 */
-	private final VoteMessage voteMessage;
+	private final int vote;
 
 	/**
 	 * Constructor for a <code>VotingProcess</code> object
 	 * 
 	 * @param podMessage
-	 * @param voteMessage
+	 * @param votes
+	 * @param vote
+	 *            the index of the vote in the vote table
 	 * @throws VoteMessageCommitException
 	 */
-	public VotingProcess(PODMessage podMessage, VoteMessage voteMessage) throws VoteMessageCommitException {
-		if (podMessage != null && voteMessage != null) {
-			if (podMessage.getSerialNo().equals(voteMessage.getSerialNo())) {
+	public VotingProcess(PODMessage podMessage, VoteTable votes, int vote) throws VoteMessageCommitException {
+		if (podMessage != null && votes != null && vote >= 0 && vote < votes.size()) {
+			if (SerialNumber.find(podMessage.getSerialNo()) == votes.getSerialNumber(vote)) {
 				this.podMessage = podMessage;
-				this.voteMessage = voteMessage;
+				this.vote = vote;
 			} else {
 				logger.error("PODMessage and VoteMessage must have matching serial numbers");
 				throw new VoteMessageCommitException("PODMessage and VoteMessage must have matching serial numbers");
@@ -80,16 +82,16 @@ public class VotingProcess {
 	}
 
 	/**
-	 * Getter for the vote message
+	 * Getter for the index of the vote in the vote table
 	 * 
-	 * @return voteMessage
+	 * @return vote
 	 */
-	public VoteMessage getVoteMessage() {
-		return this.voteMessage;
+	public int getVote() {
+		return this.vote;
 	}
 
 	@Override
 	public String toString() {
-		return "VotingProcess [podMessage=" + this.podMessage + ", voteMessage=" + this.voteMessage + "]";
+		return "VotingProcess [podMessage=" + this.podMessage + ", vote=" + this.vote + "]";
 	}
 }
@@ -18,15 +18,19 @@
 package com.vvote.datafiles.mix;
 
 import java.io.FileNotFoundException;
+import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import au.com.bytecode.opencsv.CSVReader;
+
+import com.vvote.datafiles.PreferenceTable;
 import com.vvote.datafiles.exceptions.MixDataException;
 import com.vvote.verifierlibrary.utils.Utils;
+import com.vvote.verifierlibrary.utils.io.FileType;
 import com.vvote.verifierlibrary.utils.io.IOUtils;
 
 /**
@@ -50,9 +54,9 @@ public class MixOutput {
 	private final String filePath;
 
 	/**
-	 * the output preferences
+	 * the output preferences with one row for each ballot
 	 */
-	private final List<CSVPreferences> ballotPreferences;
+	private final PreferenceTable ballotPreferences;
 
 	/**
 	 * The identifier for the mixnet output preferences
@@ -80,27 +84,33 @@ public class MixOutput {
 
 		this.filePath = filepath;
 
-		List<List<String>> ballots;
-		try {
-			ballots = IOUtils.readCSVFromFile(this.filePath);
+		if (!IOUtils.checkExtension(FileType.CSV, this.filePath)) {
+			logger.error("Provided filepath: {} does not point to a valid csv file", filepath);
+			throw new MixDataException("Provided filepath: " + filepath + " does not point to a valid csv file");
+		}
+
+		// each line is parsed straight into the table rather than being held
+		// as a list of strings first
+		this.ballotPreferences = new PreferenceTable();
+
+		try (CSVReader reader = new CSVReader(new FileReader(this.filePath))) {
+			String[] nextLine;
+
+			while ((nextLine = reader.readNext()) != null) {
+				this.ballotPreferences.addRow(Arrays.asList(nextLine));
+			}
 		} catch (FileNotFoundException e) {
 			logger.error("Unable to create MixOutput object: {}", filepath);
-			throw new MixDataException("Unable to create MixOutput object: " + filepath);
+			throw new MixDataException("Unable to create MixOutput object: " + filepath, e);
 		} catch (IOException e) {
 			logger.error("Unable to create MixOutput object: {}", filepath);
-			throw new MixDataException("Unable to create MixOutput object: " + filepath);
+			throw new MixDataException("Unable to create MixOutput object: " + filepath, e);
+		} catch (IllegalArgumentException e) {
+			logger.error("Invalid preferences provided in: {}", filepath);
+			throw new MixDataException("Invalid preferences provided in: " + filepath, e);
 		}
 
-		if (ballots == null) {
-			logger.error("Valid preferences must be provided");
-			throw new MixDataException("Valid preferences must be provided");
-		}
-		
-		this.ballotPreferences = new ArrayList<CSVPreferences>();
-		
-		for (List<String> prefs : ballots) {
-			this.ballotPreferences.add(new CSVPreferences(prefs));
-		}
+		this.ballotPreferences.trimToSize();
 
 		this.identifier = Utils.getRaceIdentifierFromCSVFileName(filepath, hasRaceMap);
 	}
@@ -114,10 +124,10 @@ public class MixOutput {
 	}
 	
 	/**
-	 * Getter for the list of ballot preferences
+	 * Getter for the ballot preferences, one row for each ballot
 	 * @return ballotPreferences
 	 */
-	public List<CSVPreferences> getBallotPreferences() {
+	public PreferenceTable getBallotPreferences() {
 		return this.ballotPreferences;
 	}
 }
@@ -205,6 +205,15 @@ public class CertificatesFile {
 		throw new CertException("Peer does not exist: " + peer);
 	}
 
+	/**
+	 * Gets the number of peers which hold a share of the WBB signing key
+	 * 
+	 * @return the number of peers with a signing key share
+	 */
+	public int getNumberOfPeers() {
+		return this.peerMapping.size();
+	}
+
 	@Override
 	public String toString() {
 		return "CertificatesFile [jksFile=" + this.jksFile + ", peerCerts=" + this.peerCerts + ", wbbCert=" + this.wbbCert + ", json=" + this.json + ", peerMapping=" + this.peerMapping + "]";
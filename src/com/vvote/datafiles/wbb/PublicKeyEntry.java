@@ -29,6 +29,7 @@ import com.vvote.thirdparty.json.orgjson.JSONException;
 import com.vvote.thirdparty.json.orgjson.JSONObject;
 import com.vvote.verifierlibrary.exceptions.BLSSignatureException;
 import com.vvote.verifierlibrary.utils.Utils;
+import com.vvote.verifierlibrary.utils.crypto.bls.BLSVerificationKey;
 import com.vvote.verifierlibrary.utils.crypto.bls.CurveParams;
 
 /**
@@ -59,6 +60,12 @@ public class PublicKeyEntry {
 	 */
 	private final Element gElem;
 
+	/**
+	 * The fixed pairing state used for verifying signatures under the public
+	 * key
+	 */
+	private final BLSVerificationKey verificationKey;
+
 	/**
 	 * The public key
 	 */
@@ -103,14 +110,19 @@ public class PublicKeyEntry {
 				Pairing pairing = CurveParams.getInstance().getPairing();
 
 				// Construct new element
-				this.publicKeyElem = pairing.getG2().newElement();
+				Element element = pairing.getG2().newElement();
 				// Set the element value from the bytes decoded as base 64
-				this.publicKeyElem.setFromBytes(Utils.decodeBase64Data(this.publicKey));
+				element.setFromBytes(Utils.decodeBase64Data(this.publicKey));
+				this.publicKeyElem = element.getImmutable();
 
 				// Construct new element
-				this.gElem = pairing.getG2().newElement();
+				element = pairing.getG2().newElement();
 				// Set the element value from the bytes decoded as base 64
-				this.gElem.setFromBytes(Utils.decodeBase64Data(this.g));
+				element.setFromBytes(Utils.decodeBase64Data(this.g));
+				this.gElem = element.getImmutable();
+
+				// Cache the pairing state used for verifying signatures
+				this.verificationKey = new BLSVerificationKey(this.gElem, this.publicKeyElem);
 
 			} catch (JSONException e) {
 				logger.error("Unable to create a PublicKeyEntry. Error: {}", e);
@@ -143,6 +155,15 @@ public class PublicKeyEntry {
 		return this.gElem;
 	}
 
+	/**
+	 * Getter for the verification key
+	 * 
+	 * @return verificationKey
+	 */
+	public BLSVerificationKey getVerificationKey() {
+		return this.verificationKey;
+	}
+
 	/**
 	 * Getter for the json entry
 	 * 
@@ -20,6 +20,7 @@ package com.vvote.datafiles.wbb;
 import org.bouncycastle.cert.CertException;
 
 import com.vvote.thirdparty.json.orgjson.JSONObject;
+import com.vvote.verifierlibrary.utils.crypto.bls.BLSVerificationKey;
 
 /**
  * Provides representation for a wbb cert
@@ -56,6 +57,16 @@ public class WBBCert extends CertEntry{
 		return this.publicKeyEntry;
 	}
 
+	/**
+	 * Getter for the verification key which is prepared when the certificate
+	 * is loaded
+	 * 
+	 * @return the verification key for the WBB public key
+	 */
+	public BLSVerificationKey getVerificationKey() {
+		return this.publicKeyEntry.getVerificationKey();
+	}
+
 	@Override
 	public String toString() {
 		return "WBBCert [publicKeyEntry=" + this.publicKeyEntry + "]";
@@ -18,27 +18,105 @@
 package com.vvote.ec;
 
 import java.math.BigInteger;
+import java.util.Arrays;
 
 import org.bouncycastle.math.ec.ECPoint;
 
 /**
- * Provides a representation for an ElGamal Elliptic Curve point to be used to
- * store candidate id's and perform encryption of the points.
+ * Provides an immutable representation for an ElGamal Elliptic Curve point to
+ * be used to store candidate id's and perform encryption of the points.
+ * 
+ * Both points are normalised together the first time the cipher is compared,
+ * hashed or encoded and the compressed encodings and hash code are then
+ * cached, so sorting and hashing ciphers does not repeat the field inversions
+ * or allocate.
  * 
  * @author James Rumble
  * 
  */
-public class ElGamalECPoint {
+public class ElGamalECPoint implements Comparable<ElGamalECPoint> {
+
+	/**
+	 * Holds the normalised points, their compressed encodings and the hash
+	 * code. All fields are final so a holder can be shared between threads
+	 * without synchronisation
+	 */
+	private static final class Encoding {
+
+		/**
+		 * The normalised point g^r
+		 */
+		private final ECPoint gr;
+
+		/**
+		 * The normalised point m * y^r
+		 */
+		private final ECPoint myr;
+
+		/**
+		 * The compressed encoding of g^r
+		 */
+		private final byte[] grEncoded;
+
+		/**
+		 * The compressed encoding of m * y^r
+		 */
+		private final byte[] myrEncoded;
+
+		/**
+		 * The hash code of the cipher
+		 */
+		private final int hashCode;
+
+		/**
+		 * Constructor for an Encoding of the provided points
+		 * 
+		 * @param myr
+		 * @param gr
+		 */
+		private Encoding(ECPoint myr, ECPoint gr) {
+			ECPoint[] points = new ECPoint[] { gr, myr };
+
+			// a single inversion normalises both points
+			if (gr.getCurve().equals(myr.getCurve())) {
+				gr.getCurve().normalizeAll(points);
+			} else {
+				points[0] = gr.normalize();
+				points[1] = myr.normalize();
+			}
+
+			this.gr = points[0];
+			this.myr = points[1];
+			this.grEncoded = this.gr.getEncoded(true);
+			this.myrEncoded = this.myr.getEncoded(true);
+
+			final int prime = 31;
+			int result = 1;
+			for (byte b : this.grEncoded) {
+				result = prime * result + b;
+			}
+			for (byte b : this.myrEncoded) {
+				result = prime * result + b;
+			}
+			this.hashCode = result;
+		}
+	}
 
 	/**
 	 * Stores the Elliptic curve point representing m * y^r
 	 */
-	private ECPoint myr;
+	private final ECPoint myr;
 
 	/**
 	 * Stores the Elliptic curve point representing g^r
 	 */
-	private ECPoint gr;
+	private final ECPoint gr;
+
+	/**
+	 * The cached encoding, created when first needed. Racing threads compute
+	 * the same value so no synchronisation is required
+	 */
+	private Encoding encoding = null;
 
 	/**
 	 * Constructs an ElGamal Elliptic Curve point from two ECPoint objects
@@ -48,55 +126,57 @@ public class ElGamalECPoint {
 	 * @param gr
 	 */
 	public ElGamalECPoint(ECPoint myr, ECPoint gr) {
+		if (myr == null || gr == null) {
+			throw new IllegalArgumentException("Both points of an ElGamalECPoint must be provided");
+		}
 		this.myr = myr;
 		this.gr = gr;
 	}
 
 	/**
-	 * Carries out a multiplication of the current point by mul
+	 * Constructs an ElGamal Elliptic Curve point holding the same points as
+	 * the provided cipher, sharing any cached encoding
 	 * 
-	 * @param mul
+	 * @param cipher
 	 */
-	public void multiply(BigInteger mul) {
-		this.myr = this.myr.multiply(mul);
-		this.gr = this.gr.multiply(mul);
+	protected ElGamalECPoint(ElGamalECPoint cipher) {
+		this.myr = cipher.myr;
+		this.gr = cipher.gr;
+		this.encoding = cipher.encoding;
 	}
 
 	/**
-	 * Provides a way to compare two ElGamalECPoint objects together. The
-	 * comparison takes into account both ECPoint objects gr and myr. Basic
-	 * checks are computed first and then both points are checked for equality.
-	 * If both gr and myr points are then a positive result is returned.
+	 * Gets the cached encoding, creating it if needed
+	 * 
+	 * @return the encoding
 	 */
-	@Override
-	public boolean equals(Object obj) {
-		if (this == obj) {
-			return true;
-		}
-		if (obj == null) {
-			return false;
-		}
-		if (!(obj instanceof ElGamalECPoint)) {
-			return false;
-		}
-		ElGamalECPoint other = (ElGamalECPoint) obj;
-		if (this.gr == null) {
-			if (other.gr != null) {
-				return false;
-			}
-		}
-		if (this.myr == null) {
-			if (other.myr != null) {
-				return false;
-			}
+	private Encoding getEncoding() {
+		Encoding current = this.encoding;
+		if (current == null) {
+			current = new Encoding(this.myr, this.gr);
+			this.encoding = current;
 		}
+		return current;
+	}
 
-		// perform a comparison using both points gr and myr.
-		if (!(this.getGr().equals(other.getGr()) && this.getMyr().equals(other.getMyr()))) {
-			return false;
-		}
+	/**
+	 * Multiplies both points of the cipher by mul
+	 * 
+	 * @param mul
+	 * @return a new cipher holding the product
+	 */
+	public ElGamalECPoint multiply(BigInteger mul) {
+		return new ElGamalECPoint(this.myr.multiply(mul), this.gr.multiply(mul));
+	}
 
-		return true;
+	/**
+	 * Adds the provided cipher to this cipher
+	 * 
+	 * @param cipher
+	 * @return a new cipher holding the sum
+	 */
+	public ElGamalECPoint add(ElGamalECPoint cipher) {
+		return new ElGamalECPoint(this.myr.add(cipher.getMyr()), this.gr.add(cipher.getGr()));
 	}
 
 	/**
@@ -118,31 +198,136 @@ public class ElGamalECPoint {
 	}
 
 	/**
-	 * Provides a new representation of computing the hashcode for an
-	 * ElGamalECPoint object which takes into account both values gr and myr and
-	 * uses the prime 31
+	 * Getter for the normalised ECPoint representing g^r
+	 * 
+	 * @return the normalised g^r
+	 */
+	public final ECPoint getNormalizedGr() {
+		return this.getEncoding().gr;
+	}
+
+	/**
+	 * Getter for the normalised ECPoint representing m * y^r
+	 * 
+	 * @return the normalised m * y^r
+	 */
+	public final ECPoint getNormalizedMyr() {
+		return this.getEncoding().myr;
+	}
+
+	/**
+	 * Gets the canonical encoding of the cipher: the compressed encoding of
+	 * g^r followed by the compressed encoding of m * y^r
+	 * 
+	 * @return a copy of the canonical encoding
+	 */
+	public final byte[] getEncoded() {
+		Encoding current = this.getEncoding();
+		byte[] encoded = new byte[current.grEncoded.length + current.myrEncoded.length];
+		System.arraycopy(current.grEncoded, 0, encoded, 0, current.grEncoded.length);
+		System.arraycopy(current.myrEncoded, 0, encoded, current.grEncoded.length, current.myrEncoded.length);
+		return encoded;
+	}
+
+	/**
+	 * Provides a way to compare two ElGamalECPoint objects together. The
+	 * comparison takes into account both ECPoint objects gr and myr using
+	 * their cached compressed encodings.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (!(obj instanceof ElGamalECPoint)) {
+			return false;
+		}
+		Encoding current = this.getEncoding();
+		Encoding other = ((ElGamalECPoint) obj).getEncoding();
+
+		if (current.hashCode != other.hashCode) {
+			return false;
+		}
+
+		// perform a comparison using both points gr and myr.
+		return Arrays.equals(current.grEncoded, other.grEncoded) && Arrays.equals(current.myrEncoded, other.myrEncoded);
+	}
+
+	/**
+	 * Provides the hashcode for an ElGamalECPoint object which takes into
+	 * account the compressed encodings of both values gr and myr and uses the
+	 * prime 31
 	 */
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + ((this.gr == null) ? 0 : this.gr.hashCode());
-		result = prime * result + ((this.myr == null) ? 0 : this.myr.hashCode());
-		return result;
+		return this.getEncoding().hashCode;
 	}
 
+	/**
+	 * Orders ciphers by g^r and then by m * y^r, where points are ordered as
+	 * the unsigned value of their uncompressed encoding: the point at
+	 * infinity first, then by affine x and then by affine y coordinate. The
+	 * comparison uses the cached compressed encodings and only reads the y
+	 * coordinates when two points share an x coordinate.
+	 */
 	@Override
-	public String toString() {
-		return "ElGamalECPoint [myr=" + this.myr + ", gr=" + this.gr + "]";
+	public int compareTo(ElGamalECPoint other) {
+		Encoding current = this.getEncoding();
+		Encoding otherEncoding = other.getEncoding();
+
+		int result = comparePoints(current.grEncoded, current.gr, otherEncoding.grEncoded, otherEncoding.gr);
+
+		if (result != 0) {
+			return result;
+		}
+
+		return comparePoints(current.myrEncoded, current.myr, otherEncoding.myrEncoded, otherEncoding.myr);
 	}
 
 	/**
-	 * Carries out an addition of the current point and the new cipher
+	 * Compares two normalised points using their compressed encodings
 	 * 
-	 * @param cipher
+	 * @param encoded1
+	 * @param point1
+	 * @param encoded2
+	 * @param point2
+	 * @return the comparison result
 	 */
-	public void add(ElGamalECPoint cipher) {
-		this.myr = this.myr.add(cipher.getMyr());
-		this.gr = this.gr.add(cipher.getGr());
+	private static int comparePoints(byte[] encoded1, ECPoint point1, byte[] encoded2, ECPoint point2) {
+
+		// the point at infinity is encoded as a single byte
+		if (point1.isInfinity() || point2.isInfinity()) {
+			return (point1.isInfinity() ? 0 : 1) - (point2.isInfinity() ? 0 : 1);
+		}
+
+		// the x coordinate follows the leading byte
+		int length = Math.min(encoded1.length, encoded2.length);
+
+		for (int i = 1; i < length; i++) {
+			int difference = (encoded1[i] & 0xff) - (encoded2[i] & 0xff);
+			if (difference != 0) {
+				return difference;
+			}
+		}
+
+		if (encoded1.length != encoded2.length) {
+			return encoded1.length - encoded2.length;
+		}
+
+		// equal x coordinates - the points are equal or negatives of each
+		// other
+		if (encoded1[0] == encoded2[0]) {
+			return 0;
+		}
+
+		return point1.getAffineYCoord().toBigInteger().compareTo(point2.getAffineYCoord().toBigInteger());
+	}
+
+	@Override
+	public String toString() {
+		return "ElGamalECPoint [myr=" + this.myr + ", gr=" + this.gr + "]";
 	}
 }
@@ -17,7 +17,6 @@
  */
 package com.vvote.ec;
 
-import java.math.BigInteger;
 import java.util.Comparator;
 
 /**
@@ -30,19 +29,12 @@ import java.util.Comparator;
 public class ElGamalECPointComparator implements Comparator<ElGamalECPoint> {
 
 	/**
-	 * Provides an implementation of the compare method
+	 * Provides an implementation of the compare method using the cached
+	 * encodings of the ciphers
 	 */
 	@Override
 	public int compare(ElGamalECPoint p1, ElGamalECPoint p2) {
-		BigInteger gr1 = new BigInteger(1, p1.getGr().getEncoded());
-		BigInteger myr1 = new BigInteger(1, p1.getMyr().getEncoded());
-		BigInteger gr2 = new BigInteger(1, p2.getGr().getEncoded());
-		BigInteger myr2 = new BigInteger(1, p2.getMyr().getEncoded());
-		
-		if (gr1.equals(gr2)) {
-			return myr1.compareTo(myr2);
-		}
-		return gr1.compareTo(gr2);
+		return p1.compareTo(p2);
 	}
 
 }
@@ -60,7 +60,7 @@ public class IndexedElGamalECPoint extends ElGamalECPoint {
 	 * @param index
 	 */
 	public IndexedElGamalECPoint(ElGamalECPoint point, int index) {
-		super(point.getMyr(), point.getGr());
+		super(point);
 		this.index = index;
 	}
 
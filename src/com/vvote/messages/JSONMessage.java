@@ -27,7 +27,6 @@ import com.vvote.messages.exceptions.JSONMessageInitException;
 import com.vvote.messages.fields.MessageFields;
 import com.vvote.thirdparty.json.orgjson.JSONException;
 import com.vvote.thirdparty.json.orgjson.JSONObject;
-import com.vvote.verifierlibrary.json.JSONSchemaStore;
 import com.vvote.verifierlibrary.json.JSONUtility;
 
 /**
@@ -110,15 +109,13 @@ public abstract class JSONMessage {
 	 */
 	private boolean performValidation(JSONObject json){
 		try {
-			String schema = JSONSchemaStore.getSchema(this.getSchema());
-
-			if (!JSONUtility.validateSchema(schema, json.toString())) {
-				logger.error("Unable to validate json: {} using schema file", json.toString(), this.getSchema());
+			if (!JSONUtility.validateSchema(this.getSchema(), json)) {
+				logger.error("Unable to validate json: {} using schema file: {}", json, this.getSchema());
 				return false;
 			}
 			return true;
 		} catch (JSONSchemaException e) {
-			logger.error("Unable to validate json: {} using schema file", json.toString(), this.getSchema());
+			logger.error("Unable to validate json: {} using schema file: {}", json, this.getSchema());
 			return false;
 		}
 	}
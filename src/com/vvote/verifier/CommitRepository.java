@@ -0,0 +1,491 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifier;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vvote.commits.CommitAttachment;
+import com.vvote.commits.CommitFileMessage;
+import com.vvote.commits.CommitSignature;
+import com.vvote.commits.FinalCommitment;
+import com.vvote.commits.exceptions.CommitAttachmentInitException;
+import com.vvote.commits.exceptions.CommitFileInitException;
+import com.vvote.commits.exceptions.CommitFileMessageInitException;
+import com.vvote.commits.exceptions.CommitSignatureInitException;
+import com.vvote.commits.exceptions.FinalCommitInitException;
+import com.vvote.messages.typed.TypedJSONMessage;
+import com.vvote.messages.types.MessageType;
+import com.vvote.verifier.exceptions.DataStoreException;
+import com.vvote.verifierlibrary.utils.io.FileType;
+import com.vvote.verifierlibrary.utils.io.IOUtils;
+
+/**
+ * Provides a process-wide, shared store of the commitments made to the public
+ * wbb. Every <code>DataStore</code> reading from the same commits folder
+ * shares a single repository so the folder is scanned and each
+ * <code>CommitFileMessage</code> is parsed exactly once, however many
+ * verifiers are run. Each data store then receives a typed view containing
+ * only the messages relevant to its verifier.
+ * 
+ * Repositories are reference counted. A data store acquires the repository
+ * when it is constructed and releases it once its verifier has finished. When
+ * the last data store releases the repository the parsed commitments and any
+ * shared election data are discarded.
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class CommitRepository {
+
+	/**
+	 * provides logging for the class
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(CommitRepository.class);
+
+	/**
+	 * The open repositories. Commits folder key : CommitRepository
+	 */
+	private static final Map<String, CommitRepository> repositories = new HashMap<String, CommitRepository>();
+
+	/**
+	 * Acquires the shared repository for the commits folder provided, creating
+	 * it if it is not already open. Base paths naming the same directory share
+	 * a repository. Each call must be matched with a call to
+	 * {@link #release()}
+	 * 
+	 * @param basePath
+	 * @param commitsFolder
+	 * @return the shared repository
+	 */
+	public static CommitRepository acquire(String basePath, String commitsFolder) {
+		String key = new File(basePath).getAbsoluteFile().toPath().normalize() + File.pathSeparator + commitsFolder;
+
+		synchronized (repositories) {
+			CommitRepository repository = repositories.get(key);
+
+			if (repository == null) {
+				repository = new CommitRepository(key, basePath, commitsFolder);
+				repositories.put(key, repository);
+			}
+
+			repository.references++;
+
+			logger.debug("Acquired commit repository: {} (references: {})", key, repository.references);
+
+			return repository;
+		}
+	}
+
+	/**
+	 * The key the repository is registered under
+	 */
+	private final String key;
+
+	/**
+	 * The base path of the data provided
+	 */
+	private final String basePath;
+
+	/**
+	 * The name of the commits folder to read
+	 */
+	private final String commitsFolder;
+
+	/**
+	 * The number of data stores currently holding the repository
+	 */
+	private int references = 0;
+
+	/**
+	 * Flag for whether the commits folder has been read
+	 */
+	private boolean loaded = false;
+
+	/**
+	 * A map of the final commitments. Identifier : FinalCommitment
+	 */
+	private Map<String, FinalCommitment> finalCommitments;
+
+	/**
+	 * Every message held in the final commitments, in the order they were
+	 * organised
+	 */
+	private List<CommittedMessage> messages;
+
+	/**
+	 * Election data shared between data stores. Key : data
+	 */
+	private Map<String, Object> sharedData;
+
+	/**
+	 * Private constructor for a commit repository
+	 * 
+	 * @param key
+	 * @param basePath
+	 * @param commitsFolder
+	 */
+	private CommitRepository(String key, String basePath, String commitsFolder) {
+		this.key = key;
+		this.basePath = basePath;
+		this.commitsFolder = commitsFolder;
+
+		this.finalCommitments = new LinkedHashMap<String, FinalCommitment>();
+		this.messages = new ArrayList<CommittedMessage>();
+		this.sharedData = new HashMap<String, Object>();
+	}
+
+	/**
+	 * Reads in the commits folder if it has not already been read by another
+	 * data store
+	 * 
+	 * @throws CommitAttachmentInitException
+	 * @throws CommitFileInitException
+	 * @throws FinalCommitInitException
+	 * @throws CommitSignatureInitException
+	 * @throws CommitFileMessageInitException
+	 * @throws DataStoreException
+	 */
+	public synchronized void load() throws CommitAttachmentInitException, CommitFileInitException, FinalCommitInitException, CommitSignatureInitException, CommitFileMessageInitException,
+			DataStoreException {
+
+		if (this.references == 0) {
+			logger.error("The commit repository has already been released: {}", this.key);
+			throw new DataStoreException("The commit repository has already been released: " + this.key);
+		}
+
+		if (!this.loaded) {
+			this.readCommitsFolder();
+			this.indexMessages();
+			this.loaded = true;
+		} else {
+			logger.debug("Commits folder has already been read: {}", this.key);
+		}
+	}
+
+	/**
+	 * Getter for whether the commits folder has been read
+	 * 
+	 * @return loaded
+	 */
+	public synchronized boolean isLoaded() {
+		return this.loaded;
+	}
+
+	/**
+	 * Getter for the map of final commitments made to the public wbb
+	 * 
+	 * @return finalCommitments
+	 */
+	public synchronized Map<String, FinalCommitment> getFinalCommitments() {
+		return Collections.unmodifiableMap(this.finalCommitments);
+	}
+
+	/**
+	 * Provides a typed view of the repository containing only the messages of
+	 * the types provided. Messages are returned in the same order for every
+	 * view
+	 * 
+	 * @param types
+	 * @return the messages of the relevant types together with their
+	 *         commitments
+	 */
+	public synchronized List<CommittedMessage> getMessages(Collection<MessageType> types) {
+		List<CommittedMessage> view = new ArrayList<CommittedMessage>();
+
+		if (types != null) {
+			for (CommittedMessage message : this.messages) {
+				if (types.contains(message.getMessage().getType())) {
+					view.add(message);
+				}
+			}
+		}
+
+		return view;
+	}
+
+	/**
+	 * Gets a piece of shared election data which has already been loaded by
+	 * another data store
+	 * 
+	 * @param dataKey
+	 * @param type
+	 * @return the shared data or null if it hasn't been loaded
+	 */
+	public synchronized <T> T getSharedData(String dataKey, Class<T> type) {
+		Object data = this.sharedData.get(dataKey);
+
+		if (type.isInstance(data)) {
+			return type.cast(data);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Stores a piece of election data so that it can be used by other data
+	 * stores
+	 * 
+	 * @param dataKey
+	 * @param data
+	 */
+	public synchronized void putSharedData(String dataKey, Object data) {
+		if (this.references > 0) {
+			this.sharedData.put(dataKey, data);
+		}
+	}
+
+	/**
+	 * Releases a reference to the repository. Once no data store holds the
+	 * repository the commitment data is discarded and the repository is closed
+	 */
+	public void release() {
+		synchronized (repositories) {
+			synchronized (this) {
+				if (this.references == 0) {
+					return;
+				}
+
+				this.references--;
+
+				logger.debug("Released commit repository: {} (references: {})", this.key, this.references);
+
+				if (this.references == 0) {
+					logger.info("Discarding commitment data, no remaining verifiers require it: {}", this.key);
+
+					this.finalCommitments = Collections.emptyMap();
+					this.messages = Collections.emptyList();
+					this.sharedData.clear();
+
+					if (repositories.get(this.key) == this) {
+						repositories.remove(this.key);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Builds the ordered list of messages held in the final commitments
+	 */
+	private void indexMessages() {
+		for (FinalCommitment commitment : this.finalCommitments.values()) {
+			if (commitment.getFileMessage() == null) {
+				continue;
+			}
+
+			for (TypedJSONMessage typedMessage : commitment.getFileMessage().getJsonMessages()) {
+				this.messages.add(new CommittedMessage(typedMessage, commitment));
+			}
+		}
+
+		logger.debug("Indexed {} messages from {} commitments", this.messages.size(), this.finalCommitments.size());
+	}
+
+	/**
+	 * Reads in the commits folder
+	 * 
+	 * @throws CommitFileInitException
+	 * @throws CommitAttachmentInitException
+	 * @throws FinalCommitInitException
+	 * @throws CommitSignatureInitException
+	 * @throws CommitFileMessageInitException
+	 * @throws DataStoreException
+	 */
+	private void readCommitsFolder() throws CommitAttachmentInitException, CommitFileInitException, FinalCommitInitException, CommitSignatureInitException, CommitFileMessageInitException,
+			DataStoreException {
+
+		String commitsPath = IOUtils.findFile(this.commitsFolder, this.basePath);
+
+		if (commitsPath == null) {
+			logger.error("The commits folder could not be found: {}", this.commitsFolder);
+			throw new DataStoreException("The commits folder could not be found: " + this.commitsFolder);
+		}
+
+		File commitsLocation = new File(commitsPath);
+
+		logger.info("Initially reading Commits data folder: {}", commitsLocation);
+
+		// check whether the provided directory is valid
+		if (!commitsLocation.isDirectory()) {
+			logger.error("The final commits data must be a directory: {}", commitsLocation);
+			throw new DataStoreException("The final commits data must be a directory: " + commitsLocation);
+		}
+
+		CommitFileMessage fileMessage = null;
+		CommitAttachment attachment = null;
+		CommitSignature signature = null;
+
+		String identifier = null;
+
+		String filePath = null;
+
+		// loop over each file in the directory
+		for (File file : commitsLocation.listFiles()) {
+
+			filePath = IOUtils.join(commitsLocation.toString(), file.getName());
+
+			// add attachment
+			if (IOUtils.checkExtension(FileType.ZIP, file.getName())) {
+
+				attachment = new CommitAttachment(filePath);
+				identifier = attachment.getIdentifier();
+
+				this.addAttachment(identifier, attachment);
+			} else // add signature
+			if (IOUtils.checkExtension(FileType.JSON, file.getName()) && file.getName().contains("_signature")) {
+
+				signature = new CommitSignature(filePath);
+				identifier = signature.getIdentifier();
+
+				this.addSignature(identifier, signature);
+			} else // add file message
+			if (IOUtils.checkExtension(FileType.JSON, file.getName())) {
+
+				fileMessage = new CommitFileMessage(filePath);
+				identifier = fileMessage.getIdentifier();
+
+				this.addFileMessage(identifier, fileMessage);
+			}
+		}
+
+		for (FinalCommitment currentCommitment : this.finalCommitments.values()) {
+
+			if (currentCommitment.getFileMessage() == null || currentCommitment.getAttachment() == null || currentCommitment.getSignature() == null) {
+				logger.error("Commitment doesn't contain a FileMessage, Attachment and Signature: {}", currentCommitment);
+			}
+
+			logger.info("Constructed final commit: {}", currentCommitment.getIdentifier());
+		}
+	}
+
+	/**
+	 * Helper method to add an attachment
+	 * 
+	 * @param identifier
+	 * @param attachment
+	 * @throws FinalCommitInitException
+	 */
+	private void addAttachment(String identifier, CommitAttachment attachment) throws FinalCommitInitException {
+		FinalCommitment commitment = null;
+
+		if (this.finalCommitments.containsKey(identifier)) {
+			commitment = this.finalCommitments.get(identifier);
+			commitment.setAttachment(attachment);
+		} else {
+			commitment = new FinalCommitment(attachment);
+			this.finalCommitments.put(commitment.getIdentifier(), commitment);
+		}
+	}
+
+	/**
+	 * Helper method to add a file message
+	 * 
+	 * @param identifier
+	 * @param fileMessage
+	 * @throws FinalCommitInitException
+	 */
+	private void addFileMessage(String identifier, CommitFileMessage fileMessage) throws FinalCommitInitException {
+		FinalCommitment commitment = null;
+
+		if (this.finalCommitments.containsKey(identifier)) {
+			commitment = this.finalCommitments.get(identifier);
+			commitment.setFileMessage(fileMessage);
+		} else {
+			commitment = new FinalCommitment(fileMessage);
+			this.finalCommitments.put(commitment.getIdentifier(), commitment);
+		}
+	}
+
+	/**
+	 * Helper method to add a signature
+	 * 
+	 * @param identifier
+	 * @param signature
+	 * @throws FinalCommitInitException
+	 */
+	private void addSignature(String identifier, CommitSignature signature) throws FinalCommitInitException {
+		FinalCommitment commitment = null;
+
+		if (this.finalCommitments.containsKey(identifier)) {
+			commitment = this.finalCommitments.get(identifier);
+			commitment.setSignature(signature);
+		} else {
+			commitment = new FinalCommitment(signature);
+			this.finalCommitments.put(commitment.getIdentifier(), commitment);
+		}
+	}
+
+	/**
+	 * A single <code>TypedJSONMessage</code> together with the
+	 * <code>FinalCommitment</code> it was committed in
+	 * 
+	 * @author James Rumble
+	 * 
+	 */
+	public static final class CommittedMessage {
+
+		/**
+		 * The message
+		 */
+		private final TypedJSONMessage message;
+
+		/**
+		 * The commitment holding the message
+		 */
+		private final FinalCommitment commitment;
+
+		/**
+		 * Constructor for a committed message
+		 * 
+		 * @param message
+		 * @param commitment
+		 */
+		private CommittedMessage(TypedJSONMessage message, FinalCommitment commitment) {
+			this.message = message;
+			this.commitment = commitment;
+		}
+
+		/**
+		 * Getter for the message
+		 * 
+		 * @return message
+		 */
+		public TypedJSONMessage getMessage() {
+			return this.message;
+		}
+
+		/**
+		 * Getter for the commitment holding the message
+		 * 
+		 * @return commitment
+		 */
+		public FinalCommitment getCommitment() {
+			return this.commitment;
+		}
+	}
+}
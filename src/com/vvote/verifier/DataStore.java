@@ -17,7 +17,6 @@
  */
 package com.vvote.verifier;
 
-import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -30,9 +29,6 @@ import org.bouncycastle.cert.CertException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.vvote.commits.CommitAttachment;
-import com.vvote.commits.CommitFileMessage;
-import com.vvote.commits.CommitSignature;
 import com.vvote.commits.FinalCommitment;
 import com.vvote.commits.exceptions.CommitAttachmentInitException;
 import com.vvote.commits.exceptions.CommitFileInitException;
@@ -47,10 +43,11 @@ import com.vvote.messages.typed.TypedJSONMessage;
 import com.vvote.messages.typed.file.FileMessage;
 import com.vvote.messages.types.MessageType;
 import com.vvote.thirdparty.json.orgjson.JSONException;
+import com.vvote.verifier.CommitRepository.CommittedMessage;
 import com.vvote.verifier.exceptions.DataStoreException;
-import com.vvote.verifierlibrary.exceptions.JSONIOException;
-import com.vvote.verifierlibrary.utils.io.FileType;
 import com.vvote.verifierlibrary.utils.io.IOUtils;
+import com.vvote.verifierlibrary.utils.io.NestedZipFileSystem;
+import com.vvote.verifierlibrary.utils.logging.ResultsLogger;
 
 /**
  * Provides storage for all data which is read in from file. All data stored in
@@ -70,7 +67,7 @@ public abstract class DataStore {
 	/**
 	 * Provides logging for the actual results produced in the verifier
 	 */
-	private static final Logger resultsLogger = LoggerFactory.getLogger("results");
+	private static final Logger resultsLogger = ResultsLogger.getLogger(DataStore.class);
 
 	/**
 	 * Each component data store will have its own component specification
@@ -85,9 +82,10 @@ public abstract class DataStore {
 	private String basePath;
 
 	/**
-	 * A map of the final commitments. Identifier : FinalCommitment
+	 * The shared repository of final commitments. Released once the verifier
+	 * using the data store has finished
 	 */
-	private Map<String, FinalCommitment> finalCommitments;
+	private CommitRepository commitRepository;
 
 	/**
 	 * A list of the relevant message types for the component
@@ -148,7 +146,7 @@ public abstract class DataStore {
 
 		this.useExtraCommits = useExtraCommits;
 
-		this.finalCommitments = new HashMap<String, FinalCommitment>();
+		this.commitRepository = CommitRepository.acquire(this.basePath, useExtraCommits ? spec.getExtraCommitsFolder() : spec.getFinalCommitsFolder());
 
 		this.fileCommits = new HashMap<FileMessage, FileCommit>();
 	}
@@ -164,16 +162,15 @@ public abstract class DataStore {
 		logger.debug("Reading in Election commitment data relevant for each verifier");
 
 		if (!this.readData) {
+			if (this.commitRepository == null) {
+				logger.error("Unable to read data. The commitment data has already been released.");
+				return false;
+			}
+
 			try {
 				this.relevantMessageTypes = this.initialiseListOfRelevantMessages();
-				this.readCommitsFolder();
+				this.commitRepository.load();
 
-			} catch (JSONException e) {
-				logger.error("Unable to read data. The format and content of the data file needs to be checked.");
-				return false;
-			} catch (JSONIOException e) {
-				logger.error("Unable to read data. The format and content of the data file needs to be checked.");
-				return false;
 			} catch (CommitAttachmentInitException e) {
 				logger.error("Unable to read data. The format and content of the data file needs to be checked.");
 				return false;
@@ -194,7 +191,7 @@ public abstract class DataStore {
 				return false;
 			}
 
-			if (this.finalCommitments == null) {
+			if (this.commitRepository.getFinalCommitments().isEmpty()) {
 				logger.warn("There is no commitment data available: {}", IOUtils.findFile(this.spec.getFinalCommitsFolder(), this.basePath));
 				resultsLogger.warn("There is no commitment data available: {}", IOUtils.findFile(this.spec.getFinalCommitsFolder(), this.basePath));
 			}
@@ -224,7 +221,7 @@ public abstract class DataStore {
 			*/
 
 			try {
-				this.certificatesFile = new CertificatesFile(IOUtils.readStringFromFile(IOUtils.findFile(this.getSpec().getCertsFile(), this.getBasePath())));
+				this.certificatesFile = this.loadCertificatesFile();
 			} catch (CertException e) {
 				logger.error("Unable to read data. The format and content of the data file needs to be checked.");
 				return false;
@@ -245,44 +242,6 @@ public abstract class DataStore {
 		return true;
 	}
 
-	/**
-	 * Helper method to add an attachment
-	 * 
-	 * @param identifier
-	 * @param attachment
-	 * @throws FinalCommitInitException
-	 */
-	private void addAttachment(String identifier, CommitAttachment attachment) throws FinalCommitInitException {
-		FinalCommitment commitment = null;
-
-		if (this.finalCommitments.containsKey(identifier)) {
-			commitment = this.finalCommitments.get(identifier);
-			commitment.setAttachment(attachment);
-		} else {
-			commitment = new FinalCommitment(attachment);
-			this.finalCommitments.put(commitment.getIdentifier(), commitment);
-		}
-	}
-
-	/**
-	 * Helper method to add a file message
-	 * 
-	 * @param identifier
-	 * @param fileMessage
-	 * @throws FinalCommitInitException
-	 */
-	private void addFileMessage(String identifier, CommitFileMessage fileMessage) throws FinalCommitInitException {
-		FinalCommitment commitment = null;
-
-		if (this.finalCommitments.containsKey(identifier)) {
-			commitment = this.finalCommitments.get(identifier);
-			commitment.setFileMessage(fileMessage);
-		} else {
-			commitment = new FinalCommitment(fileMessage);
-			this.finalCommitments.put(commitment.getIdentifier(), commitment);
-		}
-	}
-
 	/**
 	 * Adds a <code>TypedJSONMessage</code> from the
 	 * <code>FinalCommitment</code> object
@@ -326,31 +285,30 @@ public abstract class DataStore {
 	}
 
 	/**
-	 * Helper method to add a signature
+	 * Getter for the base path of the data provided
 	 * 
-	 * @param identifier
-	 * @param signature
-	 * @throws FinalCommitInitException
+	 * @return basePath
 	 */
-	private void addSignature(String identifier, CommitSignature signature) throws FinalCommitInitException {
-		FinalCommitment commitment = null;
-
-		if (this.finalCommitments.containsKey(identifier)) {
-			commitment = this.finalCommitments.get(identifier);
-			commitment.setSignature(signature);
-		} else {
-			commitment = new FinalCommitment(signature);
-			this.finalCommitments.put(commitment.getIdentifier(), commitment);
-		}
+	public final String getBasePath() {
+		return this.basePath;
 	}
 
 	/**
-	 * Getter for the base path of the data provided
+	 * Finds a data file by name. The base path is searched first followed by
+	 * the contents of any file commits which have been read from their zip
+	 * attachments
 	 * 
-	 * @return basePath
+	 * @param name
+	 * @return the path for the found file or null if it cannot be found
 	 */
-	public final String getBasePath() {
-		return this.basePath;
+	public String findFile(String name) {
+		String result = IOUtils.findFile(name, this.getBasePath());
+
+		if (result == null) {
+			result = NestedZipFileSystem.getInstance().findExtractedFile(name);
+		}
+
+		return result;
 	}
 
 	/**
@@ -368,7 +326,32 @@ public abstract class DataStore {
 	 * @return finalCommitments
 	 */
 	public final Map<String, FinalCommitment> getFinalCommitments() {
-		return Collections.unmodifiableMap(this.finalCommitments);
+		if (this.commitRepository == null) {
+			return Collections.emptyMap();
+		}
+		return this.commitRepository.getFinalCommitments();
+	}
+
+	/**
+	 * Getter for the shared commit repository
+	 * 
+	 * @return commitRepository or null if it has been released
+	 */
+	public final CommitRepository getCommitRepository() {
+		return this.commitRepository;
+	}
+
+	/**
+	 * Releases the data store's reference to the shared commitment data. Once
+	 * every data store reading the same commits folder has been released the
+	 * commitment data is discarded. Data already organised into the data store
+	 * is unaffected
+	 */
+	public void release() {
+		if (this.commitRepository != null) {
+			this.commitRepository.release();
+			this.commitRepository = null;
+		}
 	}
 
 	/**
@@ -413,22 +396,10 @@ public abstract class DataStore {
 
 		logger.debug("Only need to look at messages: {}", this.getRelevantMessageTypes());
 
-		FinalCommitment commitment = null;
-
-		for (String identifier : this.getFinalCommitments().keySet()) {
-			logger.info("Organising final commit data with identifier: {}", identifier);
-
-			commitment = this.getFinalCommitments().get(identifier);
-
-			for (TypedJSONMessage typedMessage : commitment.getFileMessage().getJsonMessages()) {
-				if (this.getRelevantMessageTypes() != null) {
-					if (this.getRelevantMessageTypes().contains(typedMessage.getType())) {
-						if (!this.addMessage(typedMessage, commitment)) {
-							logger.error("Unable to add message: {}", typedMessage);
-							return false;
-						}
-					}
-				}
+		for (CommittedMessage committedMessage : this.commitRepository.getMessages(this.getRelevantMessageTypes())) {
+			if (!this.addMessage(committedMessage.getMessage(), committedMessage.getCommitment())) {
+				logger.error("Unable to add message: {}", committedMessage.getMessage());
+				return false;
 			}
 		}
 
@@ -436,83 +407,32 @@ public abstract class DataStore {
 	}
 
 	/**
-	 * Reads in the commits folder
+	 * Loads the certificates file, using the copy held by the commit repository
+	 * if another data store has already read it
 	 * 
+	 * @return the certificates file
+	 * @throws CertException
+	 * @throws FileNotFoundException
+	 * @throws IOException
 	 * @throws JSONException
-	 * @throws JSONIOException
-	 * @throws CommitFileInitException
-	 * @throws CommitAttachmentInitException
-	 * @throws FinalCommitInitException
-	 * @throws CommitSignatureInitException
-	 * @throws CommitFileMessageInitException
-	 * @throws DataStoreException
 	 */
-	private void readCommitsFolder() throws JSONException, JSONIOException, CommitAttachmentInitException, CommitFileInitException, FinalCommitInitException, CommitSignatureInitException,
-			CommitFileMessageInitException, DataStoreException {
-
-		File commitsLocation = null;
-
-		if (this.useExtraCommits) {
-			commitsLocation = new File(IOUtils.findFile(this.spec.getExtraCommitsFolder(), this.basePath));
-		} else {
-			commitsLocation = new File(IOUtils.findFile(this.spec.getFinalCommitsFolder(), this.basePath));
-		}
+	private CertificatesFile loadCertificatesFile() throws CertException, FileNotFoundException, IOException, JSONException {
+		String certsPath = this.findFile(this.getSpec().getCertsFile());
+		String dataKey = CertificatesFile.class.getName() + ":" + certsPath;
 
-		logger.info("Initially reading Commits data folder: {}", commitsLocation);
+		synchronized (this.commitRepository) {
+			CertificatesFile certs = this.commitRepository.getSharedData(dataKey, CertificatesFile.class);
 
-		// check whether the provided directory is valid
-		if (!commitsLocation.isDirectory()) {
-			logger.error("The final commits data must be a directory: {}", commitsLocation);
-			throw new DataStoreException("The final commits data must be a directory: " + commitsLocation);
-		}
-
-		CommitFileMessage fileMessage = null;
-		CommitAttachment attachment = null;
-		CommitSignature signature = null;
-
-		String identifier = null;
-
-		String filePath = null;
-
-		// loop over each file in the directory
-		for (File file : commitsLocation.listFiles()) {
-
-			filePath = IOUtils.join(commitsLocation.toString(), file.getName());
-
-			// add attachment
-			if (IOUtils.checkExtension(FileType.ZIP, file.getName())) {
-
-				attachment = new CommitAttachment(filePath);
-				identifier = attachment.getIdentifier();
-
-				this.addAttachment(identifier, attachment);
-			} else // add signature
-			if (IOUtils.checkExtension(FileType.JSON, file.getName()) && file.getName().contains("_signature")) {
-
-				signature = new CommitSignature(filePath);
-				identifier = signature.getIdentifier();
-
-				this.addSignature(identifier, signature);
-			} else // add file message
-			if (IOUtils.checkExtension(FileType.JSON, file.getName())) {
-
-				fileMessage = new CommitFileMessage(filePath);
-				identifier = fileMessage.getIdentifier();
-
-				this.addFileMessage(identifier, fileMessage);
+			if (certs == null) {
+				certs = new CertificatesFile(IOUtils.readStringFromFile(certsPath));
+				this.commitRepository.putSharedData(dataKey, certs);
 			}
-		}
 
-		for (FinalCommitment currentCommitment : this.finalCommitments.values()) {
-
-			if (currentCommitment.getFileMessage() == null || currentCommitment.getAttachment() == null || currentCommitment.getSignature() == null) {
-				logger.error("Commitment doesn't contain a FileMessage, Attachment and Signature: {}", currentCommitment);
-			}
-
-			logger.info("Constructed final commit: {}", currentCommitment.getIdentifier());
+			return certs;
 		}
 	}
 
+
 	/**
 	 * Getter for whether the data has been read for a datastore
 	 * 
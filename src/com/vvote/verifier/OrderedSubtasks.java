@@ -0,0 +1,240 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifier;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vvote.verifierlibrary.utils.logging.ResultsLogger;
+import com.vvote.verifierlibrary.utils.logging.TaskResults;
+
+/**
+ * Runs subtasks of a verification task on the pool running the task and hands
+ * back their results in the order the subtasks were submitted. At most a
+ * fixed number of subtasks are pending at once, never more than the
+ * parallelism of the pool, so a task graph's thread budget also bounds its
+ * subtasks and the results waiting to be collected stay bounded however many
+ * subtasks are submitted.
+ * 
+ * The results log output of each subtask is held and added to the output of
+ * the submitting task when the subtask's result is collected, so the output
+ * is in submission order. Outside a task graph, or when only one subtask may
+ * be pending, each subtask is run on the submitting thread when it is
+ * submitted.
+ * 
+ * Subtasks are submitted while {@link #isFull()} is false and collected using
+ * {@link #next()}, from the thread which created the instance
+ * 
+ * @author James Rumble
+ * 
+ * @param <T>
+ *            the type of result produced by the subtasks
+ */
+public final class OrderedSubtasks<T> {
+
+	/**
+	 * A single subtask and its outcome
+	 * 
+	 * @param <T>
+	 *            the type of result produced by the subtask
+	 */
+	private static final class Subtask<T> extends RecursiveAction {
+
+		/**
+		 * Serial version
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The subtask itself
+		 */
+		private final transient Callable<T> callable;
+
+		/**
+		 * The results log output of the subtask
+		 */
+		private final transient TaskResults results;
+
+		/**
+		 * The result of the subtask
+		 */
+		private transient T result = null;
+
+		/**
+		 * The exception thrown by the subtask, if any
+		 */
+		private transient Exception failure = null;
+
+		/**
+		 * Constructor for a subtask
+		 * 
+		 * @param callable
+		 */
+		private Subtask(Callable<T> callable) {
+			this.callable = callable;
+			this.results = new TaskResults();
+		}
+
+		@Override
+		protected void compute() {
+			TaskResults previous = ResultsLogger.setTaskResults(this.results);
+
+			try {
+				this.result = this.callable.call();
+			} catch (Exception e) {
+				this.failure = e;
+			} finally {
+				ResultsLogger.setTaskResults(previous);
+			}
+		}
+	}
+
+	/**
+	 * provides logging for the class
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(OrderedSubtasks.class);
+
+	/**
+	 * The maximum number of subtasks pending at once
+	 */
+	private final int window;
+
+	/**
+	 * The results of the submitting task, which the output of each subtask is
+	 * added to
+	 */
+	private final TaskResults taskResults;
+
+	/**
+	 * The subtasks which have not been collected, in submission order
+	 */
+	private final Deque<Subtask<T>> pending;
+
+	/**
+	 * Constructor for <code>OrderedSubtasks</code>
+	 * 
+	 * @param maximumPending
+	 *            the maximum number of subtasks pending at once, or 0 to
+	 *            use the parallelism of the pool running the current task
+	 */
+	public OrderedSubtasks(int maximumPending) {
+		int parallelism = 1;
+
+		if (ForkJoinTask.inForkJoinPool()) {
+			parallelism = ForkJoinTask.getPool().getParallelism();
+		}
+
+		if (maximumPending > 0 && maximumPending < parallelism) {
+			this.window = maximumPending;
+		} else {
+			this.window = parallelism;
+		}
+
+		this.taskResults = ResultsLogger.getTaskResults();
+		this.pending = new ArrayDeque<Subtask<T>>(this.window);
+
+		logger.debug("Running subtasks with at most {} pending", this.window);
+	}
+
+	/**
+	 * Getter for the maximum number of subtasks pending at once
+	 * 
+	 * @return the maximum number of subtasks pending at once
+	 */
+	public int getWindow() {
+		return this.window;
+	}
+
+	/**
+	 * Checks whether a subtask is waiting to be collected
+	 * 
+	 * @return true if there is a subtask to collect
+	 */
+	public boolean hasNext() {
+		return !this.pending.isEmpty();
+	}
+
+	/**
+	 * Checks whether the maximum number of subtasks are pending, in which
+	 * case the next result must be collected before another subtask can be
+	 * submitted
+	 * 
+	 * @return true if no more subtasks can be submitted
+	 */
+	public boolean isFull() {
+		return this.pending.size() >= this.window;
+	}
+
+	/**
+	 * Submits a subtask, starting it on the pool running the current task or
+	 * running it straight away if only one subtask may be pending
+	 * 
+	 * @param callable
+	 */
+	public void submit(Callable<T> callable) {
+		if (this.isFull()) {
+			logger.error("Cannot submit a subtask while {} subtasks are pending", this.pending.size());
+			throw new IllegalStateException("Cannot submit a subtask while " + this.pending.size() + " subtasks are pending");
+		}
+
+		Subtask<T> subtask = new Subtask<T>(callable);
+
+		if (this.window > 1) {
+			subtask.fork();
+		} else {
+			subtask.invoke();
+		}
+
+		this.pending.addLast(subtask);
+	}
+
+	/**
+	 * Collects the result of the earliest submitted subtask which has not
+	 * been collected, waiting for it to finish. The subtask's results log
+	 * output is added to the output of the submitting task
+	 * 
+	 * @return the result of the subtask
+	 * @throws ExecutionException
+	 *             if the subtask threw an exception, which is the cause
+	 */
+	public T next() throws ExecutionException {
+		Subtask<T> subtask = this.pending.pollFirst();
+
+		if (subtask == null) {
+			logger.error("There are no subtasks to collect");
+			throw new NoSuchElementException("There are no subtasks to collect");
+		}
+
+		subtask.join();
+		subtask.results.replay(this.taskResults);
+
+		if (subtask.failure != null) {
+			throw new ExecutionException(subtask.failure);
+		}
+
+		return subtask.result;
+	}
+}
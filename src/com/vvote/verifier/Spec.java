@@ -102,7 +102,7 @@ public abstract class Spec {
 	public boolean validateSchema() {
 		// validate the schema
 		try {
-			if (JSONUtility.validateSchema(this.getSchemaLocation(), this.spec.toString())) {
+			if (JSONUtility.validateSchema(this.getSchemaLocation(), this.spec)) {
 				return true;
 			}
 		} catch (JSONSchemaException e) {
@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,6 +37,8 @@ import org.slf4j.LoggerFactory;
 import com.vvote.verifier.exceptions.VVoteVerifierException;
 import com.vvote.verifier.fields.VerifierFields;
 import com.vvote.verifierlibrary.utils.io.IOUtils;
+import com.vvote.verifierlibrary.utils.io.NestedZipFileSystem;
+import com.vvote.verifierlibrary.utils.logging.ResultsLogger;
 
 /**
  * Provides a high level Verifier to run which will call all other verifiers. It
@@ -54,7 +57,7 @@ public class VVoteVerifier implements IVerifier {
 	/**
 	 * Provides logging for the actual results produced in the verifier
 	 */
-	private static final Logger resultsLogger = LoggerFactory.getLogger("results");
+	private static final Logger resultsLogger = ResultsLogger.getLogger(VVoteVerifier.class);
 
 	/**
 	 * Provides the main entrance path to the system
@@ -164,6 +167,11 @@ public class VVoteVerifier implements IVerifier {
 	
 	private String verifierSelection = null;
 
+	/**
+	 * The number of threads used to run the verification tasks
+	 */
+	private final int threadBudget;
+
 	/**
 	 * Constructor for a VVoteVerifier object
 	 * 
@@ -186,6 +194,8 @@ public class VVoteVerifier implements IVerifier {
 			this.verifierSelection = verifierToUse;
 		}
 
+		this.threadBudget = spec.getThreadBudget();
+
 		this.verifiers = new HashMap<String, Verifier>();
 		try {
 
@@ -246,38 +256,28 @@ public class VVoteVerifier implements IVerifier {
 
 		boolean verified = true;
 
-		for (Entry<String, Verifier> verifier : this.verifiers.entrySet()) {
-			
-			if(this.verifierSelection != null){
-				if(this.verifierSelection.equals("-c")){
-					if(!verifier.getKey().equals("Public WBB Commits")){
-						continue;
-					}
-				}else if(this.verifierSelection.equals("-b")){
-					if(!verifier.getKey().equals("Ballot Generation")){
-						continue;
-					}
-				}else if(this.verifierSelection.equals("-m")){
-					if(!verifier.getKey().equals("Vote Packing")){
-						continue;
-					}
+		VerificationTaskGraph graph = new VerificationTaskGraph(this.getThreadBudget());
+
+		try {
+			for (Entry<String, Verifier> verifier : this.verifiers.entrySet()) {
+
+				if (!this.isSelected(verifier.getKey())) {
+					// the verifier will not be run so it no longer needs the
+					// shared commitment data
+					verifier.getValue().getDataStore().release();
+					continue;
 				}
-			}
-			
-			resultsLogger.info("Doing verification on: {}", verifier.getKey());
 
-			if(!verifier.getValue().getSpec().validateSchema()){
-				logger.error("Unable to carry out verification - Please check the schema file");
-				return false;
-			}
-			if(!verifier.getValue().getDataStore().readData()){
-				logger.error("Unable to carry out verification - Please check the data files");
-				return false;
+				this.addVerificationTasks(graph, verifier.getKey(), verifier.getValue());
 			}
 
-			if (!verifier.getValue().doVerification()) {
-				verified = false;
+			verified = graph.run();
+		} finally {
+			for (Verifier verifier : this.verifiers.values()) {
+				verifier.getDataStore().release();
 			}
+
+			NestedZipFileSystem.getInstance().closeChannels();
 		}
 
 		if (verified) {
@@ -291,6 +291,94 @@ public class VVoteVerifier implements IVerifier {
 		return verified;
 	}
 
+	/**
+	 * Adds the tasks for a single verifier to the task graph. The schema is
+	 * validated and the data read in before the verifier's own tasks are run,
+	 * and the verifier's data is released once its tasks have finished
+	 * 
+	 * @param graph
+	 * @param name
+	 * @param verifier
+	 */
+	private void addVerificationTasks(VerificationTaskGraph graph, final String name, final Verifier verifier) {
+
+		final String schemaTask = name + ": schema";
+		final String dataTask = name + ": data";
+
+		graph.addTask(schemaTask, new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() {
+				resultsLogger.info("Doing verification on: {}", name);
+
+				if (!verifier.getSpec().validateSchema()) {
+					logger.error("Unable to carry out verification - Please check the schema file");
+					return false;
+				}
+				return true;
+			}
+		});
+
+		graph.addTask(dataTask, new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() {
+				if (!verifier.getDataStore().readData()) {
+					logger.error("Unable to carry out verification - Please check the data files");
+					return false;
+				}
+				return true;
+			}
+		}, schemaTask);
+
+		String verificationTask = verifier.addVerificationTasks(graph, name, dataTask);
+
+		graph.addTaskAfter(name + ": release", new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() {
+				verifier.getDataStore().release();
+				return true;
+			}
+		}, verificationTask);
+	}
+
+	/**
+	 * Gets the number of threads to run the verification tasks with, using
+	 * every available processor if the spec asks for 0
+	 * 
+	 * @return the number of threads to use
+	 */
+	private int getThreadBudget() {
+		if (this.threadBudget <= 0) {
+			return Runtime.getRuntime().availableProcessors();
+		}
+
+		return this.threadBudget;
+	}
+
+	/**
+	 * Checks whether a verifier has been selected to be run
+	 * 
+	 * @param verifierName
+	 * @return true if no selection was made or the verifier was selected
+	 */
+	private boolean isSelected(String verifierName) {
+		if (this.verifierSelection == null) {
+			return true;
+		}
+
+		if (this.verifierSelection.equals("-c")) {
+			return verifierName.equals("Public WBB Commits");
+		} else if (this.verifierSelection.equals("-b")) {
+			return verifierName.equals("Ballot Generation");
+		} else if (this.verifierSelection.equals("-m")) {
+			return verifierName.equals("Vote Packing");
+		}
+
+		return true;
+	}
+
 	/**
 	 * Returns a filename filters which checks for svn files
 	 * 
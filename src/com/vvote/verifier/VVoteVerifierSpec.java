@@ -101,6 +101,26 @@ public class VVoteVerifierSpec {
 		return this.verifierDetails;
 	}
 	
+	/**
+	 * Getter for the number of threads used to run the verification tasks. A
+	 * value of 0 uses every available processor
+	 * 
+	 * @return spec.getInt(THREAD_BUDGET) or 0 if the thread budget is not
+	 *         specified
+	 */
+	public int getThreadBudget() {
+		if (this.spec != null) {
+			if (this.spec.has(VerifierFields.VVoteVerifierSpec.THREAD_BUDGET)) {
+				try {
+					return this.spec.getInt(VerifierFields.VVoteVerifierSpec.THREAD_BUDGET);
+				} catch (JSONException e) {
+					logger.error("There was a problem when getting the thread budget from the spec object");
+				}
+			}
+		}
+		return 0;
+	}
+
 	/**
 	 * Getter for the location of the final commitment folder
 	 * 
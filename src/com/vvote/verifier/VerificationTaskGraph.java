@@ -0,0 +1,454 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vvote.verifierlibrary.utils.logging.ResultsLogger;
+import com.vvote.verifierlibrary.utils.logging.TaskResults;
+
+/**
+ * Provides a graph of named verification tasks with declared dependencies. A
+ * task is started as soon as every task it depends on has finished so
+ * independent tasks run at the same time on a work-stealing pool. The graph is
+ * acyclic by construction as a task can only depend on tasks which have
+ * already been added.
+ * 
+ * A task added using {@link #addTask(String, Callable, String...)} requires
+ * the data produced by its dependencies and is skipped, and counted as failed,
+ * when any of them fail. A task added using
+ * {@link #addTaskAfter(String, Callable, String...)} is only ordered after its
+ * dependencies and is run whatever their outcome.
+ * 
+ * The results log output of each task is held while any task added before it
+ * is still running and written once they have all finished, so the results
+ * log is written in the order the tasks were added whatever the number of
+ * threads used. The earliest added task which is still running writes its
+ * output straight through.
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class VerificationTaskGraph {
+
+	/**
+	 * A single named task in the graph
+	 */
+	private static final class Node {
+
+		/**
+		 * The name of the task
+		 */
+		private final String name;
+
+		/**
+		 * The task itself
+		 */
+		private final Callable<Boolean> task;
+
+		/**
+		 * The tasks which must finish before this task is started
+		 */
+		private final List<Node> dependencies;
+
+		/**
+		 * The tasks which depend on this task
+		 */
+		private final List<Node> dependents;
+
+		/**
+		 * Whether the task is skipped when a dependency fails
+		 */
+		private final boolean requiresDependencies;
+
+		/**
+		 * The number of dependencies which are yet to finish
+		 */
+		private final AtomicInteger pendingDependencies;
+
+		/**
+		 * Whether the task completed successfully. Only read once the task has
+		 * finished
+		 */
+		private volatile boolean successful = false;
+
+		/**
+		 * Whether the task has finished in the current run. Guarded by the
+		 * graph's results lock
+		 */
+		private boolean finished = false;
+
+		/**
+		 * The results log output of the task in the current run
+		 */
+		private TaskResults results = null;
+
+		/**
+		 * Constructor for a node
+		 * 
+		 * @param name
+		 * @param task
+		 * @param dependencies
+		 * @param requiresDependencies
+		 */
+		private Node(String name, Callable<Boolean> task, List<Node> dependencies, boolean requiresDependencies) {
+			this.name = name;
+			this.task = task;
+			this.dependencies = dependencies;
+			this.dependents = new ArrayList<Node>();
+			this.requiresDependencies = requiresDependencies;
+			this.pendingDependencies = new AtomicInteger();
+		}
+	}
+
+	/**
+	 * Runs a single node of the graph and then starts any dependents which are
+	 * now ready
+	 */
+	private final class NodeAction extends RecursiveAction {
+
+		/**
+		 * Serial version
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The node to run
+		 */
+		private final transient Node node;
+
+		/**
+		 * Constructor for a NodeAction
+		 * 
+		 * @param node
+		 */
+		private NodeAction(Node node) {
+			this.node = node;
+		}
+
+		@Override
+		protected void compute() {
+			try {
+				this.node.successful = VerificationTaskGraph.this.runNode(this.node);
+			} finally {
+				VerificationTaskGraph.this.finishNode(this.node);
+
+				// forked in reverse so a thread takes them in the order they
+				// were added
+				for (int i = this.node.dependents.size() - 1; i >= 0; i--) {
+					Node dependent = this.node.dependents.get(i);
+
+					if (dependent.pendingDependencies.decrementAndGet() == 0) {
+						new NodeAction(dependent).fork();
+					}
+				}
+
+				VerificationTaskGraph.this.remaining.countDown();
+			}
+		}
+	}
+
+	/**
+	 * provides logging for the class
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(VerificationTaskGraph.class);
+
+	/**
+	 * The number of threads used to run the graph
+	 */
+	private final int parallelism;
+
+	/**
+	 * The tasks in the order they were added. Name : Node
+	 */
+	private final Map<String, Node> nodes;
+
+	/**
+	 * The number of tasks still to finish in the current run
+	 */
+	private CountDownLatch remaining = null;
+
+	/**
+	 * Guards the writing of the results log output of the tasks
+	 */
+	private final Object resultsLock = new Object();
+
+	/**
+	 * The tasks in the order they were added, for the current run
+	 */
+	private List<Node> resultsOrder = null;
+
+	/**
+	 * The position in {@link #resultsOrder} of the earliest added task which
+	 * has not finished
+	 */
+	private int resultsPosition = 0;
+
+	/**
+	 * Constructor for a verification task graph
+	 * 
+	 * @param parallelism
+	 *            the number of threads used to run the tasks
+	 */
+	public VerificationTaskGraph(int parallelism) {
+		if (parallelism < 1) {
+			logger.error("The parallelism of a task graph must be at least 1: {}", parallelism);
+			throw new IllegalArgumentException("The parallelism of a task graph must be at least 1: " + parallelism);
+		}
+
+		this.parallelism = parallelism;
+		this.nodes = new LinkedHashMap<String, Node>();
+	}
+
+	/**
+	 * Adds a task which requires the data produced by each of its dependencies.
+	 * The task is skipped, and counted as failed, if any dependency fails
+	 * 
+	 * @param name
+	 * @param task
+	 * @param dependencies
+	 *            the names of tasks already added to the graph
+	 */
+	public void addTask(String name, Callable<Boolean> task, String... dependencies) {
+		this.add(name, task, dependencies, true);
+	}
+
+	/**
+	 * Adds a task which is ordered after each of its dependencies and is run
+	 * whatever their outcome
+	 * 
+	 * @param name
+	 * @param task
+	 * @param dependencies
+	 *            the names of tasks already added to the graph
+	 */
+	public void addTaskAfter(String name, Callable<Boolean> task, String... dependencies) {
+		this.add(name, task, dependencies, false);
+	}
+
+	/**
+	 * Checks whether every task named completed successfully. Only valid for
+	 * tasks which have finished - either after {@link #run()} or from a task
+	 * which depends on the named tasks
+	 * 
+	 * @param names
+	 * @return true if every task named completed successfully
+	 */
+	public boolean isSuccessful(String... names) {
+		for (String name : names) {
+			if (!this.getNode(name).successful) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Getter for the names of the tasks in the order they were added
+	 * 
+	 * @return the task names
+	 */
+	public List<String> getTaskNames() {
+		return Collections.unmodifiableList(new ArrayList<String>(this.nodes.keySet()));
+	}
+
+	/**
+	 * Runs every task in the graph. Each task is started once the tasks it
+	 * depends on have finished
+	 * 
+	 * @return true if every task completed successfully
+	 */
+	public boolean run() {
+		if (this.nodes.isEmpty()) {
+			return true;
+		}
+
+		logger.info("Running {} verification tasks using {} threads", this.nodes.size(), this.parallelism);
+
+		this.remaining = new CountDownLatch(this.nodes.size());
+
+		List<Node> roots = new ArrayList<Node>();
+
+		for (Node node : this.nodes.values()) {
+			node.successful = false;
+			node.finished = false;
+			node.results = new TaskResults();
+			node.pendingDependencies.set(node.dependencies.size());
+
+			if (node.dependencies.isEmpty()) {
+				roots.add(node);
+			}
+		}
+
+		this.resultsOrder = new ArrayList<Node>(this.nodes.values());
+		this.resultsPosition = 0;
+		this.resultsOrder.get(0).results.stream();
+
+		ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+
+		try {
+			for (Node root : roots) {
+				pool.execute(new NodeAction(root));
+			}
+
+			this.remaining.await();
+		} catch (InterruptedException e) {
+			logger.error("Interrupted while waiting for the verification tasks to finish", e);
+			Thread.currentThread().interrupt();
+			return false;
+		} finally {
+			pool.shutdownNow();
+		}
+
+		boolean successful = true;
+
+		for (Node node : this.nodes.values()) {
+			if (!node.successful) {
+				logger.debug("Verification task was not successful: {}", node.name);
+				successful = false;
+			}
+		}
+
+		return successful;
+	}
+
+	/**
+	 * Adds a task to the graph
+	 * 
+	 * @param name
+	 * @param task
+	 * @param dependencyNames
+	 * @param requiresDependencies
+	 */
+	private void add(String name, Callable<Boolean> task, String[] dependencyNames, boolean requiresDependencies) {
+		if (name == null || task == null) {
+			logger.error("A verification task must have a name and a task to run");
+			throw new IllegalArgumentException("A verification task must have a name and a task to run");
+		}
+
+		if (this.nodes.containsKey(name)) {
+			logger.error("A verification task has already been added with the name: {}", name);
+			throw new IllegalArgumentException("A verification task has already been added with the name: " + name);
+		}
+
+		List<Node> dependencies = new ArrayList<Node>();
+
+		for (String dependencyName : dependencyNames) {
+			dependencies.add(this.getNode(dependencyName));
+		}
+
+		Node node = new Node(name, task, dependencies, requiresDependencies);
+
+		for (Node dependency : dependencies) {
+			dependency.dependents.add(node);
+		}
+
+		this.nodes.put(name, node);
+	}
+
+	/**
+	 * Marks a task as finished and writes the held results log output of
+	 * every task up to the earliest added task which has not finished, which
+	 * then writes its output straight through
+	 * 
+	 * @param node
+	 */
+	private void finishNode(Node node) {
+		synchronized (this.resultsLock) {
+			node.finished = true;
+
+			while (this.resultsPosition < this.resultsOrder.size()) {
+				Node next = this.resultsOrder.get(this.resultsPosition);
+
+				next.results.stream();
+
+				if (!next.finished) {
+					break;
+				}
+
+				this.resultsPosition++;
+			}
+		}
+	}
+
+	/**
+	 * Gets the node for a task which has already been added
+	 * 
+	 * @param name
+	 * @return the node
+	 */
+	private Node getNode(String name) {
+		Node node = this.nodes.get(name);
+
+		if (node == null) {
+			logger.error("No verification task has been added with the name: {}", name);
+			throw new IllegalArgumentException("No verification task has been added with the name: " + name);
+		}
+
+		return node;
+	}
+
+	/**
+	 * Runs the task held in a node, unless it requires a dependency which
+	 * failed, with its results log output held in the node. Anything thrown by the task, including errors such as a native
+	 * library failing to load, is logged against the task and counts as a
+	 * failure
+	 * 
+	 * @param node
+	 * @return true if the task completed successfully
+	 */
+	private boolean runNode(Node node) {
+		if (node.requiresDependencies) {
+			for (Node dependency : node.dependencies) {
+				if (!dependency.successful) {
+					logger.error("Skipping verification task: {}, as the task it requires was not successful: {}", node.name, dependency.name);
+					return false;
+				}
+			}
+		}
+
+		logger.debug("Starting verification task: {}", node.name);
+
+		TaskResults previous = ResultsLogger.setTaskResults(node.results);
+
+		try {
+			Boolean result = node.task.call();
+
+			logger.debug("Finished verification task: {} ({})", node.name, result);
+
+			return Boolean.TRUE.equals(result);
+		} catch (Throwable t) {
+			logger.error("Verification task failed: {}", node.name, t);
+			return false;
+		} finally {
+			ResultsLogger.setTaskResults(previous);
+		}
+	}
+}
@@ -17,6 +17,8 @@
  */
 package com.vvote.verifier;
 
+import java.util.concurrent.Callable;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -97,6 +99,33 @@ public abstract class Verifier implements IVerifier {
 		return true;
 	}
 
+	/**
+	 * Adds the verification steps carried out by the verifier to a task graph
+	 * so that independent steps can be run at the same time. Each step
+	 * requires the task which reads in the data for the verifier. By default
+	 * the whole verification is added as a single step
+	 * 
+	 * @param graph
+	 * @param name
+	 *            the name of the verifier, used as a prefix for each task
+	 * @param dataTask
+	 *            the name of the task which reads in the data
+	 * @return the name of the task which completes the verification
+	 */
+	public String addVerificationTasks(VerificationTaskGraph graph, String name, String dataTask) {
+		final String verificationTask = name + ": verification";
+
+		graph.addTask(verificationTask, new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() {
+				return Verifier.this.doVerification();
+			}
+		}, dataTask);
+
+		return verificationTask;
+	}
+
 	/**
 	 * Getter for the spec object
 	 * 
@@ -17,12 +17,15 @@
  */
 package com.vvote.verifier.commits;
 
-import it.unisa.dia.gas.jpbc.Element;
-
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,6 +36,7 @@ import com.vvote.messages.typed.TypedJSONMessage;
 import com.vvote.messages.typed.file.FileMessage;
 import com.vvote.messages.types.MessageType;
 import com.vvote.thirdparty.json.orgjson.JSONException;
+import com.vvote.verifier.OrderedSubtasks;
 import com.vvote.verifier.Verifier;
 import com.vvote.verifier.exceptions.ComponentSpecException;
 import com.vvote.verifier.exceptions.DataStoreException;
@@ -42,8 +46,10 @@ import com.vvote.verifierlibrary.exceptions.BLSSignatureException;
 import com.vvote.verifierlibrary.exceptions.FileHashException;
 import com.vvote.verifierlibrary.utils.Utils;
 import com.vvote.verifierlibrary.utils.crypto.CryptoUtils;
+import com.vvote.verifierlibrary.utils.crypto.bls.BLSBatchVerifier;
 import com.vvote.verifierlibrary.utils.crypto.bls.BLSUtils;
-import com.vvote.verifierlibrary.utils.io.IOUtils;
+import com.vvote.verifierlibrary.utils.io.NestedZipFileSystem;
+import com.vvote.verifierlibrary.utils.logging.ResultsLogger;
 
 /**
  * Provides verification of the signatures over commitments made to the public
@@ -54,6 +60,65 @@ import com.vvote.verifierlibrary.utils.io.IOUtils;
  */
 public class CommitmentVerifier extends Verifier {
 
+	/**
+	 * Holds the details of a joint signature waiting for batch verification
+	 * so that any failures can be reported in full
+	 * 
+	 * @author James Rumble
+	 * 
+	 */
+	private static final class PendingJointSignature {
+
+		/**
+		 * The identifier of the commitment
+		 */
+		private final String identifier;
+
+		/**
+		 * The joint signature as provided in the commitment
+		 */
+		private final String jointSig;
+
+		/**
+		 * The commit time
+		 */
+		private final String commitTime;
+
+		/**
+		 * The hash of the commitment
+		 */
+		private final byte[] hash;
+
+		/**
+		 * The data covered by the joint signature
+		 */
+		private final byte[] calculatedJointSig;
+
+		/**
+		 * The optional description
+		 */
+		private final String description;
+
+		/**
+		 * Constructor for a PendingJointSignature
+		 * 
+		 * @param identifier
+		 * @param jointSig
+		 * @param commitTime
+		 * @param hash
+		 * @param calculatedJointSig
+		 * @param description
+		 */
+		private PendingJointSignature(String identifier, String jointSig, String commitTime, byte[] hash, byte[] calculatedJointSig, String description) {
+			this.identifier = identifier;
+			this.jointSig = jointSig;
+			this.commitTime = commitTime;
+			this.hash = hash;
+			this.calculatedJointSig = calculatedJointSig;
+			this.description = description;
+		}
+	}
+
 	/**
 	 * provides logging for the class
 	 */
@@ -62,7 +127,7 @@ public class CommitmentVerifier extends Verifier {
 	/**
 	 * Provides logging for the actual results produced in the verifier
 	 */
-	private static final Logger resultsLogger = LoggerFactory.getLogger("results");
+	private static final Logger resultsLogger = ResultsLogger.getLogger(CommitmentVerifier.class);
 
 	/**
 	 * Constructor for a <code>CommitmentVerifier</code>
@@ -101,95 +166,49 @@ public class CommitmentVerifier extends Verifier {
 		if (!this.getDataStore().isUseExtraCommits()) {
 			logger.info("Starting Commitment verification");
 
-			FinalCommitment commitment = null;
-
-			String outerExtracted = null;
-
-			String currentCommitTime = null;
-
-			MessageDigest commitDigest = null;
-			MessageDigest sigDigest = null;
-			byte[] calculatedJointSig = null;
-			byte[] hash = null;
-			byte[] jointSig = null;
-
 			try {
 
-				for (String identifier : this.getDataStore().getFinalCommitments().keySet()) {
-
-					logger.info("Starting the verification of commitment with identifier: {}", identifier);
-
-					commitDigest = MessageDigest.getInstance(PublicWBBConstants.PUBLIC_WBB_DIGEST);
-
-					commitment = this.getDataStore().getFinalCommitments().get(identifier);
-
-					if (commitment.getSignature().isValidSignature()) {
+				List<PendingJointSignature> pendingSignatures = this.hashCommitments(new ArrayList<String>(this.getDataStore().getFinalCommitments().keySet()));
 
-						currentCommitTime = commitment.getSignature().getSignatureMessage().getCommitTime();
-
-						outerExtracted = IOUtils.extractZipFile(commitment.getAttachment().getFilePath());
-
-						for (TypedJSONMessage message : commitment.getFileMessage().getJsonMessages()) {
-
-							commitDigest.update(message.getInternalSignableContent().getBytes());
-
-							if (message.getType() == MessageType.BALLOT_AUDIT_COMMIT || message.getType() == MessageType.MIX_RANDOM_COMMIT || message.getType() == MessageType.BALLOT_GEN_COMMIT
-									|| message.getType() == MessageType.FILE_COMMIT) {
-								File file = new File(outerExtracted, ((FileMessage) message).getFileName());
-								logger.info("Adding hash of file to intermediate hash: {}", file.getName());
-								CryptoUtils.hashFile(file, commitDigest);
-							}
-						}
+				BLSBatchVerifier batchVerifier = new BLSBatchVerifier(this.getDataStore().getCertificatesFile().getWbbCert());
 
-						// Get the hash value
-						hash = commitDigest.digest();
+				List<PendingJointSignature> batchedSignatures = new ArrayList<PendingJointSignature>();
 
-						String hashString = Utils.byteToBase64String(hash);
-
-						sigDigest = MessageDigest.getInstance(PublicWBBConstants.PUBLIC_WBB_DIGEST);
-
-						logger.info("Adding Commit String to signature: {}", PublicWBBConstants.FINAL_COMMIT_MESSAGE_TYPE);
-						sigDigest.update(PublicWBBConstants.FINAL_COMMIT_MESSAGE_TYPE.getBytes());
-						logger.info("Adding Commit Time to signature: {}", currentCommitTime);
-						sigDigest.update(currentCommitTime.getBytes());
-						logger.info("Adding hash to signature: {}", hashString);
-						sigDigest.update(hash);
-
-						String description = commitment.getSignature().getDescription();
-
-						if (description != null) {
-							logger.info("Adding description to signature: {}", description);
-							sigDigest.update(description.getBytes());
-						}
+				for (PendingJointSignature pending : pendingSignatures) {
+					if (pending.calculatedJointSig != null) {
+						batchVerifier.add(pending.calculatedJointSig, BLSUtils.getSignatureElement(Utils.decodeBase64Data(pending.jointSig)));
+						batchedSignatures.add(pending);
+					} else {
+						verified = false;
+						resultsLogger.info("Could not verify the joint signature for the commitment with identifier: {}, as the signature was empty", pending.identifier);
+					}
+				}
 
-						calculatedJointSig = sigDigest.digest();
+				logger.info("Checking the joint signatures for {} commitments using the WBB public key and the privately signed joint signatures", batchedSignatures.size());
 
-						jointSig = Utils.decodeBase64Data(commitment.getSignature().getSignatureMessage().getJointSig());
+				BitSet validSignatures = batchVerifier.verify();
 
-						Element wbbSignature = BLSUtils.getSignatureElement(jointSig);
+				PendingJointSignature pending = null;
 
-						logger.info("Checking the joint signature for the commitment with identifier: {} using the WBB public key and the privately signed joint signature", identifier);
+				for (int i = 0; i < batchedSignatures.size(); i++) {
+					pending = batchedSignatures.get(i);
 
-						if (!BLSUtils.verifyBLSSignature(calculatedJointSig, wbbSignature, this.getDataStore().getCertificatesFile().getWbbCert())) {
-							resultsLogger.error("Verification of the joint signature for the commitment with identifier: {} failed. Check that the data was successfully downloaded.", identifier);
-							resultsLogger.error("Expected signature: {}, but calculated signature: {}", commitment.getSignature().getSignatureMessage().getJointSig(),
-									Utils.byteToBase64String(calculatedJointSig));
-							if (description != null) {
-								resultsLogger.error("Elements used in the signature: {}, {}, {}, {}", PublicWBBConstants.FINAL_COMMIT_MESSAGE_TYPE, currentCommitTime, Utils.byteToBase64String(hash),
-										description);
-							} else {
-								resultsLogger.error("Elements used in the signature: {}, {}, {}", PublicWBBConstants.FINAL_COMMIT_MESSAGE_TYPE, currentCommitTime, Utils.byteToBase64String(hash));
-							}
-							verified = false;
+					if (!validSignatures.get(i)) {
+						resultsLogger.error("Verification of the joint signature for the commitment with identifier: {} failed. Check that the data was successfully downloaded.", pending.identifier);
+						resultsLogger.error("Expected signature: {}, but calculated signature: {}", pending.jointSig, Utils.byteToBase64String(pending.calculatedJointSig));
+						if (pending.description != null) {
+							resultsLogger.error("Elements used in the signature: {}, {}, {}, {}", PublicWBBConstants.FINAL_COMMIT_MESSAGE_TYPE, pending.commitTime, Utils.byteToBase64String(pending.hash),
+									pending.description);
 						} else {
-							resultsLogger.info("Successfully verified the joint signature for the commitment with identifier: {}", identifier);
+							resultsLogger.error("Elements used in the signature: {}, {}, {}", PublicWBBConstants.FINAL_COMMIT_MESSAGE_TYPE, pending.commitTime, Utils.byteToBase64String(pending.hash));
 						}
-					} else {
 						verified = false;
-						resultsLogger.info("Could not verify the joint signature for the commitment with identifier: {}, as the signature was empty", identifier);
+					} else {
+						resultsLogger.info("Successfully verified the joint signature for the commitment with identifier: {}", pending.identifier);
 					}
-
 				}
+
+				logger.info("Verified the joint signatures for {} commitments using {} pairings", batchedSignatures.size(), batchVerifier.getPairingCount());
 			} catch (NoSuchAlgorithmException e) {
 				logger.error("Unable to continue verification.", e);
 				resultsLogger.error("Unable to continue verification.", e);
@@ -224,4 +243,128 @@ public class CommitmentVerifier extends Verifier {
 		return verified;
 	}
 
+	/**
+	 * Hashes each of the commitments provided and calculates the data covered
+	 * by its joint signature. When run as part of a verification task graph
+	 * the commitments are hashed as subtasks on the graph's pool, within its
+	 * thread budget, otherwise the commitments are hashed one after another
+	 * 
+	 * @param identifiers
+	 * @return the pending joint signatures, in the same order as the
+	 *         identifiers
+	 * @throws NoSuchAlgorithmException
+	 * @throws JSONException
+	 * @throws FileHashException
+	 * @throws IOException
+	 */
+	private List<PendingJointSignature> hashCommitments(List<String> identifiers) throws NoSuchAlgorithmException, JSONException, FileHashException, IOException {
+
+		List<PendingJointSignature> pendingSignatures = new ArrayList<PendingJointSignature>(identifiers.size());
+
+		OrderedSubtasks<PendingJointSignature> subtasks = new OrderedSubtasks<PendingJointSignature>(0);
+
+		try {
+			for (final String identifier : identifiers) {
+				if (subtasks.isFull()) {
+					pendingSignatures.add(subtasks.next());
+				}
+
+				subtasks.submit(new Callable<PendingJointSignature>() {
+
+					@Override
+					public PendingJointSignature call() throws NoSuchAlgorithmException, JSONException, FileHashException, IOException {
+						return CommitmentVerifier.this.hashCommitment(identifier);
+					}
+				});
+			}
+
+			while (subtasks.hasNext()) {
+				pendingSignatures.add(subtasks.next());
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof NoSuchAlgorithmException) {
+				throw (NoSuchAlgorithmException) e.getCause();
+			}
+			if (e.getCause() instanceof JSONException) {
+				throw (JSONException) e.getCause();
+			}
+			if (e.getCause() instanceof FileHashException) {
+				throw (FileHashException) e.getCause();
+			}
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new FileHashException("There was a problem hashing a commitment", e.getCause());
+		}
+
+		return pendingSignatures;
+	}
+
+	/**
+	 * Hashes a single commitment, including each attached file, and calculates
+	 * the data covered by its joint signature
+	 * 
+	 * @param identifier
+	 * @return the pending joint signature, without the calculated data if the
+	 *         commitment has no valid signature
+	 * @throws NoSuchAlgorithmException
+	 * @throws JSONException
+	 * @throws FileHashException
+	 * @throws IOException
+	 */
+	private PendingJointSignature hashCommitment(String identifier) throws NoSuchAlgorithmException, JSONException, FileHashException, IOException {
+
+		logger.info("Starting the verification of commitment with identifier: {}", identifier);
+
+		FinalCommitment commitment = this.getDataStore().getFinalCommitments().get(identifier);
+
+		if (!commitment.getSignature().isValidSignature()) {
+			return new PendingJointSignature(identifier, null, null, null, null, null);
+		}
+
+		MessageDigest commitDigest = MessageDigest.getInstance(PublicWBBConstants.PUBLIC_WBB_DIGEST);
+
+		String currentCommitTime = commitment.getSignature().getSignatureMessage().getCommitTime();
+
+		for (TypedJSONMessage message : commitment.getFileMessage().getJsonMessages()) {
+
+			commitDigest.update(message.getInternalSignableContent().getBytes());
+
+			if (message.getType() == MessageType.BALLOT_AUDIT_COMMIT || message.getType() == MessageType.MIX_RANDOM_COMMIT || message.getType() == MessageType.BALLOT_GEN_COMMIT
+					|| message.getType() == MessageType.FILE_COMMIT) {
+				String fileName = ((FileMessage) message).getFileName();
+				logger.info("Adding hash of file to intermediate hash: {}", fileName);
+				try (InputStream is = NestedZipFileSystem.getInstance().openEntry(commitment.getAttachment().getFilePath(), fileName)) {
+					CryptoUtils.hashStream(is, commitDigest);
+				}
+			}
+		}
+
+		// Get the hash value
+		byte[] hash = commitDigest.digest();
+
+		String hashString = Utils.byteToBase64String(hash);
+
+		MessageDigest sigDigest = MessageDigest.getInstance(PublicWBBConstants.PUBLIC_WBB_DIGEST);
+
+		logger.info("Adding Commit String to signature: {}", PublicWBBConstants.FINAL_COMMIT_MESSAGE_TYPE);
+		sigDigest.update(PublicWBBConstants.FINAL_COMMIT_MESSAGE_TYPE.getBytes());
+		logger.info("Adding Commit Time to signature: {}", currentCommitTime);
+		sigDigest.update(currentCommitTime.getBytes());
+		logger.info("Adding hash to signature: {}", hashString);
+		sigDigest.update(hash);
+
+		String description = commitment.getSignature().getDescription();
+
+		if (description != null) {
+			logger.info("Adding description to signature: {}", description);
+			sigDigest.update(description.getBytes());
+		}
+
+		return new PendingJointSignature(identifier, commitment.getSignature().getSignatureMessage().getJointSig(), currentCommitTime, hash, sigDigest.digest(), description);
+	}
+
 }
@@ -50,6 +50,7 @@ import com.vvote.verifier.exceptions.ComponentDataStoreException;
 import com.vvote.verifier.exceptions.ConfigException;
 import com.vvote.verifier.exceptions.DataStoreException;
 import com.vvote.verifierlibrary.exceptions.JSONIOException;
+import com.vvote.verifierlibrary.utils.crypto.CurveContext;
 import com.vvote.verifierlibrary.utils.crypto.ECUtils;
 import com.vvote.verifierlibrary.utils.io.IOUtils;
 
@@ -68,6 +69,12 @@ public abstract class ComponentDataStore extends DataStore {
 	 */
 	private static final Logger logger = LoggerFactory.getLogger(ComponentDataStore.class);
 
+	/**
+	 * The curve used by the component verifier. All points read by the data
+	 * store lie on this curve
+	 */
+	private final CurveContext curveContext;
+
 	/**
 	 * Each component verifier will have a list of district configurations
 	 */
@@ -94,6 +101,11 @@ public abstract class ComponentDataStore extends DataStore {
 	 */
 	private Map<CommitIdentifier, BallotGenCommit> generatedCiphers;
 
+	/**
+	 * Directory of the commitments holding data for each ballot serial number
+	 */
+	private final SerialNumberDirectory serialNumberDirectory;
+
 	/**
 	 * Ballot gen config
 	 */
@@ -111,15 +123,20 @@ public abstract class ComponentDataStore extends DataStore {
 	 * @param spec
 	 * @param basePath
 	 * @param useExtraCommits
+	 * @param curveName
+	 *            the name of the curve used by the component verifier
 	 * @throws ComponentDataStoreException
 	 * @throws DataStoreException
 	 */
-	public ComponentDataStore(ComponentSpec spec, String basePath, boolean useExtraCommits) throws ComponentDataStoreException, DataStoreException {
+	public ComponentDataStore(ComponentSpec spec, String basePath, boolean useExtraCommits, String curveName) throws ComponentDataStoreException, DataStoreException {
 		super(spec, basePath, useExtraCommits);
 
+		this.curveContext = new CurveContext(curveName);
+
 		this.plaintextIds = new ArrayList<ECPoint>();
 		this.baseEncryptedIds = new ArrayList<ElGamalECPoint>();
 		this.generatedCiphers = new HashMap<CommitIdentifier, BallotGenCommit>();
+		this.serialNumberDirectory = new SerialNumberDirectory();
 	}
 
 	@Override
@@ -135,23 +152,13 @@ public abstract class ComponentDataStore extends DataStore {
 			if (result) {
 
 				try {
-					logger.debug("Reading plaintexts");
-					// load in unencrypted candidate ids as EC points
-					this.loadPlaintextIds();
+					ElectionData electionData = this.loadElectionData();
 
-					logger.debug("Reading base encrypted ids");
-					// load in the base encrypted ids
-					this.loadBaseEncryptedIds();
-
-					// setting the public key
-					logger.debug("Setting the public key");
-					this.publicKey = ECUtils.constructECPointFromJSON(IOUtils.readJSONObjectFromFile(IOUtils.findFile(this.getSpec().getPublicKeyLocation(), this.getBasePath())));
-
-					logger.debug("Reading district config");
-					this.districtConfig = new DistrictConfigurationFile(IOUtils.readStringFromFile(IOUtils.findFile(this.getSpec().getDistrictConfig(), this.getBasePath())));
-
-					logger.debug("Reading ballot generation config");
-					this.ballotGenerationConfig = new BallotGenerationConfig(IOUtils.readStringFromFile(IOUtils.findFile(this.getSpec().getBallotGenConfig(), this.getBasePath())));
+					this.plaintextIds = electionData.plaintextIds;
+					this.baseEncryptedIds = electionData.baseEncryptedIds;
+					this.publicKey = electionData.publicKey;
+					this.districtConfig = electionData.districtConfig;
+					this.ballotGenerationConfig = electionData.ballotGenerationConfig;
 
 					this.numberOfRandomnessValuesExpected = this.ballotGenerationConfig.getNumberOfCandidates() + 1;
 
@@ -248,6 +255,15 @@ public abstract class ComponentDataStore extends DataStore {
 		return this.numberOfRandomnessValuesExpected;
 	}
 
+	/**
+	 * Getter for the curve used by the component verifier
+	 * 
+	 * @return curveContext
+	 */
+	public CurveContext getCurveContext() {
+		return this.curveContext;
+	}
+
 	/**
 	 * Getter for the <code>ECPoint</code> public key
 	 * 
@@ -270,33 +286,95 @@ public abstract class ComponentDataStore extends DataStore {
 		return relevantTypes;
 	}
 
+	/**
+	 * Loads the election data shared by all component verifiers. The data is
+	 * only read from file and parsed by the first component data store to
+	 * need it; later data stores reuse the copy held by the commit repository
+	 * 
+	 * @return the election data
+	 * @throws JSONIOException
+	 * @throws JSONException
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 * @throws DistrictConfigurationException
+	 * @throws ConfigException
+	 */
+	private ElectionData loadElectionData() throws JSONIOException, JSONException, FileNotFoundException, IOException, DistrictConfigurationException, ConfigException {
+
+		String plaintextIdsPath = this.findFile(this.getSpec().getPlaintextCandidateIds());
+		String baseEncryptedIdsPath = this.findFile(this.getSpec().getBaseEncryptedCandidateIds());
+		String publicKeyPath = this.findFile(this.getSpec().getPublicKeyLocation());
+		String districtConfigPath = this.findFile(this.getSpec().getDistrictConfig());
+		String ballotGenConfigPath = this.findFile(this.getSpec().getBallotGenConfig());
+
+		String dataKey = ElectionData.class.getName() + ":" + this.curveContext.getCurveName() + ":" + plaintextIdsPath + ":" + baseEncryptedIdsPath + ":" + publicKeyPath + ":" + districtConfigPath + ":" + ballotGenConfigPath;
+
+		synchronized (this.getCommitRepository()) {
+			ElectionData electionData = this.getCommitRepository().getSharedData(dataKey, ElectionData.class);
+
+			if (electionData != null) {
+				logger.debug("Using election data already read by another verifier");
+				return electionData;
+			}
+
+			electionData = new ElectionData();
+
+			logger.debug("Reading plaintexts");
+			// load in unencrypted candidate ids as EC points
+			electionData.plaintextIds = loadPlaintextIds(this.curveContext, plaintextIdsPath);
+
+			logger.debug("Reading base encrypted ids");
+			// load in the base encrypted ids
+			electionData.baseEncryptedIds = loadBaseEncryptedIds(this.curveContext, baseEncryptedIdsPath);
+
+			// setting the public key
+			logger.debug("Setting the public key");
+			electionData.publicKey = ECUtils.constructECPointFromJSON(this.curveContext, IOUtils.readJSONObjectFromFile(publicKeyPath));
+
+			logger.debug("Reading district config");
+			electionData.districtConfig = new DistrictConfigurationFile(IOUtils.readStringFromFile(districtConfigPath));
+
+			logger.debug("Reading ballot generation config");
+			electionData.ballotGenerationConfig = new BallotGenerationConfig(IOUtils.readStringFromFile(ballotGenConfigPath));
+
+			this.getCommitRepository().putSharedData(dataKey, electionData);
+
+			return electionData;
+		}
+	}
+
 	/**
 	 * Loads in the base encrypted candidate ids. The base encrypted candidate
 	 * ids are the plaintext ids encrypted under a fixed randomness value of 1
 	 * 
+	 * @param context
+	 * @param filePath
+	 * @return the base encrypted candidate ids
 	 * @throws JSONIOException
 	 * @throws JSONException
 	 */
-	private void loadBaseEncryptedIds() throws JSONIOException, JSONException {
+	private static List<ElGamalECPoint> loadBaseEncryptedIds(CurveContext context, String filePath) throws JSONIOException, JSONException {
 
-		if (this.baseEncryptedIds != null) {
-			JSONObject currentEncryptedId = null;
+		List<ElGamalECPoint> baseEncryptedIds = new ArrayList<ElGamalECPoint>();
 
-			logger.debug("Loading in the base encrypted candidate ids file");
+		JSONObject currentEncryptedId = null;
 
-			// reads the base encrypted candidate ids
-			JSONArray baseEncryptedCandidateIds = IOUtils.readJSONArrayFromFile(IOUtils.findFile(this.getSpec().getBaseEncryptedCandidateIds(), this.getBasePath()));
+		logger.debug("Loading in the base encrypted candidate ids file");
 
-			logger.debug("Plaintext ids: {}", baseEncryptedCandidateIds.toString());
-			for (int i = 0; i < baseEncryptedCandidateIds.length(); i++) {
+		// reads the base encrypted candidate ids
+		JSONArray baseEncryptedCandidateIds = IOUtils.readJSONArrayFromFile(filePath);
 
-				currentEncryptedId = baseEncryptedCandidateIds.getJSONObject(i);
+		logger.debug("Plaintext ids: {}", baseEncryptedCandidateIds.toString());
+		for (int i = 0; i < baseEncryptedCandidateIds.length(); i++) {
 
-				this.baseEncryptedIds.add(ECUtils.constructElGamalECPointFromJSON(currentEncryptedId));
-			}
+			currentEncryptedId = baseEncryptedCandidateIds.getJSONObject(i);
 
-			logger.debug("Successfully loaded the base encrypted candidate ids file");
+			baseEncryptedIds.add(ECUtils.constructElGamalECPointFromJSON(context, currentEncryptedId));
 		}
+
+		logger.debug("Successfully loaded the base encrypted candidate ids file");
+
+		return baseEncryptedIds;
 	}
 
 	/**
@@ -304,31 +382,36 @@ public abstract class ComponentDataStore extends DataStore {
 	 * contains the unencrypted plaintext candidate ids which have been selected
 	 * from the underlying EC curve used.
 	 * 
+	 * @param context
+	 * @param filePath
+	 * @return the plaintext candidate ids
 	 * @throws JSONIOException
 	 * @throws JSONException
 	 */
-	private void loadPlaintextIds() throws JSONIOException, JSONException {
+	private static List<ECPoint> loadPlaintextIds(CurveContext context, String filePath) throws JSONIOException, JSONException {
 
-		if (this.plaintextIds != null) {
-			JSONObject currentPlaintextId = null;
+		List<ECPoint> plaintextIds = new ArrayList<ECPoint>();
 
-			logger.debug("Loading in the plaintext ids file");
+		JSONObject currentPlaintextId = null;
 
-			// reads the plaintext candidate ids
-			JSONArray plaintextCandidateIds = IOUtils.readJSONArrayFromFile(IOUtils.findFile(this.getSpec().getPlaintextCandidateIds(), this.getBasePath()));
+		logger.debug("Loading in the plaintext ids file");
 
-			logger.debug("Plaintext ids: {}", plaintextCandidateIds.toString());
+		// reads the plaintext candidate ids
+		JSONArray plaintextCandidateIds = IOUtils.readJSONArrayFromFile(filePath);
 
-			// add the plaintext candidate ids in EC Point form into storage
-			for (int i = 0; i < plaintextCandidateIds.length(); i++) {
+		logger.debug("Plaintext ids: {}", plaintextCandidateIds.toString());
 
-				currentPlaintextId = plaintextCandidateIds.getJSONObject(i);
+		// add the plaintext candidate ids in EC Point form into storage
+		for (int i = 0; i < plaintextCandidateIds.length(); i++) {
 
-				this.plaintextIds.add(ECUtils.constructECPointFromJSON(currentPlaintextId));
-			}
+			currentPlaintextId = plaintextCandidateIds.getJSONObject(i);
 
-			logger.debug("Successfully loaded the plaintext ids file");
+			plaintextIds.add(ECUtils.constructECPointFromJSON(context, currentPlaintextId));
 		}
+
+		logger.debug("Successfully loaded the plaintext ids file");
+
+		return plaintextIds;
 	}
 
 	/**
@@ -376,7 +459,7 @@ public abstract class ComponentDataStore extends DataStore {
 		if (typedMessage instanceof BallotGenCommitMessage) {
 			BallotGenCommitMessage message = (BallotGenCommitMessage) typedMessage;
 
-			BallotGenCommit commit = new BallotGenCommit(message, commitment.getAttachment().getFilePath(), this.getSpec().getCiphersDataFile());
+			BallotGenCommit commit = new BallotGenCommit(message, commitment.getAttachment().getFilePath(), this.getSpec().getCiphersDataFile(), this.curveContext);
 
 			String boothID = commit.getMessage().getBoothID();
 
@@ -384,6 +467,10 @@ public abstract class ComponentDataStore extends DataStore {
 
 			if (!this.generatedCiphers.containsKey(identifier)) {
 				this.generatedCiphers.put(identifier, commit);
+
+				for (String serialNumber : commit.getCommittedBallotsSerialNumbers()) {
+					this.serialNumberDirectory.addGenerationCommit(serialNumber, identifier);
+				}
 			} else {
 				throw new BallotGenCommitException("Cannot have another ballot gen commit from the same printer");
 			}
@@ -398,4 +485,49 @@ public abstract class ComponentDataStore extends DataStore {
 	public Map<CommitIdentifier, BallotGenCommit> getGeneratedCiphers() {
 		return this.generatedCiphers;
 	}
+
+	/**
+	 * Getter for the directory of the commitments holding data for each
+	 * ballot serial number
+	 * 
+	 * @return serialNumberDirectory
+	 */
+	public SerialNumberDirectory getSerialNumberDirectory() {
+		return this.serialNumberDirectory;
+	}
+
+	/**
+	 * Holds the election data which is identical for every component verifier
+	 * and so is only read once
+	 * 
+	 * @author James Rumble
+	 * 
+	 */
+	private static final class ElectionData {
+
+		/**
+		 * The plaintext candidate ids
+		 */
+		private List<ECPoint> plaintextIds;
+
+		/**
+		 * The base encrypted candidate ids
+		 */
+		private List<ElGamalECPoint> baseEncryptedIds;
+
+		/**
+		 * The public key
+		 */
+		private ECPoint publicKey;
+
+		/**
+		 * The district configurations
+		 */
+		private DistrictConfigurationFile districtConfig;
+
+		/**
+		 * The ballot generation config
+		 */
+		private BallotGenerationConfig ballotGenerationConfig;
+	}
 }
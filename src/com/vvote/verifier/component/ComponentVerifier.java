@@ -18,17 +18,20 @@
 package com.vvote.verifier.component;
 
 import java.math.BigInteger;
+import java.util.concurrent.Callable;
 
 import org.bouncycastle.math.ec.ECPoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.vvote.ec.ElGamalECPoint;
+import com.vvote.verifier.VerificationTaskGraph;
 import com.vvote.verifier.Verifier;
 import com.vvote.verifier.exceptions.ComponentVerifierException;
 import com.vvote.verifier.exceptions.VerifierException;
 import com.vvote.verifierlibrary.utils.crypto.CryptoUtils;
 import com.vvote.verifierlibrary.utils.crypto.ECUtils;
+import com.vvote.verifierlibrary.utils.logging.ResultsLogger;
 
 /**
  * Provides an abstract representation of a component verifier which handles the
@@ -47,7 +50,7 @@ public abstract class ComponentVerifier extends Verifier {
 	/**
 	 * Provides logging for the actual results produced in the verifier
 	 */
-	private static final Logger resultsLogger = LoggerFactory.getLogger("results");
+	private static final Logger resultsLogger = ResultsLogger.getLogger(ComponentVerifier.class);
 
 	/**
 	 * Constructor for a component verifier object
@@ -102,6 +105,30 @@ public abstract class ComponentVerifier extends Verifier {
 		return null;
 	}
 
+	/**
+	 * Adds the verification of the base candidate ids to a task graph
+	 * 
+	 * @param graph
+	 * @param name
+	 *            the name of the verifier, used as a prefix for the task
+	 * @param dataTask
+	 *            the name of the task which reads in the data
+	 * @return the name of the task added
+	 */
+	protected String addBaseCandidateIdsTask(VerificationTaskGraph graph, String name, String dataTask) {
+		final String baseCandidateIdsTask = name + ": base candidate ids";
+
+		graph.addTask(baseCandidateIdsTask, new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() {
+				return ComponentVerifier.this.verifyBaseCandidateIds();
+			}
+		}, dataTask);
+
+		return baseCandidateIdsTask;
+	}
+
 	/**
 	 * Verify that the base encrypted ids are actually the plaintext ids
 	 * encrypted with a fixed randomness value of 1
@@ -138,7 +165,7 @@ public abstract class ComponentVerifier extends Verifier {
 
 			currentPlaintextId = this.getDataStore().getPlaintextIds().get(i);
 			currentBaseEncryptedId = this.getDataStore().getBaseEncryptedIds().get(i);
-			encryptedId = ECUtils.encrypt(currentPlaintextId, publicKey, BigInteger.ONE);
+			encryptedId = ECUtils.encrypt(this.getDataStore().getCurveContext(), currentPlaintextId, publicKey, BigInteger.ONE);
 
 			// compare the two ElGamalECPoints
 			if (!encryptedId.equals(currentBaseEncryptedId)) {
@@ -0,0 +1,415 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifier.component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.vvote.commits.CommitIdentifier;
+import com.vvote.datafiles.commits.mixrandomcommit.MixRandomCommit;
+import com.vvote.verifierlibrary.utils.serial.SerialNumberMap;
+
+/**
+ * Provides a directory of ballot serial numbers built while the commitment
+ * data is read in. Each serial number maps to the commitments which hold data
+ * for that ballot - the ballot generation commitment of the printer which
+ * generated it, any audit commitments and the booth commitments holding its
+ * vote, POD and cancel records - so looking up the data for a ballot no
+ * longer needs a scan over every commitment.
+ * 
+ * Mix server commitments hold randomness for every ballot a printer
+ * generated so they are indexed by printer rather than by serial number and
+ * are found using the printers recorded for the serial number.
+ * 
+ * The directory is only modified while the data is read in and is read-only
+ * afterwards.
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class SerialNumberDirectory {
+
+	/**
+	 * The commitments recorded for a single serial number. Lists are only
+	 * created when the first commitment of each kind is recorded
+	 */
+	public static final class Entry {
+
+		/**
+		 * The ballot generation commitments holding the ballot
+		 */
+		private List<CommitIdentifier> generationCommits = null;
+
+		/**
+		 * The audit commitments holding the ballot
+		 */
+		private List<CommitIdentifier> auditCommits = null;
+
+		/**
+		 * The booth commitments holding a vote record for the ballot
+		 */
+		private List<CommitIdentifier> voteCommits = null;
+
+		/**
+		 * The booth commitments holding a POD record for the ballot
+		 */
+		private List<CommitIdentifier> podCommits = null;
+
+		/**
+		 * The booth commitments holding a cancel record for the ballot
+		 */
+		private List<CommitIdentifier> cancelCommits = null;
+
+		/**
+		 * Private constructor for an entry
+		 */
+		private Entry() {
+		}
+
+		/**
+		 * Getter for the ballot generation commitments holding the ballot
+		 * 
+		 * @return the ballot generation commitment identifiers
+		 */
+		public List<CommitIdentifier> getGenerationCommits() {
+			return view(this.generationCommits);
+		}
+
+		/**
+		 * Getter for the audit commitments holding the ballot
+		 * 
+		 * @return the audit commitment identifiers
+		 */
+		public List<CommitIdentifier> getAuditCommits() {
+			return view(this.auditCommits);
+		}
+
+		/**
+		 * Getter for the booth commitments holding a vote record for the
+		 * ballot
+		 * 
+		 * @return the vote commitment identifiers
+		 */
+		public List<CommitIdentifier> getVoteCommits() {
+			return view(this.voteCommits);
+		}
+
+		/**
+		 * Getter for the booth commitments holding a POD record for the ballot
+		 * 
+		 * @return the POD commitment identifiers
+		 */
+		public List<CommitIdentifier> getPODCommits() {
+			return view(this.podCommits);
+		}
+
+		/**
+		 * Getter for the booth commitments holding a cancel record for the
+		 * ballot
+		 * 
+		 * @return the cancel commitment identifiers
+		 */
+		public List<CommitIdentifier> getCancelCommits() {
+			return view(this.cancelCommits);
+		}
+	}
+
+	/**
+	 * The entry for each serial number. Serial number : Entry
+	 */
+	private final Map<String, Entry> entries;
+
+	/**
+	 * The mix server commitments for each printer. Printer id : commitments
+	 */
+	private final Map<String, List<MixRandomCommit>> mixCommitsByPrinter;
+
+	/**
+	 * Constructor for an empty serial number directory
+	 */
+	public SerialNumberDirectory() {
+		this.entries = new SerialNumberMap<Entry>();
+		this.mixCommitsByPrinter = new HashMap<String, List<MixRandomCommit>>();
+	}
+
+	/**
+	 * Records the ballot generation commitment holding a ballot
+	 * 
+	 * @param serialNumber
+	 * @param identifier
+	 */
+	public void addGenerationCommit(String serialNumber, CommitIdentifier identifier) {
+		Entry entry = this.getOrCreateEntry(serialNumber);
+		entry.generationCommits = add(entry.generationCommits, identifier);
+	}
+
+	/**
+	 * Records an audit commitment holding a ballot
+	 * 
+	 * @param serialNumber
+	 * @param identifier
+	 */
+	public void addAuditCommit(String serialNumber, CommitIdentifier identifier) {
+		Entry entry = this.getOrCreateEntry(serialNumber);
+		entry.auditCommits = add(entry.auditCommits, identifier);
+	}
+
+	/**
+	 * Records a booth commitment holding a vote record for a ballot
+	 * 
+	 * @param serialNumber
+	 * @param identifier
+	 * @return true if a vote record had already been recorded for the ballot
+	 */
+	public boolean addVoteRecord(String serialNumber, CommitIdentifier identifier) {
+		Entry entry = this.getOrCreateEntry(serialNumber);
+		boolean existing = entry.voteCommits != null;
+		entry.voteCommits = add(entry.voteCommits, identifier);
+		return existing;
+	}
+
+	/**
+	 * Records a booth commitment holding a POD record for a ballot
+	 * 
+	 * @param serialNumber
+	 * @param identifier
+	 * @return true if a POD record had already been recorded for the ballot
+	 */
+	public boolean addPODRecord(String serialNumber, CommitIdentifier identifier) {
+		Entry entry = this.getOrCreateEntry(serialNumber);
+		boolean existing = entry.podCommits != null;
+		entry.podCommits = add(entry.podCommits, identifier);
+		return existing;
+	}
+
+	/**
+	 * Records a booth commitment holding a cancel record for a ballot
+	 * 
+	 * @param serialNumber
+	 * @param identifier
+	 * @return true if a cancel record had already been recorded for the ballot
+	 */
+	public boolean addCancelRecord(String serialNumber, CommitIdentifier identifier) {
+		Entry entry = this.getOrCreateEntry(serialNumber);
+		boolean existing = entry.cancelCommits != null;
+		entry.cancelCommits = add(entry.cancelCommits, identifier);
+		return existing;
+	}
+
+	/**
+	 * Records a mix server commitment against the printer it was made for
+	 * 
+	 * @param commit
+	 */
+	public void addMixCommit(MixRandomCommit commit) {
+		String printerID = commit.getMessage().getPrinterID();
+
+		List<MixRandomCommit> commits = this.mixCommitsByPrinter.get(printerID);
+
+		if (commits == null) {
+			commits = new ArrayList<MixRandomCommit>();
+			this.mixCommitsByPrinter.put(printerID, commits);
+		}
+
+		commits.add(commit);
+	}
+
+	/**
+	 * Gets the entry for a serial number
+	 * 
+	 * @param serialNumber
+	 * @return the entry or null if nothing has been recorded for the serial
+	 *         number
+	 */
+	public Entry get(String serialNumber) {
+		return this.entries.get(serialNumber);
+	}
+
+	/**
+	 * Gets the ballot generation commitments holding a ballot
+	 * 
+	 * @param serialNumber
+	 * @return the ballot generation commitment identifiers
+	 */
+	public List<CommitIdentifier> getGenerationCommits(String serialNumber) {
+		Entry entry = this.entries.get(serialNumber);
+		return entry != null ? entry.getGenerationCommits() : Collections.<CommitIdentifier> emptyList();
+	}
+
+	/**
+	 * Gets the audit commitments holding a ballot
+	 * 
+	 * @param serialNumber
+	 * @return the audit commitment identifiers
+	 */
+	public List<CommitIdentifier> getAuditCommits(String serialNumber) {
+		Entry entry = this.entries.get(serialNumber);
+		return entry != null ? entry.getAuditCommits() : Collections.<CommitIdentifier> emptyList();
+	}
+
+	/**
+	 * Checks whether a ballot was chosen for auditing
+	 * 
+	 * @param serialNumber
+	 * @return true if an audit commitment holds the ballot
+	 */
+	public boolean isAudited(String serialNumber) {
+		Entry entry = this.entries.get(serialNumber);
+		return entry != null && entry.auditCommits != null;
+	}
+
+	/**
+	 * Gets the mix server commitments, made by any server, holding randomness
+	 * for a ballot. The commitments are found using the printers which
+	 * generated or audited the ballot
+	 * 
+	 * @param serialNumber
+	 * @return the mix server commitments in the order they were recorded
+	 */
+	public List<MixRandomCommit> getMixCommits(String serialNumber) {
+		return this.getMixCommits(serialNumber, null, null);
+	}
+
+	/**
+	 * Gets the mix server commitments made by a single server for a single
+	 * printer holding randomness for a ballot
+	 * 
+	 * @param serialNumber
+	 * @param serverName
+	 * @param printerID
+	 * @return the mix server commitments in the order they were recorded
+	 */
+	public List<MixRandomCommit> getMixCommits(String serialNumber, String serverName, String printerID) {
+		Entry entry = this.entries.get(serialNumber);
+
+		if (entry == null) {
+			return Collections.emptyList();
+		}
+
+		List<String> printers = new ArrayList<String>(1);
+
+		if (printerID != null) {
+			printers.add(printerID);
+		} else {
+			addPrinters(printers, entry.generationCommits);
+			addPrinters(printers, entry.auditCommits);
+		}
+
+		List<MixRandomCommit> mixCommits = new ArrayList<MixRandomCommit>();
+
+		for (String printer : printers) {
+			List<MixRandomCommit> commits = this.mixCommitsByPrinter.get(printer);
+
+			if (commits == null) {
+				continue;
+			}
+
+			for (MixRandomCommit commit : commits) {
+				if (serverName != null && !serverName.equals(commit.getMessage().getBoothID())) {
+					continue;
+				}
+
+				if (commit.getServerCommits().hasMixRandomCommit(serialNumber)) {
+					mixCommits.add(commit);
+				}
+			}
+		}
+
+		return mixCommits;
+	}
+
+	/**
+	 * Getter for the number of serial numbers in the directory
+	 * 
+	 * @return the number of serial numbers
+	 */
+	public int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Gets the entry for a serial number, creating it if needed
+	 * 
+	 * @param serialNumber
+	 * @return the entry
+	 */
+	private Entry getOrCreateEntry(String serialNumber) {
+		Entry entry = this.entries.get(serialNumber);
+
+		if (entry == null) {
+			entry = new Entry();
+			this.entries.put(serialNumber, entry);
+		}
+
+		return entry;
+	}
+
+	/**
+	 * Adds a commitment identifier to a list, creating the list if needed. An
+	 * identifier is only recorded once
+	 * 
+	 * @param identifiers
+	 * @param identifier
+	 * @return the list holding the identifier
+	 */
+	private static List<CommitIdentifier> add(List<CommitIdentifier> identifiers, CommitIdentifier identifier) {
+		if (identifiers == null) {
+			identifiers = new ArrayList<CommitIdentifier>(1);
+		}
+
+		if (!identifiers.contains(identifier)) {
+			identifiers.add(identifier);
+		}
+
+		return identifiers;
+	}
+
+	/**
+	 * Adds the printer of each commitment to a list of printers
+	 * 
+	 * @param printers
+	 * @param identifiers
+	 */
+	private static void addPrinters(List<String> printers, List<CommitIdentifier> identifiers) {
+		if (identifiers == null) {
+			return;
+		}
+
+		for (CommitIdentifier identifier : identifiers) {
+			if (!printers.contains(identifier.getPrinterId())) {
+				printers.add(identifier.getPrinterId());
+			}
+		}
+	}
+
+	/**
+	 * Provides a read-only view of a list which may not have been created
+	 * 
+	 * @param identifiers
+	 * @return the read-only list
+	 */
+	private static List<CommitIdentifier> view(List<CommitIdentifier> identifiers) {
+		if (identifiers == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(identifiers);
+	}
+}
@@ -28,6 +28,7 @@ import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.vvote.CryptoConstants;
 import com.vvote.commits.CommitIdentifier;
 import com.vvote.commits.FinalCommitment;
 import com.vvote.commits.exceptions.CommitIdentifierException;
@@ -81,7 +82,7 @@ public class BallotGenDataStore extends ComponentDataStore {
 	 * @throws DataStoreException
 	 */
 	public BallotGenDataStore(BallotGenerationVerifierSpec spec, String basePath, boolean useExtraCommits) throws ComponentDataStoreException, DataStoreException {
-		super(spec, basePath, useExtraCommits);
+		super(spec, basePath, useExtraCommits, CryptoConstants.BallotGenerationVerifier.CURVE_NAME);
 		logger.debug("Constructing Ballot Generation Data Store");
 
 		this.mixServerCommits = new HashMap<String, Map<CommitIdentifier, List<MixRandomCommit>>>();
@@ -141,6 +142,10 @@ public class BallotGenDataStore extends ComponentDataStore {
 
 			if (!this.auditData.containsKey(identifier)) {
 				this.auditData.put(identifier, commit);
+
+				for (String serialNumber : commit.getRandomnessCommitmentSerialNumbers()) {
+					this.getSerialNumberDirectory().addAuditCommit(serialNumber, identifier);
+				}
 			} else {
 				throw new BallotAuditCommitException("Cannot have another ballot audit commit from the same printer");
 			}
@@ -210,6 +215,8 @@ public class BallotGenDataStore extends ComponentDataStore {
 
 			CommitIdentifier identifier = new CommitIdentifier(commitment.getIdentifier(), printerID);
 
+			this.getSerialNumberDirectory().addMixCommit(commit);
+
 			Map<CommitIdentifier, List<MixRandomCommit>> serverMap = null;
 
 			if (this.mixServerCommits.containsKey(boothID)) {
@@ -17,17 +17,21 @@
  */
 package com.vvote.verifier.component.ballotGen;
 
-import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 import org.bouncycastle.cert.CertException;
 import org.bouncycastle.crypto.digests.SHA256Digest;
@@ -54,6 +58,8 @@ import com.vvote.ec.ElGamalECPoint;
 import com.vvote.ec.ElGamalECPointComparator;
 import com.vvote.ec.IndexedElGamalECPoint;
 import com.vvote.thirdparty.json.orgjson.JSONObject;
+import com.vvote.verifier.OrderedSubtasks;
+import com.vvote.verifier.VerificationTaskGraph;
 import com.vvote.verifier.component.ComponentVerifier;
 import com.vvote.verifier.exceptions.ComponentDataStoreException;
 import com.vvote.verifier.exceptions.ComponentSpecException;
@@ -65,10 +71,14 @@ import com.vvote.verifierlibrary.exceptions.BLSSignatureException;
 import com.vvote.verifierlibrary.exceptions.CommitException;
 import com.vvote.verifierlibrary.exceptions.FileHashException;
 import com.vvote.verifierlibrary.utils.Utils;
-import com.vvote.verifierlibrary.utils.comparators.BallotSerialNumberComparator;
+import com.vvote.verifierlibrary.utils.crypto.CrossCheckingHashCommitmentVerifier;
 import com.vvote.verifierlibrary.utils.crypto.CryptoUtils;
 import com.vvote.verifierlibrary.utils.crypto.ECUtils;
+import com.vvote.verifierlibrary.utils.crypto.HashCommitmentBatch;
 import com.vvote.verifierlibrary.utils.crypto.bls.BLSCombiner;
+import com.vvote.verifierlibrary.utils.crypto.bls.LagrangeWeightCache;
+import com.vvote.verifierlibrary.utils.io.FileRegion;
+import com.vvote.verifierlibrary.utils.logging.ResultsLogger;
 
 /**
  * BallotGenerationVerifier is used for carrying out validation and verification
@@ -97,7 +107,7 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 	/**
 	 * Provides logging for the actual results produced in the verifier
 	 */
-	private static final Logger resultsLogger = LoggerFactory.getLogger("results");
+	private static final Logger resultsLogger = ResultsLogger.getLogger(BallotGenerationVerifier.class);
 
 	/**
 	 * Create a SHA 256 message digest array of a specified size
@@ -144,12 +154,117 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 		return builder.toString();
 	}
 
+	/**
+	 * Verifies a single audited ballot as a subtask of the audit verification
+	 */
+	private final class AuditBallotTask implements Callable<Boolean> {
+
+		/**
+		 * The audit commit holding the ballot
+		 */
+		private final BallotAuditCommit auditCommit;
+
+		/**
+		 * The serial number of the ballot
+		 */
+		private final String serialNumber;
+
+		/**
+		 * The identifier of the audit commit
+		 */
+		private final CommitIdentifier identifier;
+
+		/**
+		 * Constructor for an <code>AuditBallotTask</code>
+		 * 
+		 * @param auditCommit
+		 * @param serialNumber
+		 * @param identifier
+		 */
+		private AuditBallotTask(BallotAuditCommit auditCommit, String serialNumber, CommitIdentifier identifier) {
+			this.auditCommit = auditCommit;
+			this.serialNumber = serialNumber;
+			this.identifier = identifier;
+		}
+
+		@Override
+		public Boolean call() throws CommitException {
+
+			boolean verified = BallotGenerationVerifier.this.verifyAuditBallot(this.auditCommit.getRandomnessCommit(this.serialNumber), this.identifier);
+
+			this.auditCommit.freeRandomnessCommit(this.serialNumber);
+
+			return verified;
+		}
+	}
+
+	/**
+	 * The checks carried out for a single audited ballot
+	 */
+	interface AuditBallotChecks {
+
+		/**
+		 * Checks the number of opened randomness values
+		 * 
+		 * @return true if the number of values is correct
+		 */
+		boolean verifyNumberOfRandomnessValues();
+
+		/**
+		 * Checks the opening of the mix server randomness commitments
+		 * 
+		 * @return true if every commitment was opened correctly
+		 * @throws CommitException
+		 */
+		boolean verifyRandomness() throws CommitException;
+
+		/**
+		 * Combines the randomness values
+		 * 
+		 * @return the combined randomness values or null if they could not be
+		 *         combined
+		 */
+		List<MessageDigest> combineRandomness();
+
+		/**
+		 * Checks the re-encryptions and the permutation commitment
+		 * 
+		 * @param combinedRandomness
+		 * @return true if the re-encryptions and permutation are correct
+		 * @throws CommitException
+		 */
+		boolean verifyEncryptions(List<MessageDigest> combinedRandomness) throws CommitException;
+	}
+
 	/**
 	 * Holds the combined randomness values. Holds a map of serialNo : a list of
 	 * combined randomness values
 	 */
 	private Map<String, List<MessageDigest>> combinedRandomness = null;
 
+	/**
+	 * Holds the batch of randomness hash commitments for the ballot currently
+	 * being verified on each thread, reused for each ballot
+	 */
+	private static final ThreadLocal<HashCommitmentBatch> randomnessBatch = new ThreadLocal<HashCommitmentBatch>() {
+		@Override
+		protected HashCommitmentBatch initialValue() {
+			return new HashCommitmentBatch();
+		}
+	};
+
+	/**
+	 * Checks hash commitments according to the policy set in the spec
+	 */
+	private final CrossCheckingHashCommitmentVerifier hashCommitmentVerifier;
+
+	/**
+	 * Lagrange weights for combining the WBB peer signature shares, shared by
+	 * every audit commitment. Created when first needed since the
+	 * certificates file is loaded with the data
+	 */
+	private LagrangeWeightCache wbbWeightCache = null;
+
 	/**
 	 * Constructor for a ballot generation verifier component
 	 * 
@@ -165,9 +280,9 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 
 		CryptoUtils.initProvider();
 
-		ECUtils.changeCurve(CryptoConstants.BallotGenerationVerifier.CURVE_NAME);
-
 		this.combinedRandomness = new HashMap<String, List<MessageDigest>>();
+
+		this.hashCommitmentVerifier = CrossCheckingHashCommitmentVerifier.create(spec.getCommitmentVerificationPolicy());
 	}
 
 	/**
@@ -293,6 +408,30 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 	 * @return true if the combined randomness values are calculated correctly
 	 */
 	public boolean combineRandomnessValues(BallotGenerationRandomness currentBallotRandomness, CommitIdentifier identifier) {
+
+		List<MessageDigest> combined = this.combineRandomness(currentBallotRandomness, identifier);
+
+		if (combined == null) {
+			return false;
+		}
+
+		// store the combined randomness values until the encryptions for the
+		// ballot are verified
+		this.getCombinedRandomness().put(currentBallotRandomness.getSerialNo(), combined);
+
+		return true;
+	}
+
+	/**
+	 * Combines the randomness values received from each of the mix servers
+	 * for a single ballot
+	 * 
+	 * @param currentBallotRandomness
+	 * @param identifier
+	 * @return a digest of the combined randomness values for each candidate
+	 *         id, or null if the digests could not be created
+	 */
+	private List<MessageDigest> combineRandomness(BallotGenerationRandomness currentBallotRandomness, CommitIdentifier identifier) {
 		int randomnessValues = this.getDataStore().getNumberOfRandomnessValuesExpected();
 		String currentRandomnessValue = null;
 
@@ -301,8 +440,12 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 		logger.debug("Combining randomness values for client: '{}', serialNo: '{}'", identifier, serialNo);
 
 		// produce message digest array/storage for combined
-		// randomness values for each ballot to be audited
-		this.getCombinedRandomness().put(serialNo, createMessageDigestArray(randomnessValues));
+		// randomness values for the ballot
+		List<MessageDigest> combined = createMessageDigestArray(randomnessValues);
+
+		if (combined == null) {
+			return null;
+		}
 
 		// loop over each randomness value - which represents each candidate
 		// id
@@ -319,14 +462,13 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 				logger.debug("Combining randomness values for client: '{}', serialNo: '{}' - randomness value: '{}'", identifier, serialNo, currentRandomnessValue);
 
 				// update the randomness value for the correct candidate id
-				// at the correct serial number
-				this.getCombinedRandomness().get(serialNo).get(i).update(Utils.decodeHexData(currentRandomnessValue));
+				combined.get(i).update(Utils.decodeHexData(currentRandomnessValue));
 			}
 		}
 
 		logger.debug("Successfully combined randomness values for client: '{}', serialNo: '{}'", identifier, serialNo);
 
-		return true;
+		return combined;
 	}
 
 	/**
@@ -346,19 +488,17 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 
 		BallotGenerationRandomness currentBallotRandomness = null;
 
-		// loop over each printer to audit
-		for (CommitIdentifier identifier : this.getDataStore().getAuditData().keySet()) {
+		// loop over each audit commitment holding the ballot
+		for (CommitIdentifier identifier : this.getDataStore().getSerialNumberDirectory().getAuditCommits(serialNumber)) {
 			auditCommit = this.getDataStore().getAuditData().get(identifier);
 
-			if (auditCommit.getRandomnessCommitmentSerialNumbers().contains(serialNumber)) {
-				currentBallotRandomness = auditCommit.getRandomnessCommit(serialNumber);
+			currentBallotRandomness = auditCommit.getRandomnessCommit(serialNumber);
 
-				if (this.combineRandomnessValues(currentBallotRandomness, identifier)) {
-					return true;
-				}
-				
-				auditCommit.freeRandomnessCommit(serialNumber);
+			if (this.combineRandomnessValues(currentBallotRandomness, identifier)) {
+				return true;
 			}
+			
+			auditCommit.freeRandomnessCommit(serialNumber);
 		}
 
 		return false;
@@ -367,63 +507,198 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 	@Override
 	public boolean doVerification() {
 
-		logger.info("Starting Ballot Generation Verification");
-		resultsLogger.info("Starting Ballot Generation verification");
+		this.logVerificationStart();
 
 		boolean verified = super.doVerification();
 
 		try {
-			if (!this.verifyNumberOfRandomnessValuesReceivedByPODPrinters()) {
+			if (!this.verifyNumberOfBallotsToAudit()) {
 				verified = false;
 			}
 
-			if (!this.verifyNumberOfBallotsToAudit()) {
+			if (!this.verifyFiatShamirCalculation()) {
 				verified = false;
 			}
 
-			if (!this.verifyFiatShamirCalculation()) {
+			if (!this.verifyChosenAuditBallots()) {
 				verified = false;
 			}
+		} catch (CommitException e) {
+			logger.error("Unable to continue verification.", e);
+			resultsLogger.error("Unable to continue verification.", e);
+			return false;
+		}
 
-			BallotAuditCommit auditCommit = null;
+		return this.logVerificationResult(verified);
+	}
 
-			BallotGenerationRandomness currentBallotRandomness = null;
+	@Override
+	public String addVerificationTasks(final VerificationTaskGraph graph, String name, String dataTask) {
 
-			logger.info("Starting the verification of each ballot chosen for Ballot Generation Auditing");
+		final String startTask = name + ": start";
+		final String numberOfBallotsTask = name + ": number of ballots to audit";
+		final String fiatShamirTask = name + ": fiat shamir calculation";
+		final String auditBallotsTask = name + ": audit ballots";
+		final String resultTask = name + ": result";
 
-			// loop over each printer to audit
-			for (CommitIdentifier identifier : this.getDataStore().getAuditData().keySet()) {
-				auditCommit = this.getDataStore().getAuditData().get(identifier);
+		graph.addTask(startTask, new Callable<Boolean>() {
 
-				logger.debug("Starting the verification of Public WBB commitment with identifier: {} for outer attachment file: {}, inner attachment file: {}", identifier, auditCommit.getAttachmentFilePath(), auditCommit.getMessage().getFileName());
-				resultsLogger.info("Starting the verification of Public WBB commitment with identifier: {} for outer attachment file: {}, inner attachment file: {}", identifier, auditCommit.getAttachmentFilePath(), auditCommit.getMessage().getFileName());
+			@Override
+			public Boolean call() {
+				BallotGenerationVerifier.this.logVerificationStart();
+				return true;
+			}
+		}, dataTask);
 
-				// loop over the ballots to audit
-				for (String serialNumber : auditCommit.getRandomnessCommitmentSerialNumbers()) {
+		final String baseCandidateIdsTask = this.addBaseCandidateIdsTask(graph, name, startTask);
 
-					currentBallotRandomness = auditCommit.getRandomnessCommit(serialNumber);
+		graph.addTask(numberOfBallotsTask, new Callable<Boolean>() {
 
-					if (!this.verifyRandomness(currentBallotRandomness, identifier)) {
-						verified = false;
-					}
+			@Override
+			public Boolean call() {
+				return BallotGenerationVerifier.this.verifyNumberOfBallotsToAudit();
+			}
+		}, startTask);
 
-					if (!this.combineRandomnessValues(currentBallotRandomness, identifier)) {
-						verified = false;
+		graph.addTask(fiatShamirTask, new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() {
+				return BallotGenerationVerifier.this.verifyFiatShamirCalculation();
+			}
+		}, startTask);
+
+		graph.addTask(auditBallotsTask, new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() {
+				try {
+					return BallotGenerationVerifier.this.verifyChosenAuditBallots();
+				} catch (CommitException e) {
+					logger.error("Unable to continue verification.", e);
+					resultsLogger.error("Unable to continue verification.", e);
+					return false;
+				}
+			}
+		}, startTask);
+
+		graph.addTaskAfter(resultTask, new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() {
+				return BallotGenerationVerifier.this.logVerificationResult(graph.isSuccessful(baseCandidateIdsTask, numberOfBallotsTask, fiatShamirTask, auditBallotsTask));
+			}
+		}, baseCandidateIdsTask, numberOfBallotsTask, fiatShamirTask, auditBallotsTask);
+
+		return resultTask;
+	}
+
+	/**
+	 * Records the start of the verification in the results log
+	 */
+	private void logVerificationStart() {
+		logger.info("Starting Ballot Generation Verification");
+		resultsLogger.info("Starting Ballot Generation verification");
+		resultsLogger.info("Hash commitment verification policy: {}", this.hashCommitmentVerifier.getPolicy());
+	}
+
+	/**
+	 * Verifies each ballot chosen for auditing. When run as part of a
+	 * verification task graph the ballots are verified as subtasks on the
+	 * graph's pool, with no more pending at once than the audit parallelism
+	 * from the spec and the graph's thread budget allow. The results are
+	 * collected, with the results log output of each ballot, in the same
+	 * printer and serial number order used when verifying one ballot after
+	 * another, so the results log is the same whatever the number of threads
+	 * 
+	 * @return true if each ballot chosen for auditing was verified
+	 *         successfully
+	 * @throws CommitException
+	 */
+	private boolean verifyChosenAuditBallots() throws CommitException {
+
+		OrderedSubtasks<Boolean> subtasks = new OrderedSubtasks<Boolean>(this.getSpec().getAuditParallelism());
+
+		logger.info("Starting the verification of each ballot chosen for Ballot Generation Auditing, with up to {} ballots at once", subtasks.getWindow());
+
+		boolean verified = true;
+
+		try {
+			// loop over each printer to audit
+			for (final CommitIdentifier identifier : this.getDataStore().getAuditData().keySet()) {
+				final BallotAuditCommit auditCommit = this.getDataStore().getAuditData().get(identifier);
+
+				// the start of each printer is logged by a subtask so it is
+				// kept in order with the output of the ballots
+				if (!submitAuditSubtask(subtasks, new Callable<Boolean>() {
+
+					@Override
+					public Boolean call() {
+						logAuditCommitStart(identifier, auditCommit);
+						return true;
 					}
+				})) {
+					verified = false;
+				}
 
-					if (!this.verifyEncryptions(currentBallotRandomness, identifier)) {
+				// loop over the ballots to audit, parsing each randomness
+				// record once
+				for (String serialNumber : auditCommit.getRandomnessCommitmentSerialNumbers()) {
+					if (!submitAuditSubtask(subtasks, new AuditBallotTask(auditCommit, serialNumber, identifier))) {
 						verified = false;
 					}
-					
-					auditCommit.freeRandomnessCommit(serialNumber);
 				}
 			}
-		} catch (CommitException e) {
-			logger.error("Unable to continue verification.", e);
-			resultsLogger.error("Unable to continue verification.", e);
-			return false;
+
+			while (subtasks.hasNext()) {
+				if (!subtasks.next()) {
+					verified = false;
+				}
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof CommitException) {
+				throw (CommitException) e.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new CommitException("There was a problem verifying an audited ballot", e.getCause());
 		}
 
+		return verified;
+	}
+
+	/**
+	 * Submits a subtask of the audit verification, first collecting the
+	 * result of the earliest pending subtask if no more can be submitted
+	 * 
+	 * @param subtasks
+	 * @param subtask
+	 * @return false if a result was collected and it was not successful
+	 * @throws ExecutionException
+	 */
+	private static boolean submitAuditSubtask(OrderedSubtasks<Boolean> subtasks, Callable<Boolean> subtask) throws ExecutionException {
+		boolean verified = true;
+
+		if (subtasks.isFull()) {
+			verified = subtasks.next();
+		}
+
+		subtasks.submit(subtask);
+
+		return verified;
+	}
+
+	/**
+	 * Records the outcome of the verification in the results log
+	 * 
+	 * @param verified
+	 * @return verified
+	 */
+	private boolean logVerificationResult(boolean verified) {
+
+		this.logCommitmentVerificationSummary();
+
 		if (verified) {
 			logger.debug("Ballot Generation Verification was carried out successfully");
 			resultsLogger.info("Ballot Generation Verification was carried out successfully");
@@ -446,6 +721,7 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 	public boolean doVerification(String serialNumber) {
 
 		logger.info("Starting Ballot Generation Verification for ballot with serial number: {}", serialNumber);
+		resultsLogger.info("Hash commitment verification policy: {}", this.hashCommitmentVerifier.getPolicy());
 
 		if (!this.isAuditBallot(serialNumber)) {
 			logger.error("Ballot specified with serial number: {} was not chosen for auditing and it is therefore not possible to verify this ballot", serialNumber);
@@ -456,34 +732,21 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 		boolean verified = super.doVerification();
 
 		try {
-			if (!this.verifyNumberOfRandomnessValuesReceivedByPODPrinters(serialNumber)) {
-				verified = false;
-			}
-
 			if (!this.verifyNumberOfRandomnessValuesCommittedToByMixServers(serialNumber)) {
 				verified = false;
 			}
 
 			BallotAuditCommit auditCommit = null;
 
-			// loop over each printer to audit
-			for (CommitIdentifier identifier : this.getDataStore().getAuditData().keySet()) {
+			// loop over each audit commitment holding the ballot
+			for (CommitIdentifier identifier : this.getDataStore().getSerialNumberDirectory().getAuditCommits(serialNumber)) {
 				auditCommit = this.getDataStore().getAuditData().get(identifier);
 
-				if (auditCommit.getRandomnessCommitmentSerialNumbers().contains(serialNumber)) {
-
-					if (!this.verifyRandomness(serialNumber)) {
-						verified = false;
-					}
-
-					if (!this.combineRandomnessValues(serialNumber)) {
-						verified = false;
-					}
-
-					if (!this.verifyEncryptions(serialNumber)) {
-						verified = false;
-					}
+				if (!this.verifyAuditBallot(auditCommit.getRandomnessCommit(serialNumber), identifier)) {
+					verified = false;
 				}
+
+				auditCommit.freeRandomnessCommit(serialNumber);
 			}
 
 		} catch (CommitException e) {
@@ -491,6 +754,8 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 			return false;
 		}
 
+		this.logCommitmentVerificationSummary();
+
 		if (verified) {
 			logger.debug("Ballot Generation Verification was carried out successfully for ballot with serial number: {}", serialNumber);
 			resultsLogger.info("Ballot Generation Verification was carried out successfully for ballot with serial number: {}", serialNumber);
@@ -502,6 +767,105 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 		return verified;
 	}
 
+	/**
+	 * Logs the start of the verification of the ballots audited for a single
+	 * Public WBB commitment
+	 * 
+	 * @param identifier
+	 * @param auditCommit
+	 */
+	private static void logAuditCommitStart(CommitIdentifier identifier, BallotAuditCommit auditCommit) {
+		logger.debug("Starting the verification of Public WBB commitment with identifier: {} for outer attachment file: {}, inner attachment file: {}", identifier, auditCommit.getAttachmentFilePath(), auditCommit.getMessage().getFileName());
+		resultsLogger.info("Starting the verification of Public WBB commitment with identifier: {} for outer attachment file: {}, inner attachment file: {}", identifier, auditCommit.getAttachmentFilePath(), auditCommit.getMessage().getFileName());
+	}
+
+	/**
+	 * Carries out every check for a single audited ballot from one parse of
+	 * its randomness record: the number of opened randomness values, the
+	 * opening of the mix server commitments, the combination of the
+	 * randomness values, the re-encryptions and the permutation commitment.
+	 * No state is kept for the ballot afterwards
+	 * 
+	 * @param currentBallotRandomness
+	 * @param identifier
+	 * @return true if the ballot was verified successfully
+	 * @throws CommitException
+	 */
+	private boolean verifyAuditBallot(final BallotGenerationRandomness currentBallotRandomness, final CommitIdentifier identifier) throws CommitException {
+		return verifyAuditBallot(new AuditBallotChecks() {
+
+			@Override
+			public boolean verifyNumberOfRandomnessValues() {
+				return BallotGenerationVerifier.this.verifyNumberOfRandomnessValues(currentBallotRandomness);
+			}
+
+			@Override
+			public boolean verifyRandomness() throws CommitException {
+				return BallotGenerationVerifier.this.verifyRandomness(currentBallotRandomness, identifier);
+			}
+
+			@Override
+			public List<MessageDigest> combineRandomness() {
+				return BallotGenerationVerifier.this.combineRandomness(currentBallotRandomness, identifier);
+			}
+
+			@Override
+			public boolean verifyEncryptions(List<MessageDigest> combined) throws CommitException {
+				return BallotGenerationVerifier.this.verifyEncryptions(currentBallotRandomness, identifier, combined);
+			}
+		});
+	}
+
+	/**
+	 * Runs the checks for a single audited ballot. The opening of the
+	 * commitments and the re-encryptions are both checked even if the first
+	 * of them fails, so every failure for the ballot is reported
+	 * 
+	 * @param checks
+	 * @return true if every check passed
+	 * @throws CommitException
+	 */
+	static boolean verifyAuditBallot(AuditBallotChecks checks) throws CommitException {
+
+		// the remaining checks index into the opened randomness values so
+		// cannot be carried out if the number of values is wrong
+		if (!checks.verifyNumberOfRandomnessValues()) {
+			return false;
+		}
+
+		boolean verified = true;
+
+		if (!checks.verifyRandomness()) {
+			verified = false;
+		}
+
+		List<MessageDigest> combined = checks.combineRandomness();
+
+		if (combined == null) {
+			return false;
+		}
+
+		if (!checks.verifyEncryptions(combined)) {
+			verified = false;
+		}
+
+		return verified;
+	}
+
+	/**
+	 * Records how many hash commitments were checked and cross-checked in the
+	 * results log
+	 */
+	private void logCommitmentVerificationSummary() {
+		resultsLogger.info("Hash commitments checked: {}, cross-checked: {} ({}), engine disagreements: {}", this.hashCommitmentVerifier.getCheckedCount(),
+				this.hashCommitmentVerifier.getCrossCheckedCount(), this.hashCommitmentVerifier.getPolicy(), this.hashCommitmentVerifier.getDisagreementCount());
+
+		if (this.hashCommitmentVerifier.getDisagreementCount() > 0) {
+			logger.error("The hash commitment engines disagreed on {} commitments", this.hashCommitmentVerifier.getDisagreementCount());
+			resultsLogger.error("The hash commitment engines disagreed on {} commitments", this.hashCommitmentVerifier.getDisagreementCount());
+		}
+	}
+
 	/**
 	 * Getter for the combined randomness values - these are computed by
 	 * performing hash computations on combined randomness values
@@ -529,44 +893,59 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 	}
 
 	/**
-	 * Perform a re-encryption and sort on a sub section of the candidate ids
-	 * using the counters passed in
+	 * Re-encrypts the base candidate ids for a ballot using the combined
+	 * randomness values. The re-encryptions are normalised together, with a
+	 * single field inversion for the whole ballot, before they are sorted and
+	 * compared
 	 * 
 	 * @param combinedRandomness
 	 * @param numberOfReencryptions
-	 * @param currentRandomIndex
-	 * @return a sorted and re-encrypted list of IndexedElGamalECPoint objects
+	 * @return the normalised re-encryptions in candidate order
 	 */
-	private List<IndexedElGamalECPoint> reencryptAndSort(List<MessageDigest> combinedRandomness, int numberOfReencryptions, int currentRandomIndex) {
+	private List<ElGamalECPoint> reencrypt(List<MessageDigest> combinedRandomness, int numberOfReencryptions) {
 
-		logger.debug("Performing re-encryption and sorting for subsection of candidate ids");
 		logger.debug("Number of re-encryptions to carry out: '{}'", numberOfReencryptions);
-		logger.debug("Starting index for where to start re-encryptions: '{}'", currentRandomIndex);
 
-		List<IndexedElGamalECPoint> result = new ArrayList<IndexedElGamalECPoint>();
+		List<ElGamalECPoint> result = new ArrayList<ElGamalECPoint>(numberOfReencryptions);
 
 		for (int i = 0; i < numberOfReencryptions; i++) {
 
-			logger.debug("Re-encrypting candidate: '{}'", i + currentRandomIndex);
+			logger.debug("Re-encrypting candidate: '{}'", i);
 
 			// current random value
-			BigInteger randValue = new BigInteger(1, combinedRandomness.get(i + currentRandomIndex).digest());
+			BigInteger randValue = new BigInteger(1, combinedRandomness.get(i).digest());
 
 			// current base candidate identifier
-			ElGamalECPoint baseCandidateId = this.getDataStore().getBaseEncryptedIds().get(i + currentRandomIndex);
+			ElGamalECPoint baseCandidateId = this.getDataStore().getBaseEncryptedIds().get(i);
 
 			// current re-encrypted base candidate identifier
-			ElGamalECPoint reencryptedCandidateId = ECUtils.reencrypt(baseCandidateId, this.getDataStore().getPublicKey(), randValue);
+			result.add(ECUtils.reencrypt(this.getDataStore().getCurveContext(), baseCandidateId, this.getDataStore().getPublicKey(), randValue));
+		}
 
-			// indexed re-encrypted base candidate identifier storing the
-			// original position
-			IndexedElGamalECPoint indexedEC = new IndexedElGamalECPoint(reencryptedCandidateId, i);
+		return ECUtils.normalizeCiphers(result);
+	}
+
+	/**
+	 * Sorts a sub section of the re-encrypted candidate ids
+	 * 
+	 * @param reencryptions
+	 * @param numberOfReencryptions
+	 * @param currentRandomIndex
+	 * @return a sorted list of IndexedElGamalECPoint objects
+	 */
+	private static List<IndexedElGamalECPoint> sortReencryptions(List<ElGamalECPoint> reencryptions, int numberOfReencryptions, int currentRandomIndex) {
+
+		logger.debug("Sorting subsection of re-encrypted candidate ids");
+		logger.debug("Starting index for the subsection: '{}'", currentRandomIndex);
 
-			result.add(i, indexedEC);
+		List<IndexedElGamalECPoint> result = new ArrayList<IndexedElGamalECPoint>(numberOfReencryptions);
 
+		for (int i = 0; i < numberOfReencryptions; i++) {
+			// indexed re-encrypted base candidate identifier storing the
+			// original position
+			result.add(new IndexedElGamalECPoint(reencryptions.get(i + currentRandomIndex), i));
 		}
 
-		logger.debug("Sorting re-encrypted candidate ids");
 		Collections.sort(result, new ElGamalECPointComparator());
 
 		return result;
@@ -622,6 +1001,32 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 	 */
 	public boolean verifyEncryptions(BallotGenerationRandomness currentBallotRandomness, CommitIdentifier identifier) throws CommitException {
 
+		// the combined digests can only be read once so they are removed
+		List<MessageDigest> combined = this.getCombinedRandomness().remove(currentBallotRandomness.getSerialNo());
+
+		if (combined == null) {
+			logger.error("The randomness values for ballot with serial number: '{}' must be combined before the encryptions can be verified", currentBallotRandomness.getSerialNo());
+			resultsLogger.error("The randomness values for ballot with serial number: '{}' must be combined before the encryptions can be verified", currentBallotRandomness.getSerialNo());
+			return false;
+		}
+
+		return this.verifyEncryptions(currentBallotRandomness, identifier, combined);
+	}
+
+	/**
+	 * Performs the actual re-encryption and sorting of the base encrypted
+	 * candidate ids for a ballot using its combined randomness values. The
+	 * committed permutation is then checked
+	 * 
+	 * @param currentBallotRandomness
+	 * @param identifier
+	 * @param currentRandomnessList
+	 *            the combined randomness values for the ballot
+	 * @return true if the re-encryption and sorting takes place successfully.
+	 * @throws CommitException
+	 */
+	private boolean verifyEncryptions(BallotGenerationRandomness currentBallotRandomness, CommitIdentifier identifier, List<MessageDigest> currentRandomnessList) throws CommitException {
+
 		final String serialNo = currentBallotRandomness.getSerialNo();
 
 		logger.info("Starting Verification of the encryptions and construction of the generic ballots for ballot with serial number: {} for PoD Printer: {}", serialNo, identifier.getPrinterId());
@@ -638,9 +1043,6 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 		// stores the sections of sorted re-encrypted base encrypted ids
 		List<IndexedElGamalECPoint> combinedBallotCiphers = null;
 
-		// stores the current combined randomness values
-		List<MessageDigest> currentRandomnessList = null;
-
 		// stores the details for the current committed cipher ballot
 		CommittedBallot currentBallot = null;
 
@@ -653,23 +1055,22 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 
 		logger.debug("Veriyfing re-encryptions for client: '{}'", serialNo);
 
-		// get the combined randomness values for the current serial
-		// number/client
-		currentRandomnessList = this.getCombinedRandomness().get(serialNo);
+		// re-encrypt every base candidate id for the ballot
+		List<ElGamalECPoint> reencryptions = this.reencrypt(currentRandomnessList, sizes[0] + sizes[1] + sizes[2]);
 
-		// perform re-encryption and sorting on the LA race
+		// perform sorting on the LA race
 		numberOfReencryptions = sizes[0];
-		laReencryptions = this.reencryptAndSort(currentRandomnessList, numberOfReencryptions, currentRandomIndex);
+		laReencryptions = sortReencryptions(reencryptions, numberOfReencryptions, currentRandomIndex);
 
-		// perform re-encryption and sorting on the LC ATL race
+		// perform sorting on the LC ATL race
 		currentRandomIndex += numberOfReencryptions;
 		numberOfReencryptions = sizes[1];
-		lcATLReencryptions = this.reencryptAndSort(currentRandomnessList, numberOfReencryptions, currentRandomIndex);
+		lcATLReencryptions = sortReencryptions(reencryptions, numberOfReencryptions, currentRandomIndex);
 
-		// perform re-encryption and sorting on the LC BTL race
+		// perform sorting on the LC BTL race
 		currentRandomIndex += numberOfReencryptions;
 		numberOfReencryptions = sizes[2];
-		lcBTLReencryptions = this.reencryptAndSort(currentRandomnessList, numberOfReencryptions, currentRandomIndex);
+		lcBTLReencryptions = sortReencryptions(reencryptions, numberOfReencryptions, currentRandomIndex);
 
 		// combine all re-encrypted and sorted ids together
 		combinedBallotCiphers = new ArrayList<IndexedElGamalECPoint>();
@@ -712,7 +1113,15 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 		commit = Utils.decodeBase64Data(currentBallot.getPermutation());
 
 		// check the hash commitment
-		if (!CryptoUtils.verifyHashCommitment(commit, witness, randomnessValue)) {
+		HashCommitmentBatch batch = randomnessBatch.get();
+		batch.clear();
+		batch.add(commit, witness, randomnessValue);
+
+		boolean commitmentVerified = this.hashCommitmentVerifier.verify(batch).get(0);
+
+		batch.clear();
+
+		if (!commitmentVerified) {
 			logger.error("Hash commitment check was unsucessfull for combined ballot cipher with serial number: '{}'", serialNo);
 			resultsLogger.error("Hash commitment check was unsucessfull for combined ballot cipher with serial number: '{}'", serialNo);
 
@@ -748,19 +1157,17 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 
 		BallotGenerationRandomness currentBallotRandomness = null;
 
-		// loop over each printer to audit
-		for (CommitIdentifier identifier : this.getDataStore().getAuditData().keySet()) {
+		// loop over each audit commitment holding the ballot
+		for (CommitIdentifier identifier : this.getDataStore().getSerialNumberDirectory().getAuditCommits(serialNumber)) {
 			auditCommit = this.getDataStore().getAuditData().get(identifier);
 
-			if (auditCommit.getRandomnessCommitmentSerialNumbers().contains(serialNumber)) {
-				currentBallotRandomness = auditCommit.getRandomnessCommit(serialNumber);
+			currentBallotRandomness = auditCommit.getRandomnessCommit(serialNumber);
 
-				if (this.verifyEncryptions(currentBallotRandomness, identifier)) {
-					return true;
-				}
-				
-				auditCommit.freeRandomnessCommit(serialNumber);
+			if (this.verifyEncryptions(currentBallotRandomness, identifier)) {
+				return true;
 			}
+			
+			auditCommit.freeRandomnessCommit(serialNumber);
 		}
 
 		return false;
@@ -792,13 +1199,10 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 
 			logger.info("Verifying the Fiat-Shamir signature for commitment with identifier: {}", identifier);
 
+			// the serial numbers need to be in a 'default' state i.e. in
+			// order. The committed serial numbers are held in sorted order
 			serialNumbers = new ArrayList<String>(this.getDataStore().getGeneratedCiphers().get(identifier).getCommittedBallotsSerialNumbers());
 
-			// need to sort the serial numbers to make sure they are in a
-			// 'default'
-			// state i.e. in order
-			Collections.sort(serialNumbers, new BallotSerialNumberComparator());
-
 			// check generation size
 			if (serialNumbers.size() != ballotsToGenerate) {
 				logger.error("The number of ballots generated ({}) doesn't match the number of ballots requested for generation ({})", serialNumbers.size(), ballotsToGenerate);
@@ -929,43 +1333,31 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 			return false;
 		}
 
-		Map<CommitIdentifier, List<MixRandomCommit>> serverMap = null;
-		List<MixRandomCommit> commits = null;
-
 		MixCommitData mixCommit = null;
 
-		final int numberOfGenericCandidates = this.getDataStore().getNumberOfRandomnessValuesExpected();
-
-		for (String serverName : this.getDataStore().getMixServerCommits().keySet()) {
-			logger.debug("Checking randomness values sent by: {}", serverName);
-
-			serverMap = this.getDataStore().getMixServerCommits().get(serverName);
+		String serverName = null;
 
-			for (CommitIdentifier identifier : serverMap.keySet()) {
-				logger.debug("Checking randomness values sent to: {}", identifier);
+		final int numberOfGenericCandidates = this.getDataStore().getNumberOfRandomnessValuesExpected();
 
-				commits = serverMap.get(identifier);
+		// only the mix server commitments holding randomness for the ballot
+		for (MixRandomCommit currentCommit : this.getDataStore().getSerialNumberDirectory().getMixCommits(serialNumber)) {
 
-				for (MixRandomCommit currentCommit : commits) {
+			serverName = currentCommit.getMessage().getBoothID();
 
-					logger.debug("Checking randomness in submission with id: {}", currentCommit.getMessage().getSubmissionId());
+			logger.debug("Checking randomness in submission with id: {} sent by: {}", currentCommit.getMessage().getSubmissionId(), serverName);
 
-					if (currentCommit.getServerCommits().hasMixRandomCommit(serialNumber)) {
-						mixCommit = currentCommit.getServerCommits().getMixRandomCommit(serialNumber);
+			mixCommit = currentCommit.getServerCommits().getMixRandomCommit(serialNumber);
 
-						// check the number of randomness values received
-						if (numberOfGenericCandidates != mixCommit.getNumberOfRandomnessValues()) {
-							logger.error("The current number of randomness values received does not match the number of candidates plus 1. Server: '{}' for ballot: '{}'", serverName,
-									mixCommit.getSerialNo());
-							resultsLogger.error("The current number of randomness values received does not match the number of candidates plus 1. Server: '{}' for ballot: '{}'", serverName,
-									mixCommit.getSerialNo());
-							return false;
-						}
-						
-						currentCommit.getServerCommits().freeMixRandomCommit(serialNumber);
-					}
-				}
+			// check the number of randomness values received
+			if (numberOfGenericCandidates != mixCommit.getNumberOfRandomnessValues()) {
+				logger.error("The current number of randomness values received does not match the number of candidates plus 1. Server: '{}' for ballot: '{}'", serverName,
+						mixCommit.getSerialNo());
+				resultsLogger.error("The current number of randomness values received does not match the number of candidates plus 1. Server: '{}' for ballot: '{}'", serverName,
+						mixCommit.getSerialNo());
+				return false;
 			}
+
+			currentCommit.getServerCommits().freeMixRandomCommit(serialNumber);
 		}
 
 		logger.debug("Successfully verified that the number of randomness values committed to by the mix servers matches the number of candidates plus 1 for ballot with serial number: {}",
@@ -991,25 +1383,16 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 
 		boolean verified = true;
 
-		final int numberOfCandidatesPlus1 = this.getDataStore().getNumberOfRandomnessValuesExpected();
-
 		for (CommitIdentifier identifier : this.getDataStore().getAuditData().keySet()) {
 			auditCommit = this.getDataStore().getAuditData().get(identifier);
 
 			for (String serialNo : auditCommit.getRandomnessCommitmentSerialNumbers()) {
 				randomnessCommitment = auditCommit.getRandomnessCommit(serialNo);
 
-				for (OpenedRandomnessCommitments currentOpenedRandomness : randomnessCommitment.getOpenedRandomnessValues()) {
-					// check the number of randomness values received
-					if (numberOfCandidatesPlus1 != currentOpenedRandomness.getNumRandomnessValues()) {
-						logger.error("The current number of opened randomness values ({}) for ballot with serial number: {} from printer: '{}' does not match the number of candidates plus 1 ({})", currentOpenedRandomness.getNumRandomnessValues(), serialNo,
-								currentOpenedRandomness.getPeerId(), numberOfCandidatesPlus1);
-						resultsLogger.error("The current number of opened randomness values ({}) for ballot with serial number: {} from printer: '{}' does not match the number of candidates plus 1 ({})", currentOpenedRandomness.getNumRandomnessValues(), serialNo,
-								currentOpenedRandomness.getPeerId(), numberOfCandidatesPlus1);
-						verified = false;
-					}
+				if (!this.verifyNumberOfRandomnessValues(randomnessCommitment)) {
+					verified = false;
 				}
-				
+
 				auditCommit.freeRandomnessCommit(serialNo);
 			}
 		}
@@ -1041,27 +1424,17 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 		BallotAuditCommit auditCommit = null;
 		BallotGenerationRandomness randomnessCommitment = null;
 
-		final int numberOfCandidates = this.getDataStore().getNumberOfRandomnessValuesExpected();
-
-		for (CommitIdentifier identifier : this.getDataStore().getAuditData().keySet()) {
+		for (CommitIdentifier identifier : this.getDataStore().getSerialNumberDirectory().getAuditCommits(serialNumber)) {
 			auditCommit = this.getDataStore().getAuditData().get(identifier);
 
-			if (auditCommit.getRandomnessCommitmentSerialNumbers().contains(serialNumber)) {
-				randomnessCommitment = auditCommit.getRandomnessCommit(serialNumber);
-
-				for (OpenedRandomnessCommitments currentOpenedRandomness : randomnessCommitment.getOpenedRandomnessValues()) {
-					// check the number of randomness values received
-					if (numberOfCandidates != currentOpenedRandomness.getNumRandomnessValues()) {
-						logger.error("The current number of opened randomness values ({}) for ballot with serial number: {} from printer: '{}' does not match the number of candidates plus 1 ({})", currentOpenedRandomness.getNumRandomnessValues(), serialNumber,
-								currentOpenedRandomness.getPeerId(), numberOfCandidates);
-						resultsLogger.error("The current number of opened randomness values ({}) for ballot with serial number: {} from printer: '{}' does not match the number of candidates plus 1 ({})", currentOpenedRandomness.getNumRandomnessValues(), serialNumber,
-								currentOpenedRandomness.getPeerId(), numberOfCandidates);
-						return false;
-					}
-				}
-				
+			randomnessCommitment = auditCommit.getRandomnessCommit(serialNumber);
+
+			if (!this.verifyNumberOfRandomnessValues(randomnessCommitment)) {
 				auditCommit.freeRandomnessCommit(serialNumber);
+				return false;
 			}
+
+			auditCommit.freeRandomnessCommit(serialNumber);
 		}
 
 		logger.debug("Successfully verified that the number of opened randomness commitments received by each PoD Printer matches the number of candidates plus 1 for ballot with serial number: {}",
@@ -1073,6 +1446,36 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 		return true;
 	}
 
+	/**
+	 * Verifies the number of randomness values opened for a single ballot by
+	 * each of the PoD Printers
+	 * 
+	 * @param randomnessCommitment
+	 * @return true if the number of randomness values received matches that
+	 *         expected
+	 */
+	private boolean verifyNumberOfRandomnessValues(BallotGenerationRandomness randomnessCommitment) {
+
+		final int numberOfCandidatesPlus1 = this.getDataStore().getNumberOfRandomnessValuesExpected();
+
+		final String serialNo = randomnessCommitment.getSerialNo();
+
+		boolean verified = true;
+
+		for (OpenedRandomnessCommitments currentOpenedRandomness : randomnessCommitment.getOpenedRandomnessValues()) {
+			// check the number of randomness values received
+			if (numberOfCandidatesPlus1 != currentOpenedRandomness.getNumRandomnessValues()) {
+				logger.error("The current number of opened randomness values ({}) for ballot with serial number: {} from printer: '{}' does not match the number of candidates plus 1 ({})", currentOpenedRandomness.getNumRandomnessValues(), serialNo,
+						currentOpenedRandomness.getPeerId(), numberOfCandidatesPlus1);
+				resultsLogger.error("The current number of opened randomness values ({}) for ballot with serial number: {} from printer: '{}' does not match the number of candidates plus 1 ({})", currentOpenedRandomness.getNumRandomnessValues(), serialNo,
+						currentOpenedRandomness.getPeerId(), numberOfCandidatesPlus1);
+				verified = false;
+			}
+		}
+
+		return verified;
+	}
+
 	/**
 	 * Carry out the verification on the randomness values
 	 * 
@@ -1120,7 +1523,8 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 	 * Verifies that the randomness values stored by a specified POD Printer
 	 * (using the serial number to reference a ballot created by them) - once it
 	 * has opened its commitment is consistent with the commitments made by the
-	 * mix servers.
+	 * mix servers. The hash commitments for every mix server are collected and
+	 * checked together as a single batch for the whole ballot
 	 * 
 	 * @param currentBallotRandomness
 	 * @param identifier
@@ -1131,32 +1535,27 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 	public boolean verifyRandomness(BallotGenerationRandomness currentBallotRandomness, CommitIdentifier identifier) throws CommitException {
 
 		String currentPeerID = null;
-		Map<CommitIdentifier, List<MixRandomCommit>> mixServerMap = null;
-		MixCommitData currentRandomnessCommit = null;
-		RandomnessPair currentRandomPair = null;
+		List<MixRandomCommit> currentServerCommits = null;
 
 		final String serialNo = currentBallotRandomness.getSerialNo();
 
 		logger.info("Starting Verification of the randomness values used by PoD Printer: {} for ballot with serial number: {} match the commitments made by the mix servers",
 				identifier.getPrinterId(), serialNo);
 
-		List<MixRandomCommit> currentServerCommits = null;
-		RandomnessServerCommits currentServerRandomnessCommits = null;
-
-		String commitment = null;
-		String witness = null;
-		String randomValue = null;
+		logger.debug("Veriyfing randomness values for ballot: '{}'", serialNo);
 
-		boolean randomnessVerified = false;
+		List<OpenedRandomnessCommitments> openedRandomness = currentBallotRandomness.getOpenedRandomnessValues();
+		List<List<MixRandomCommit>> serverCommits = new ArrayList<List<MixRandomCommit>>();
+		List<Integer> batchOffsets = new ArrayList<Integer>();
 
-		logger.debug("Veriyfing randomness values for ballot: '{}'", serialNo);
+		HashCommitmentBatch batch = randomnessBatch.get();
+		batch.clear();
 
 		// loop over the opened randomness commitments - each ballot to audit
 		// may contain a number of OpenedRandomnessCommitments relating to
-		// different mix servers (peers)
-		for (OpenedRandomnessCommitments podOpenedRandomness : currentBallotRandomness.getOpenedRandomnessValues()) {
-
-			randomnessVerified = false;
+		// different mix servers (peers) - and add the hash commitments for the
+		// first commitment made by each mix server into the batch
+		for (OpenedRandomnessCommitments podOpenedRandomness : openedRandomness) {
 
 			// check that the serial numbers for each inner set match the
 			// outer object - this should return positive
@@ -1173,92 +1572,137 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 
 			logger.debug("Checking randomness for ballot: '{}', with mix server: '{}'", serialNo, currentPeerID);
 
-			// get the current mix server commitments from the current peer
-			// id - returns a representation of one of the files relating to
-			// a peer/mix server
-			mixServerMap = this.getDataStore().getMixServerCommits().get(currentPeerID);
+			// get the current mix server commitments for the printer
+			currentServerCommits = this.getMixServerCommits(currentPeerID, identifier, serialNo);
 
-			for (CommitIdentifier mixServerMapIdentifier : mixServerMap.keySet()) {
-				if (mixServerMapIdentifier.getPrinterId().equals(identifier.getPrinterId())) {
-					currentServerCommits = mixServerMap.get(mixServerMapIdentifier);
-				}
-			}
-
-			if (currentServerCommits != null) {
-
-				for (int j = 0; j < currentServerCommits.size(); j++) {
-
-					if (!randomnessVerified) {
+			if (currentServerCommits == null || currentServerCommits.isEmpty()) {
+				logger.error("Could not locate the Mix server commit data for the current audit: {}", identifier);
+				resultsLogger.error("Could not locate the Mix server commit data for mix server: {} for the current audit: {}", currentPeerID, identifier);
 
-						MixRandomCommit currentCommit = currentServerCommits.get(j);
+				return false;
+			}
 
-						currentServerRandomnessCommits = currentCommit.getServerCommits();
+			batchOffsets.add(batch.size());
+			this.addRandomnessCommitments(batch, currentServerCommits.get(0), podOpenedRandomness, serialNo);
+			serverCommits.add(currentServerCommits);
+		}
 
-						// gets the representation for the actual line from the
-						// file
-						// using the serial number
-						currentRandomnessCommit = currentServerRandomnessCommits.getMixRandomCommit(serialNo);
+		BitSet verified = this.hashCommitmentVerifier.verify(batch);
 
-						// loop over the randomness pairings for each of the
-						// sets of
-						// opened randomness commitments for each of the PoD
-						// Printers
-						for (int i = 0; i < podOpenedRandomness.getNumRandomnessValues(); i++) {
+		for (int k = 0; k < openedRandomness.size(); k++) {
 
-							logger.debug("Verifying hash commitment for ballot: '{}', with mix server: '{}', randomness index: '{}'", serialNo, currentPeerID, i);
+			OpenedRandomnessCommitments podOpenedRandomness = openedRandomness.get(k);
+			currentServerCommits = serverCommits.get(k);
+			currentPeerID = podOpenedRandomness.getPeerId();
 
-							// get the current pair
-							currentRandomPair = podOpenedRandomness.getRandomnessPair(i);
+			int numRandomnessValues = podOpenedRandomness.getNumRandomnessValues();
+			int failedIndex = firstFailure(verified, batchOffsets.get(k), numRandomnessValues);
 
-							// get commitment from the current mix server file
-							commitment = currentRandomnessCommit.getRandomnessValue(i);
+			// if the mix server has made multiple commitments then check the
+			// next commitment
+			int j = 0;
+			while (failedIndex >= 0 && j < currentServerCommits.size() - 1) {
+				resultsLogger.warn("The commitment does not match the given witness and randomness value - The current Mix Server has multiple commitments so we will check the next commitment: {}",
+						identifier);
 
-							// get the witness and randomness value from the
-							// current
-							// pair
-							witness = currentRandomPair.getWitness();
-							randomValue = currentRandomPair.getRandomnessValue();
+				j++;
 
-							// check each commitment
-							if (!CryptoUtils.verifyHashCommitment(commitment, witness, randomValue)) {
+				batch.clear();
+				this.addRandomnessCommitments(batch, currentServerCommits.get(j), podOpenedRandomness, serialNo);
+				failedIndex = firstFailure(this.hashCommitmentVerifier.verify(batch), 0, numRandomnessValues);
+			}
 
-								if (j < currentServerCommits.size() - 1 && currentServerCommits.size() > 1) {
-									resultsLogger
-											.warn("The commitment does not match the given witness and randomness value - The current Mix Server has multiple commitments so we will check the next commitment: {}",
-													identifier);
-									break;
-								}
+			RandomnessServerCommits currentServerRandomnessCommits = currentServerCommits.get(j).getServerCommits();
 
-								logger.error("The commitment does not match the given witness and randomness values - Commitment with identifier: {}, commitment: {}, witness: {}, randomness: {}",
-										identifier, commitment, witness, randomValue);
-								resultsLogger.error(
-										"The commitment does not match the given witness and randomness values - Commitment with identifier: {}, commitment: {}, witness: {}, randomness: {}",
-										identifier, commitment, witness, randomValue);
+			if (failedIndex >= 0) {
+				String commitment = currentServerRandomnessCommits.getMixRandomCommit(serialNo).getRandomnessValue(failedIndex);
+				RandomnessPair currentRandomPair = podOpenedRandomness.getRandomnessPair(failedIndex);
 
-								return false;
-							}
-						}
-						
-						currentServerRandomnessCommits.freeMixRandomCommit(serialNo);
-						
-						randomnessVerified = true;
-					}
-				}
-			} else {
-				logger.error("Could not locate the Mix server commit data for the current audit: {}", identifier);
-				resultsLogger.error("The commitment does not match the given witness and randomness values - Commitment: {}, witness: {}, randomness: {}", commitment, witness, randomValue);
+				logger.error("The commitment does not match the given witness and randomness values - Commitment with identifier: {}, commitment: {}, witness: {}, randomness: {}", identifier,
+						commitment, currentRandomPair.getWitness(), currentRandomPair.getRandomnessValue());
+				resultsLogger.error("The commitment does not match the given witness and randomness values - Commitment with identifier: {}, commitment: {}, witness: {}, randomness: {}",
+						identifier, commitment, currentRandomPair.getWitness(), currentRandomPair.getRandomnessValue());
 
 				return false;
 			}
+
+			currentServerRandomnessCommits.freeMixRandomCommit(serialNo);
+
 			resultsLogger.info("Successfully verified that the randomness values for ballot: {} were provided by and committed to by mix server: {}", serialNo, currentPeerID);
 		}
 
+		batch.clear();
+
 		logger.debug("Successfully verified that the randomness values for ballot: {} were provided by and committed to by the mix servers", serialNo);
 		resultsLogger.info("Successfully verified that the randomness values for ballot: {} were provided by and committed to by the mix servers", serialNo);
 
 		return true;
 	}
 
+	/**
+	 * Gets the commitments made by a mix server for the specified PoD Printer
+	 * which hold randomness for the ballot with the specified serial number
+	 * 
+	 * @param peerID
+	 * @param identifier
+	 * @param serialNo
+	 * @return the commitments made by the mix server, empty if there are none
+	 */
+	private List<MixRandomCommit> getMixServerCommits(String peerID, CommitIdentifier identifier, String serialNo) {
+		return this.getDataStore().getSerialNumberDirectory().getMixCommits(serialNo, peerID, identifier.getPrinterId());
+	}
+
+	/**
+	 * Adds the hash commitments for each of the randomness pairs opened for a
+	 * ballot against the commitments made by a mix server into the batch
+	 * 
+	 * @param batch
+	 * @param serverCommit
+	 * @param podOpenedRandomness
+	 * @param serialNo
+	 * @throws CommitException
+	 */
+	private void addRandomnessCommitments(HashCommitmentBatch batch, MixRandomCommit serverCommit, OpenedRandomnessCommitments podOpenedRandomness, String serialNo) throws CommitException {
+
+		// gets the representation for the actual line from the file using the
+		// serial number
+		MixCommitData currentRandomnessCommit = serverCommit.getServerCommits().getMixRandomCommit(serialNo);
+
+		RandomnessPair currentRandomPair = null;
+
+		// loop over the randomness pairings for each of the sets of opened
+		// randomness commitments
+		for (int i = 0; i < podOpenedRandomness.getNumRandomnessValues(); i++) {
+
+			// get the current pair
+			currentRandomPair = podOpenedRandomness.getRandomnessPair(i);
+
+			// the commitment from the current mix server file with the witness
+			// and randomness value from the current pair
+			batch.add(currentRandomnessCommit.getRandomnessValue(i), currentRandomPair.getWitness(), currentRandomPair.getRandomnessValue());
+		}
+	}
+
+	/**
+	 * Finds the first hash commitment in a range of a batch which did not
+	 * verify
+	 * 
+	 * @param verified
+	 * @param offset
+	 * @param count
+	 * @return the index of the first failure relative to the offset or -1 if
+	 *         all verified
+	 */
+	static int firstFailure(BitSet verified, int offset, int count) {
+		int failed = verified.nextClearBit(offset);
+
+		if (failed < offset + count) {
+			return failed - offset;
+		}
+
+		return -1;
+	}
+
 	/**
 	 * Verifies the randomness values for a single ballot with the provided
 	 * serial number
@@ -1279,19 +1723,17 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 
 		BallotGenerationRandomness currentBallotRandomness = null;
 
-		// loop over each printer to audit
-		for (CommitIdentifier identifier : this.getDataStore().getAuditData().keySet()) {
+		// loop over each audit commitment holding the ballot
+		for (CommitIdentifier identifier : this.getDataStore().getSerialNumberDirectory().getAuditCommits(serialNumber)) {
 			auditCommit = this.getDataStore().getAuditData().get(identifier);
 
-			if (auditCommit.getRandomnessCommitmentSerialNumbers().contains(serialNumber)) {
-				currentBallotRandomness = auditCommit.getRandomnessCommit(serialNumber);
+			currentBallotRandomness = auditCommit.getRandomnessCommit(serialNumber);
 
-				if (!this.verifyRandomness(currentBallotRandomness, identifier)) {
-					return false;
-				}
-				
-				auditCommit.freeRandomnessCommit(serialNumber);
+			if (!this.verifyRandomness(currentBallotRandomness, identifier)) {
+				return false;
 			}
+			
+			auditCommit.freeRandomnessCommit(serialNumber);
 		}
 
 		return true;
@@ -1312,7 +1754,7 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 	 */
 	private boolean verifySignatureMatches(CommitIdentifier identifier, BallotAuditCommit auditCommit) throws NoSuchAlgorithmException, NoSuchProviderException, FileHashException {
 
-		final String ciphersFilePath = this.getDataStore().getGeneratedCiphers().get(identifier).getCiphersDataFilePath();
+		final FileRegion ciphersDataRegion = this.getDataStore().getGeneratedCiphers().get(identifier).getCiphersDataRegion();
 
 		final byte[] includedSig = Utils.decodeBase64Data(auditCommit.getResponse().getFiatShamir());
 
@@ -1329,7 +1771,12 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 		fiatShamirDigest.update(auditCommit.getMessage().getCommitTime().getBytes());
 
 		// add ciphers file
-		CryptoUtils.hashFile(new File(ciphersFilePath), fiatShamirDigest);
+		try (InputStream is = ciphersDataRegion.openStream()) {
+			CryptoUtils.hashStream(is, fiatShamirDigest);
+		} catch (IOException e) {
+			logger.error("Unable to hash the ciphers data file: {}", ciphersDataRegion, e);
+			throw new FileHashException("Unable to hash the ciphers data file: " + ciphersDataRegion, e);
+		}
 
 		// add combined sig
 		String combinedSig = this.getCombinedSignature(this.getDataStore().getCertificatesFile(), auditCommit);
@@ -1350,27 +1797,59 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 		return true;
 	}
 
+	/**
+	 * Gets the Lagrange weight cache for the WBB peers listed in the
+	 * certificates file
+	 * 
+	 * @param certificatesFile
+	 * @return the Lagrange weight cache for the WBB peers
+	 * @throws BLSSignatureException
+	 */
+	private synchronized LagrangeWeightCache getWBBWeightCache(CertificatesFile certificatesFile) throws BLSSignatureException {
+		if (this.wbbWeightCache == null) {
+			this.wbbWeightCache = new LagrangeWeightCache(certificatesFile.getNumberOfPeers());
+		}
+		return this.wbbWeightCache;
+	}
+
+	/**
+	 * Gets the number of WBB peer signature shares needed to form a joint
+	 * signature, either from the spec or the default for the number of peers
+	 * 
+	 * @param numberOfPeers
+	 * @return the threshold
+	 */
+	private int getWBBThreshold(int numberOfPeers) {
+		int threshold = this.getSpec().getWBBThreshold();
+
+		if (threshold > 0) {
+			return threshold;
+		}
+
+		return BLSCombiner.getDefaultThreshold(numberOfPeers);
+	}
+
 	/**
 	 * Gets the combined signature for the audit commitment
-	 * @param certificatesFile 
 	 * 
+	 * @param certificatesFile
 	 * @param auditCommit
 	 * @return combined signature
 	 */
 	private String getCombinedSignature(CertificatesFile certificatesFile, BallotAuditCommit auditCommit) {
-		int numberOfPeers = 7;
-		int threshold = 5;
-		
+		int numberOfPeers = certificatesFile.getNumberOfPeers();
+		int threshold = this.getWBBThreshold(numberOfPeers);
+
 		try {
-			
-			BLSCombiner bls = new BLSCombiner(numberOfPeers, threshold);
+
+			BLSCombiner bls = new BLSCombiner(this.getWBBWeightCache(certificatesFile), threshold);
 
 			int peerIndex = 0;
 
 			for (WBBSignature sig : auditCommit.getResponse().getWbbSignatures()) {
 				if (sig.isUsedAsPartOfThreshold()) {
 
-					peerIndex = this.getDataStore().getCertificatesFile().getSequenceNumberForPeer(sig.getWBBID());
+					peerIndex = certificatesFile.getSequenceNumberForPeer(sig.getWBBID());
 
 					bls.addShare(Utils.decodeBase64Data(sig.getWBBSig()), peerIndex);
 				}
@@ -1400,16 +1879,11 @@ public class BallotGenerationVerifier extends ComponentVerifier {
 
 		logger.info("Checking whether ballot with serial number: {} is a valid ballot which was chosen for auditing", serialNumber);
 
-		BallotAuditCommit auditCommit = null;
-
-		for (CommitIdentifier identifier : this.getDataStore().getAuditData().keySet()) {
-			auditCommit = this.getDataStore().getAuditData().get(identifier);
-
-			if (auditCommit.getRandomnessCommitmentSerialNumbers().contains(serialNumber)) {
-				logger.info("Ballot with serial number: {} is a valid ballot which was chosen for auditing", serialNumber);
-				return true;
-			}
+		if (this.getDataStore().getSerialNumberDirectory().isAudited(serialNumber)) {
+			logger.info("Ballot with serial number: {} is a valid ballot which was chosen for auditing", serialNumber);
+			return true;
 		}
+
 		logger.info("Ballot with serial number: {} was not chosen for auditing", serialNumber);
 		return false;
 	}
@@ -28,6 +28,8 @@ import com.vvote.verifier.exceptions.ComponentSpecException;
 import com.vvote.verifier.exceptions.SpecException;
 import com.vvote.verifier.fields.VerifierFields;
 import com.vvote.verifierlibrary.json.JSONSchemaStore;
+import com.vvote.verifierlibrary.utils.crypto.CommitmentVerificationPolicy;
+import com.vvote.verifierlibrary.utils.crypto.CommitmentVerificationPolicy.CrossCheck;
 
 /**
  * Provides a concrete implementation of the spec file for the ballot generation
@@ -124,6 +126,90 @@ public final class BallotGenerationVerifierSpec extends ComponentSpec {
 		return null;
 	}
 
+	/**
+	 * Gets the hash commitment verification policy. If no policy is specified
+	 * every hash commitment is cross-checked
+	 * 
+	 * @return the hash commitment verification policy
+	 */
+	public CommitmentVerificationPolicy getCommitmentVerificationPolicy() {
+		if (this.getSpec() != null) {
+			if (this.getSpec().has(VerifierFields.BallotGenerationVerifierSpec.COMMITMENT_VERIFICATION)) {
+				try {
+					JSONObject policy = this.getSpec().getJSONObject(VerifierFields.BallotGenerationVerifierSpec.COMMITMENT_VERIFICATION);
+
+					CrossCheck crossCheck = CrossCheck.fromValue(policy.getString(VerifierFields.BallotGenerationVerifierSpec.CROSS_CHECK));
+
+					if (crossCheck == null) {
+						logger.error("Unknown COMMITMENT_VERIFICATION cross-check in the spec object: {} - every commitment will be cross-checked", policy);
+						return CommitmentVerificationPolicy.ALWAYS;
+					}
+
+					int samplePercentage = 100;
+					if (policy.has(VerifierFields.BallotGenerationVerifierSpec.SAMPLE_PERCENTAGE)) {
+						samplePercentage = policy.getInt(VerifierFields.BallotGenerationVerifierSpec.SAMPLE_PERCENTAGE);
+					}
+
+					long sampleSeed = 0;
+					if (policy.has(VerifierFields.BallotGenerationVerifierSpec.SAMPLE_SEED)) {
+						sampleSeed = policy.getLong(VerifierFields.BallotGenerationVerifierSpec.SAMPLE_SEED);
+					}
+
+					return new CommitmentVerificationPolicy(crossCheck, samplePercentage, sampleSeed);
+				} catch (JSONException e) {
+					logger.error("There was a problem when getting the COMMITMENT_VERIFICATION policy from the spec object - every commitment will be cross-checked");
+				} catch (IllegalArgumentException e) {
+					logger.error("The COMMITMENT_VERIFICATION policy in the spec object is invalid - every commitment will be cross-checked", e);
+				}
+			}
+		}
+		return CommitmentVerificationPolicy.ALWAYS;
+	}
+
+	/**
+	 * Getter for the number of WBB peer signature shares needed to form a
+	 * joint signature
+	 * 
+	 * @return spec.getInt(WBB_THRESHOLD) or 0 if the threshold is not
+	 *         specified
+	 */
+	public int getWBBThreshold() {
+		if (this.getSpec() != null) {
+			if (this.getSpec().has(VerifierFields.BallotGenerationVerifierSpec.WBB_THRESHOLD)) {
+				try {
+					return this.getSpec().getInt(VerifierFields.BallotGenerationVerifierSpec.WBB_THRESHOLD);
+				} catch (JSONException e) {
+
+					logger.error("There was a problem when getting the WBB_THRESHOLD from the spec object");
+				}
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Getter for the maximum number of audited ballots verified at once. The
+	 * ballots are verified within the thread budget of the verification task
+	 * graph, which also bounds this number. A value of 0 verifies as many at
+	 * once as the thread budget allows
+	 * 
+	 * @return spec.getInt(AUDIT_PARALLELISM) or 0 if the parallelism is not
+	 *         specified
+	 */
+	public int getAuditParallelism() {
+		if (this.getSpec() != null) {
+			if (this.getSpec().has(VerifierFields.BallotGenerationVerifierSpec.AUDIT_PARALLELISM)) {
+				try {
+					return this.getSpec().getInt(VerifierFields.BallotGenerationVerifierSpec.AUDIT_PARALLELISM);
+				} catch (JSONException e) {
+
+					logger.error("There was a problem when getting the AUDIT_PARALLELISM from the spec object");
+				}
+			}
+		}
+		return 0;
+	}
+
 	@Override
 	public final String getSchemaLocation() {
 		return JSONSchemaStore.getSchema(JSONSchema.BALLOT_GEN_SCHEMA);
@@ -0,0 +1,291 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifier.component.votePacking;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.bouncycastle.math.ec.ECPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vvote.ec.ElGamalECPoint;
+import com.vvote.verifierlibrary.utils.crypto.CurveContext;
+import com.vvote.verifierlibrary.utils.crypto.ECUtils;
+import com.vvote.verifierlibrary.utils.crypto.ElGamalFixedBaseEncrypter;
+
+/**
+ * Verifies ballot reductions in batches rather than re-encrypting the base
+ * candidate id for every reduction individually.
+ * 
+ * Each reduction j claims that the removed cipher C_j is the base encrypted
+ * candidate id B_c(j) re-encrypted with randomness r_j. For random short
+ * coefficients a_j the batch check is:
+ * 
+ * sum(a_j * C_j) = sum_c((sum of a_j with c(j) = c) * B_c) + (sum(a_j * r_j)) *
+ * (G, Y)
+ * 
+ * evaluated separately for the gr and myr components. The left hand side is a
+ * multi-scalar multiplication with short scalars, the right hand side needs
+ * one multiplication per distinct candidate id and a single fixed-base
+ * re-encryption. If any reduction is invalid the check fails except with
+ * probability about 2^-64. When a batch fails it is bisected by ballot until
+ * the failing ballots are found.
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class BallotReductionBatchVerifier {
+
+	/**
+	 * provides loggging for the class
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(BallotReductionBatchVerifier.class);
+
+	/**
+	 * The length in bits of the random coefficients
+	 */
+	private static final int COEFFICIENT_BITS = 64;
+
+	/**
+	 * The number of pending reductions after which the batch should be
+	 * verified, bounding the memory held
+	 */
+	private static final int MAX_PENDING_REDUCTIONS = 16384;
+
+	/**
+	 * Holds a single reduction waiting to be verified
+	 */
+	private static final class PendingReduction {
+
+		/**
+		 * The cipher removed from the committed ballot
+		 */
+		private final ElGamalECPoint cipher;
+
+		/**
+		 * The index of the base encrypted candidate id
+		 */
+		private final int candidateIndex;
+
+		/**
+		 * The randomness used to re-encrypt the base candidate id
+		 */
+		private final BigInteger randomness;
+
+		/**
+		 * Constructor for a pending reduction
+		 * 
+		 * @param cipher
+		 * @param candidateIndex
+		 * @param randomness
+		 */
+		private PendingReduction(ElGamalECPoint cipher, int candidateIndex, BigInteger randomness) {
+			this.cipher = cipher;
+			this.candidateIndex = candidateIndex;
+			this.randomness = randomness;
+		}
+	}
+
+	/**
+	 * The curve the ciphers lie on
+	 */
+	private final CurveContext curveContext;
+
+	/**
+	 * The base encrypted candidate ids
+	 */
+	private final List<ElGamalECPoint> baseEncryptedIds;
+
+	/**
+	 * Encrypter for the election public key
+	 */
+	private final ElGamalFixedBaseEncrypter encrypter;
+
+	/**
+	 * Source of the random coefficients
+	 */
+	private final SecureRandom random;
+
+	/**
+	 * The pending reductions grouped by ballot serial number
+	 */
+	private final Map<String, List<PendingReduction>> pending;
+
+	/**
+	 * The number of pending reductions
+	 */
+	private int pendingReductions = 0;
+
+	/**
+	 * Constructor for a batch verifier
+	 * 
+	 * @param curveContext
+	 * @param baseEncryptedIds
+	 * @param publicKey
+	 */
+	public BallotReductionBatchVerifier(CurveContext curveContext, List<ElGamalECPoint> baseEncryptedIds, ECPoint publicKey) {
+		this.curveContext = curveContext;
+		this.baseEncryptedIds = baseEncryptedIds;
+		this.encrypter = curveContext.getEncrypter(publicKey);
+		this.random = new SecureRandom();
+		this.pending = new LinkedHashMap<String, List<PendingReduction>>();
+	}
+
+	/**
+	 * Adds a reduction to be verified
+	 * 
+	 * @param serialNo
+	 * @param cipher
+	 * @param candidateIndex
+	 * @param randomness
+	 */
+	public void addReduction(String serialNo, ElGamalECPoint cipher, int candidateIndex, BigInteger randomness) {
+		List<PendingReduction> reductions = this.pending.get(serialNo);
+
+		if (reductions == null) {
+			reductions = new ArrayList<PendingReduction>();
+			this.pending.put(serialNo, reductions);
+		}
+
+		reductions.add(new PendingReduction(cipher, candidateIndex, randomness));
+		this.pendingReductions++;
+	}
+
+	/**
+	 * Checks whether enough reductions are pending that they should be
+	 * verified
+	 * 
+	 * @return true if the pending reductions should be verified
+	 */
+	public boolean isFull() {
+		return this.pendingReductions >= MAX_PENDING_REDUCTIONS;
+	}
+
+	/**
+	 * Verifies all of the pending reductions and clears them
+	 * 
+	 * @return the serial numbers of the ballots which have an invalid
+	 *         reduction
+	 */
+	public Set<String> verify() {
+		Set<String> invalidBallots = new TreeSet<String>();
+
+		if (!this.pending.isEmpty()) {
+			logger.debug("Batch verifying {} reductions from {} ballots", this.pendingReductions, this.pending.size());
+
+			this.verifyBallots(new ArrayList<String>(this.pending.keySet()), invalidBallots);
+
+			this.pending.clear();
+			this.pendingReductions = 0;
+		}
+
+		return invalidBallots;
+	}
+
+	/**
+	 * Verifies the reductions for the ballots provided, bisecting on failure
+	 * 
+	 * @param serialNumbers
+	 * @param invalidBallots
+	 */
+	private void verifyBallots(List<String> serialNumbers, Set<String> invalidBallots) {
+		List<PendingReduction> reductions = new ArrayList<PendingReduction>();
+
+		for (String serialNo : serialNumbers) {
+			reductions.addAll(this.pending.get(serialNo));
+		}
+
+		if (this.batchCheck(reductions)) {
+			return;
+		}
+
+		if (serialNumbers.size() == 1) {
+			logger.debug("Found ballot with an invalid reduction: {}", serialNumbers.get(0));
+			invalidBallots.add(serialNumbers.get(0));
+			return;
+		}
+
+		int middle = serialNumbers.size() / 2;
+
+		this.verifyBallots(serialNumbers.subList(0, middle), invalidBallots);
+		this.verifyBallots(serialNumbers.subList(middle, serialNumbers.size()), invalidBallots);
+	}
+
+	/**
+	 * Performs the random linear combination check over a set of reductions
+	 * 
+	 * @param reductions
+	 * @return true if the reductions are all valid (with overwhelming
+	 *         probability)
+	 */
+	private boolean batchCheck(List<PendingReduction> reductions) {
+		final BigInteger order = this.curveContext.getOrder();
+
+		List<ECPoint> grPoints = new ArrayList<ECPoint>(reductions.size());
+		List<ECPoint> myrPoints = new ArrayList<ECPoint>(reductions.size());
+		List<BigInteger> coefficients = new ArrayList<BigInteger>(reductions.size());
+
+		Map<Integer, BigInteger> candidateCoefficients = new LinkedHashMap<Integer, BigInteger>();
+
+		BigInteger combinedRandomness = BigInteger.ZERO;
+
+		BigInteger coefficient = null;
+		BigInteger candidateCoefficient = null;
+
+		for (PendingReduction reduction : reductions) {
+			coefficient = new BigInteger(COEFFICIENT_BITS, this.random).add(BigInteger.ONE);
+
+			grPoints.add(reduction.cipher.getGr());
+			myrPoints.add(reduction.cipher.getMyr());
+			coefficients.add(coefficient);
+
+			candidateCoefficient = candidateCoefficients.get(reduction.candidateIndex);
+			candidateCoefficients.put(reduction.candidateIndex, candidateCoefficient == null ? coefficient : candidateCoefficient.add(coefficient));
+
+			combinedRandomness = combinedRandomness.add(coefficient.multiply(reduction.randomness));
+		}
+
+		// sum(a_j * C_j)
+		ECPoint committedGr = ECUtils.sumOfMultiplies(this.curveContext, grPoints, coefficients);
+		ECPoint committedMyr = ECUtils.sumOfMultiplies(this.curveContext, myrPoints, coefficients);
+
+		// sum_c(a_c * B_c)
+		List<ECPoint> baseGr = new ArrayList<ECPoint>(candidateCoefficients.size());
+		List<ECPoint> baseMyr = new ArrayList<ECPoint>(candidateCoefficients.size());
+		List<BigInteger> baseCoefficients = new ArrayList<BigInteger>(candidateCoefficients.size());
+
+		for (Map.Entry<Integer, BigInteger> entry : candidateCoefficients.entrySet()) {
+			ElGamalECPoint base = this.baseEncryptedIds.get(entry.getKey());
+			baseGr.add(base.getGr());
+			baseMyr.add(base.getMyr());
+			baseCoefficients.add(entry.getValue().mod(order));
+		}
+
+		ElGamalECPoint expected = this.encrypter.reencrypt(new ElGamalECPoint(ECUtils.sumOfMultiplies(this.curveContext, baseMyr, baseCoefficients), ECUtils.sumOfMultiplies(this.curveContext, baseGr, baseCoefficients)),
+				combinedRandomness.mod(order));
+
+		return expected.equals(new ElGamalECPoint(committedMyr, committedGr));
+	}
+}
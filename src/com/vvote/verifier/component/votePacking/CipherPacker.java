@@ -0,0 +1,182 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifier.component.votePacking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.bouncycastle.math.ec.ECPoint;
+
+import com.vvote.ec.ElGamalECPoint;
+
+/**
+ * Packs reordered ciphers together without any scalar multiplications and
+ * without modifying the ciphers being packed.
+ * 
+ * A packing block C_1, ..., C_m (in preference order) is packed as sum(k *
+ * C_k). Writing S_j = C_j + ... + C_m for the suffix sums, sum(k * C_k) is
+ * equal to S_1 + ... + S_m, so the whole block can be computed from the end
+ * with two point additions per cipher rather than one scalar multiplication
+ * per cipher.
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class CipherPacker {
+
+	/**
+	 * Private constructor - static methods only
+	 */
+	private CipherPacker() {
+	}
+
+	/**
+	 * Packs the ciphers in preference order using the provided packing size
+	 * 
+	 * @param ciphers
+	 *            the ciphers in preference order
+	 * @param packingSize
+	 *            the number of ciphers in each packing
+	 * @return an unmodifiable list of packed ciphers
+	 */
+	public static List<ElGamalECPoint> pack(List<ElGamalECPoint> ciphers, int packingSize) {
+
+		if (packingSize < 1) {
+			throw new IllegalArgumentException("The packing size must be positive: " + packingSize);
+		}
+
+		List<ElGamalECPoint> packings = new ArrayList<ElGamalECPoint>((ciphers.size() + packingSize - 1) / packingSize);
+
+		for (int start = 0; start < ciphers.size(); start += packingSize) {
+			packings.add(packBlock(ciphers, start, Math.min(start + packingSize, ciphers.size())));
+		}
+
+		return Collections.unmodifiableList(packings);
+	}
+
+	/**
+	 * Pads a list of packed ciphers up to the required number of columns
+	 * 
+	 * @param packings
+	 *            the packed ciphers, which are not modified
+	 * @param columns
+	 *            the required number of columns
+	 * @param padding
+	 *            the encrypted padding point
+	 * @return an unmodifiable list with the padding appended, or the provided
+	 *         list if no padding is needed
+	 */
+	public static List<ElGamalECPoint> pad(List<ElGamalECPoint> packings, int columns, ElGamalECPoint padding) {
+
+		if (packings.size() >= columns) {
+			return packings;
+		}
+
+		List<ElGamalECPoint> padded = new ArrayList<ElGamalECPoint>(columns);
+		padded.addAll(packings);
+
+		while (padded.size() < columns) {
+			padded.add(padding);
+		}
+
+		return Collections.unmodifiableList(padded);
+	}
+
+	/**
+	 * Packs a single block using running suffix sums
+	 * 
+	 * @param ciphers
+	 * @param start
+	 *            the first cipher in the block (weight 1)
+	 * @param end
+	 *            one past the last cipher in the block
+	 * @return the packed cipher for the block
+	 */
+	private static ElGamalECPoint packBlock(List<ElGamalECPoint> ciphers, int start, int end) {
+
+		ElGamalECPoint last = ciphers.get(end - 1);
+
+		// the running suffix sum S_j and the running total of suffix sums
+		ECPointPair suffix = new ECPointPair(last);
+		ECPointPair total = new ECPointPair(last);
+
+		for (int j = end - 2; j >= start; j--) {
+			suffix.add(ciphers.get(j));
+			total.add(suffix);
+		}
+
+		return total.toCipher();
+	}
+
+	/**
+	 * Working accumulator for the two components of a cipher so that no
+	 * intermediate ElGamalECPoint objects need to be created or modified
+	 */
+	private static final class ECPointPair {
+
+		/**
+		 * The accumulated m * y^r component
+		 */
+		private ECPoint myr;
+
+		/**
+		 * The accumulated g^r component
+		 */
+		private ECPoint gr;
+
+		/**
+		 * Constructor for an ECPointPair starting at the provided cipher
+		 * 
+		 * @param cipher
+		 */
+		private ECPointPair(ElGamalECPoint cipher) {
+			this.myr = cipher.getMyr();
+			this.gr = cipher.getGr();
+		}
+
+		/**
+		 * Adds a cipher to the accumulator
+		 * 
+		 * @param cipher
+		 */
+		private void add(ElGamalECPoint cipher) {
+			this.myr = this.myr.add(cipher.getMyr());
+			this.gr = this.gr.add(cipher.getGr());
+		}
+
+		/**
+		 * Adds another accumulator to this accumulator
+		 * 
+		 * @param other
+		 */
+		private void add(ECPointPair other) {
+			this.myr = this.myr.add(other.myr);
+			this.gr = this.gr.add(other.gr);
+		}
+
+		/**
+		 * Creates a new cipher from the accumulated values
+		 * 
+		 * @return a new ElGamalECPoint
+		 */
+		private ElGamalECPoint toCipher() {
+			return new ElGamalECPoint(this.myr, this.gr);
+		}
+	}
+}
@@ -0,0 +1,300 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifier.component.votePacking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bouncycastle.math.ec.ECPoint;
+
+import com.vvote.ec.ElGamalECPoint;
+import com.vvote.verifierlibrary.utils.crypto.ECUtils;
+
+/**
+ * Multiset index over rows of points (either packed ciphers or packed
+ * plaintexts) used to match vote packing results against the Mixnet input and
+ * output. Each row is keyed by the concatenation of the canonical compressed
+ * encodings of its points so that matching a row is a single hash lookup
+ * rather than a comparison against every other row. Each indexed row can be
+ * matched exactly once which means duplicated and missing rows are both
+ * detected.
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class PackedRowIndex {
+
+	/**
+	 * The result of trying to match a row against the index
+	 */
+	public enum MatchResult {
+		/**
+		 * The row was found and had not already been matched
+		 */
+		MATCHED,
+		/**
+		 * The row was found but every indexed copy has already been matched
+		 */
+		DUPLICATE,
+		/**
+		 * The row does not exist in the index
+		 */
+		UNMATCHED
+	}
+
+	/**
+	 * Canonical key for a single row
+	 */
+	public static final class RowKey {
+
+		/**
+		 * The concatenated compressed encodings of the points in the row
+		 */
+		private final byte[] encoding;
+
+		/**
+		 * Cached hash of the encoding
+		 */
+		private final int hash;
+
+		/**
+		 * Constructor for a RowKey
+		 * 
+		 * @param encoding
+		 */
+		private RowKey(byte[] encoding) {
+			this.encoding = encoding;
+			this.hash = Arrays.hashCode(encoding);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof RowKey)) {
+				return false;
+			}
+			RowKey other = (RowKey) obj;
+			return this.hash == other.hash && Arrays.equals(this.encoding, other.encoding);
+		}
+	}
+
+	/**
+	 * Holds the indexed rows sharing a single key
+	 */
+	private static final class Entry {
+
+		/**
+		 * The positions of the rows with this key in the indexed list
+		 */
+		private final List<Integer> rows = new ArrayList<Integer>(1);
+
+		/**
+		 * The number of rows which have been matched so far
+		 */
+		private int matched = 0;
+	}
+
+	/**
+	 * The indexed rows
+	 */
+	private final Map<RowKey, Entry> entries;
+
+	/**
+	 * The number of rows indexed
+	 */
+	private final int size;
+
+	/**
+	 * Constructor for a PackedRowIndex
+	 * 
+	 * @param keys
+	 *            the keys of the rows to index, in row order
+	 */
+	public PackedRowIndex(List<RowKey> keys) {
+		this.entries = new HashMap<RowKey, Entry>(keys.size() * 2);
+		this.size = keys.size();
+
+		Entry entry = null;
+
+		for (int i = 0; i < keys.size(); i++) {
+			entry = this.entries.get(keys.get(i));
+			if (entry == null) {
+				entry = new Entry();
+				this.entries.put(keys.get(i), entry);
+			}
+			entry.rows.add(i);
+		}
+	}
+
+	/**
+	 * Matches a single row against the index, consuming one indexed copy of it
+	 * 
+	 * @param key
+	 * @return the result of the match
+	 */
+	public MatchResult match(RowKey key) {
+		Entry entry = this.entries.get(key);
+
+		if (entry == null) {
+			return MatchResult.UNMATCHED;
+		}
+
+		if (entry.matched >= entry.rows.size()) {
+			entry.matched++;
+			return MatchResult.DUPLICATE;
+		}
+
+		entry.matched++;
+		return MatchResult.MATCHED;
+	}
+
+	/**
+	 * Gets the positions of the indexed rows which have not been matched
+	 * 
+	 * @return the positions of the unmatched rows in ascending order
+	 */
+	public List<Integer> getUnmatchedRows() {
+		List<Integer> unmatched = new ArrayList<Integer>();
+
+		for (Entry entry : this.entries.values()) {
+			for (int i = entry.matched; i < entry.rows.size(); i++) {
+				unmatched.add(entry.rows.get(i));
+			}
+		}
+
+		Collections.sort(unmatched);
+
+		return unmatched;
+	}
+
+	/**
+	 * Getter for the number of rows indexed
+	 * 
+	 * @return the number of rows indexed
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Builds the keys for a list of plaintext rows. All points are normalised
+	 * together so only a single field inversion is needed.
+	 * 
+	 * @param rows
+	 * @return the key for each row
+	 */
+	public static List<RowKey> keyPointRows(List<List<ECPoint>> rows) {
+		int total = 0;
+		for (List<ECPoint> row : rows) {
+			total += row.size();
+		}
+
+		ECPoint[] points = new ECPoint[total];
+		int[] lengths = new int[rows.size()];
+
+		int index = 0;
+		for (int i = 0; i < rows.size(); i++) {
+			for (ECPoint point : rows.get(i)) {
+				points[index++] = point;
+			}
+			lengths[i] = rows.get(i).size();
+		}
+
+		return buildKeys(points, lengths);
+	}
+
+	/**
+	 * Builds the keys for a list of cipher rows. The gr and myr components of
+	 * every cipher are normalised together so only a single field inversion is
+	 * needed.
+	 * 
+	 * @param rows
+	 * @return the key for each row
+	 */
+	public static List<RowKey> keyCipherRows(List<List<ElGamalECPoint>> rows) {
+		int total = 0;
+		for (List<ElGamalECPoint> row : rows) {
+			total += 2 * row.size();
+		}
+
+		ECPoint[] points = new ECPoint[total];
+		int[] lengths = new int[rows.size()];
+
+		int index = 0;
+		for (int i = 0; i < rows.size(); i++) {
+			for (ElGamalECPoint cipher : rows.get(i)) {
+				points[index++] = cipher.getGr();
+				points[index++] = cipher.getMyr();
+			}
+			lengths[i] = 2 * rows.get(i).size();
+		}
+
+		return buildKeys(points, lengths);
+	}
+
+	/**
+	 * Normalises the points and concatenates their compressed encodings row by
+	 * row. The encodings are prefix free (the leading byte determines the
+	 * length) so the concatenation identifies the row uniquely.
+	 * 
+	 * @param points
+	 * @param lengths
+	 * @return the key for each row
+	 */
+	private static List<RowKey> buildKeys(ECPoint[] points, int[] lengths) {
+		ECUtils.normalizeAll(points);
+
+		List<RowKey> keys = new ArrayList<RowKey>(lengths.length);
+
+		byte[] encoding = null;
+		int index = 0;
+
+		for (int i = 0; i < lengths.length; i++) {
+			int rowLength = 0;
+			byte[][] rowEncodings = new byte[lengths[i]][];
+
+			for (int j = 0; j < lengths[i]; j++) {
+				rowEncodings[j] = points[index++].getEncoded(true);
+				rowLength += rowEncodings[j].length;
+			}
+
+			encoding = new byte[rowLength];
+
+			int offset = 0;
+			for (byte[] pointEncoding : rowEncodings) {
+				System.arraycopy(pointEncoding, 0, encoding, offset, pointEncoding.length);
+				offset += pointEncoding.length;
+			}
+
+			keys.add(new RowKey(encoding));
+		}
+
+		return keys;
+	}
+}
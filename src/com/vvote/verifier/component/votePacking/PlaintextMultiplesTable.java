@@ -0,0 +1,132 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifier.component.votePacking;
+
+import java.util.List;
+
+import org.bouncycastle.math.ec.ECPoint;
+
+import com.vvote.verifierlibrary.utils.crypto.ECUtils;
+
+/**
+ * Holds k * P_id for each plaintext candidate id P_id of a single race in a
+ * district and each packing preference number k from 1 to the packing size.
+ * The table is built with point additions only and normalised once so that
+ * packing a Mixnet output row needs only point additions.
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class PlaintextMultiplesTable {
+
+	/**
+	 * The plaintext candidate ids
+	 */
+	private final List<ECPoint> plaintextIds;
+
+	/**
+	 * The packing size
+	 */
+	private final int packingSize;
+
+	/**
+	 * multiples[k - 1][i] holds k * P_i
+	 */
+	private final ECPoint[][] multiples;
+
+	/**
+	 * Constructor for a PlaintextMultiplesTable
+	 * 
+	 * @param plaintextIds
+	 *            the plaintext candidate ids for the race
+	 * @param packingSize
+	 *            the packing size for the race
+	 */
+	public PlaintextMultiplesTable(List<ECPoint> plaintextIds, int packingSize) {
+
+		if (packingSize < 1) {
+			throw new IllegalArgumentException("The packing size must be positive: " + packingSize);
+		}
+
+		this.plaintextIds = plaintextIds;
+		this.packingSize = packingSize;
+
+		int size = plaintextIds.size();
+
+		ECPoint[] all = new ECPoint[packingSize * size];
+
+		for (int i = 0; i < size; i++) {
+			all[i] = plaintextIds.get(i);
+		}
+
+		for (int k = 1; k < packingSize; k++) {
+			for (int i = 0; i < size; i++) {
+				all[k * size + i] = all[(k - 1) * size + i].add(all[i]);
+			}
+		}
+
+		ECUtils.normalizeAll(all);
+
+		this.multiples = new ECPoint[packingSize][size];
+
+		for (int k = 0; k < packingSize; k++) {
+			System.arraycopy(all, k * size, this.multiples[k], 0, size);
+		}
+	}
+
+	/**
+	 * Gets k * P_index
+	 * 
+	 * @param k
+	 *            the packing preference number from 1 to the packing size
+	 * @param index
+	 *            the index of the candidate id
+	 * @return k * P_index
+	 */
+	public ECPoint getMultiple(int k, int index) {
+		return this.multiples[k - 1][index];
+	}
+
+	/**
+	 * Gets the plaintext candidate id at the provided index
+	 * 
+	 * @param index
+	 * @return the plaintext candidate id
+	 */
+	public ECPoint getPlaintextId(int index) {
+		return this.plaintextIds.get(index);
+	}
+
+	/**
+	 * Getter for the packing size
+	 * 
+	 * @return the packing size
+	 */
+	public int getPackingSize() {
+		return this.packingSize;
+	}
+
+	/**
+	 * Getter for the number of plaintext candidate ids
+	 * 
+	 * @return the number of plaintext candidate ids
+	 */
+	public int size() {
+		return this.plaintextIds.size();
+	}
+}
@@ -0,0 +1,165 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifier.component.votePacking;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bouncycastle.math.ec.ECPoint;
+
+/**
+ * Packs rows of plaintext candidate ids for a single race using a
+ * PlaintextMultiplesTable. Packed values are memoised by preference prefix so
+ * that rows sharing a prefix with an earlier row (repeated ATL votes or
+ * popular LA preference orders) only need point additions for the part of
+ * the row which has not been seen before, and identical rows need none.
+ * 
+ * A new PlaintextPacker should be used for each race so that the memo does
+ * not outlive the race.
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class PlaintextPacker {
+
+	/**
+	 * A node in the prefix tree - one per distinct preference prefix
+	 */
+	private static final class PrefixNode {
+
+		/**
+		 * The packing preference number of the last preference in the prefix,
+		 * from 1 to the packing size
+		 */
+		private final int packingPreference;
+
+		/**
+		 * The packing of the current block up to and including the last
+		 * preference in the prefix
+		 */
+		private final ECPoint packing;
+
+		/**
+		 * The prefixes extending this prefix by one preference, keyed by
+		 * candidate index
+		 */
+		private Map<Integer, PrefixNode> children = null;
+
+		/**
+		 * Constructor for a PrefixNode
+		 * 
+		 * @param packingPreference
+		 * @param packing
+		 */
+		private PrefixNode(int packingPreference, ECPoint packing) {
+			this.packingPreference = packingPreference;
+			this.packing = packing;
+		}
+	}
+
+	/**
+	 * The table of multiples of the plaintext candidate ids
+	 */
+	private final PlaintextMultiplesTable table;
+
+	/**
+	 * The root of the prefix tree representing the empty prefix
+	 */
+	private final PrefixNode root;
+
+	/**
+	 * Constructor for a PlaintextPacker
+	 * 
+	 * @param table
+	 */
+	public PlaintextPacker(PlaintextMultiplesTable table) {
+		this.table = table;
+		this.root = new PrefixNode(table.getPackingSize(), null);
+	}
+
+	/**
+	 * Packs the plaintext candidate ids in preference order. Each id is
+	 * weighted by its packing preference number (NOT the actual preference
+	 * number) which ranges from 1 to the packing size
+	 * 
+	 * @param candidateIndexes
+	 *            the indexes of the plaintext candidate ids in preference order
+	 * @return a new list of packed plaintext ids
+	 */
+	public List<ECPoint> pack(List<Integer> candidateIndexes) {
+
+		int[] indexes = new int[candidateIndexes.size()];
+
+		for (int i = 0; i < indexes.length; i++) {
+			indexes[i] = candidateIndexes.get(i);
+		}
+
+		return this.pack(indexes);
+	}
+
+	/**
+	 * Packs the plaintext candidate ids in preference order. Each id is
+	 * weighted by its packing preference number (NOT the actual preference
+	 * number) which ranges from 1 to the packing size
+	 * 
+	 * @param candidateIndexes
+	 *            the indexes of the plaintext candidate ids in preference order
+	 * @return a new list of packed plaintext ids
+	 */
+	public List<ECPoint> pack(int[] candidateIndexes) {
+
+		List<ECPoint> packedList = new ArrayList<ECPoint>();
+
+		PrefixNode current = this.root;
+		PrefixNode next = null;
+
+		for (int candidateIndex : candidateIndexes) {
+
+			if (current.children == null) {
+				current.children = new HashMap<Integer, PrefixNode>();
+			}
+
+			next = current.children.get(candidateIndex);
+
+			if (next == null) {
+				// either start a new block or add to the current block
+				if (current.packingPreference == this.table.getPackingSize()) {
+					next = new PrefixNode(1, this.table.getMultiple(1, candidateIndex));
+				} else {
+					next = new PrefixNode(current.packingPreference + 1, current.packing.add(this.table.getMultiple(current.packingPreference + 1, candidateIndex)));
+				}
+
+				current.children.put(candidateIndex, next);
+			}
+
+			current = next;
+
+			if (current.packingPreference == this.table.getPackingSize()) {
+				packedList.add(current.packing);
+			}
+		}
+
+		if (current != this.root && current.packingPreference != this.table.getPackingSize()) {
+			packedList.add(current.packing);
+		}
+
+		return packedList;
+	}
+}
@@ -23,7 +23,6 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
-import org.bouncycastle.math.ec.ECPoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,7 +34,7 @@ import com.vvote.messages.typed.vote.RaceType;
 import com.vvote.messages.typed.vote.Reduction;
 import com.vvote.verifier.exceptions.VotePackingException;
 import com.vvote.verifierlibrary.utils.Utils;
-import com.vvote.verifierlibrary.utils.crypto.ECUtils;
+import com.vvote.verifierlibrary.utils.crypto.ElGamalFixedBaseEncrypter;
 
 /**
  * Holds a reduced ballot which is initialised from a committed ballot
@@ -77,13 +76,38 @@ public class ReducedBallot {
 	 * @param committedBallot
 	 * @param podMessage
 	 * @param baseEncryptedIds
-	 * @param publicKey
+	 * @param encrypter
+	 *            encrypter for the election public key
 	 * @param genericBallotSizes
 	 * @param districtConfig
 	 * @throws VotePackingException
 	 */
-	public ReducedBallot(CommittedBallot committedBallot, PODMessage podMessage, List<ElGamalECPoint> baseEncryptedIds, ECPoint publicKey, Map<RaceType, Integer> genericBallotSizes,
+	public ReducedBallot(CommittedBallot committedBallot, PODMessage podMessage, List<ElGamalECPoint> baseEncryptedIds, ElGamalFixedBaseEncrypter encrypter, Map<RaceType, Integer> genericBallotSizes,
 			DistrictConfig districtConfig) throws VotePackingException {
+		this(committedBallot, podMessage, baseEncryptedIds, encrypter, genericBallotSizes, districtConfig, null);
+	}
+
+	/**
+	 * Constructor for a <code>ReducedBallot</code> which defers verifying the
+	 * re-encryption of each reduction to a batch verifier. The structure of the
+	 * reductions is still checked immediately. If the batch verifier finds an
+	 * invalid reduction the ballot is marked as invalid using
+	 * {@link #invalidate()}
+	 * 
+	 * @param committedBallot
+	 * @param podMessage
+	 * @param baseEncryptedIds
+	 * @param encrypter
+	 *            encrypter for the election public key
+	 * @param genericBallotSizes
+	 * @param districtConfig
+	 * @param batchVerifier
+	 *            the batch verifier or null to verify each reduction
+	 *            individually
+	 * @throws VotePackingException
+	 */
+	public ReducedBallot(CommittedBallot committedBallot, PODMessage podMessage, List<ElGamalECPoint> baseEncryptedIds, ElGamalFixedBaseEncrypter encrypter, Map<RaceType, Integer> genericBallotSizes,
+			DistrictConfig districtConfig, BallotReductionBatchVerifier batchVerifier) throws VotePackingException {
 
 		if (committedBallot != null) {
 
@@ -97,20 +121,20 @@ public class ReducedBallot {
 
 				if (podMessage.getBallotReductions().hasReductions()) {
 					for (Reduction reduction : podMessage.getBallotReductions().getLaRaceReduction().getReductions()) {
-						if (!this.reduceBallot(RaceType.LA, reduction.getIndex(), reduction.getCandidateIndex(), reduction.getRandomness(), baseEncryptedIds, publicKey, genericBallotSizes,
-								districtConfig, committedBallot.getCiphers())) {
+						if (!this.reduceBallot(RaceType.LA, reduction.getIndex(), reduction.getCandidateIndex(), reduction.getRandomness(), baseEncryptedIds, encrypter, genericBallotSizes,
+								districtConfig, committedBallot.getCiphers(), batchVerifier)) {
 							this.isValid = false;
 						}
 					}
 					for (Reduction reduction : podMessage.getBallotReductions().getLcATLRaceReduction().getReductions()) {
-						if (!this.reduceBallot(RaceType.LC_ATL, reduction.getIndex(), reduction.getCandidateIndex(), reduction.getRandomness(), baseEncryptedIds, publicKey, genericBallotSizes,
-								districtConfig, committedBallot.getCiphers())) {
+						if (!this.reduceBallot(RaceType.LC_ATL, reduction.getIndex(), reduction.getCandidateIndex(), reduction.getRandomness(), baseEncryptedIds, encrypter, genericBallotSizes,
+								districtConfig, committedBallot.getCiphers(), batchVerifier)) {
 							this.isValid = false;
 						}
 					}
 					for (Reduction reduction : podMessage.getBallotReductions().getLcBTLRaceReduction().getReductions()) {
-						if (!this.reduceBallot(RaceType.LC_BTL, reduction.getIndex(), reduction.getCandidateIndex(), reduction.getRandomness(), baseEncryptedIds, publicKey, genericBallotSizes,
-								districtConfig, committedBallot.getCiphers())) {
+						if (!this.reduceBallot(RaceType.LC_BTL, reduction.getIndex(), reduction.getCandidateIndex(), reduction.getRandomness(), baseEncryptedIds, encrypter, genericBallotSizes,
+								districtConfig, committedBallot.getCiphers(), batchVerifier)) {
 							this.isValid = false;
 						}
 					}
@@ -158,14 +182,16 @@ public class ReducedBallot {
 	 * @param candidateIndex
 	 * @param randomness
 	 * @param baseEncryptedIds
-	 * @param publicKey
+	 * @param encrypter
+	 *            encrypter for the election public key
 	 * @param genericBallotSizes
 	 * @param districtConfig
 	 * @param ciphers
+	 * @param batchVerifier
 	 * @return true if the reduction was carried out successfully
 	 */
-	private boolean reduceBallot(RaceType raceType, int index, int candidateIndex, String randomness, List<ElGamalECPoint> baseEncryptedIds, ECPoint publicKey,
-			Map<RaceType, Integer> genericBallotSizes, DistrictConfig districtConfig, List<ElGamalECPoint> ciphers) {
+	private boolean reduceBallot(RaceType raceType, int index, int candidateIndex, String randomness, List<ElGamalECPoint> baseEncryptedIds, ElGamalFixedBaseEncrypter encrypter,
+			Map<RaceType, Integer> genericBallotSizes, DistrictConfig districtConfig, List<ElGamalECPoint> ciphers, BallotReductionBatchVerifier batchVerifier) {
 
 		// get the race index
 		int indexWithOffset = 0;
@@ -202,9 +228,16 @@ public class ReducedBallot {
 
 		this.reducedCiphers.remove(toRemove);
 
+		BigInteger randomnessValue = new BigInteger(1, Utils.decodeBase64Data(randomness));
+
+		if (batchVerifier != null) {
+			batchVerifier.addReduction(this.serialNo, toRemove, candidateIndexWithOffset, randomnessValue);
+			return true;
+		}
+
 		ElGamalECPoint baseEncryptedCandidateId = baseEncryptedIds.get(candidateIndexWithOffset);
 
-		ElGamalECPoint reencryptedCandidateId = ECUtils.reencrypt(baseEncryptedCandidateId, publicKey, new BigInteger(1, Utils.decodeBase64Data(randomness)));
+		ElGamalECPoint reencryptedCandidateId = encrypter.reencrypt(baseEncryptedCandidateId, randomnessValue);
 
 		if (reencryptedCandidateId.equals(toRemove)) {
 			return true;
@@ -233,6 +266,17 @@ public class ReducedBallot {
 		return this.isValid;
 	}
 
+	/**
+	 * Marks the reduced ballot as invalid, used when a deferred verification
+	 * of its reductions fails
+	 */
+	public void invalidate() {
+		if (this.isValid) {
+			logger.error("Ballot reductions are not valid for ballot with serial number: {}", this.serialNo);
+		}
+		this.isValid = false;
+	}
+
 	/**
 	 * Getter for the name of the district
 	 * 
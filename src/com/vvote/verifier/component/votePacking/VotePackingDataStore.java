@@ -19,22 +19,21 @@ package com.vvote.verifier.component.votePacking;
 
 import java.io.File;
 import java.math.BigInteger;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 
-import org.apache.commons.io.FilenameUtils;
 import org.bouncycastle.math.ec.ECPoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.vvote.CryptoConstants;
 import com.vvote.commits.CommitIdentifier;
 import com.vvote.commits.FinalCommitment;
 import com.vvote.commits.exceptions.CommitIdentifierException;
 import com.vvote.datafiles.RaceMapFile;
+import com.vvote.datafiles.commits.votes.VoteTable;
 import com.vvote.datafiles.commits.votes.VotingProcess;
 import com.vvote.datafiles.exceptions.MixDataException;
 import com.vvote.datafiles.exceptions.RaceMapException;
@@ -47,7 +46,6 @@ import com.vvote.messages.typed.vote.CancelMessage;
 import com.vvote.messages.typed.vote.PODMessage;
 import com.vvote.messages.typed.vote.VoteMessage;
 import com.vvote.messages.types.MessageType;
-import com.vvote.thirdparty.json.orgjson.JSONArray;
 import com.vvote.thirdparty.json.orgjson.JSONException;
 import com.vvote.thirdparty.json.orgjson.JSONObject;
 import com.vvote.verifier.component.ComponentDataStore;
@@ -59,11 +57,15 @@ import com.vvote.verifier.exceptions.SpecException;
 import com.vvote.verifierlibrary.exceptions.ASN1Exception;
 import com.vvote.verifierlibrary.exceptions.JSONIOException;
 import com.vvote.verifierlibrary.utils.Utils;
-import com.vvote.verifierlibrary.utils.comparators.BallotSerialNumberComparator;
+import com.vvote.verifierlibrary.utils.crypto.CurveContext;
 import com.vvote.verifierlibrary.utils.crypto.ECUtils;
-import com.vvote.verifierlibrary.utils.io.ASN1ToJSONConverter;
+import com.vvote.verifierlibrary.utils.io.ASN1MixDataDecoder;
 import com.vvote.verifierlibrary.utils.io.FileType;
 import com.vvote.verifierlibrary.utils.io.IOUtils;
+import com.vvote.verifierlibrary.utils.logging.ResultsLogger;
+import com.vvote.verifierlibrary.utils.serial.SerialNumber;
+import com.vvote.verifierlibrary.utils.serial.SerialNumberMap;
+import com.vvote.verifierlibrary.utils.serial.SerialNumberSet;
 
 /**
  * Specific data store object for the vote packing data
@@ -81,7 +83,7 @@ public class VotePackingDataStore extends ComponentDataStore {
 	/**
 	 * Provides logging for the actual results produced in the verifier
 	 */
-	private static final Logger resultsLogger = LoggerFactory.getLogger("results");
+	private static final Logger resultsLogger = ResultsLogger.getLogger(VotePackingDataStore.class);
 
 	/**
 	 * vote packing config
@@ -99,24 +101,25 @@ public class VotePackingDataStore extends ComponentDataStore {
 	private String mixOutputPath;
 
 	/**
-	 * Holds a list of cancelled ballots
+	 * Holds the serial numbers of cancelled ballots
 	 */
-	private Map<CommitIdentifier, Map<String, CancelMessage>> cancelMessages;
+	private final SerialNumberSet cancelledSerialNumbers;
 
 	/**
-	 * Holds a list of vote messages
+	 * Holds the votes taken from the vote messages
 	 */
-	private Map<CommitIdentifier, Map<String, VoteMessage>> voteMessages;
+	private final VoteTable votes;
 
 	/**
-	 * Holds a list of pod messages
+	 * Holds the pod messages. Serial number : pod message
 	 */
-	private Map<CommitIdentifier, Map<String, PODMessage>> podMessages;
+	private final SerialNumberMap<PODMessage> podMessages;
 
 	/**
-	 * Holds a list of related pod and vote messages
+	 * Holds the related pod and vote messages for ballots which were not
+	 * cancelled. Serial number : voting process
 	 */
-	private Map<String, VotingProcess> votingProcesses;
+	private final SerialNumberMap<VotingProcess> votingProcesses;
 
 	/**
 	 * mixnet input data
@@ -163,14 +166,30 @@ public class VotePackingDataStore extends ComponentDataStore {
 	 * @throws DataStoreException
 	 */
 	public VotePackingDataStore(VotePackingVerifierSpec spec, String basePath, boolean useExtraCommits) throws ComponentDataStoreException, DataStoreException {
-		super(spec, basePath, useExtraCommits);
+		super(spec, basePath, useExtraCommits, CryptoConstants.EC.CURVE_NAME);
 
 		logger.debug("Constructing VotePacking Data Store");
 
-		this.voteMessages = new HashMap<CommitIdentifier, Map<String, VoteMessage>>();
-		this.cancelMessages = new HashMap<CommitIdentifier, Map<String, CancelMessage>>();
-		this.podMessages = new HashMap<CommitIdentifier, Map<String, PODMessage>>();
-		this.votingProcesses = new TreeMap<String, VotingProcess>(new BallotSerialNumberComparator());
+		this.votes = new VoteTable();
+		this.cancelledSerialNumbers = new SerialNumberSet();
+		this.podMessages = new SerialNumberMap<PODMessage>();
+		this.votingProcesses = new SerialNumberMap<VotingProcess>();
+	}
+
+	/**
+	 * Checks that the curve named in the vote packing config is the curve the
+	 * election data was read with, possibly under a different name
+	 * 
+	 * @param curveName
+	 * @return true if the curves match
+	 */
+	private boolean isVotePackingCurve(String curveName) {
+		try {
+			return this.getCurveContext().isSameCurve(new CurveContext(curveName));
+		} catch (IllegalArgumentException e) {
+			logger.error("Unknown curve used for vote packing: {}", curveName);
+			return false;
+		}
 	}
 
 	@Override
@@ -185,17 +204,22 @@ public class VotePackingDataStore extends ComponentDataStore {
 
 			if (result) {
 				try {
-					this.mixInputPath = IOUtils.findFile(this.getSpec().getMixInputFolder(), this.getBasePath());
-					this.mixOutputPath = IOUtils.findFile(this.getSpec().getMixOutputFolder(), this.getBasePath());
+					this.mixInputPath = this.findFile(this.getSpec().getMixInputFolder());
+					this.mixOutputPath = this.findFile(this.getSpec().getMixOutputFolder());
 
 					try {
-						this.votePackingConfig = new VotePackingConfig(IOUtils.findFile(getSpec().getVotePackingConfig(), this.getBasePath()));
+						this.votePackingConfig = new VotePackingConfig(this.findFile(getSpec().getVotePackingConfig()));
 					} catch (ConfigException e) {
 						logger.error("Unable to create a read data.", e);
 						return false;
 					}
 
-					String raceMapPath = IOUtils.findFile(this.getSpec().getRaceMap(), this.getBasePath());
+					if (!this.isVotePackingCurve(this.votePackingConfig.getCurve())) {
+						logger.error("The curve used for vote packing: {} does not match the curve the election data was read with: {}", this.votePackingConfig.getCurve(), this.getCurveContext().getCurveName());
+						return false;
+					}
+
+					String raceMapPath = this.findFile(this.getSpec().getRaceMap());
 
 					if (raceMapPath != null) {
 						this.raceMap = new RaceMapFile(raceMapPath);
@@ -250,14 +274,13 @@ public class VotePackingDataStore extends ComponentDataStore {
 	}
 
 	/**
-	 * Load the mixnet output data
+	 * Load the mixnet output data. The asn.1 files are decoded directly into
+	 * <code>ECPoint</code> rows
 	 * 
-	 * @throws JSONException
 	 * @throws MixDataException
 	 * @throws ASN1Exception
-	 * @throws JSONIOException
 	 */
-	private void loadMixOutputData() throws JSONException, MixDataException, ASN1Exception, JSONIOException {
+	private void loadMixOutputData() throws MixDataException, ASN1Exception {
 		this.mixOutput = new HashMap<RaceIdentifier, List<List<ECPoint>>>();
 
 		final File mixOutputDirectory = new File(this.mixOutputPath);
@@ -270,18 +293,8 @@ public class VotePackingDataStore extends ComponentDataStore {
 			throw new MixDataException("The mix output folder must be a directory: " + mixOutputDirectory);
 		}
 
-		String jsonFile = null;
-
 		RaceIdentifier currentIdentifier = null;
 
-		JSONArray mixOutputArray = null;
-
-		JSONArray plaintexts = null;
-
-		List<ECPoint> currentIds = null;
-
-		List<List<ECPoint>> currentFileIds = null;
-
 		// loop over each file in the directory
 		for (File file : mixOutputDirectory.listFiles()) {
 
@@ -289,35 +302,11 @@ public class VotePackingDataStore extends ComponentDataStore {
 
 			if (IOUtils.checkExtension(FileType.MIX_OUTPUT, file.getName())) {
 
-				// get equivalent json filename
-				jsonFile = IOUtils.addExtension(FilenameUtils.removeExtension(file.getPath()), FileType.JSON);
-
-				// convert from asn.1 to json format
-				ASN1ToJSONConverter.asn1ToJSON(file.getPath(), jsonFile, FileType.MIX_OUTPUT);
-
 				// get current identifier
-				currentIdentifier = Utils.getRaceIdentifierFromFileName(jsonFile, this.hasRaceMap);
+				currentIdentifier = Utils.getRaceIdentifierFromFileName(file.getPath(), this.hasRaceMap);
 
-				mixOutputArray = IOUtils.readJSONArrayFromFile(jsonFile);
-
-				currentFileIds = new ArrayList<List<ECPoint>>();
-
-				// loop over each ballot
-				for (int i = 0; i < mixOutputArray.length(); i++) {
-
-					currentIds = new ArrayList<ECPoint>();
-
-					plaintexts = mixOutputArray.getJSONArray(i);
-
-					// loop over each plaintext
-					for (int j = 0; j < plaintexts.length(); j++) {
-						currentIds.add(ECUtils.constructECPointFromJSON(plaintexts.getJSONObject(j)));
-					}
-
-					currentFileIds.add(currentIds);
-				}
-
-				this.mixOutput.put(currentIdentifier, currentFileIds);
+				// decode the asn.1 plaintexts directly
+				this.mixOutput.put(currentIdentifier, ASN1MixDataDecoder.readPlaintexts(this.getCurveContext(), file.getPath()));
 			}
 		}
 
@@ -325,14 +314,13 @@ public class VotePackingDataStore extends ComponentDataStore {
 	}
 
 	/**
-	 * Loads the mix input data
+	 * Loads the mix input data. The asn.1 files are decoded directly into
+	 * <code>ElGamalECPoint</code> rows
 	 * 
 	 * @throws ASN1Exception
 	 * @throws MixDataException
-	 * @throws JSONIOException
-	 * @throws JSONException
 	 */
-	private void loadMixInputData() throws ASN1Exception, MixDataException, JSONIOException, JSONException {
+	private void loadMixInputData() throws ASN1Exception, MixDataException {
 
 		this.mixInput = new HashMap<RaceIdentifier, List<List<ElGamalECPoint>>>();
 
@@ -346,18 +334,8 @@ public class VotePackingDataStore extends ComponentDataStore {
 			throw new MixDataException("The mix input folder must be a directory: " + mixInputDirectory);
 		}
 
-		String jsonFile = null;
-
 		RaceIdentifier currentIdentifier = null;
 
-		JSONArray mixInputArray = null;
-
-		JSONArray ciphers = null;
-
-		List<ElGamalECPoint> currentPackings = null;
-
-		List<List<ElGamalECPoint>> currentFilePackings = null;
-
 		// loop over each file in the directory
 		for (File file : mixInputDirectory.listFiles()) {
 
@@ -365,35 +343,11 @@ public class VotePackingDataStore extends ComponentDataStore {
 
 			if (IOUtils.checkExtension(FileType.MIX_INPUT, file.getName())) {
 
-				// get equivalent json filename
-				jsonFile = IOUtils.addExtension(FilenameUtils.removeExtension(file.getPath()), FileType.JSON);
-
-				// convert from asn.1 to json format
-				ASN1ToJSONConverter.asn1ToJSON(file.getPath(), jsonFile, FileType.MIX_INPUT);
-
 				// get current identifier
-				currentIdentifier = Utils.getRaceIdentifierFromFileName(jsonFile, this.hasRaceMap);
-
-				mixInputArray = IOUtils.readJSONArrayFromFile(jsonFile);
+				currentIdentifier = Utils.getRaceIdentifierFromFileName(file.getPath(), this.hasRaceMap);
 
-				currentFilePackings = new ArrayList<List<ElGamalECPoint>>();
-
-				// loop over each ballot
-				for (int i = 0; i < mixInputArray.length(); i++) {
-
-					currentPackings = new ArrayList<ElGamalECPoint>();
-
-					ciphers = mixInputArray.getJSONArray(i);
-
-					// loop over each cipher
-					for (int j = 0; j < ciphers.length(); j++) {
-						currentPackings.add(ECUtils.constructElGamalECPointFromJSON(ciphers.getJSONObject(j)));
-					}
-
-					currentFilePackings.add(currentPackings);
-				}
-
-				this.mixInput.put(currentIdentifier, currentFilePackings);
+				// decode the asn.1 ciphers directly
+				this.mixInput.put(currentIdentifier, ASN1MixDataDecoder.readCiphers(this.getCurveContext(), file.getPath()));
 			}
 		}
 
@@ -440,13 +394,13 @@ public class VotePackingDataStore extends ComponentDataStore {
 	 * @throws JSONIOException
 	 */
 	private boolean loadPaddingPoints() throws JSONException, JSONIOException {
-		String paddingPointFile = IOUtils.findFile(this.getVotePackingConfig().getPaddingFile(), this.getBasePath());
+		String paddingPointFile = this.findFile(this.getVotePackingConfig().getPaddingFile());
 
 		// read padding point for padding the reordered packed plaintext
 		// candidate ids
-		this.paddingPoint = ECUtils.constructECPointFromJSON(IOUtils.readJSONObjectFromFile(paddingPointFile));
+		this.paddingPoint = ECUtils.constructECPointFromJSON(this.getCurveContext(), IOUtils.readJSONObjectFromFile(paddingPointFile));
 
-		this.encryptedPaddingPoint = ECUtils.encrypt(this.paddingPoint, this.getPublicKey(), BigInteger.ONE);
+		this.encryptedPaddingPoint = ECUtils.encrypt(this.getCurveContext(), this.paddingPoint, this.getPublicKey(), BigInteger.ONE);
 
 		return true;
 	}
@@ -467,29 +421,43 @@ public class VotePackingDataStore extends ComponentDataStore {
 
 	/**
 	 * Helper method used to organise voting messages together grouping them by
-	 * serial numbers
+	 * serial numbers. The pod and vote messages are already indexed by serial
+	 * number so they are joined in a single pass over the pod messages,
+	 * skipping cancelled ballots, followed by a single pass over the vote
+	 * messages to report any vote without a pod message
 	 * 
 	 * @return true if the organisation took place successfully
 	 */
-	private boolean organiseVoteMessages() {
+	boolean organiseVoteMessages() {
 
 		logger.debug("Organising Voting messages together");
 
-		Map<String, PODMessage> podMessageMap = null;
-		Map<String, VoteMessage> voteMessageMap = null;
+		long key = 0;
+
+		PODMessage podMessage = null;
+		int vote = -1;
+
+		int cancelled = 0;
+		int unused = 0;
 
 		try {
-			for (CommitIdentifier podIdentifier : this.podMessages.keySet()) {
-				podMessageMap = this.podMessages.get(podIdentifier);
+			for (int position = 0; position < this.podMessages.size(); position++) {
+				key = this.podMessages.keyAt(position);
+				podMessage = this.podMessages.valueAt(position);
+
+				if (this.cancelledSerialNumbers.contains(key)) {
+					logger.debug("Removing cancelled ballot: {}", podMessage.getSerialNo());
+					cancelled++;
+					continue;
+				}
 
-				for (String serialNumber : podMessageMap.keySet()) {
-					for (CommitIdentifier voteIdentifier : this.voteMessages.keySet()) {
-						voteMessageMap = this.voteMessages.get(voteIdentifier);
+				vote = this.votes.indexOf(key);
 
-						if (voteMessageMap.containsKey(serialNumber)) {
-							this.votingProcesses.put(serialNumber, new VotingProcess(podMessageMap.get(serialNumber), voteMessageMap.get(serialNumber)));
-						}
-					}
+				if (vote >= 0) {
+					this.votingProcesses.put(key, new VotingProcess(podMessage, this.votes, vote));
+				} else {
+					logger.debug("No vote message was found for pod message: {}", podMessage.getSerialNo());
+					unused++;
 				}
 			}
 		} catch (VoteMessageCommitException e) {
@@ -497,25 +465,19 @@ public class VotePackingDataStore extends ComponentDataStore {
 			return false;
 		}
 
-		logger.debug("Removing cancelled ballots");
+		for (vote = 0; vote < this.votes.size(); vote++) {
+			key = this.votes.getSerialNumber(vote);
 
-		Map<String, CancelMessage> cancelMessageMap = null;
-
-		for (CommitIdentifier cancelIdentifier : this.cancelMessages.keySet()) {
-
-			logger.debug("Removing cancelled ballot: {}", cancelIdentifier);
-
-			cancelMessageMap = this.cancelMessages.get(cancelIdentifier);
-
-			for (String serialNumber : cancelMessageMap.keySet()) {
-
-				if (this.votingProcesses.containsKey(serialNumber)) {
-					this.votingProcesses.remove(serialNumber);
-					logger.debug("Removing cancelled ballot: {}", serialNumber);
-				}
+			if (!this.podMessages.containsKey(key)) {
+				logger.warn("No pod message was found for vote message: {}", SerialNumber.toString(key));
+				resultsLogger.warn("No pod message was found for vote message: {}", SerialNumber.toString(key));
 			}
 		}
 
+		this.votes.getPreferences().trimToSize();
+
+		logger.debug("Removed {} cancelled ballots. {} pod messages had no vote message", cancelled, unused);
+
 		logger.debug("Successfully organised Voting messages together");
 
 		return true;
@@ -626,41 +588,19 @@ public class VotePackingDataStore extends ComponentDataStore {
 			CancelMessage message = (CancelMessage) typedMessage;
 
 			String serialNumber = message.getSerialNo();
-			
-			this.checkCancelSerialNumber(serialNumber);
 
 			String boothID = message.getBoothID();
 			CommitIdentifier identifier = new CommitIdentifier(commitment.getIdentifier(), boothID);
 
-			Map<String, CancelMessage> cancelMessageMap = null;
-
-			if (this.cancelMessages.containsKey(identifier)) {
-				cancelMessageMap = this.cancelMessages.get(identifier);
-				cancelMessageMap.put(serialNumber, message);
-			} else {
-				cancelMessageMap = new TreeMap<String, CancelMessage>(new BallotSerialNumberComparator());
-				cancelMessageMap.put(serialNumber, message);
-				this.cancelMessages.put(identifier, cancelMessageMap);
-			}
-		}
-	}
-	
-	/**
-	 * Checks that a serial number doesn't already exist within the cancel message
-	 * store
-	 * 
-	 * @param serialNumber
-	 * @throws VoteMessageCommitException
-	 */
-	private void checkCancelSerialNumber(String serialNumber) throws VoteMessageCommitException {
-		for (CommitIdentifier identifier : this.cancelMessages.keySet()) {
-			if (this.cancelMessages.get(identifier).containsKey(serialNumber)) {
+			if (this.getSerialNumberDirectory().addCancelRecord(serialNumber, identifier)) {
 				logger.warn("Should not have a cancel message already existing with the same serial number: {}", serialNumber);
 				resultsLogger.warn("Should not have a cancel message already existing with the same serial number: {}", serialNumber);
 			}
+
+			this.cancelledSerialNumbers.add(serialNumber);
 		}
 	}
-
+	
 	/**
 	 * Private helper method to add a POD message
 	 * 
@@ -675,24 +615,15 @@ public class VotePackingDataStore extends ComponentDataStore {
 
 			String serialNumber = message.getSerialNo();
 
-			this.checkPODSerialNumber(serialNumber);
-
 			String boothID = message.getBoothID();
 			CommitIdentifier identifier = new CommitIdentifier(commitment.getIdentifier(), boothID);
 
-			Map<String, PODMessage> podMessageMap = null;
-
-			if (this.podMessages.containsKey(identifier)) {
-				podMessageMap = this.podMessages.get(identifier);
-				if (podMessageMap.containsKey(serialNumber)) {
-					podMessageMap.remove(serialNumber);
-				}
-				podMessageMap.put(serialNumber, message);
-			} else {
-				podMessageMap = new TreeMap<String, PODMessage>(new BallotSerialNumberComparator());
-				podMessageMap.put(serialNumber, message);
-				this.podMessages.put(identifier, podMessageMap);
+			if (this.getSerialNumberDirectory().addPODRecord(serialNumber, identifier)) {
+				logger.warn("Should not have a pod message already existing with the same serial number: {}", serialNumber);
+				resultsLogger.warn("Should not have a pod message already existing with the same serial number: {}", serialNumber);
 			}
+
+			this.podMessages.put(serialNumber, message);
 		}
 	}
 
@@ -710,74 +641,33 @@ public class VotePackingDataStore extends ComponentDataStore {
 
 			String serialNumber = message.getSerialNo();
 
-			this.checkVoteSerialNumber(serialNumber);
-
 			String boothID = message.getBoothID();
 			CommitIdentifier identifier = new CommitIdentifier(commitment.getIdentifier(), boothID);
 
-			Map<String, VoteMessage> voteMessageMap = null;
-
-			if (this.voteMessages.containsKey(identifier)) {
-				voteMessageMap = this.voteMessages.get(identifier);
-				if (voteMessageMap.containsKey(serialNumber)) {
-					voteMessageMap.remove(serialNumber);
-				}
-				voteMessageMap.put(serialNumber, message);
-			} else {
-				voteMessageMap = new TreeMap<String, VoteMessage>(new BallotSerialNumberComparator());
-				voteMessageMap.put(serialNumber, message);
-				this.voteMessages.put(identifier, voteMessageMap);
-			}
-		}
-	}
-
-	/**
-	 * Checks that a serial number doesn't already exist within the pod message
-	 * store
-	 * 
-	 * @param serialNumber
-	 * @throws VoteMessageCommitException
-	 */
-	private void checkPODSerialNumber(String serialNumber) throws VoteMessageCommitException {
-		for (CommitIdentifier identifier : this.podMessages.keySet()) {
-			if (this.podMessages.get(identifier).containsKey(serialNumber)) {
-				logger.warn("Should not have a pod message already existing with the same serial number: {}", serialNumber);
-				resultsLogger.warn("Should not have a pod message already existing with the same serial number: {}", serialNumber);
-			}
-		}
-	}
-
-	/**
-	 * Checks that a serial number doesn't already exist within the vote message
-	 * store
-	 * 
-	 * @param serialNumber
-	 * @throws VoteMessageCommitException
-	 */
-	private void checkVoteSerialNumber(String serialNumber) throws VoteMessageCommitException {
-		for (CommitIdentifier identifier : this.voteMessages.keySet()) {
-			if (this.voteMessages.get(identifier).containsKey(serialNumber)) {
+			if (this.getSerialNumberDirectory().addVoteRecord(serialNumber, identifier)) {
 				logger.warn("Should not have a vote message already existing with the same serial number: {}", serialNumber);
 				resultsLogger.warn("Should not have a vote message already existing with the same serial number: {}", serialNumber);
 			}
+
+			this.votes.add(message);
 		}
 	}
 
 	/**
-	 * Getter for the vote messages
+	 * Getter for the votes taken from the vote messages
 	 * 
-	 * @return voteMessages
+	 * @return votes
 	 */
-	public Map<CommitIdentifier, Map<String, VoteMessage>> getVoteMessages() {
-		return Collections.unmodifiableMap(this.voteMessages);
+	public VoteTable getVotes() {
+		return this.votes;
 	}
 
 	/**
 	 * Getter for the pod messages
 	 * 
-	 * @return podMessages
+	 * @return podMessages by serial number
 	 */
-	public Map<CommitIdentifier, Map<String, PODMessage>> getPodMessages() {
+	public Map<String, PODMessage> getPodMessages() {
 		return Collections.unmodifiableMap(this.podMessages);
 	}
 
@@ -17,14 +17,13 @@
  */
 package com.vvote.verifier.component.votePacking;
 
-import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.concurrent.Callable;
 
 import org.bouncycastle.math.ec.ECPoint;
 import org.slf4j.Logger;
@@ -32,21 +31,20 @@ import org.slf4j.LoggerFactory;
 
 import com.vvote.commits.CommitIdentifier;
 import com.vvote.datafiles.DistrictConfig;
+import com.vvote.datafiles.PreferenceTable;
 import com.vvote.datafiles.RaceMap;
-import com.vvote.datafiles.commits.gencommit.BallotGenCommit;
 import com.vvote.datafiles.commits.gencommit.CommittedBallot;
+import com.vvote.datafiles.commits.votes.VoteTable;
 import com.vvote.datafiles.commits.votes.VotingProcess;
 import com.vvote.datafiles.exceptions.DistrictConfigurationException;
 import com.vvote.datafiles.exceptions.MixDataException;
 import com.vvote.datafiles.mix.BallotRaceIdentifier;
-import com.vvote.datafiles.mix.CSVPreferences;
 import com.vvote.datafiles.mix.MixOutput;
 import com.vvote.datafiles.mix.RaceIdentifier;
 import com.vvote.ec.ElGamalECPoint;
-import com.vvote.messages.typed.vote.RacePreferences;
 import com.vvote.messages.typed.vote.RaceType;
-import com.vvote.messages.typed.vote.VoteMessage;
 import com.vvote.thirdparty.json.orgjson.JSONObject;
+import com.vvote.verifier.VerificationTaskGraph;
 import com.vvote.verifier.component.ComponentVerifier;
 import com.vvote.verifier.exceptions.ComponentDataStoreException;
 import com.vvote.verifier.exceptions.ComponentSpecException;
@@ -55,9 +53,10 @@ import com.vvote.verifier.exceptions.DataStoreException;
 import com.vvote.verifier.exceptions.SpecException;
 import com.vvote.verifier.exceptions.VerifierException;
 import com.vvote.verifier.exceptions.VotePackingException;
-import com.vvote.verifierlibrary.utils.comparators.BallotSerialNumberComparator;
 import com.vvote.verifierlibrary.utils.crypto.CryptoUtils;
-import com.vvote.verifierlibrary.utils.crypto.ECUtils;
+import com.vvote.verifierlibrary.utils.crypto.ElGamalFixedBaseEncrypter;
+import com.vvote.verifierlibrary.utils.logging.ResultsLogger;
+import com.vvote.verifierlibrary.utils.serial.SerialNumberMap;
 
 /**
  * VotePackingVerifier is used for carrying out validation and verification of
@@ -79,7 +78,7 @@ public class VotePackingVerifier extends ComponentVerifier {
 	/**
 	 * Provides logging for the actual results produced in the verifier
 	 */
-	private static final Logger resultsLogger = LoggerFactory.getLogger("results");
+	private static final Logger resultsLogger = ResultsLogger.getLogger(VotePackingVerifier.class);
 
 	/**
 	 * Holds the generic ballot sizes - could be looked up but provides easier
@@ -95,7 +94,7 @@ public class VotePackingVerifier extends ComponentVerifier {
 	/**
 	 * Holds the reordered ballots
 	 */
-	private final Map<BallotRaceIdentifier, Map<String, SortedMap<Integer, ElGamalECPoint>>> reorderedBallots;
+	private final Map<BallotRaceIdentifier, Map<String, List<ElGamalECPoint>>> reorderedBallots;
 
 	/**
 	 * Holds the packed ciphers
@@ -108,9 +107,32 @@ public class VotePackingVerifier extends ComponentVerifier {
 	private final Map<RaceIdentifier, List<List<ECPoint>>> packedMixOutput;
 
 	/**
-	 * Holds the reordered mix output
+	 * Holds the reordered mix output as the indexes of the plaintext candidate
+	 * ids in preference order for each ballot
 	 */
-	private final Map<RaceIdentifier, List<SortedMap<Integer, ECPoint>>> reorderedMixOutput;
+	private final Map<RaceIdentifier, List<int[]>> reorderedMixOutput;
+
+	/**
+	 * Holds the district name for each mix output race identifier
+	 */
+	private final Map<RaceIdentifier, String> mixOutputDistricts;
+
+	/**
+	 * Holds the plaintext ids for each district, built once per district
+	 */
+	private final Map<String, Map<RaceType, List<ECPoint>>> districtPlaintextIds;
+
+	/**
+	 * Holds the tables of multiples of the plaintext ids for each district,
+	 * built once per district and race type
+	 */
+	private final Map<String, Map<RaceType, PlaintextMultiplesTable>> districtMultiplesTables;
+
+	/**
+	 * Lookup from ballot race identifier to the corresponding mix input, built
+	 * on first use
+	 */
+	private volatile Map<BallotRaceIdentifier, List<List<ElGamalECPoint>>> mixInputLookup = null;
 
 	/**
 	 * Constructor for a VotePackingVerifier
@@ -129,9 +151,12 @@ public class VotePackingVerifier extends ComponentVerifier {
 
 		this.genericBallotSizes = new HashMap<RaceType, Integer>();
 
-		this.reducedBallots = new TreeMap<String, ReducedBallot>(new BallotSerialNumberComparator());
-		this.reorderedBallots = new HashMap<BallotRaceIdentifier, Map<String, SortedMap<Integer, ElGamalECPoint>>>();
-		this.reorderedMixOutput = new HashMap<RaceIdentifier, List<SortedMap<Integer, ECPoint>>>();
+		this.reducedBallots = new SerialNumberMap<ReducedBallot>();
+		this.reorderedBallots = new HashMap<BallotRaceIdentifier, Map<String, List<ElGamalECPoint>>>();
+		this.reorderedMixOutput = new HashMap<RaceIdentifier, List<int[]>>();
+		this.mixOutputDistricts = new HashMap<RaceIdentifier, String>();
+		this.districtPlaintextIds = new HashMap<String, Map<RaceType, List<ECPoint>>>();
+		this.districtMultiplesTables = new HashMap<String, Map<RaceType, PlaintextMultiplesTable>>();
 		this.packedMixOutput = new HashMap<RaceIdentifier, List<List<ECPoint>>>();
 		this.packedCiphers = new HashMap<BallotRaceIdentifier, Map<String, List<ElGamalECPoint>>>();
 	}
@@ -223,72 +248,170 @@ public class VotePackingVerifier extends ComponentVerifier {
 
 	@Override
 	public boolean doVerification() {
-		logger.debug("Starting vote packing verification");
-		resultsLogger.info("Starting vote packing verification");
 
-		ECUtils.changeCurve(this.getDataStore().getVotePackingConfig().getCurve());
-
-		this.genericBallotSizes.put(RaceType.LA, this.getDataStore().getBallotGenerationConfig().getLASize());
-		this.genericBallotSizes.put(RaceType.LC_ATL, this.getDataStore().getBallotGenerationConfig().getLcATLSize());
-		this.genericBallotSizes.put(RaceType.LC_BTL, this.getDataStore().getBallotGenerationConfig().getLcBTLSize());
+		this.startVerification();
 
 		boolean verified = super.doVerification();
 
 		try {
-			if (!this.reduceBallots()) {
+			if (!this.verifyMixInputChain()) {
 				verified = false;
 			}
 
-			if (!this.verifyBallotReductions()) {
+			if (!this.verifyMixOutputChain()) {
 				verified = false;
 			}
+		} catch (MixDataException e) {
+			return false;
+		} catch (DistrictConfigurationException e) {
+			return false;
+		}
+
+		return this.logVerificationResult(verified);
+	}
+
+	@Override
+	public String addVerificationTasks(final VerificationTaskGraph graph, String name, String dataTask) {
+
+		final String startTask = name + ": start";
+		final String mixInputTask = name + ": mix input";
+		final String mixOutputTask = name + ": mix output";
+		final String resultTask = name + ": result";
+
+		graph.addTask(startTask, new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() {
+				VotePackingVerifier.this.startVerification();
+				return true;
+			}
+		}, dataTask);
 
-			if (!this.reorderReducedBallots()) {
-				verified = false;
+		final String baseCandidateIdsTask = this.addBaseCandidateIdsTask(graph, name, startTask);
+
+		graph.addTask(mixInputTask, new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() throws MixDataException, DistrictConfigurationException {
+				return VotePackingVerifier.this.verifyMixInputChain();
 			}
+		}, startTask);
 
-			if (!this.packReorderedBallots()) {
-				verified = false;
+		graph.addTask(mixOutputTask, new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() {
+				return VotePackingVerifier.this.verifyMixOutputChain();
 			}
+		}, startTask);
 
-			// pad the packed ciphers to all be the same length
-			this.padPackedCiphers();
+		graph.addTaskAfter(resultTask, new Callable<Boolean>() {
 
-			if (!this.verifyMixInput()) {
-				verified = false;
+			@Override
+			public Boolean call() {
+				return VotePackingVerifier.this.logVerificationResult(graph.isSuccessful(baseCandidateIdsTask, mixInputTask, mixOutputTask));
 			}
+		}, baseCandidateIdsTask, mixInputTask, mixOutputTask);
 
-			if (this.reorderMixOutput()) {
-				if (this.packMixOutput()) {
-					this.padPackedPlaintexts();
-					if (this.verifyMixOutput()) {
-						if (!this.verifyNumberOfMixValues()) {
-							logger.error("Unable to verify the number of input and output Mixnet datasets - stopping further verification on the Mixnet output data");
-							resultsLogger.error("Unable to verify the number of input and output Mixnet datasets - stopping further verification on the Mixnet output data");
-							verified = false;
-						}
-					} else {
-						logger.error("Unable to verify Mixnet output data - stopping further verification on the Mixnet output data");
-						resultsLogger.error("Unable to verify Mixnet output data - stopping further verification on the Mixnet output data");
-						verified = false;
+		return resultTask;
+	}
+
+	/**
+	 * Records the start of the verification and sets up the generic ballot
+	 * sizes
+	 */
+	private void startVerification() {
+		logger.debug("Starting vote packing verification");
+		resultsLogger.info("Starting vote packing verification");
+
+		this.genericBallotSizes.put(RaceType.LA, this.getDataStore().getBallotGenerationConfig().getLASize());
+		this.genericBallotSizes.put(RaceType.LC_ATL, this.getDataStore().getBallotGenerationConfig().getLcATLSize());
+		this.genericBallotSizes.put(RaceType.LC_BTL, this.getDataStore().getBallotGenerationConfig().getLcBTLSize());
+	}
+
+	/**
+	 * Reduces, reorders and packs the committed ballots and verifies them
+	 * against the Mixnet input. Only uses the committed ballots and Mixnet
+	 * input so is independent of the Mixnet output verification
+	 * 
+	 * @return true if the packed ballots match the Mixnet input
+	 * @throws MixDataException
+	 * @throws DistrictConfigurationException
+	 */
+	private boolean verifyMixInputChain() throws MixDataException, DistrictConfigurationException {
+
+		boolean verified = true;
+
+		if (!this.reduceBallots()) {
+			verified = false;
+		}
+
+		if (!this.verifyBallotReductions()) {
+			verified = false;
+		}
+
+		if (!this.reorderReducedBallots()) {
+			verified = false;
+		}
+
+		if (!this.packReorderedBallots()) {
+			verified = false;
+		}
+
+		// pad the packed ciphers to all be the same length
+		this.padPackedCiphers();
+
+		if (!this.verifyMixInput()) {
+			verified = false;
+		}
+
+		return verified;
+	}
+
+	/**
+	 * Reorders and packs the Mixnet output and verifies it against the Mixnet
+	 * input. Only uses the Mixnet data so is independent of the verification
+	 * of the committed ballots
+	 * 
+	 * @return true if the Mixnet output was verified successfully
+	 */
+	private boolean verifyMixOutputChain() {
+
+		if (this.reorderMixOutput()) {
+			if (this.packMixOutput()) {
+				this.padPackedPlaintexts();
+				if (this.verifyMixOutput()) {
+					if (!this.verifyNumberOfMixValues()) {
+						logger.error("Unable to verify the number of input and output Mixnet datasets - stopping further verification on the Mixnet output data");
+						resultsLogger.error("Unable to verify the number of input and output Mixnet datasets - stopping further verification on the Mixnet output data");
+						return false;
 					}
 				} else {
-					logger.error("Unable to pack Mixnet output data - stopping further verification on the Mixnet output data");
-					resultsLogger.error("Unable to pack Mixnet output data - stopping further verification on the Mixnet output data");
-					verified = false;
+					logger.error("Unable to verify Mixnet output data - stopping further verification on the Mixnet output data");
+					resultsLogger.error("Unable to verify Mixnet output data - stopping further verification on the Mixnet output data");
+					return false;
 				}
 			} else {
-				logger.error("Unable to reorder Mixnet output data - stopping further verification on the Mixnet output data");
-				resultsLogger.error("Unable to reorder Mixnet output data - stopping further verification on the Mixnet output data");
-				verified = false;
+				logger.error("Unable to pack Mixnet output data - stopping further verification on the Mixnet output data");
+				resultsLogger.error("Unable to pack Mixnet output data - stopping further verification on the Mixnet output data");
+				return false;
 			}
-
-		} catch (MixDataException e) {
-			return false;
-		} catch (DistrictConfigurationException e) {
+		} else {
+			logger.error("Unable to reorder Mixnet output data - stopping further verification on the Mixnet output data");
+			resultsLogger.error("Unable to reorder Mixnet output data - stopping further verification on the Mixnet output data");
 			return false;
 		}
 
+		return true;
+	}
+
+	/**
+	 * Records the outcome of the verification in the results log
+	 * 
+	 * @param verified
+	 * @return verified
+	 */
+	private boolean logVerificationResult(boolean verified) {
 		if (verified) {
 			resultsLogger.info("Vote Packing Verification was carried out successfully");
 		}
@@ -442,7 +565,10 @@ public class VotePackingVerifier extends ComponentVerifier {
 	}
 
 	/**
-	 * Verifies the mixnet output
+	 * Verifies the mixnet output. The packed plaintexts are indexed by their
+	 * canonical encoding and each Mixnet output row must consume exactly one
+	 * of them, so duplicated or missing rows are reported rather than being
+	 * matched more than once.
 	 * 
 	 * @return true if the mixnet output values have been verified successfully
 	 */
@@ -450,94 +576,90 @@ public class VotePackingVerifier extends ComponentVerifier {
 
 		logger.info("Starting the verification of the Mixnet output values");
 
-		boolean foundMatch = false;
+		boolean verified = true;
 
 		List<List<ECPoint>> mixOutputPlaintexts = null;
-		List<List<ECPoint>> mixOutputBallots = null;
+		List<PackedRowIndex.RowKey> mixOutputKeys = null;
+		PackedRowIndex packedIndex = null;
 
 		// loop over each ballot race identifier (will be one for each different
 		// racetype district combination
 		for (RaceIdentifier identifier : this.packedMixOutput.keySet()) {
 
-			// get the current set of packed plaintext ids
-			mixOutputBallots = this.packedMixOutput.get(identifier);
-
-			// get the corresponding mix input
+			// get the corresponding mix output
 			mixOutputPlaintexts = this.getDataStore().getMixOutput().get(identifier);
 
-			if (mixOutputPlaintexts != null) {
-
-				// loop over each packing
-				for (List<ECPoint> packings : mixOutputPlaintexts) {
-					// loop over each mix input ballot and try to find a match
-					for (List<ECPoint> ballot : mixOutputBallots) {
-						if (eCPointListsAreEqual(packings, ballot)) {
-							foundMatch = true;
-						}
-					}
-
-					// if no match can be found then packing has been
-					// unsuccessful
-					if (!foundMatch) {
-						logger.error("Unable to verify Mixnet output vote packing process: Could not find packing for: {}", identifier);
-
-						return false;
-					}
-
-					// reset the flag
-					foundMatch = false;
-				}
-			} else {
+			if (mixOutputPlaintexts == null) {
 				logger.error("Unable to verify Mixnet output vote packing process: {}", identifier);
+				resultsLogger.error("Unable to verify Mixnet output vote packing process: {}", identifier);
 				return false;
 			}
-		}
 
-		logger.debug("Successfully verified the Mixnet output values were correct packings of each of the packed reordered plaintext candidate identifiers");
-		resultsLogger.info("Successfully verified the Mixnet output values were correct packings of each of the packed reordered plaintext candidate identifiers");
+			// index the current set of packed plaintext ids
+			packedIndex = new PackedRowIndex(PackedRowIndex.keyPointRows(this.packedMixOutput.get(identifier)));
 
-		// if all packed ciphers have a match then we get here
-		return true;
-	}
+			mixOutputKeys = PackedRowIndex.keyPointRows(mixOutputPlaintexts);
 
-	/**
-	 * Checks whether two lists are equal
-	 * 
-	 * @param first
-	 * @param second
-	 * @return true if the two lists of ECPoints are equal
-	 */
-	private boolean eCPointListsAreEqual(List<ECPoint> first, List<ECPoint> second) {
-		// check sizes
-		if (first.size() != second.size()) {
-			return false;
-		}
-		// check each element
-		for (int i = 0; i < first.size(); i++) {
-			if (!first.get(i).equals(second.get(i))) {
-				return false;
+			// each Mixnet output row must match exactly one packing
+			for (int i = 0; i < mixOutputKeys.size(); i++) {
+				switch (packedIndex.match(mixOutputKeys.get(i))) {
+					case MATCHED:
+						break;
+					case DUPLICATE:
+						logger.error("Unable to verify Mixnet output vote packing process: Mixnet output row: {} for: {} duplicates a packing which has already been matched", i, identifier);
+						resultsLogger.error("Unable to verify Mixnet output vote packing process: Mixnet output row: {} for: {} duplicates a packing which has already been matched", i, identifier);
+						verified = false;
+						break;
+					case UNMATCHED:
+					default:
+						logger.error("Unable to verify Mixnet output vote packing process: Could not find packing for Mixnet output row: {} for: {}", i, identifier);
+						resultsLogger.error("Unable to verify Mixnet output vote packing process: Could not find packing for Mixnet output row: {} for: {}", i, identifier);
+						verified = false;
+						break;
+				}
+			}
+
+			// any packings left over have no corresponding Mixnet output row
+			for (Integer row : packedIndex.getUnmatchedRows()) {
+				logger.error("Unable to verify Mixnet output vote packing process: packing: {} for: {} does not match any Mixnet output row", row, identifier);
+				resultsLogger.error("Unable to verify Mixnet output vote packing process: packing: {} for: {} does not match any Mixnet output row", row, identifier);
+				verified = false;
 			}
 		}
 
-		return true;
+		if (verified) {
+			logger.debug("Successfully verified the Mixnet output values were correct packings of each of the packed reordered plaintext candidate identifiers");
+			resultsLogger.info("Successfully verified the Mixnet output values were correct packings of each of the packed reordered plaintext candidate identifiers");
+		}
+
+		return verified;
 	}
 
 	/**
 	 * Provides one of the two main verification checks for vote packing. We
 	 * need to ensure that the reduced ballots which have been packed and then
-	 * appropriately packed match exactly what was actually input to the mixnet
+	 * appropriately packed match exactly what was actually input to the
+	 * mixnet. The Mixnet input rows are indexed by their canonical encoding and
+	 * each packed ballot must consume exactly one of them, so a Mixnet input
+	 * row cannot be matched by more than one ballot and any Mixnet input rows
+	 * without a corresponding ballot are reported.
 	 * 
-	 * @return true if there is a mix input for each of the packed ciphers
+	 * @return true if there is exactly one mix input for each of the packed
+	 *         ciphers
 	 */
 	public boolean verifyMixInput() {
 
 		logger.info("Starting the verification of the Mixnet input values");
 
-		boolean foundEncryption = false;
+		boolean verified = true;
 
 		List<List<ElGamalECPoint>> mixInputCiphers = null;
 		Map<String, List<ElGamalECPoint>> ballotCiphers = null;
 
+		List<String> serialNumbers = null;
+		List<PackedRowIndex.RowKey> ballotKeys = null;
+		PackedRowIndex mixInputIndex = null;
+
 		// loop over each ballot race identifier (will be one for each different
 		// racetype district combination
 		for (BallotRaceIdentifier identifier : this.packedCiphers.keySet()) {
@@ -548,98 +670,114 @@ public class VotePackingVerifier extends ComponentVerifier {
 			// get the corresponding mix input
 			mixInputCiphers = getMixInputUsingBallotIdentifier(identifier);
 
-			if (mixInputCiphers != null) {
-
-				// loop over each packed ballot
-				for (String serialNo : ballotCiphers.keySet()) {
-
-					// loop over each mix input ballot and try to find a match
-					for (List<ElGamalECPoint> ballot : mixInputCiphers) {
-						if (elGamalECPointListsAreEqual(ballotCiphers.get(serialNo), ballot)) {
-							logger.info("Successfully found packing for: {}: {}", identifier, serialNo);
-							foundEncryption = true;
-						}
-					}
+			if (mixInputCiphers == null) {
+				logger.error("Unable to verify Mixnet input vote packing process: {}", identifier);
+				resultsLogger.error("Unable to verify Mixnet input vote packing process: {}", identifier);
+				return false;
+			}
 
-					// if no match can be found then packing has been
-					// unsuccessful
-					if (!foundEncryption) {
-						logger.error("Unable to verify Mixnet input vote packing process: Could not find packing for: {}: {}", identifier, serialNo);
-						resultsLogger.error("Unable to verify Mixnet input vote packing process: Could not find packing for: {}: {}", identifier, serialNo);
+			mixInputIndex = new PackedRowIndex(PackedRowIndex.keyCipherRows(mixInputCiphers));
 
-						return false;
-					}
+			serialNumbers = new ArrayList<String>(ballotCiphers.keySet());
+			ballotKeys = PackedRowIndex.keyCipherRows(new ArrayList<List<ElGamalECPoint>>(ballotCiphers.values()));
 
-					// reset the flag
-					foundEncryption = false;
+			// each packed ballot must match exactly one Mixnet input row
+			for (int i = 0; i < serialNumbers.size(); i++) {
+				switch (mixInputIndex.match(ballotKeys.get(i))) {
+					case MATCHED:
+						logger.info("Successfully found packing for: {}: {}", identifier, serialNumbers.get(i));
+						break;
+					case DUPLICATE:
+						logger.error("Unable to verify Mixnet input vote packing process: packing for: {}: {} matches a Mixnet input row which has already been matched by another ballot", identifier,
+								serialNumbers.get(i));
+						resultsLogger.error("Unable to verify Mixnet input vote packing process: packing for: {}: {} matches a Mixnet input row which has already been matched by another ballot",
+								identifier, serialNumbers.get(i));
+						verified = false;
+						break;
+					case UNMATCHED:
+					default:
+						logger.error("Unable to verify Mixnet input vote packing process: Could not find packing for: {}: {}", identifier, serialNumbers.get(i));
+						resultsLogger.error("Unable to verify Mixnet input vote packing process: Could not find packing for: {}: {}", identifier, serialNumbers.get(i));
+						verified = false;
+						break;
 				}
-			} else {
-				logger.error("Unable to verify Mixnet input vote packing process: {}", identifier);
-				resultsLogger.error("Unable to verify Mixnet input vote packing process: {}", identifier);
-				return false;
+			}
+
+			// any Mixnet input rows left over do not correspond to a ballot
+			for (Integer row : mixInputIndex.getUnmatchedRows()) {
+				logger.error("Unable to verify Mixnet input vote packing process: Mixnet input row: {} for: {} does not match any packed ballot", row, identifier);
+				resultsLogger.error("Unable to verify Mixnet input vote packing process: Mixnet input row: {} for: {} does not match any packed ballot", row, identifier);
+				verified = false;
 			}
 		}
 
-		logger.debug("Successfully verified the Mixnet input values were correct packings of each of the votes cast");
-		resultsLogger.info("Successfully verified the Mixnet input values were correct packings of each of the votes cast");
+		if (verified) {
+			logger.debug("Successfully verified the Mixnet input values were correct packings of each of the votes cast");
+			resultsLogger.info("Successfully verified the Mixnet input values were correct packings of each of the votes cast");
+		}
 
-		return true;
+		return verified;
 	}
 
 	/**
-	 * Checks whether two lists of ElGamalECPoint objects are equal
+	 * Provides the ability to check whether a specified set of mix input values
+	 * match a specific set of reordered and packed ciphers. The lookup from
+	 * ballot race identifier to mix input is built once on first use.
 	 * 
-	 * @param first
-	 * @param second
-	 * @return true if all elements in two lists of ElGamalECPoint objects are
-	 *         equal
+	 * @param identifier
+	 * @return the mix input for the provided identifier or null if it does not
+	 *         exist in the mix input
 	 */
-	private boolean elGamalECPointListsAreEqual(List<ElGamalECPoint> first, List<ElGamalECPoint> second) {
-		// check sizes
-		if (first.size() != second.size()) {
-			return false;
-		}
-		// check each element
-		for (int i = 0; i < first.size(); i++) {
-			if (!first.get(i).equals(second.get(i))) {
-				return false;
+	private List<List<ElGamalECPoint>> getMixInputUsingBallotIdentifier(BallotRaceIdentifier identifier) {
+
+		Map<BallotRaceIdentifier, List<List<ElGamalECPoint>>> lookup = this.mixInputLookup;
+
+		if (lookup == null) {
+			synchronized (this) {
+				lookup = this.mixInputLookup;
+
+				if (lookup == null) {
+					lookup = this.buildMixInputLookup();
+					this.mixInputLookup = lookup;
+				}
 			}
 		}
 
-		return true;
+		return lookup.get(identifier);
 	}
 
 	/**
-	 * Provides the ability to check whether a specified set of mix input values
-	 * match a specific set of reordered and packed ciphers
+	 * Builds the lookup from ballot race identifier to mix input. Where more
+	 * than one mix input maps onto the same identifier the first one found is
+	 * kept
 	 * 
-	 * @param identifier
-	 * @return true if the provided identifier exists in the mix input
+	 * @return the lookup from ballot race identifier to mix input
 	 */
-	private List<List<ElGamalECPoint>> getMixInputUsingBallotIdentifier(BallotRaceIdentifier identifier) {
+	private Map<BallotRaceIdentifier, List<List<ElGamalECPoint>>> buildMixInputLookup() {
 
-		RaceMap raceMap = null;
+		Map<BallotRaceIdentifier, List<List<ElGamalECPoint>>> lookup = new HashMap<BallotRaceIdentifier, List<List<ElGamalECPoint>>>();
 
-		for (RaceIdentifier raceIdentifier : this.getDataStore().getMixInput().keySet()) {
+		BallotRaceIdentifier ballotIdentifier = null;
 
-			if (this.getDataStore().hasRaceMap()) {
-				raceMap = this.getDataStore().getRaceMap().getRaceMap(raceIdentifier.getRaceId());
+		for (RaceIdentifier raceIdentifier : this.getDataStore().getMixInput().keySet()) {
 
-				if (identifier.getDistrict().equals(raceMap.getDistrict())) {
-					if (identifier.getRaceType().equals(raceIdentifier.getRaceType())) {
-						return this.getDataStore().getMixInput().get(raceIdentifier);
-					}
+			try {
+				if (this.getDataStore().hasRaceMap()) {
+					ballotIdentifier = new BallotRaceIdentifier(raceIdentifier.getRaceType(), this.getDataStore().getRaceMap().getRaceMap(raceIdentifier.getRaceId()).getDistrict());
+				} else {
+					ballotIdentifier = new BallotRaceIdentifier(raceIdentifier.getRaceType(), raceIdentifier.getDistrict());
 				}
-			} else {
+			} catch (MixDataException e) {
+				logger.error("Unable to create a ballot race identifier for Mixnet input: {}", raceIdentifier, e);
+				continue;
+			}
 
-				if (identifier.getDistrict().equals(raceIdentifier.getDistrict())) {
-					if (identifier.getRaceType().equals(raceIdentifier.getRaceType())) {
-						return this.getDataStore().getMixInput().get(raceIdentifier);
-					}
-				}
+			if (!lookup.containsKey(ballotIdentifier)) {
+				lookup.put(ballotIdentifier, this.getDataStore().getMixInput().get(raceIdentifier));
 			}
 		}
-		return null;
+
+		return lookup;
 	}
 
 	/**
@@ -656,12 +794,16 @@ public class VotePackingVerifier extends ComponentVerifier {
 		DistrictConfig districtConfig = null;
 
 		Map<RaceType, List<ECPoint>> plaintextIds = null;
-		SortedMap<Integer, ECPoint> preferencesMap = null;
-		List<SortedMap<Integer, ECPoint>> mixOutputPrefs = null;
+		PreferenceTable ballotPreferences = null;
+		List<int[]> mixOutputPrefs = null;
 
 		RaceMap raceMap = null;
 
-		int index = 0;
+		// working space for ordering the preferences of each ballot
+		int[] order = null;
+
+		int candidates = 0;
+		int count = 0;
 
 		String districtName = null;
 
@@ -690,31 +832,35 @@ public class VotePackingVerifier extends ComponentVerifier {
 			// get the encrypted ids for that district
 			plaintextIds = this.getPlaintextIdsForDistrict(districtConfig);
 
-			mixOutputPrefs = new ArrayList<SortedMap<Integer, ECPoint>>();
-
-			// loop over the csv preferences - each one corresponds to a
-			// ballot
-			for (CSVPreferences csvPrefs : output.getBallotPreferences()) {
+			ballotPreferences = output.getBallotPreferences();
 
-				preferencesMap = new TreeMap<Integer, ECPoint>();
+			candidates = plaintextIds.get(identifier.getRaceType()).size();
 
-				index = 0;
+			order = new int[ballotPreferences.getMaxLength()];
 
-				// loop over preferences for each ballot
-				for (String preference : csvPrefs.getPreferences()) {
+			mixOutputPrefs = new ArrayList<int[]>(ballotPreferences.size());
 
-					// if not blank then add it
-					if (!preference.equals(com.vvote.messages.fields.MessageFields.VoteMessage.PREFERENCE_IS_BLANK) && preference.length() > 0) {
-						preferencesMap.put(Integer.parseInt(preference), plaintextIds.get(identifier.getRaceType()).get(index));
+			// loop over the rows of preferences - each one corresponds to a
+			// ballot
+			for (int row = 0; row < ballotPreferences.size(); row++) {
+
+				// any preference which is not blank must have a corresponding
+				// plaintext candidate id
+				for (int position = ballotPreferences.start(row) + candidates; position < ballotPreferences.end(row); position++) {
+					if (ballotPreferences.get(position) != PreferenceTable.BLANK) {
+						logger.error("Unable to reorder the Mixnet output data - preference: {} for: {} has no corresponding plaintext candidate identifier", position - ballotPreferences.start(row), identifier);
+						resultsLogger.error("Unable to reorder the Mixnet output data - preference: {} for: {} has no corresponding plaintext candidate identifier", position - ballotPreferences.start(row), identifier);
+						return false;
 					}
-
-					index++;
 				}
 
-				mixOutputPrefs.add(preferencesMap);
+				count = ballotPreferences.order(row, order);
+
+				mixOutputPrefs.add(Arrays.copyOf(order, count));
 			}
 
 			this.reorderedMixOutput.put(identifier, mixOutputPrefs);
+			this.mixOutputDistricts.put(identifier, districtConfig.getDistrictName());
 		}
 
 		logger.debug("Successfully reordered the plaintext candidate identifiers using the Mixnet output preferences");
@@ -758,24 +904,31 @@ public class VotePackingVerifier extends ComponentVerifier {
 			lcBTLPackingSize = this.getDataStore().getVotePackingConfig().getLcBTLPacking();
 		}
 
-		List<SortedMap<Integer, ECPoint>> mixOutputPrefs = null;
+		List<int[]> mixOutputPrefs = null;
 
 		List<List<ECPoint>> packings = null;
 
+		PlaintextPacker packer = null;
+
+		String districtName = null;
+
 		// loop over mixnet outputs
 		for (RaceIdentifier identifier : this.reorderedMixOutput.keySet()) {
 
 			// get the list of ballots per identifier
 			mixOutputPrefs = this.reorderedMixOutput.get(identifier);
 
+			districtName = this.mixOutputDistricts.get(identifier);
+
 			// if race type is la and the la race is packed
 			if (identifier.getRaceType().equals(RaceType.LA) && isLaPacked) {
 
 				// put the la packings
+				packer = new PlaintextPacker(this.getMultiplesTable(districtName, RaceType.LA, laPackingSize));
 				packings = new ArrayList<List<ECPoint>>();
 				for (int i = 0; i < mixOutputPrefs.size(); i++) {
 
-					packings.add(this.packPlaintexts(mixOutputPrefs.get(i), laPackingSize));
+					packings.add(packer.pack(mixOutputPrefs.get(i)));
 				}
 			}
 
@@ -783,10 +936,11 @@ public class VotePackingVerifier extends ComponentVerifier {
 			if (identifier.getRaceType().equals(RaceType.LC_BTL) && isLcBTLPacked) {
 
 				// put the lc btl packings
+				packer = new PlaintextPacker(this.getMultiplesTable(districtName, RaceType.LC_BTL, lcBTLPackingSize));
 				packings = new ArrayList<List<ECPoint>>();
 				for (int i = 0; i < mixOutputPrefs.size(); i++) {
 
-					packings.add(this.packPlaintexts(mixOutputPrefs.get(i), lcBTLPackingSize));
+					packings.add(packer.pack(mixOutputPrefs.get(i)));
 				}
 			}
 
@@ -798,8 +952,7 @@ public class VotePackingVerifier extends ComponentVerifier {
 				for (int i = 0; i < mixOutputPrefs.size(); i++) {
 					List<ECPoint> atlList = new ArrayList<ECPoint>();
 
-					int key = mixOutputPrefs.get(i).firstKey();
-					atlList.add(mixOutputPrefs.get(i).get(key).multiply(BigInteger.ONE));
+					atlList.add(this.districtPlaintextIds.get(districtName).get(RaceType.LC_ATL).get(mixOutputPrefs.get(i)[0]));
 					packings.add(atlList);
 				}
 			}
@@ -814,71 +967,52 @@ public class VotePackingVerifier extends ComponentVerifier {
 	}
 
 	/**
-	 * Packs plaintext ids together using the provided packing size
+	 * Gets the table of multiples of the plaintext ids for the race type in
+	 * the specified district, building it on first use
 	 * 
-	 * @param preferences
+	 * @param districtName
+	 * @param raceType
 	 * @param packingSize
-	 * @return a list of packed plaintext ids
+	 * @return the table of multiples of the plaintext ids
 	 */
-	private List<ECPoint> packPlaintexts(SortedMap<Integer, ECPoint> preferences, int packingSize) {
-		int packingPreference = 0;
-		ECPoint currentId = null;
-		ECPoint currentPacking = null;
-		List<ECPoint> currentPackedList = null;
-
-		currentPackedList = new ArrayList<ECPoint>();
-
-		// loop over preferences
-		for (Integer pref : preferences.keySet()) {
+	private PlaintextMultiplesTable getMultiplesTable(String districtName, RaceType raceType, int packingSize) {
 
-			// increment the packing preference which ranges from 1 to packing
-			// size
-			packingPreference++;
-
-			// gets the specific cipher
-			currentId = preferences.get(pref);
-
-			// multiply by the packing preference number (NOT the actual
-			// preference number)
-			currentId = currentId.multiply(BigInteger.valueOf(packingPreference));
-
-			// either store this current cipher
-			if (currentPacking == null) {
-				currentPacking = currentId;
-			} else {
-				// or add to the previous packing
-				currentPacking = currentPacking.add(currentId);
-			}
+		Map<RaceType, PlaintextMultiplesTable> tables = this.districtMultiplesTables.get(districtName);
 
-			// packing preference needs to be reset if it equals the maximum
-			// packing size
-			if (packingPreference == packingSize) {
-				packingPreference = 0;
-
-				currentPackedList.add(currentPacking);
-				currentPacking = null;
-			}
+		if (tables == null) {
+			tables = new HashMap<RaceType, PlaintextMultiplesTable>();
+			this.districtMultiplesTables.put(districtName, tables);
 		}
 
-		if (currentPacking != null) {
-			currentPackedList.add(currentPacking);
+		PlaintextMultiplesTable table = tables.get(raceType);
+
+		if (table == null) {
+			table = new PlaintextMultiplesTable(this.districtPlaintextIds.get(districtName).get(raceType), packingSize);
+			tables.put(raceType, table);
 		}
 
-		return currentPackedList;
+		return table;
 	}
 
 	/**
-	 * Helper method for getting the base encrypted ids for a specified district
+	 * Helper method for getting the plaintext ids for a specified district.
+	 * The ids are only collected the first time each district is requested
 	 * 
 	 * @param districtConfig
 	 * @return the plaintext ids for a specified district
 	 */
 	private Map<RaceType, List<ECPoint>> getPlaintextIdsForDistrict(DistrictConfig districtConfig) {
+		Map<RaceType, List<ECPoint>> plaintextIds = this.districtPlaintextIds.get(districtConfig.getDistrictName());
+
+		if (plaintextIds != null) {
+			return plaintextIds;
+		}
+
 		List<ECPoint> laPlaintextIds = null;
 		List<ECPoint> lcATLPlaintextIds = null;
 		List<ECPoint> lcBTLPlaintextIds = null;
 
-		Map<RaceType, List<ECPoint>> plaintextIds = new HashMap<RaceType, List<ECPoint>>();
+		plaintextIds = new HashMap<RaceType, List<ECPoint>>();
 
 		int startingIndex = 0;
 
@@ -917,6 +1051,8 @@ public class VotePackingVerifier extends ComponentVerifier {
 		plaintextIds.put(RaceType.LC_ATL, lcATLPlaintextIds);
 		plaintextIds.put(RaceType.LC_BTL, lcBTLPlaintextIds);
 
+		this.districtPlaintextIds.put(districtConfig.getDistrictName(), plaintextIds);
+
 		return plaintextIds;
 	}
 
@@ -957,7 +1093,7 @@ public class VotePackingVerifier extends ComponentVerifier {
 
 		Map<String, List<ElGamalECPoint>> racePacking = null;
 
-		SortedMap<Integer, ElGamalECPoint> preferences = null;
+		List<ElGamalECPoint> preferences = null;
 
 		// loop over reordered ballots
 		for (BallotRaceIdentifier identifier : this.reorderedBallots.keySet()) {
@@ -979,7 +1115,7 @@ public class VotePackingVerifier extends ComponentVerifier {
 						List<ElGamalECPoint> laList = new ArrayList<ElGamalECPoint>();
 
 						// just add each of the preferences without packing them
-						for (ElGamalECPoint point : this.reorderedBallots.get(identifier).get(serialNo).values()) {
+						for (ElGamalECPoint point : this.reorderedBallots.get(identifier).get(serialNo)) {
 							laList.add(point);
 						}
 
@@ -992,8 +1128,7 @@ public class VotePackingVerifier extends ComponentVerifier {
 					List<ElGamalECPoint> atlList = new ArrayList<ElGamalECPoint>();
 
 					// add the single preference
-					int key = this.reorderedBallots.get(identifier).get(serialNo).firstKey();
-					atlList.add(this.reorderedBallots.get(identifier).get(serialNo).get(key));
+					atlList.add(this.reorderedBallots.get(identifier).get(serialNo).get(0));
 
 					racePacking.put(serialNo, atlList);
 				} else if (identifier.getRaceType().equals(RaceType.LC_BTL)) {
@@ -1010,7 +1145,7 @@ public class VotePackingVerifier extends ComponentVerifier {
 						List<ElGamalECPoint> btlList = new ArrayList<ElGamalECPoint>();
 
 						// just add each of the preferences without packing them
-						for (ElGamalECPoint point : this.reorderedBallots.get(identifier).get(serialNo).values()) {
+						for (ElGamalECPoint point : this.reorderedBallots.get(identifier).get(serialNo)) {
 							btlList.add(point);
 						}
 
@@ -1030,75 +1165,34 @@ public class VotePackingVerifier extends ComponentVerifier {
 
 	/**
 	 * Pads the packed ciphers to all be the same length - the same number of
-	 * columns as is required by the mixnet
+	 * columns as is required by the mixnet. The packed lists are replaced
+	 * rather than modified so the packed ciphers are never changed once
+	 * created
 	 */
 	private void padPackedCiphers() {
 
 		logger.info("Starting the process of padding the packed ciphertexts");
 
-		List<ElGamalECPoint> currentPackingList = null;
+		int maxColumns = 0;
 
-		int maxLaColumns = 0;
-		List<Integer> laColumns = new ArrayList<Integer>();
-
-		int maxLcBTLColumns = 0;
-		List<Integer> lcBTLColumns = new ArrayList<Integer>();
-
-		int requiredPadding = 0;
+		ElGamalECPoint paddingPoint = this.getDataStore().getEncryptedPaddingPoint();
 
 		// loop over the packed ciphers again with the aim of padding all
 		// columns to be the same length
 		for (BallotRaceIdentifier identifier : this.packedCiphers.keySet()) {
 
 			if (!identifier.getRaceType().equals(RaceType.LC_ATL)) {
-				// loop over packed ciphers with the aim of getting the la and
-				// lc btl maximum columns
-				for (String serialNo : this.packedCiphers.get(identifier).keySet()) {
 
-					if (identifier.getRaceType().equals(RaceType.LA)) {
-						currentPackingList = this.packedCiphers.get(identifier).get(serialNo);
-						laColumns.add(currentPackingList.size());
-					}
-					if (identifier.getRaceType().equals(RaceType.LC_BTL)) {
-						currentPackingList = this.packedCiphers.get(identifier).get(serialNo);
-						lcBTLColumns.add(currentPackingList.size());
-					}
+				// get the maximum columns for the la or lc btl race
+				maxColumns = 0;
+				for (List<ElGamalECPoint> packings : this.packedCiphers.get(identifier).values()) {
+					maxColumns = Math.max(maxColumns, packings.size());
 				}
 
-				// get the maximum columns
-				if (identifier.getRaceType().equals(RaceType.LA)) {
-					maxLaColumns = Collections.max(laColumns);
-				} else if (identifier.getRaceType().equals(RaceType.LC_BTL)) {
-					maxLcBTLColumns = Collections.max(lcBTLColumns);
+				// add the padding the required number of times
+				for (Map.Entry<String, List<ElGamalECPoint>> packings : this.packedCiphers.get(identifier).entrySet()) {
+					packings.setValue(CipherPacker.pad(packings.getValue(), maxColumns, paddingPoint));
 				}
-
-				for (String serialNo : this.packedCiphers.get(identifier).keySet()) {
-
-					if (identifier.getRaceType().equals(RaceType.LA)) {
-						currentPackingList = this.packedCiphers.get(identifier).get(serialNo);
-
-						// add the padding the required number of times
-						if (currentPackingList.size() < maxLaColumns) {
-							requiredPadding = maxLaColumns - currentPackingList.size();
-							for (int i = 0; i < requiredPadding; i++) {
-								currentPackingList.add(this.getDataStore().getEncryptedPaddingPoint());
-							}
-						}
-					} else if (identifier.getRaceType().equals(RaceType.LC_BTL)) {
-						currentPackingList = this.packedCiphers.get(identifier).get(serialNo);
-
-						// add the padding the required number of times
-						if (currentPackingList.size() < maxLcBTLColumns) {
-							requiredPadding = maxLcBTLColumns - currentPackingList.size();
-							for (int i = 0; i < requiredPadding; i++) {
-								currentPackingList.add(this.getDataStore().getEncryptedPaddingPoint());
-							}
-						}
-					}
-				}
-
-				laColumns.clear();
-				lcBTLColumns.clear();
 			}
 		}
 
@@ -1107,59 +1201,17 @@ public class VotePackingVerifier extends ComponentVerifier {
 	}
 
 	/**
-	 * Helper method for packing ciphers together
+	 * Helper method for packing ciphers together. Each cipher is weighted by
+	 * its packing preference number (NOT the actual preference number) which
+	 * ranges from 1 to the packing size
 	 * 
 	 * @param preferences
 	 * 
 	 * @param packingSize
 	 * @return a list of packed ciphers
 	 */
-	private List<ElGamalECPoint> packCiphers(SortedMap<Integer, ElGamalECPoint> preferences, int packingSize) {
-
-		int packingPreference = 0;
-		ElGamalECPoint currentCipher = null;
-		ElGamalECPoint currentPacking = null;
-		List<ElGamalECPoint> currentPackedList = null;
-
-		currentPackedList = new ArrayList<ElGamalECPoint>();
-
-		// loop over preferences
-		for (Integer pref : preferences.keySet()) {
-
-			// increment the packing preference which ranges from 1 to packing
-			// size
-			packingPreference++;
-
-			// gets the specific cipher
-			currentCipher = preferences.get(pref);
-
-			// multiply by the packing preference number (NOT the actual
-			// preference number)
-			currentCipher.multiply(BigInteger.valueOf(packingPreference));
-
-			// either store this current cipher
-			if (currentPacking == null) {
-				currentPacking = currentCipher;
-			} else {
-				// or add to the previous packing
-				currentPacking.add(currentCipher);
-			}
-
-			// packing preference needs to be reset if it equals the maximum
-			// packing size
-			if (packingPreference == packingSize) {
-				packingPreference = 0;
-
-				currentPackedList.add(currentPacking);
-				currentPacking = null;
-			}
-		}
-
-		if (currentPacking != null) {
-			currentPackedList.add(currentPacking);
-		}
-
-		return currentPackedList;
+	private List<ElGamalECPoint> packCiphers(List<ElGamalECPoint> preferences, int packingSize) {
+		return CipherPacker.pack(preferences, packingSize);
 	}
 
 	/**
@@ -1173,127 +1225,123 @@ public class VotePackingVerifier extends ComponentVerifier {
 
 		logger.info("Starting the process of reordering reduced ballots");
 
-		VoteMessage voteMessage = null;
+		VoteTable votes = this.getDataStore().getVotes();
+		PreferenceTable preferences = votes.getPreferences();
 
-		ReducedBallot currentReducedBallot = null;
+		// working space for ordering the preferences of each race
+		int[] order = new int[preferences.getMaxLength()];
 
-		RacePreferences laPreferences = null;
-		RacePreferences lcATLPreferences = null;
-		RacePreferences lcBTLPreferences = null;
+		String serialNumber = null;
 
-		Map<String, SortedMap<Integer, ElGamalECPoint>> ballotPreferencesMap = null;
+		int vote = 0;
+		int row = 0;
 
-		SortedMap<Integer, ElGamalECPoint> preferencesMap = null;
-
-		int index = 0;
+		ReducedBallot currentReducedBallot = null;
 
-		BallotRaceIdentifier currentIdentifier = null;
+		List<ElGamalECPoint> ciphers = null;
 
 		DistrictConfig config = null;
 
 		// loop over serial numbers for all ballots
-		for (String serialNumber : this.getDataStore().getVotingProcesses().keySet()) {
+		for (Map.Entry<String, VotingProcess> votingProcess : this.getDataStore().getVotingProcesses().entrySet()) {
 
-			index = 0;
+			serialNumber = votingProcess.getKey();
 
-			// get the correct vote message
-			voteMessage = this.getDataStore().getVotingProcesses().get(serialNumber).getVoteMessage();
+			// get the correct vote
+			vote = votingProcess.getValue().getVote();
 
-			config = this.getDataStore().getDistrictConfigByName(voteMessage.getDistrict());
+			config = this.getDataStore().getDistrictConfigByName(votes.getDistrict(vote));
 
 			// get the reduced ballot
 			currentReducedBallot = this.reducedBallots.get(serialNumber);
 
-			// get the preferences
-			laPreferences = voteMessage.getRaces().getLaPreferences();
-			lcATLPreferences = voteMessage.getRaces().getLcATLPreferences();
-			lcBTLPreferences = voteMessage.getRaces().getLcBTLPreferences();
-
-			if (laPreferences.isUsed()) {
-
-				// use tree map and place preference as the key so ordering is
-				// implicit
-				preferencesMap = new TreeMap<Integer, ElGamalECPoint>();
-				ballotPreferencesMap = new HashMap<String, SortedMap<Integer, ElGamalECPoint>>();
-
-				// loop over la preferences
-				for (String preference : laPreferences.getPreferencesArray()) {
-					if (!preference.equals(com.vvote.messages.fields.MessageFields.VoteMessage.PREFERENCE_IS_BLANK)) {
-						// handle la preferences
-						preferencesMap.put(Integer.parseInt(preference), currentReducedBallot.getReducedCipher(index));
-					}
-					index++;
-				}
-
-				ballotPreferencesMap.put(serialNumber, preferencesMap);
+			if (votes.isLaUsed(vote)) {
 
-				currentIdentifier = new BallotRaceIdentifier(RaceType.LA, currentReducedBallot.getDistrict());
+				// handle la preferences
+				ciphers = orderCiphers(preferences, votes.getPreferenceRow(vote, RaceType.LA), order, currentReducedBallot, 0);
 
-				if (this.reorderedBallots.containsKey(currentIdentifier)) {
-					this.reorderedBallots.get(currentIdentifier).putAll(ballotPreferencesMap);
-				} else {
-					this.reorderedBallots.put(currentIdentifier, ballotPreferencesMap);
-				}
+				this.addReorderedBallot(new BallotRaceIdentifier(RaceType.LA, currentReducedBallot.getDistrict()), serialNumber, ciphers);
 			}
 
-			preferencesMap = new TreeMap<Integer, ElGamalECPoint>();
-			ballotPreferencesMap = new HashMap<String, SortedMap<Integer, ElGamalECPoint>>();
+			// check whether vote is an ATL or BTL ballot
+			if (votes.isATL(vote)) {
 
-			index = config.getLaSize();
+				ciphers = new ArrayList<ElGamalECPoint>(1);
 
-			// check whether vote is an ATL or BTL ballot
-			if (voteMessage.getRaces().isATL()) {
+				row = votes.getPreferenceRow(vote, RaceType.LC_ATL);
 
 				// loop over lc ATL preferences
-				for (String preference : lcATLPreferences.getPreferencesArray()) {
-					if (!preference.equals(com.vvote.messages.fields.MessageFields.VoteMessage.PREFERENCE_IS_BLANK)) {
+				for (int position = preferences.start(row); position < preferences.end(row); position++) {
+					if (preferences.get(position) != PreferenceTable.BLANK) {
 						// handle lc atl preferences
-						preferencesMap.put(Integer.parseInt(preference), currentReducedBallot.getReducedCipher(index));
+						ciphers.add(currentReducedBallot.getReducedCipher(config.getLaSize() + position - preferences.start(row)));
 						// there will only be one so just break here
 						break;
 					}
-					index++;
 				}
 
-				ballotPreferencesMap.put(serialNumber, preferencesMap);
+				this.addReorderedBallot(new BallotRaceIdentifier(RaceType.LC_ATL, currentReducedBallot.getDistrict()), serialNumber, ciphers);
 
-				currentIdentifier = new BallotRaceIdentifier(RaceType.LC_ATL, currentReducedBallot.getDistrict());
+			} else if (votes.isLcBTLUsed(vote)) {
 
-				if (this.reorderedBallots.containsKey(currentIdentifier)) {
-					this.reorderedBallots.get(currentIdentifier).putAll(ballotPreferencesMap);
-				} else {
-					this.reorderedBallots.put(currentIdentifier, ballotPreferencesMap);
-				}
+				// handle lc btl preferences
+				ciphers = orderCiphers(preferences, votes.getPreferenceRow(vote, RaceType.LC_BTL), order, currentReducedBallot, config.getLaSize() + config.getLcATLSize());
 
-			} else if (lcBTLPreferences.isUsed()) {
+				this.addReorderedBallot(new BallotRaceIdentifier(RaceType.LC_BTL, currentReducedBallot.getDistrict()), serialNumber, ciphers);
+			}
+		}
 
-				index = config.getLaSize() + config.getLcATLSize();
+		logger.debug("Successfully reordered reduced ballots");
+		resultsLogger.info("Successfully reordered reduced ballots");
 
-				// loop over lc BTL preferences
-				for (String preference : lcBTLPreferences.getPreferencesArray()) {
-					if (!preference.equals(com.vvote.messages.fields.MessageFields.VoteMessage.PREFERENCE_IS_BLANK)) {
-						// handle lc btl preferences
-						preferencesMap.put(Integer.parseInt(preference), currentReducedBallot.getReducedCipher(index));
-					}
-					index++;
-				}
+		return true;
+	}
 
-				ballotPreferencesMap.put(serialNumber, preferencesMap);
+	/**
+	 * Gets the reduced ciphers for a single race of a ballot in preference
+	 * order
+	 * 
+	 * @param preferences
+	 * @param row
+	 *            the preference table row holding the preferences for the race
+	 * @param order
+	 *            working space at least as long as the row
+	 * @param reducedBallot
+	 * @param offset
+	 *            the index of the first cipher for the race in the reduced
+	 *            ballot
+	 * @return the reduced ciphers in preference order
+	 */
+	private static List<ElGamalECPoint> orderCiphers(PreferenceTable preferences, int row, int[] order, ReducedBallot reducedBallot, int offset) {
 
-				currentIdentifier = new BallotRaceIdentifier(RaceType.LC_BTL, currentReducedBallot.getDistrict());
+		int count = preferences.order(row, order);
 
-				if (this.reorderedBallots.containsKey(currentIdentifier)) {
-					this.reorderedBallots.get(currentIdentifier).putAll(ballotPreferencesMap);
-				} else {
-					this.reorderedBallots.put(currentIdentifier, ballotPreferencesMap);
-				}
-			}
+		List<ElGamalECPoint> ciphers = new ArrayList<ElGamalECPoint>(count);
+
+		for (int i = 0; i < count; i++) {
+			ciphers.add(reducedBallot.getReducedCipher(offset + order[i]));
 		}
 
-		logger.debug("Successfully reordered reduced ballots");
-		resultsLogger.info("Successfully reordered reduced ballots");
+		return ciphers;
+	}
 
-		return true;
+	/**
+	 * Adds the reordered ciphers for a single race of a ballot
+	 * 
+	 * @param identifier
+	 * @param serialNumber
+	 * @param ciphers
+	 */
+	private void addReorderedBallot(BallotRaceIdentifier identifier, String serialNumber, List<ElGamalECPoint> ciphers) {
+
+		Map<String, List<ElGamalECPoint>> ballots = this.reorderedBallots.get(identifier);
+
+		if (ballots == null) {
+			ballots = new HashMap<String, List<ElGamalECPoint>>();
+			this.reorderedBallots.put(identifier, ballots);
+		}
+
+		ballots.put(serialNumber, ciphers);
 	}
 
 	/**
@@ -1308,6 +1356,7 @@ public class VotePackingVerifier extends ComponentVerifier {
 		logger.info("Verifying that the ballots have been reduced successfully");
 
 		VotingProcess currentVote = null;
+		String districtName = null;
 		DistrictConfig districtConfig = null;
 
 		ReducedBallot currentReducedBallot = null;
@@ -1320,11 +1369,13 @@ public class VotePackingVerifier extends ComponentVerifier {
 			currentVote = this.getDataStore().getVotingProcesses().get(serialNumber);
 			currentReducedBallot = this.reducedBallots.get(serialNumber);
 
-			districtConfig = this.getDataStore().getDistrictConfigByName(currentVote.getVoteMessage().getDistrict());
+			districtName = this.getDataStore().getVotes().getDistrict(currentVote.getVote());
+
+			districtConfig = this.getDataStore().getDistrictConfigByName(districtName);
 
 			if (districtConfig == null) {
-				logger.error("Unable to verify ballot reductions - could not get district configuration data for district: {}", currentVote.getVoteMessage().getDistrict());
-				resultsLogger.error("Unable to verify ballot reductions - could not get district configuration data for district: {}", currentVote.getVoteMessage().getDistrict());
+				logger.error("Unable to verify ballot reductions - could not get district configuration data for district: {}", districtName);
+				resultsLogger.error("Unable to verify ballot reductions - could not get district configuration data for district: {}", districtName);
 				return false;
 			}
 
@@ -1367,6 +1418,8 @@ public class VotePackingVerifier extends ComponentVerifier {
 
 		VotingProcess currentVote = null;
 
+		String districtName = null;
+
 		DistrictConfig districtConfig = null;
 
 		ReducedBallot currentReducedBallot = null;
@@ -1375,6 +1428,10 @@ public class VotePackingVerifier extends ComponentVerifier {
 
 		List<ElGamalECPoint> baseEncryptedIds = this.getDataStore().getBaseEncryptedIds();
 		ECPoint publicKey = this.getDataStore().getPublicKey();
+		ElGamalFixedBaseEncrypter encrypter = this.getDataStore().getCurveContext().getEncrypter(publicKey);
+
+		// the re-encryption of each reduction is checked in batches
+		BallotReductionBatchVerifier batchVerifier = new BallotReductionBatchVerifier(this.getDataStore().getCurveContext(), baseEncryptedIds, publicKey);
 
 		try {
 
@@ -1394,21 +1451,30 @@ public class VotePackingVerifier extends ComponentVerifier {
 				}
 
 				// get the corresponding district config
-				districtConfig = this.getDataStore().getDistrictConfigByName(currentVote.getVoteMessage().getDistrict());
+				districtName = this.getDataStore().getVotes().getDistrict(currentVote.getVote());
+
+				districtConfig = this.getDataStore().getDistrictConfigByName(districtName);
 
 				if (districtConfig == null) {
-					logger.error("Unable to reduce ballots - could not get district configuration data for district: {}", currentVote.getVoteMessage().getDistrict());
-					resultsLogger.error("Unable to reduce ballots - could not get district configuration data for district: {}", currentVote.getVoteMessage().getDistrict());
+					logger.error("Unable to reduce ballots - could not get district configuration data for district: {}", districtName);
+					resultsLogger.error("Unable to reduce ballots - could not get district configuration data for district: {}", districtName);
 					return false;
 				}
 
 				// create a new reduced ballot
-				currentReducedBallot = new ReducedBallot(currentCommittedBallot, currentVote.getPodMessage(), baseEncryptedIds, publicKey, this.genericBallotSizes, districtConfig);
+				currentReducedBallot = new ReducedBallot(currentCommittedBallot, currentVote.getPodMessage(), baseEncryptedIds, encrypter, this.genericBallotSizes, districtConfig,
+						batchVerifier);
 
 				this.reducedBallots.put(serialNumber, currentReducedBallot);
 
 				this.freeCommittedBallot(serialNumber);
+
+				if (batchVerifier.isFull()) {
+					this.verifyReductionBatch(batchVerifier);
+				}
 			}
+
+			this.verifyReductionBatch(batchVerifier);
 		} catch (VotePackingException e) {
 			logger.error("Unable to reduce ballots", e);
 			resultsLogger.error("Unable to reduce ballots", e);
@@ -1421,6 +1487,21 @@ public class VotePackingVerifier extends ComponentVerifier {
 		return true;
 	}
 
+	/**
+	 * Verifies the reductions pending in the batch verifier, marking any
+	 * ballot with an invalid reduction as invalid
+	 * 
+	 * @param batchVerifier
+	 */
+	private void verifyReductionBatch(BallotReductionBatchVerifier batchVerifier) {
+		for (String serialNumber : batchVerifier.verify()) {
+			logger.error("Ballot reductions could not be verified for ballot: {}", serialNumber);
+			resultsLogger.error("Ballot reductions could not be verified for ballot: {}", serialNumber);
+
+			this.reducedBallots.get(serialNumber).invalidate();
+		}
+	}
+
 	/**
 	 * Get the committed ballot for the provided serial number
 	 * 
@@ -1429,21 +1510,14 @@ public class VotePackingVerifier extends ComponentVerifier {
 	 */
 	private CommittedBallot getCommittedBallot(String serialNumber) {
 
-		BallotGenCommit commit = null;
-
-		// loops over all commitment identifiers
-		for (CommitIdentifier identifier : this.getDataStore().getGeneratedCiphers().keySet()) {
+		// the ballot generation commitment holding the ballot
+		List<CommitIdentifier> identifiers = this.getDataStore().getSerialNumberDirectory().getGenerationCommits(serialNumber);
 
-			// get the commitment
-			commit = this.getDataStore().getGeneratedCiphers().get(identifier);
-
-			// checks whether the serial number appears in the committed ballots
-			if (commit.getCommittedBallotsSerialNumbers().contains(serialNumber)) {
-				return commit.getCommittedBallot(serialNumber);
-			}
+		if (identifiers.isEmpty()) {
+			return null;
 		}
 
-		return null;
+		return this.getDataStore().getGeneratedCiphers().get(identifiers.get(0)).getCommittedBallot(serialNumber);
 	}
 
 	/**
@@ -1453,18 +1527,8 @@ public class VotePackingVerifier extends ComponentVerifier {
 	 */
 	private void freeCommittedBallot(String serialNumber) {
 
-		BallotGenCommit commit = null;
-
-		// loops over all commitment identifiers
-		for (CommitIdentifier identifier : this.getDataStore().getGeneratedCiphers().keySet()) {
-
-			// get the commitment
-			commit = this.getDataStore().getGeneratedCiphers().get(identifier);
-
-			// checks whether the serial number appears in the committed ballots
-			if (commit.getCommittedBallotsSerialNumbers().contains(serialNumber)) {
-				commit.freeCommittedBallot(serialNumber);
-			}
+		for (CommitIdentifier identifier : this.getDataStore().getSerialNumberDirectory().getGenerationCommits(serialNumber)) {
+			this.getDataStore().getGeneratedCiphers().get(identifier).freeCommittedBallot(serialNumber);
 		}
 	}
 }
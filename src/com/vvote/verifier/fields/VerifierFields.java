@@ -45,6 +45,40 @@ public class VerifierFields {
 		 * Identifier for the name of the ballot submit response
 		 */
 		public static final String BALLOT_SUBMIT_RESPONSE = "ballotSubmitResponse";
+
+		/**
+		 * Identifier for the hash commitment verification policy
+		 */
+		public static final String COMMITMENT_VERIFICATION = "commitmentVerification";
+
+		/**
+		 * Identifier for when hash commitments are cross-checked
+		 */
+		public static final String CROSS_CHECK = "crossCheck";
+
+		/**
+		 * Identifier for the percentage of hash commitments cross-checked when
+		 * sampling
+		 */
+		public static final String SAMPLE_PERCENTAGE = "samplePercentage";
+
+		/**
+		 * Identifier for the seed selecting which hash commitments are
+		 * sampled
+		 */
+		public static final String SAMPLE_SEED = "sampleSeed";
+
+		/**
+		 * Identifier for the number of WBB peer signature shares needed to
+		 * form a joint signature
+		 */
+		public static final String WBB_THRESHOLD = "wbbThreshold";
+
+		/**
+		 * Identifier for the number of threads used to verify the audited
+		 * ballots
+		 */
+		public static final String AUDIT_PARALLELISM = "auditParallelism";
 	}
 	
 	/**
@@ -162,5 +196,11 @@ public class VerifierFields {
 		 * Identifier for the spec file for the verifier
 		 */
 		public static final String VERIFIER_SPEC_FILE = "specFile";
+
+		/**
+		 * Identifier for the number of threads used to run the verification
+		 * tasks
+		 */
+		public static final String THREAD_BUDGET = "threadBudget";
 	}
 }
@@ -36,7 +36,8 @@ import com.vvote.verifierlibrary.utils.io.IOUtils;
 
 /**
  * Provides storage for the schemas in use in the system. The schemas are read
- * in from a file and can then be accessed
+ * in from a file and compiled into <code>JSONSchemaValidator</code> objects
+ * which can then be accessed
  * 
  * @author James Rumble
  * 
@@ -58,13 +59,18 @@ public class JSONSchemaStore {
 	 */
 	private static Map<JSONSchema, String> schemas = new HashMap<JSONSchema, String>();
 
+	/**
+	 * storage for JSONSchema : compiled validator
+	 */
+	private static Map<JSONSchema, JSONSchemaValidator> validators = new HashMap<JSONSchema, JSONSchemaValidator>();
+
 	/**
 	 * Getter for the single instance of the <code>JSONSchemaStore</code>
 	 * 
 	 * @return <code>JSONSchemaStore</code> object
 	 * @throws JSONSchemaException
 	 */
-	public final static JSONSchemaStore getInstance() throws JSONSchemaException {
+	public final static synchronized JSONSchemaStore getInstance() throws JSONSchemaException {
 		if (instance == null) {
 			instance = new JSONSchemaStore();
 		}
@@ -81,6 +87,26 @@ public class JSONSchemaStore {
 		return schemas.get(schema);
 	}
 
+	/**
+	 * Getter for the compiled validator for a specific schema
+	 * 
+	 * @param schema
+	 * @return the compiled validator
+	 * @throws JSONSchemaException
+	 */
+	public static JSONSchemaValidator getValidator(JSONSchema schema) throws JSONSchemaException {
+		getInstance();
+
+		JSONSchemaValidator validator = validators.get(schema);
+
+		if (validator == null) {
+			logger.error("No schema has been provided for: {}", schema);
+			throw new JSONSchemaException("No schema has been provided for: " + schema);
+		}
+
+		return validator;
+	}
+
 	/**
 	 * Constructor for a <code>JSONSchemaStore</code> object
 	 * 
@@ -90,14 +116,20 @@ public class JSONSchemaStore {
 
 		JSONObject currentSchema = null;
 
+		JSONSchema schemaId = null;
+		String schema = null;
+
 		try {
 			JSONArray schemaArray = IOUtils.readJSONArrayFromFile(JSONConstants.JSONSchemas.SCHEMA_LIST);
 
 			for (int i = 0; i < schemaArray.length(); i++) {
 				currentSchema = schemaArray.getJSONObject(i);
 
-				schemas.put(JSONSchema.valueOf(currentSchema.getString(JSONConstants.JSONSchemas.SCHEMA_ID)),
-						IOUtils.readStringFromFile(currentSchema.getString(JSONConstants.JSONSchemas.SCHEMA_PATH)));
+				schemaId = JSONSchema.valueOf(currentSchema.getString(JSONConstants.JSONSchemas.SCHEMA_ID));
+				schema = IOUtils.readStringFromFile(currentSchema.getString(JSONConstants.JSONSchemas.SCHEMA_PATH));
+
+				schemas.put(schemaId, schema);
+				validators.put(schemaId, JSONSchemaValidator.compile(schema));
 			}
 
 		} catch (JSONIOException e) {
@@ -0,0 +1,729 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.json;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vvote.exceptions.JSONSchemaException;
+import com.vvote.thirdparty.json.orgjson.JSONArray;
+import com.vvote.thirdparty.json.orgjson.JSONException;
+import com.vvote.thirdparty.json.orgjson.JSONObject;
+
+/**
+ * Provides a compiled JSON schema validator. A schema is compiled once into a
+ * tree of immutable checks which are then applied directly to already parsed
+ * <code>JSONObject</code> and <code>JSONArray</code> values, so no
+ * serialisation or script engine is needed to validate a message.
+ * 
+ * The validator supports the subset of JSON schema (draft 4) used by the
+ * schemas in the system: type, enum, pattern, minLength, maxLength, minimum,
+ * maximum, required, properties, additionalProperties, items, additionalItems,
+ * minItems and maxItems. Patterns are matched anywhere within a string, as
+ * with the ECMAScript <code>RegExp.test</code> used by JSON schema.
+ * 
+ * A compiled validator holds no mutable state and can be shared between
+ * threads and reused for any number of validations.
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class JSONSchemaValidator {
+
+	/**
+	 * provides logging for the class
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(JSONSchemaValidator.class);
+
+	/**
+	 * Path used for the root of the json being validated
+	 */
+	private static final String ROOT_PATH = "#";
+
+	/**
+	 * The JSON types which can be checked by a schema
+	 */
+	private static enum JSONType {
+		OBJECT("object"), ARRAY("array"), STRING("string"), NUMBER("number"), INTEGER("integer"), BOOLEAN("boolean"), NULL("null");
+
+		/**
+		 * The name of the type used in a schema
+		 */
+		private final String schemaName;
+
+		/**
+		 * Constructor for a JSONType
+		 * 
+		 * @param schemaName
+		 */
+		private JSONType(String schemaName) {
+			this.schemaName = schemaName;
+		}
+
+		/**
+		 * Gets the type for the name used in a schema
+		 * 
+		 * @param schemaName
+		 * @return the type or null if the name is unknown
+		 */
+		private static JSONType fromSchemaName(String schemaName) {
+			for (JSONType type : values()) {
+				if (type.schemaName.equals(schemaName)) {
+					return type;
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Compiles a schema provided in string format
+	 * 
+	 * @param schema
+	 * @return the compiled validator
+	 * @throws JSONSchemaException
+	 */
+	public static JSONSchemaValidator compile(String schema) throws JSONSchemaException {
+		if (schema == null) {
+			logger.error("A schema must be provided to create a validator");
+			throw new JSONSchemaException("A schema must be provided to create a validator");
+		}
+
+		try {
+			return compile(new JSONObject(schema));
+		} catch (JSONException e) {
+			logger.error("Unable to compile the schema - check the input schema file", e);
+			throw new JSONSchemaException("Unable to compile the schema - check the input schema file", e);
+		}
+	}
+
+	/**
+	 * Compiles a schema
+	 * 
+	 * @param schema
+	 * @return the compiled validator
+	 * @throws JSONSchemaException
+	 */
+	public static JSONSchemaValidator compile(JSONObject schema) throws JSONSchemaException {
+		if (schema == null) {
+			logger.error("A schema must be provided to create a validator");
+			throw new JSONSchemaException("A schema must be provided to create a validator");
+		}
+
+		return new JSONSchemaValidator(compileNode(schema, ROOT_PATH));
+	}
+
+	/**
+	 * The root of the compiled schema
+	 */
+	private final SchemaNode root;
+
+	/**
+	 * Constructor for a JSONSchemaValidator
+	 * 
+	 * @param root
+	 */
+	private JSONSchemaValidator(SchemaNode root) {
+		this.root = root;
+	}
+
+	/**
+	 * Validates a json value against the schema
+	 * 
+	 * @param json
+	 * @return true if the json complies with the schema
+	 */
+	public boolean validate(Object json) {
+		String error = this.findError(json);
+
+		if (error != null) {
+			logger.error("JSON does not comply with the schema: {}", error);
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Finds the first place a json value does not comply with the schema
+	 * 
+	 * @param json
+	 * @return a description of the first error found or null if the json
+	 *         complies with the schema
+	 */
+	public String findError(Object json) {
+		return this.root.check(json == null ? JSONObject.NULL : json, ROOT_PATH);
+	}
+
+	/**
+	 * Compiles a single schema or sub-schema
+	 * 
+	 * @param schema
+	 * @param path
+	 * @return the compiled node
+	 * @throws JSONSchemaException
+	 */
+	private static SchemaNode compileNode(JSONObject schema, String path) throws JSONSchemaException {
+		try {
+			SchemaNode node = new SchemaNode();
+
+			// type
+			Object type = schema.opt("type");
+			if (type instanceof String) {
+				node.types = EnumSet.of(compileType((String) type, path));
+			} else if (type instanceof JSONArray) {
+				JSONArray typeArray = (JSONArray) type;
+				node.types = EnumSet.noneOf(JSONType.class);
+				for (int i = 0; i < typeArray.length(); i++) {
+					node.types.add(compileType(typeArray.getString(i), path));
+				}
+			} else if (type != null) {
+				throw new JSONSchemaException("Invalid type in schema at: " + path);
+			}
+
+			// enum
+			JSONArray enumArray = schema.optJSONArray("enum");
+			if (enumArray != null) {
+				node.enumValues = new ArrayList<Object>();
+				for (int i = 0; i < enumArray.length(); i++) {
+					node.enumValues.add(enumArray.get(i));
+				}
+			}
+
+			// string checks
+			if (schema.has("pattern")) {
+				try {
+					node.pattern = Pattern.compile(schema.getString("pattern"));
+				} catch (PatternSyntaxException e) {
+					throw new JSONSchemaException("Invalid pattern in schema at: " + path, e);
+				}
+			}
+			node.minLength = optLimit(schema, "minLength");
+			node.maxLength = optLimit(schema, "maxLength");
+
+			// number checks
+			if (schema.has("minimum")) {
+				node.minimum = new BigDecimal(schema.get("minimum").toString());
+			}
+			if (schema.has("maximum")) {
+				node.maximum = new BigDecimal(schema.get("maximum").toString());
+			}
+
+			// object checks
+			JSONArray required = schema.optJSONArray("required");
+			if (required != null) {
+				node.required = new ArrayList<String>();
+				for (int i = 0; i < required.length(); i++) {
+					node.required.add(required.getString(i));
+				}
+			}
+
+			JSONObject properties = schema.optJSONObject("properties");
+			if (properties != null) {
+				node.properties = new LinkedHashMap<String, SchemaNode>();
+				Iterator<?> keys = properties.keys();
+				String key = null;
+				while (keys.hasNext()) {
+					key = keys.next().toString();
+					node.properties.put(key, compileNode(properties.getJSONObject(key), path + "/properties/" + key));
+				}
+			}
+
+			Object additionalProperties = schema.opt("additionalProperties");
+			if (Boolean.FALSE.equals(additionalProperties)) {
+				node.allowAdditionalProperties = false;
+			} else if (additionalProperties instanceof JSONObject) {
+				node.additionalProperties = compileNode((JSONObject) additionalProperties, path + "/additionalProperties");
+			}
+
+			// array checks
+			Object items = schema.opt("items");
+			if (items instanceof JSONObject) {
+				node.items = compileNode((JSONObject) items, path + "/items");
+			} else if (items instanceof JSONArray) {
+				JSONArray itemsArray = (JSONArray) items;
+				node.tupleItems = new ArrayList<SchemaNode>();
+				for (int i = 0; i < itemsArray.length(); i++) {
+					node.tupleItems.add(compileNode(itemsArray.getJSONObject(i), path + "/items/" + i));
+				}
+			}
+
+			Object additionalItems = schema.opt("additionalItems");
+			if (Boolean.FALSE.equals(additionalItems)) {
+				node.allowAdditionalItems = false;
+			} else if (additionalItems instanceof JSONObject) {
+				node.additionalItems = compileNode((JSONObject) additionalItems, path + "/additionalItems");
+			}
+
+			node.minItems = optLimit(schema, "minItems");
+			node.maxItems = optLimit(schema, "maxItems");
+
+			node.freeze();
+
+			return node;
+		} catch (JSONException e) {
+			logger.error("Unable to compile the schema at: {}", path, e);
+			throw new JSONSchemaException("Unable to compile the schema at: " + path, e);
+		}
+	}
+
+	/**
+	 * Compiles the name of a type
+	 * 
+	 * @param typeName
+	 * @param path
+	 * @return the type
+	 * @throws JSONSchemaException
+	 */
+	private static JSONType compileType(String typeName, String path) throws JSONSchemaException {
+		JSONType type = JSONType.fromSchemaName(typeName);
+
+		if (type == null) {
+			throw new JSONSchemaException("Unknown type '" + typeName + "' in schema at: " + path);
+		}
+
+		return type;
+	}
+
+	/**
+	 * Reads an optional non-negative integer limit from a schema
+	 * 
+	 * @param schema
+	 * @param key
+	 * @return the limit or -1 if it is not present
+	 * @throws JSONException
+	 */
+	private static int optLimit(JSONObject schema, String key) throws JSONException {
+		if (schema.has(key)) {
+			return schema.getInt(key);
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks whether a value is of a specific type
+	 * 
+	 * @param value
+	 * @param type
+	 * @return true if the value is of the type
+	 */
+	private static boolean isType(Object value, JSONType type) {
+		switch (type) {
+			case OBJECT:
+				return value instanceof JSONObject;
+			case ARRAY:
+				return value instanceof JSONArray;
+			case STRING:
+				return value instanceof String;
+			case BOOLEAN:
+				return value instanceof Boolean;
+			case NULL:
+				return JSONObject.NULL.equals(value);
+			case NUMBER:
+				return value instanceof Number;
+			case INTEGER:
+				if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte || value instanceof BigInteger) {
+					return true;
+				}
+				if (value instanceof Number) {
+					double doubleValue = ((Number) value).doubleValue();
+					return !Double.isInfinite(doubleValue) && doubleValue == Math.floor(doubleValue);
+				}
+				return false;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Compares two json values for equality as required by enum
+	 * 
+	 * @param first
+	 * @param second
+	 * @return true if the values are equal
+	 */
+	private static boolean jsonEquals(Object first, Object second) {
+		if (first instanceof Number && second instanceof Number) {
+			return new BigDecimal(first.toString()).compareTo(new BigDecimal(second.toString())) == 0;
+		}
+
+		if (first instanceof JSONObject && second instanceof JSONObject) {
+			JSONObject firstObject = (JSONObject) first;
+			JSONObject secondObject = (JSONObject) second;
+
+			if (firstObject.length() != secondObject.length()) {
+				return false;
+			}
+
+			Iterator<?> keys = firstObject.keys();
+			String key = null;
+			while (keys.hasNext()) {
+				key = keys.next().toString();
+				if (!secondObject.has(key) || !jsonEquals(firstObject.opt(key), secondObject.opt(key))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		if (first instanceof JSONArray && second instanceof JSONArray) {
+			JSONArray firstArray = (JSONArray) first;
+			JSONArray secondArray = (JSONArray) second;
+
+			if (firstArray.length() != secondArray.length()) {
+				return false;
+			}
+
+			for (int i = 0; i < firstArray.length(); i++) {
+				if (!jsonEquals(firstArray.opt(i), secondArray.opt(i))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		return first.equals(second);
+	}
+
+	/**
+	 * A single compiled schema or sub-schema. Nodes are only modified while
+	 * being compiled
+	 * 
+	 * @author James Rumble
+	 * 
+	 */
+	private static final class SchemaNode {
+
+		/**
+		 * The allowed types or null if any type is allowed
+		 */
+		private Set<JSONType> types = null;
+
+		/**
+		 * The allowed values or null if any value is allowed
+		 */
+		private List<Object> enumValues = null;
+
+		/**
+		 * The pattern strings must match
+		 */
+		private Pattern pattern = null;
+
+		/**
+		 * The minimum length of strings
+		 */
+		private int minLength = -1;
+
+		/**
+		 * The maximum length of strings
+		 */
+		private int maxLength = -1;
+
+		/**
+		 * The minimum value of numbers
+		 */
+		private BigDecimal minimum = null;
+
+		/**
+		 * The maximum value of numbers
+		 */
+		private BigDecimal maximum = null;
+
+		/**
+		 * The required properties of objects
+		 */
+		private List<String> required = null;
+
+		/**
+		 * The schemas for named properties of objects
+		 */
+		private Map<String, SchemaNode> properties = null;
+
+		/**
+		 * Whether properties not named in properties are allowed
+		 */
+		private boolean allowAdditionalProperties = true;
+
+		/**
+		 * The schema for properties not named in properties
+		 */
+		private SchemaNode additionalProperties = null;
+
+		/**
+		 * The schema for every item of an array
+		 */
+		private SchemaNode items = null;
+
+		/**
+		 * The schemas for each position of an array
+		 */
+		private List<SchemaNode> tupleItems = null;
+
+		/**
+		 * Whether items beyond the tuple items are allowed
+		 */
+		private boolean allowAdditionalItems = true;
+
+		/**
+		 * The schema for items beyond the tuple items
+		 */
+		private SchemaNode additionalItems = null;
+
+		/**
+		 * The minimum number of items in arrays
+		 */
+		private int minItems = -1;
+
+		/**
+		 * The maximum number of items in arrays
+		 */
+		private int maxItems = -1;
+
+		/**
+		 * Makes the collections held by the node unmodifiable once it has been
+		 * compiled
+		 */
+		private void freeze() {
+			if (this.types != null) {
+				this.types = Collections.unmodifiableSet(this.types);
+			}
+			if (this.enumValues != null) {
+				this.enumValues = Collections.unmodifiableList(this.enumValues);
+			}
+			if (this.required != null) {
+				this.required = Collections.unmodifiableList(this.required);
+			}
+			if (this.properties != null) {
+				this.properties = Collections.unmodifiableMap(this.properties);
+			}
+			if (this.tupleItems != null) {
+				this.tupleItems = Collections.unmodifiableList(this.tupleItems);
+			}
+		}
+
+		/**
+		 * Checks a value against the node
+		 * 
+		 * @param value
+		 * @param path
+		 * @return a description of the first error found or null if the value
+		 *         is valid
+		 */
+		private String check(Object value, String path) {
+
+			if (this.types != null) {
+				boolean matched = false;
+				for (JSONType type : this.types) {
+					if (isType(value, type)) {
+						matched = true;
+						break;
+					}
+				}
+				if (!matched) {
+					return path + ": invalid type, expected " + this.types;
+				}
+			}
+
+			if (this.enumValues != null) {
+				boolean matched = false;
+				for (Object enumValue : this.enumValues) {
+					if (jsonEquals(enumValue, value)) {
+						matched = true;
+						break;
+					}
+				}
+				if (!matched) {
+					return path + ": value does not match any enum value";
+				}
+			}
+
+			if (value instanceof String) {
+				return this.checkString((String) value, path);
+			} else if (value instanceof Number) {
+				return this.checkNumber((Number) value, path);
+			} else if (value instanceof JSONObject) {
+				return this.checkObject((JSONObject) value, path);
+			} else if (value instanceof JSONArray) {
+				return this.checkArray((JSONArray) value, path);
+			}
+
+			return null;
+		}
+
+		/**
+		 * Checks a string value
+		 * 
+		 * @param value
+		 * @param path
+		 * @return a description of the first error found or null if the value
+		 *         is valid
+		 */
+		private String checkString(String value, String path) {
+			if (this.pattern != null && !this.pattern.matcher(value).find()) {
+				return path + ": string does not match pattern " + this.pattern.pattern();
+			}
+
+			int length = value.codePointCount(0, value.length());
+
+			if (this.minLength >= 0 && length < this.minLength) {
+				return path + ": string is shorter than " + this.minLength;
+			}
+
+			if (this.maxLength >= 0 && length > this.maxLength) {
+				return path + ": string is longer than " + this.maxLength;
+			}
+
+			return null;
+		}
+
+		/**
+		 * Checks a number value
+		 * 
+		 * @param value
+		 * @param path
+		 * @return a description of the first error found or null if the value
+		 *         is valid
+		 */
+		private String checkNumber(Number value, String path) {
+			if (this.minimum == null && this.maximum == null) {
+				return null;
+			}
+
+			BigDecimal number = new BigDecimal(value.toString());
+
+			if (this.minimum != null && number.compareTo(this.minimum) < 0) {
+				return path + ": value is less than " + this.minimum;
+			}
+
+			if (this.maximum != null && number.compareTo(this.maximum) > 0) {
+				return path + ": value is greater than " + this.maximum;
+			}
+
+			return null;
+		}
+
+		/**
+		 * Checks an object value
+		 * 
+		 * @param value
+		 * @param path
+		 * @return a description of the first error found or null if the value
+		 *         is valid
+		 */
+		private String checkObject(JSONObject value, String path) {
+			if (this.required != null) {
+				for (String key : this.required) {
+					if (!value.has(key)) {
+						return path + ": missing required property " + key;
+					}
+				}
+			}
+
+			if (this.properties == null && this.allowAdditionalProperties && this.additionalProperties == null) {
+				return null;
+			}
+
+			Iterator<?> keys = value.keys();
+			String key = null;
+			SchemaNode propertyNode = null;
+			String error = null;
+
+			while (keys.hasNext()) {
+				key = keys.next().toString();
+
+				propertyNode = this.properties != null ? this.properties.get(key) : null;
+
+				if (propertyNode == null) {
+					if (!this.allowAdditionalProperties) {
+						return path + ": additional property " + key + " is not allowed";
+					}
+					propertyNode = this.additionalProperties;
+				}
+
+				if (propertyNode != null) {
+					error = propertyNode.check(value.opt(key), path + "/" + key);
+					if (error != null) {
+						return error;
+					}
+				}
+			}
+
+			return null;
+		}
+
+		/**
+		 * Checks an array value
+		 * 
+		 * @param value
+		 * @param path
+		 * @return a description of the first error found or null if the value
+		 *         is valid
+		 */
+		private String checkArray(JSONArray value, String path) {
+			int length = value.length();
+
+			if (this.minItems >= 0 && length < this.minItems) {
+				return path + ": array has fewer than " + this.minItems + " items";
+			}
+
+			if (this.maxItems >= 0 && length > this.maxItems) {
+				return path + ": array has more than " + this.maxItems + " items";
+			}
+
+			SchemaNode itemNode = null;
+			String error = null;
+
+			for (int i = 0; i < length; i++) {
+
+				if (this.tupleItems != null) {
+					if (i < this.tupleItems.size()) {
+						itemNode = this.tupleItems.get(i);
+					} else if (!this.allowAdditionalItems) {
+						return path + ": additional item " + i + " is not allowed";
+					} else {
+						itemNode = this.additionalItems;
+					}
+				} else {
+					itemNode = this.items;
+				}
+
+				if (itemNode != null) {
+					error = itemNode.check(value.opt(i), path + "/" + i);
+					if (error != null) {
+						return error;
+					}
+				}
+			}
+
+			return null;
+		}
+	}
+}
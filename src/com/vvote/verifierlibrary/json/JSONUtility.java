@@ -19,18 +19,13 @@ package com.vvote.verifierlibrary.json;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
-
-import javax.script.Bindings;
-import javax.script.Compilable;
-import javax.script.CompiledScript;
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
-import javax.script.ScriptException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.vvote.JSONConstants;
+import com.vvote.JSONSchema;
 import com.vvote.exceptions.JSONSchemaException;
 import com.vvote.thirdparty.json.orgjson.JSONException;
 import com.vvote.thirdparty.json.orgjson.JSONObject;
@@ -51,19 +46,10 @@ public class JSONUtility {
 	private static final Logger logger = LoggerFactory.getLogger(JSONUtility.class);
 
 	/**
-	 * Script engine manager for processing
-	 */
-	private static final ScriptEngineManager SCRIPT_ENGINE_MANAGER = new ScriptEngineManager();
-
-	/**
-	 * Script engine in use
-	 */
-	private static final ScriptEngine SCRIPT_ENGINE = SCRIPT_ENGINE_MANAGER.getEngineByName(JSONConstants.SchemaProcessing.SCRIPT_ENGINE_NAME);
-
-	/**
-	 * Compiled script used for processing schemas
+	 * Cache of validators compiled from schemas provided in string format.
+	 * Schema : compiled validator
 	 */
-	private static CompiledScript compiledSchemaScript = null;
+	private static final ConcurrentMap<String, JSONSchemaValidator> compiledSchemas = new ConcurrentHashMap<String, JSONSchemaValidator>();
 
 	/**
 	 * Loads a schema from file
@@ -86,65 +72,75 @@ public class JSONUtility {
 	}
 
 	/**
-	 * Validates a json against a provided schema
+	 * Gets the compiled validator for a schema provided in string format. Each
+	 * schema is only compiled once
 	 * 
 	 * @param schema
-	 * @param json
-	 * @return true if the schema was validated successfully
+	 * @return the compiled validator
 	 * @throws JSONSchemaException
 	 */
-	public static boolean validateSchema(String schema, String json) throws JSONSchemaException {
-
-		logger.debug("Validating JSON: '" + json + "'.");
-		logger.debug("Using JSON Schema: '" + schema + "'.");
-
-		try {
-			// if schema script hasn't been initialised yet
-			if (JSONUtility.compiledSchemaScript == null) {
+	public static JSONSchemaValidator getValidator(String schema) throws JSONSchemaException {
+		if (schema == null) {
+			logger.error("Unable to validate json using schema - a schema must be provided");
+			throw new JSONSchemaException("Unable to validate json using schema - a schema must be provided");
+		}
 
-				// initialise the schema script for validating a schema
-				Compilable compilingEngine = (Compilable) JSONUtility.SCRIPT_ENGINE;
+		JSONSchemaValidator validator = compiledSchemas.get(schema);
 
-				// uncompiled script
-				String uncompiledScript = IOUtils.readStringFromFile(JSONConstants.SchemaProcessing.SCHEMA_JS_LOCATION);
+		if (validator == null) {
+			validator = JSONSchemaValidator.compile(schema);
 
-				// compile the validating script
-				JSONUtility.compiledSchemaScript = compilingEngine.compile(uncompiledScript);
+			JSONSchemaValidator existing = compiledSchemas.putIfAbsent(schema, validator);
+			if (existing != null) {
+				validator = existing;
 			}
-			Bindings bindings = SCRIPT_ENGINE.createBindings();
-			bindings.put(JSONConstants.SchemaProcessing.DATA_VARIABLE, json);
-			bindings.put(JSONConstants.SchemaProcessing.SCHEMA_VARIABLE, schema);
-			JSONObject result = new JSONObject(JSONUtility.compiledSchemaScript.eval(bindings).toString());
-			if (result.getBoolean(JSONConstants.SchemaProcessing.IS_VALID)) {
-				if (result.getJSONArray(JSONConstants.SchemaProcessing.IS_MISSING).length() == 0) {
-					if (result.get(JSONConstants.SchemaProcessing.IS_ERROR) != null) {
-						return true;
-					}
-					logger.error("JSON contained an error: {}", result.getJSONArray(JSONConstants.SchemaProcessing.IS_ERROR).toString());
-					throw new JSONSchemaException("JSON contained an error: " + result.getJSONArray(JSONConstants.SchemaProcessing.IS_ERROR).toString());
-				}
-				logger.error("JSON was missing a field: {}", result.getJSONArray(JSONConstants.SchemaProcessing.IS_MISSING).toString());
-				throw new JSONSchemaException("JSON was missing a field: " + result.getJSONArray(JSONConstants.SchemaProcessing.IS_MISSING).toString());
+		}
 
-			}
-			logger.error("Validating of the JSON Failed: {} using the schema file: {}", result.toString(), schema);
-			return false;
+		return validator;
+	}
 
-		} catch (ScriptException e) {
-			logger.error("Unable to validate json using schema - check the input schema file", e);
-			throw new JSONSchemaException("Unable to validate json using schema - check the input schema file", e);
+	/**
+	 * Validates a json against a provided schema
+	 * 
+	 * @param schema
+	 * @param json
+	 * @return true if the schema was validated successfully
+	 * @throws JSONSchemaException
+	 */
+	public static boolean validateSchema(String schema, String json) throws JSONSchemaException {
+		try {
+			return validateSchema(schema, new JSONObject(json));
 		} catch (JSONException e) {
-			logger.error("Unable to validate json using schema - check the input schema file", e);
-			throw new JSONSchemaException("Unable to validate json using schema - check the input schema file", e);
-		} catch (FileNotFoundException e) {
-			logger.error("Unable to validate json using schema - check the input schema file", e);
-			throw new JSONSchemaException("Unable to validate json using schema - check the input schema file", e);
-		} catch (IOException e) {
-			logger.error("Unable to validate json using schema - check the input schema file", e);
-			throw new JSONSchemaException("Unable to validate json using schema - check the input schema file", e);
+			logger.error("Unable to validate json using schema - check the input json", e);
+			throw new JSONSchemaException("Unable to validate json using schema - check the input json", e);
 		}
 	}
 
+	/**
+	 * Validates an already parsed json object against a provided schema
+	 * 
+	 * @param schema
+	 * @param json
+	 * @return true if the schema was validated successfully
+	 * @throws JSONSchemaException
+	 */
+	public static boolean validateSchema(String schema, JSONObject json) throws JSONSchemaException {
+		return getValidator(schema).validate(json);
+	}
+
+	/**
+	 * Validates an already parsed json object against one of the schemas in use
+	 * in the system
+	 * 
+	 * @param schema
+	 * @param json
+	 * @return true if the schema was validated successfully
+	 * @throws JSONSchemaException
+	 */
+	public static boolean validateSchema(JSONSchema schema, JSONObject json) throws JSONSchemaException {
+		return JSONSchemaStore.getValidator(schema).validate(json);
+	}
+
 	/**
 	 * Prevents the class being externally created
 	 */
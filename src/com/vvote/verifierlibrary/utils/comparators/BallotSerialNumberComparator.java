@@ -19,11 +19,12 @@ package com.vvote.verifierlibrary.utils.comparators;
 
 import java.util.Comparator;
 
-import com.vvote.JSONConstants;
+import com.vvote.verifierlibrary.utils.serial.SerialNumber;
 
 /**
  * Allows serial numbers for ballots to be easily sorted. Serial numbers are
- * made up of a string and a number
+ * made up of a string and a number. The comparison is carried out in place
+ * without creating substrings or boxed numbers
  * 
  * @author James Rumble
  * 
@@ -32,20 +33,7 @@ public class BallotSerialNumberComparator implements Comparator<String> {
 
 	@Override
 	public int compare(String serial1, String serial2) {
-
-		// compare the string part of the serial number
-		int comp = serial1.substring(0, serial1.indexOf(JSONConstants.SERIAL_NO_SEPARATOR)).compareTo(serial2.substring(0, serial2.indexOf(JSONConstants.SERIAL_NO_SEPARATOR)));
-
-		// if serial numbers are from the same device compare the number after
-		// the separator
-		if (comp == 0) {
-			
-			Integer first = Integer.parseInt(serial1.substring(serial1.indexOf(JSONConstants.SERIAL_NO_SEPARATOR) + 1));
-			Integer second = Integer.parseInt(serial2.substring(serial2.indexOf(JSONConstants.SERIAL_NO_SEPARATOR) + 1));
-			
-			return Integer.compare(first, second);
-		}
-		return comp;
+		return SerialNumber.compare(serial1, serial2);
 	}
 
 }
@@ -0,0 +1,113 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.BitSet;
+
+import org.bouncycastle.crypto.Commitment;
+import org.bouncycastle.crypto.commitments.HashCommitter;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vvote.CryptoConstants;
+import com.vvote.verifierlibrary.exceptions.CommitException;
+
+/**
+ * Hash commitment engine using the HashCommitter from bouncy castle and the
+ * isRevealed function
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class BouncyCastleHashCommitmentVerifier implements HashCommitmentVerifier {
+
+	/**
+	 * provides logging for the class
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(BouncyCastleHashCommitmentVerifier.class);
+
+	@Override
+	public String getName() {
+		return "Bouncy Castle";
+	}
+
+	@Override
+	public BitSet verify(HashCommitmentBatch batch) throws CommitException {
+
+		BitSet verified = new BitSet(batch.size());
+
+		for (int i = 0; i < batch.size(); i++) {
+			if (verify(batch.getCommitment(i), batch.getWitness(i), batch.getRandomValue(i))) {
+				verified.set(i);
+			}
+		}
+
+		return verified;
+	}
+
+	/**
+	 * Perform a verification on a hash commitment using bouncy castle
+	 * 
+	 * @param commitment
+	 * @param witness
+	 * @param randomValue
+	 * @return whether the commitment check is successful
+	 * @throws CommitException
+	 */
+	private static boolean verify(byte[] commitment, byte[] witness, byte[] randomValue) throws CommitException {
+
+		logger.debug("Verifying hash commitment using Bouncy castle implementation");
+
+		// initialise a hash committer
+		HashCommitter hashCommitter = new HashCommitter(new SHA256Digest(), new SecureRandom(witness));
+
+		MessageDigest md = null;
+
+		try {
+			logger.debug("Initialising message digest");
+			// initialise the message digest
+			md = MessageDigest.getInstance(CryptoConstants.Commitments.COMMITMENT_HASH_ALGORITHM);
+
+			// ensure the random value is the correct length
+			if (randomValue.length > CryptoConstants.Commitments.RANDOM_VALUE_MAXIMUM_LENGTH) {
+				logger.debug("Hashing random value to the correct length");
+				md.reset();
+				randomValue = md.digest(randomValue);
+			}
+
+			// initialise a new Commitment
+			Commitment comm = new Commitment(witness, commitment);
+
+			// check whether the given random value opens the commitment
+			if (!hashCommitter.isRevealed(comm, randomValue)) {
+				logger.error("Bouncy castle hash commitment verification failed");
+				return false;
+			}
+
+		} catch (NoSuchAlgorithmException e) {
+			logger.error("Could not initialise the message digest with the specified algorithm: {}", CryptoConstants.Commitments.COMMITMENT_HASH_ALGORITHM, e);
+			throw new CommitException("Could not initialise the message digest with the specified algorithm: " + CryptoConstants.Commitments.COMMITMENT_HASH_ALGORITHM, e);
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,200 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto;
+
+/**
+ * Describes when hash commitments checked by the primary engine are also
+ * cross-checked by the other, independent, engines: always, on a
+ * deterministic random sample of the commitments or only when the primary
+ * engine rejects a commitment.
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class CommitmentVerificationPolicy {
+
+	/**
+	 * When cross-checking takes place
+	 */
+	public enum CrossCheck {
+
+		/**
+		 * Every commitment is cross-checked
+		 */
+		ALWAYS("always"),
+
+		/**
+		 * A deterministic random sample of the commitments is cross-checked
+		 */
+		SAMPLE("sample"),
+
+		/**
+		 * Only commitments rejected by the primary engine are cross-checked
+		 */
+		ON_FAILURE("onFailure");
+
+		/**
+		 * The value used in the spec files
+		 */
+		private final String value;
+
+		/**
+		 * Constructor for a CrossCheck
+		 * 
+		 * @param value
+		 */
+		private CrossCheck(String value) {
+			this.value = value;
+		}
+
+		/**
+		 * Getter for the value used in the spec files
+		 * 
+		 * @return the value used in the spec files
+		 */
+		public String getValue() {
+			return this.value;
+		}
+
+		/**
+		 * Gets the CrossCheck for a value used in the spec files
+		 * 
+		 * @param value
+		 * @return the matching CrossCheck or null if there is none
+		 */
+		public static CrossCheck fromValue(String value) {
+			for (CrossCheck crossCheck : values()) {
+				if (crossCheck.value.equals(value)) {
+					return crossCheck;
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * The policy used when none is specified - every commitment is checked by
+	 * every engine
+	 */
+	public static final CommitmentVerificationPolicy ALWAYS = new CommitmentVerificationPolicy(CrossCheck.ALWAYS, 100, 0);
+
+	/**
+	 * When cross-checking takes place
+	 */
+	private final CrossCheck crossCheck;
+
+	/**
+	 * The percentage of commitments cross-checked when sampling
+	 */
+	private final int samplePercentage;
+
+	/**
+	 * Seed selecting which commitments are sampled
+	 */
+	private final long sampleSeed;
+
+	/**
+	 * Constructor for a CommitmentVerificationPolicy
+	 * 
+	 * @param crossCheck
+	 * @param samplePercentage
+	 *            the percentage of commitments cross-checked when sampling,
+	 *            from 0 to 100
+	 * @param sampleSeed
+	 *            seed selecting which commitments are sampled
+	 */
+	public CommitmentVerificationPolicy(CrossCheck crossCheck, int samplePercentage, long sampleSeed) {
+
+		if (crossCheck == null) {
+			throw new IllegalArgumentException("A cross-check policy must be provided");
+		}
+
+		if (samplePercentage < 0 || samplePercentage > 100) {
+			throw new IllegalArgumentException("The sample percentage must be between 0 and 100: " + samplePercentage);
+		}
+
+		this.crossCheck = crossCheck;
+		this.samplePercentage = samplePercentage;
+		this.sampleSeed = sampleSeed;
+	}
+
+	/**
+	 * Getter for when cross-checking takes place
+	 * 
+	 * @return when cross-checking takes place
+	 */
+	public CrossCheck getCrossCheck() {
+		return this.crossCheck;
+	}
+
+	/**
+	 * Getter for the percentage of commitments cross-checked when sampling
+	 * 
+	 * @return the sample percentage
+	 */
+	public int getSamplePercentage() {
+		return this.samplePercentage;
+	}
+
+	/**
+	 * Getter for the seed selecting which commitments are sampled
+	 * 
+	 * @return the sample seed
+	 */
+	public long getSampleSeed() {
+		return this.sampleSeed;
+	}
+
+	/**
+	 * Decides whether a commitment falls in the sample. The decision depends
+	 * only on the commitment and the seed so repeated runs cross-check the same
+	 * commitments
+	 * 
+	 * @param commitment
+	 * @return true if the commitment falls in the sample
+	 */
+	public boolean isSampled(byte[] commitment) {
+		long hash = this.sampleSeed;
+
+		for (byte b : commitment) {
+			hash = 31 * hash + b;
+		}
+
+		// finalise the hash so that every bit affects the result
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+
+		return (hash >>> 1) % 100 < this.samplePercentage;
+	}
+
+	@Override
+	public String toString() {
+		switch (this.crossCheck) {
+			case SAMPLE:
+				return "cross-check " + this.samplePercentage + "% sample (seed " + this.sampleSeed + ")";
+			case ON_FAILURE:
+				return "cross-check on failure";
+			case ALWAYS:
+			default:
+				return "cross-check always";
+		}
+	}
+}
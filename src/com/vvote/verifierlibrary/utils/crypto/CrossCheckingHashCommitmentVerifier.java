@@ -0,0 +1,252 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vvote.verifierlibrary.exceptions.CommitException;
+import com.vvote.verifierlibrary.utils.Utils;
+
+/**
+ * Checks hash commitments with a primary engine and cross-checks them with a
+ * number of independent engines according to a CommitmentVerificationPolicy.
+ * A commitment only verifies if every engine which checked it accepts it, and
+ * any disagreement between the engines is logged.
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class CrossCheckingHashCommitmentVerifier implements HashCommitmentVerifier {
+
+	/**
+	 * provides logging for the class
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(CrossCheckingHashCommitmentVerifier.class);
+
+	/**
+	 * Batch reused on each thread for holding the commitments selected for
+	 * cross-checking
+	 */
+	private static final ThreadLocal<HashCommitmentBatch> crossCheckBatch = new ThreadLocal<HashCommitmentBatch>() {
+		@Override
+		protected HashCommitmentBatch initialValue() {
+			return new HashCommitmentBatch();
+		}
+	};
+
+	/**
+	 * The primary engine which checks every commitment
+	 */
+	private final HashCommitmentVerifier primary;
+
+	/**
+	 * The engines used for cross-checking
+	 */
+	private final List<HashCommitmentVerifier> crossCheckers;
+
+	/**
+	 * When cross-checking takes place
+	 */
+	private final CommitmentVerificationPolicy policy;
+
+	/**
+	 * The number of commitments checked
+	 */
+	private final AtomicLong checkedCount = new AtomicLong();
+
+	/**
+	 * The number of commitments cross-checked
+	 */
+	private final AtomicLong crossCheckedCount = new AtomicLong();
+
+	/**
+	 * The number of disagreements between the primary and cross-checking
+	 * engines
+	 */
+	private final AtomicLong disagreementCount = new AtomicLong();
+
+	/**
+	 * Constructor for a CrossCheckingHashCommitmentVerifier
+	 * 
+	 * @param primary
+	 * @param crossCheckers
+	 * @param policy
+	 */
+	public CrossCheckingHashCommitmentVerifier(HashCommitmentVerifier primary, List<HashCommitmentVerifier> crossCheckers, CommitmentVerificationPolicy policy) {
+		this.primary = primary;
+		this.crossCheckers = Collections.unmodifiableList(new ArrayList<HashCommitmentVerifier>(crossCheckers));
+		this.policy = policy;
+	}
+
+	/**
+	 * Creates a verifier using the digest engine as the primary engine and the
+	 * bouncy castle, java security and openssl engines for cross-checking
+	 * 
+	 * @param policy
+	 * @return a new CrossCheckingHashCommitmentVerifier
+	 */
+	public static CrossCheckingHashCommitmentVerifier create(CommitmentVerificationPolicy policy) {
+		List<HashCommitmentVerifier> crossCheckers = new ArrayList<HashCommitmentVerifier>();
+		crossCheckers.add(new BouncyCastleHashCommitmentVerifier());
+		crossCheckers.add(new JavaSecurityHashCommitmentVerifier());
+		crossCheckers.add(new OpenSSLHashCommitmentVerifier());
+
+		return new CrossCheckingHashCommitmentVerifier(new DigestHashCommitmentVerifier(), crossCheckers, policy);
+	}
+
+	@Override
+	public String getName() {
+		return this.primary.getName() + " (" + this.policy + ")";
+	}
+
+	@Override
+	public BitSet verify(HashCommitmentBatch batch) throws CommitException {
+
+		BitSet primaryResults = this.primary.verify(batch);
+
+		this.checkedCount.addAndGet(batch.size());
+
+		int[] selected = this.selectCrossChecks(batch, primaryResults);
+
+		if (selected.length == 0 || this.crossCheckers.isEmpty()) {
+			return primaryResults;
+		}
+
+		HashCommitmentBatch crossBatch = batch;
+
+		if (selected.length < batch.size()) {
+			crossBatch = crossCheckBatch.get();
+			crossBatch.clear();
+
+			for (int index : selected) {
+				crossBatch.add(batch.getCommitment(index), batch.getWitness(index), batch.getRandomValue(index));
+			}
+		}
+
+		this.crossCheckedCount.addAndGet(selected.length);
+
+		BitSet verified = (BitSet) primaryResults.clone();
+		BitSet crossResults = null;
+
+		for (HashCommitmentVerifier crossChecker : this.crossCheckers) {
+			crossResults = crossChecker.verify(crossBatch);
+
+			for (int j = 0; j < selected.length; j++) {
+				if (crossResults.get(j) != primaryResults.get(selected[j])) {
+					this.disagreementCount.incrementAndGet();
+					logger.error("Hash commitment engines disagree on commitment: {} - {}: {}, {}: {}", Utils.byteToHexString(batch.getCommitment(selected[j])), this.primary.getName(),
+							primaryResults.get(selected[j]), crossChecker.getName(), crossResults.get(j));
+				}
+
+				if (!crossResults.get(j)) {
+					verified.clear(selected[j]);
+				}
+			}
+		}
+
+		if (crossBatch != batch) {
+			crossBatch.clear();
+		}
+
+		return verified;
+	}
+
+	/**
+	 * Selects the commitments to cross-check according to the policy
+	 * 
+	 * @param batch
+	 * @param primaryResults
+	 * @return the indexes of the commitments to cross-check in ascending order
+	 */
+	private int[] selectCrossChecks(HashCommitmentBatch batch, BitSet primaryResults) {
+
+		int[] selected = new int[batch.size()];
+		int count = 0;
+
+		for (int i = 0; i < batch.size(); i++) {
+			switch (this.policy.getCrossCheck()) {
+				case SAMPLE:
+					if (this.policy.isSampled(batch.getCommitment(i))) {
+						selected[count++] = i;
+					}
+					break;
+				case ON_FAILURE:
+					if (!primaryResults.get(i)) {
+						selected[count++] = i;
+					}
+					break;
+				case ALWAYS:
+				default:
+					selected[count++] = i;
+					break;
+			}
+		}
+
+		if (count == selected.length) {
+			return selected;
+		}
+
+		int[] result = new int[count];
+		System.arraycopy(selected, 0, result, 0, count);
+
+		return result;
+	}
+
+	/**
+	 * Getter for the policy
+	 * 
+	 * @return the policy
+	 */
+	public CommitmentVerificationPolicy getPolicy() {
+		return this.policy;
+	}
+
+	/**
+	 * Getter for the number of commitments checked
+	 * 
+	 * @return the number of commitments checked
+	 */
+	public long getCheckedCount() {
+		return this.checkedCount.get();
+	}
+
+	/**
+	 * Getter for the number of commitments cross-checked
+	 * 
+	 * @return the number of commitments cross-checked
+	 */
+	public long getCrossCheckedCount() {
+		return this.crossCheckedCount.get();
+	}
+
+	/**
+	 * Getter for the number of disagreements between the engines
+	 * 
+	 * @return the number of disagreements between the engines
+	 */
+	public long getDisagreementCount() {
+		return this.disagreementCount.get();
+	}
+}
@@ -19,21 +19,15 @@ package com.vvote.verifierlibrary.utils.crypto;
 
 import it.unisa.dia.gas.plaf.jpbc.pairing.PairingFactory;
 
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.security.DigestInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
 import java.security.Security;
-import java.util.Arrays;
+import java.util.BitSet;
 
-import org.bouncycastle.crypto.Commitment;
-import org.bouncycastle.crypto.commitments.HashCommitter;
-import org.bouncycastle.crypto.digests.SHA256Digest;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,7 +35,6 @@ import org.slf4j.LoggerFactory;
 import com.vvote.CryptoConstants;
 import com.vvote.verifierlibrary.exceptions.CommitException;
 import com.vvote.verifierlibrary.exceptions.FileHashException;
-import com.vvote.verifierlibrary.utils.Utils;
 
 /**
  * Provides a utility class to provide cryptographic operations such as carrying
@@ -63,59 +56,26 @@ public class CryptoUtils {
 	private static boolean providerAdded;
 
 	/**
-	 * Loads in the CryptoOpenSSL library
+	 * The hash commitment verifier used when no policy has been specified -
+	 * every commitment is checked by every engine
 	 */
-	static {
-		System.loadLibrary(CryptoConstants.CRYPTO_OPENSSL_LIBRARY);
-	}
+	private static final HashCommitmentVerifier defaultCommitmentVerifier = CrossCheckingHashCommitmentVerifier.create(CommitmentVerificationPolicy.ALWAYS);
 
 	/**
-	 * Perform a verification on a hash commitment using bouncy castle. This
-	 * implementation uses the HashCommitter from bouncy castle and the
-	 * isRevealed function
-	 * 
-	 * @param commitment
-	 * @param witness
-	 * @param randomValue
-	 * @return whether the commitment check is successful
-	 * @throws CommitException
+	 * Batch reused for checking single hash commitments on each thread
 	 */
-	private static boolean bouncyCastleVerifyHashCommitment(byte[] commitment, byte[] witness, byte[] randomValue) throws CommitException {
-
-		logger.debug("Verifying hash commitment using Bouncy castle implementation");
-
-		// initialise a hash committer
-		HashCommitter hashCommitter = new HashCommitter(new SHA256Digest(), new SecureRandom(witness));
-
-		MessageDigest md = null;
-
-		try {
-			logger.debug("Initialising message digest");
-			// initialise the message digest
-			md = MessageDigest.getInstance(CryptoConstants.Commitments.COMMITMENT_HASH_ALGORITHM);
-
-			// ensure the random value is the correct length
-			if (randomValue.length > CryptoConstants.Commitments.RANDOM_VALUE_MAXIMUM_LENGTH) {
-				logger.debug("Hashing random value to the correct length");
-				md.reset();
-				randomValue = md.digest(randomValue);
-			}
-
-			// initialise a new Commitment
-			Commitment comm = new Commitment(witness, commitment);
-
-			// check whether the given random value opens the commitment
-			if (!hashCommitter.isRevealed(comm, randomValue)) {
-				logger.error("Bouncy castle hash commitment verification failed");
-				return false;
-			}
-
-		} catch (NoSuchAlgorithmException e) {
-			logger.error("Could not initialise the message digest with the specified algorithm: {}", CryptoConstants.Commitments.COMMITMENT_HASH_ALGORITHM, e);
-			throw new CommitException("Could not initialise the message digest with the specified algorithm: " + CryptoConstants.Commitments.COMMITMENT_HASH_ALGORITHM, e);
+	private static final ThreadLocal<HashCommitmentBatch> singleCommitmentBatch = new ThreadLocal<HashCommitmentBatch>() {
+		@Override
+		protected HashCommitmentBatch initialValue() {
+			return new HashCommitmentBatch();
 		}
+	};
 
-		return true;
+	/**
+	 * Loads in the CryptoOpenSSL library
+	 */
+	static {
+		System.loadLibrary(CryptoConstants.CRYPTO_OPENSSL_LIBRARY);
 	}
 
 	/**
@@ -130,25 +90,38 @@ public class CryptoUtils {
 
 		logger.debug("Performing a hash on the file: {}", file.getPath());
 
-		int filesize = 0;
-		int readSize = 0;
-
-		BufferedInputStream bis = null;
-		try {
-			bis = new BufferedInputStream(new FileInputStream(file));
-		} catch (FileNotFoundException e) {
+		try (InputStream is = new FileInputStream(file)) {
+			return hashStream(is, digest);
+		} catch (IOException e) {
 			logger.error("Unable to hash the file and add it into the digest", e);
 			throw new FileHashException("Unable to hash the file and add it into the digest", e);
 		}
-		byte[] bytesIn = new byte[1024];
+	}
+
+	/**
+	 * Hashes the data held in a stream, for example a stream over an entry
+	 * held inside a zip file. The stream is not closed
+	 * 
+	 * @param inputStream
+	 * @param digest
+	 * @return the number of bytes added into the digest
+	 * @throws FileHashException
+	 */
+	public static int hashStream(InputStream inputStream, MessageDigest digest) throws FileHashException {
+
+		int filesize = 0;
+		int readSize = 0;
+
+		byte[] bytesIn = new byte[64 * 1024];
 
-		try (DigestInputStream dis = new DigestInputStream(bis, digest)) {
-			while ((readSize = dis.read(bytesIn)) != -1) {
+		try {
+			while ((readSize = inputStream.read(bytesIn)) != -1) {
+				digest.update(bytesIn, 0, readSize);
 				filesize += readSize;
 			}
 		} catch (IOException e) {
-			logger.error("Unable to hash the file and add it into the digest", e);
-			throw new FileHashException("Unable to hash the file and add it into the digest", e);
+			logger.error("Unable to hash the data and add it into the digest", e);
+			throw new FileHashException("Unable to hash the data and add it into the digest", e);
 		}
 
 		return filesize;
@@ -168,71 +141,51 @@ public class CryptoUtils {
 	}
 
 	/**
-	 * Perform a verification on a hash commitment using java security. Manually
-	 * performs the concatenation of the two parts of the commitment and checks
-	 * the produced hash against the given commitment value
+	 * Declares the 'native' jni function which will call the
+	 * openSSLVerifyHashCommitment function from the CryptoOpenSSL library
 	 * 
 	 * @param commitment
 	 * @param witness
 	 * @param randomValue
 	 * @return whether the commitment check is successful
-	 * @throws CommitException
 	 */
-	private static boolean javaSecurityVerifyHashCommitment(byte[] commitment, byte[] witness, byte[] randomValue) throws CommitException {
-
-		logger.debug("Verifying hash commitment using Java security implementation");
-
-		MessageDigest md = null;
-
-		try {
-			logger.debug("Initialising message digest");
-			// initialise the message digest
-			md = MessageDigest.getInstance(CryptoConstants.Commitments.COMMITMENT_HASH_ALGORITHM);
-
-			// ensure the random value is the correct length
-			if (randomValue.length > CryptoConstants.Commitments.RANDOM_VALUE_MAXIMUM_LENGTH) {
-				logger.debug("Hashing random value to the correct length");
-				md.reset();
-
-				randomValue = md.digest(randomValue);
-			}
-
-			// add the witness value to the digest
-			md.update(witness);
-			// concatenate the random value with the witness value and perform a
-			// hash
-			byte[] combinedHash = md.digest(randomValue);
-
-			// check whether the combined hash and the given commitment are
-			// equal
-			if (!Arrays.equals(combinedHash, commitment)) {
-				logger.error("Combined hash and commitment value do not match");
-				return false;
-			}
-
-		} catch (NoSuchAlgorithmException e) {
-			logger.error("Could not initialise the message digest with the specified algorithm: {}", CryptoConstants.Commitments.COMMITMENT_HASH_ALGORITHM, e);
-			throw new CommitException("Could not initialise the message digest with the specified algorithm: " + CryptoConstants.Commitments.COMMITMENT_HASH_ALGORITHM, e);
-		}
-
-		return true;
-	}
+	native static boolean openSSLVerifyHashCommitment(String commitment, String witness, String randomValue);
 
 	/**
 	 * Declares the 'native' jni function which will call the
-	 * openSSLVerifyHashCommitment function from the CryptoOpenSSL library
+	 * openSSLVerifyHashCommitments function from the CryptoOpenSSL library.
+	 * Verifies every record packed into the records buffer in a single call
+	 * and sets bit i of the results buffer if record i verifies
 	 * 
-	 * @param commitment
-	 * @param witness
-	 * @param randomValue
-	 * @return whether the commitment check is successful
+	 * @param records
+	 * @param recordsLength
+	 * @param count
+	 * @param results
+	 * @return the number of records which verified or -1 if the buffers could
+	 *         not be read
+	 */
+	native static int openSSLVerifyHashCommitments(ByteBuffer records, int recordsLength, int count, ByteBuffer results);
+
+	/**
+	 * Carries out hash commitment checks on a whole batch of hash commitments.
+	 * Each commitment is checked by the primary engine and cross-checked by
+	 * each of the other implementations: Java.security, bouncycastle and
+	 * openssl, where the openssl check is made for the whole batch at once
+	 * 
+	 * @param batch
+	 * @return the indexes of the hash commitments which verified
+	 * @throws CommitException
 	 */
-	private native static boolean openSSLVerifyHashCommitment(String commitment, String witness, String randomValue);
+	public static BitSet verifyHashCommitments(HashCommitmentBatch batch) throws CommitException {
+
+		logger.debug("Verifying batch of {} hash commitments", batch.size());
+
+		return defaultCommitmentVerifier.verify(batch);
+	}
 
 	/**
-	 * Carries out a hash commitment check on input bytes using the string
-	 * implementation of the method so we can use all three hash commitment
-	 * check functions. This is not the most efficient implementation to use
+	 * Carries out a hash commitment check on input bytes using each of the
+	 * implementations: Java.security, bouncycastle and openssl
 	 * 
 	 * @param commitmentByte
 	 * @param witnessByte
@@ -242,19 +195,22 @@ public class CryptoUtils {
 	 */
 	public static boolean verifyHashCommitment(byte[] commitmentByte, byte[] witnessByte, byte[] randomValueByte) throws CommitException {
 
-		// convert the inputs from bytes to hex strings before checking the hash
-		// commitment
-		String commitment = Utils.byteToHexString(commitmentByte);
-		String witness = Utils.byteToHexString(witnessByte);
-		String randomValue = Utils.byteToHexString(randomValueByte);
+		HashCommitmentBatch batch = singleCommitmentBatch.get();
+
+		batch.clear();
+		batch.add(commitmentByte, witnessByte, randomValueByte);
 
-		return verifyHashCommitment(commitment, witness, randomValue);
+		try {
+			return verifyHashCommitments(batch).get(0);
+		} finally {
+			batch.clear();
+		}
 	}
 
 	/**
-	 * This is the main function to be called for computing a hash commitment
-	 * check. This calls each of the implementations: Java.security,
-	 * bouncycastle and openssl
+	 * This is the main function to be called for computing a single hash
+	 * commitment check on hex strings. This calls each of the implementations:
+	 * Java.security, bouncycastle and openssl
 	 * 
 	 * @param commitment
 	 * @param witness
@@ -266,34 +222,16 @@ public class CryptoUtils {
 
 		logger.debug("Verifying hash commitment on commitment: {}, witness: {}, random value: {}", commitment, witness, randomValue);
 
-		byte[] commitmentByte = null;
-		byte[] witnessByte = null;
-		byte[] randomValueByte = null;
-
-		// get the byte equivalent of the hex strings
-		commitmentByte = Utils.decodeHexData(commitment);
-		witnessByte = Utils.decodeHexData(witness);
-		randomValueByte = Utils.decodeHexData(randomValue);
+		HashCommitmentBatch batch = singleCommitmentBatch.get();
 
-		logger.debug("Verifying hash commitment: Bouncy castle implementation");
-		// verify using bouncy castle
-		if (!bouncyCastleVerifyHashCommitment(commitmentByte, witnessByte, randomValueByte)) {
-			return false;
-		}
-
-		logger.debug("Verifying hash commitment: Java Security implementation");
-		// verify using java security
-		if (!javaSecurityVerifyHashCommitment(commitmentByte, witnessByte, randomValueByte)) {
-			return false;
-		}
+		batch.clear();
+		batch.add(commitment, witness, randomValue);
 
-		logger.debug("Verifying hash commitment: OpenSSL implementation");
-		// verify using openssl
-		if (!openSSLVerifyHashCommitment(commitment, witness, randomValue)) {
-			return false;
+		try {
+			return verifyHashCommitments(batch).get(0);
+		} finally {
+			batch.clear();
 		}
-
-		return true;
 	}
 
 	/**
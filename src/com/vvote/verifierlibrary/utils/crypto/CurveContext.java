@@ -0,0 +1,251 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto;
+
+import java.math.BigInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.bouncycastle.jce.ECNamedCurveTable;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+
+import com.vvote.CryptoConstants;
+
+/**
+ * Holds the elliptic curve used by a verifier: the curve parameters, the
+ * generator and the fixed-base tables built for the generator and each public
+ * key used on the curve. A context is created once for each verifier and
+ * passed explicitly to the operations in <code>ECUtils</code> which depend on
+ * the curve, so verifiers using different curves can run side by side.
+ * 
+ * The curve of a context never changes. The fixed-base tables are built when
+ * first needed and can be shared between threads.
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class CurveContext {
+
+	/**
+	 * The name of the curve
+	 */
+	private final String curveName;
+
+	/**
+	 * The EC parameter spec as defined by the curve name
+	 */
+	private final ECParameterSpec params;
+
+	/**
+	 * Fixed-base multiplier for the generator, built when first needed
+	 */
+	private volatile FixedBaseMultiplier generatorMultiplier = null;
+
+	/**
+	 * Fixed-base encrypters for each public key used on the curve. Public key
+	 * : encrypter
+	 */
+	private final ConcurrentMap<ECPoint, ElGamalFixedBaseEncrypter> encrypters;
+
+	/**
+	 * The most recently used encrypter, checked before the map as almost all
+	 * operations use the single election public key
+	 */
+	private volatile ElGamalFixedBaseEncrypter lastEncrypter = null;
+
+	/**
+	 * Constructor for a <code>CurveContext</code> for the named curve
+	 * 
+	 * @param curveName
+	 */
+	public CurveContext(String curveName) {
+
+		if (curveName == null) {
+			throw new IllegalArgumentException("A CurveContext must be provided with the name of a curve");
+		}
+
+		ECParameterSpec curveParams = ECNamedCurveTable.getParameterSpec(curveName);
+
+		if (curveParams == null) {
+			throw new IllegalArgumentException("Unknown curve: " + curveName);
+		}
+
+		this.curveName = curveName;
+		this.params = curveParams;
+		this.encrypters = new ConcurrentHashMap<ECPoint, ElGamalFixedBaseEncrypter>();
+	}
+
+	/**
+	 * Creates a context for the default election curve
+	 * 
+	 * @return a context for CryptoConstants.EC.CURVE_NAME
+	 */
+	public static CurveContext forElectionCurve() {
+		return new CurveContext(CryptoConstants.EC.CURVE_NAME);
+	}
+
+	/**
+	 * Getter for the name of the curve
+	 * 
+	 * @return curveName
+	 */
+	public String getCurveName() {
+		return this.curveName;
+	}
+
+	/**
+	 * Getter for the EC parameter spec of the curve
+	 * 
+	 * @return params
+	 */
+	public ECParameterSpec getParams() {
+		return this.params;
+	}
+
+	/**
+	 * Getter for the curve
+	 * 
+	 * @return the curve
+	 */
+	public ECCurve getCurve() {
+		return this.params.getCurve();
+	}
+
+	/**
+	 * Getter for the generator G of the curve
+	 * 
+	 * @return ECPoint of G
+	 */
+	public ECPoint getG() {
+		return this.params.getG();
+	}
+
+	/**
+	 * Getter for the order (N) of the curve
+	 * 
+	 * @return BigInteger of the order (N)
+	 */
+	public BigInteger getOrder() {
+		return this.params.getN();
+	}
+
+	/**
+	 * Checks whether the provided context uses the same curve as this context,
+	 * which may be known under a different name
+	 * 
+	 * @param other
+	 * @return true if both contexts use the same curve parameters
+	 */
+	public boolean isSameCurve(CurveContext other) {
+		return other != null && this.params.equals(other.params);
+	}
+
+	/**
+	 * Creates a point on the curve from its affine coordinates
+	 * 
+	 * @param x
+	 * @param y
+	 * @return the point
+	 */
+	public ECPoint createPoint(BigInteger x, BigInteger y) {
+		return this.params.getCurve().createPoint(x, y);
+	}
+
+	/**
+	 * Decodes a point on the curve from its encoded form
+	 * 
+	 * @param encoded
+	 * @return the point
+	 */
+	public ECPoint decodePoint(byte[] encoded) {
+		return this.params.getCurve().decodePoint(encoded);
+	}
+
+	/**
+	 * Gets the fixed-base multiplier for the generator G of the curve
+	 * 
+	 * @return the generator multiplier
+	 */
+	public FixedBaseMultiplier getGeneratorMultiplier() {
+		FixedBaseMultiplier multiplier = this.generatorMultiplier;
+
+		if (multiplier == null) {
+			synchronized (this) {
+				multiplier = this.generatorMultiplier;
+
+				if (multiplier == null) {
+					multiplier = new FixedBaseMultiplier(this.params.getG(), this.params.getN(), CryptoConstants.EC.FIXED_BASE_WINDOW_WIDTH);
+					this.generatorMultiplier = multiplier;
+				}
+			}
+		}
+
+		return multiplier;
+	}
+
+	/**
+	 * Gets the fixed-base encrypter for the public key provided. The
+	 * precomputed tables for the public key are built on first use and then
+	 * reused for all later encryptions under the same key
+	 * 
+	 * @param publicKey
+	 * @return the encrypter for the public key
+	 */
+	public ElGamalFixedBaseEncrypter getEncrypter(ECPoint publicKey) {
+		ElGamalFixedBaseEncrypter encrypter = this.lastEncrypter;
+
+		if (encrypter != null && encrypter.getPublicKey() == publicKey) {
+			return encrypter;
+		}
+
+		encrypter = this.encrypters.get(publicKey);
+
+		if (encrypter == null) {
+			FixedBaseMultiplier generator = this.getGeneratorMultiplier();
+
+			encrypter = new ElGamalFixedBaseEncrypter(generator, new FixedBaseMultiplier(publicKey, generator.getOrder(), CryptoConstants.EC.FIXED_BASE_WINDOW_WIDTH));
+
+			ElGamalFixedBaseEncrypter existing = this.encrypters.putIfAbsent(publicKey, encrypter);
+			if (existing != null) {
+				encrypter = existing;
+			}
+		}
+
+		this.lastEncrypter = encrypter;
+
+		return encrypter;
+	}
+
+	/**
+	 * Multiplies the generator G of the curve by the scalar provided using its
+	 * fixed-base table
+	 * 
+	 * @param scalar
+	 * @return g.scalar
+	 */
+	public ECPoint multiplyG(BigInteger scalar) {
+		return this.getGeneratorMultiplier().multiply(scalar);
+	}
+
+	@Override
+	public String toString() {
+		return "CurveContext [curveName=" + this.curveName + "]";
+	}
+}
@@ -0,0 +1,97 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.BitSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vvote.CryptoConstants;
+import com.vvote.verifierlibrary.exceptions.CommitException;
+
+/**
+ * The primary hash commitment engine. Uses a single message digest per thread
+ * which is reset between commitments, rather than creating a new digest (and
+ * for bouncy castle a new SecureRandom) for every commitment.
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class DigestHashCommitmentVerifier implements HashCommitmentVerifier {
+
+	/**
+	 * provides logging for the class
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(DigestHashCommitmentVerifier.class);
+
+	/**
+	 * The message digest for each thread
+	 */
+	private static final ThreadLocal<MessageDigest> digests = new ThreadLocal<MessageDigest>() {
+		@Override
+		protected MessageDigest initialValue() {
+			try {
+				return MessageDigest.getInstance(CryptoConstants.Commitments.COMMITMENT_HASH_ALGORITHM);
+			} catch (NoSuchAlgorithmException e) {
+				logger.error("Could not initialise the message digest with the specified algorithm: {}", CryptoConstants.Commitments.COMMITMENT_HASH_ALGORITHM, e);
+				return null;
+			}
+		}
+	};
+
+	@Override
+	public String getName() {
+		return "Digest";
+	}
+
+	@Override
+	public BitSet verify(HashCommitmentBatch batch) throws CommitException {
+
+		MessageDigest md = digests.get();
+
+		if (md == null) {
+			throw new CommitException("Could not initialise the message digest with the specified algorithm: " + CryptoConstants.Commitments.COMMITMENT_HASH_ALGORITHM);
+		}
+
+		BitSet verified = new BitSet(batch.size());
+
+		byte[] randomValue = null;
+
+		for (int i = 0; i < batch.size(); i++) {
+			md.reset();
+
+			randomValue = batch.getRandomValue(i);
+
+			// ensure the random value is the correct length
+			if (randomValue.length > CryptoConstants.Commitments.RANDOM_VALUE_MAXIMUM_LENGTH) {
+				randomValue = md.digest(randomValue);
+			}
+
+			md.update(batch.getWitness(i));
+
+			if (MessageDigest.isEqual(md.digest(randomValue), batch.getCommitment(i))) {
+				verified.set(i);
+			}
+		}
+
+		return verified;
+	}
+}
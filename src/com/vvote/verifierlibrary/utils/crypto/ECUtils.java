@@ -18,9 +18,11 @@
 package com.vvote.verifierlibrary.utils.crypto;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
-import org.bouncycastle.jce.ECNamedCurveTable;
-import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.bouncycastle.math.ec.ECCurve;
 import org.bouncycastle.math.ec.ECPoint;
 
 import com.vvote.CryptoConstants;
@@ -30,7 +32,8 @@ import com.vvote.thirdparty.json.orgjson.JSONObject;
 
 /**
  * Provides Elliptic Curve crypto operations. Provides a number of utility
- * methods
+ * methods. Operations which depend on the curve are given the
+ * <code>CurveContext</code> of the calling verifier
  * 
  * @author James Rumble
  * 
@@ -38,39 +41,29 @@ import com.vvote.thirdparty.json.orgjson.JSONObject;
 public class ECUtils {
 
 	/**
-	 * Holds a reference to the EC parameter spec as defined by the curve name
-	 */
-	private static ECParameterSpec params = ECNamedCurveTable.getParameterSpec(CryptoConstants.EC.CURVE_NAME);
-
-	/**
-	 * Change the curve being used for elliptic curve operations
-	 * 
-	 * @param curveName
-	 */
-	public static void changeCurve(String curveName) {
-		params = ECNamedCurveTable.getParameterSpec(curveName);
-	}
-
-	/**
-	 * Constructs a single ECPoint from the given JSON Object
+	 * Constructs a single ECPoint on the curve of the provided context from the
+	 * given JSON Object
 	 * 
+	 * @param context
 	 * @param json
 	 * @return the ECPoint from json
 	 * @throws JSONException
 	 */
-	public static ECPoint constructECPointFromJSON(JSONObject json) throws JSONException {
-		return params.getCurve().createPoint(new BigInteger(json.getString(CryptoConstants.EC.X), 16), new BigInteger(json.getString(CryptoConstants.EC.Y), 16));
+	public static ECPoint constructECPointFromJSON(CurveContext context, JSONObject json) throws JSONException {
+		return context.createPoint(new BigInteger(json.getString(CryptoConstants.EC.X), 16), new BigInteger(json.getString(CryptoConstants.EC.Y), 16));
 	}
 
 	/**
-	 * Constructs an ElGamalECPoint from the required JSON object
+	 * Constructs an ElGamalECPoint on the curve of the provided context from
+	 * the required JSON object
 	 * 
+	 * @param context
 	 * @param json
 	 * @return the ElGamalECPoint from json
 	 * @throws JSONException
 	 */
-	public static ElGamalECPoint constructElGamalECPointFromJSON(JSONObject json) throws JSONException {
-		return new ElGamalECPoint(constructECPointFromJSON(json.getJSONObject(CryptoConstants.EC.MYR)), constructECPointFromJSON(json.getJSONObject(CryptoConstants.EC.GR)));
+	public static ElGamalECPoint constructElGamalECPointFromJSON(CurveContext context, JSONObject json) throws JSONException {
+		return new ElGamalECPoint(constructECPointFromJSON(context, json.getJSONObject(CryptoConstants.EC.MYR)), constructECPointFromJSON(context, json.getJSONObject(CryptoConstants.EC.GR)));
 	}
 
 	/**
@@ -107,73 +100,209 @@ public class ECUtils {
 
 	/**
 	 * Performs an encryption on a plaintext in the form of an ECPoint using the
-	 * given public key and randomness value
+	 * given public key and randomness value. Uses the fixed-base tables for G
+	 * and the public key held by the provided context
 	 * 
+	 * @param context
 	 * @param plaintext
 	 * @param publicKey
 	 * @param randomness
 	 * @return resulting encrypted ElGamalECPoint
 	 */
-	public static ElGamalECPoint encrypt(ECPoint plaintext, ECPoint publicKey, BigInteger randomness) {
-		// g^r maps to g.r
-		ECPoint gr = params.getG().multiply(randomness);
-
-		// m*y^r maps to m + y.r
-		ECPoint myr = publicKey.multiply(randomness).add(plaintext);
-
-		return new ElGamalECPoint(myr, gr);
+	public static ElGamalECPoint encrypt(CurveContext context, ECPoint plaintext, ECPoint publicKey, BigInteger randomness) {
+		return context.getEncrypter(publicKey).encrypt(plaintext, randomness);
 	}
 
 	/**
 	 * Performs a re-encryption of a given ElGamalECPoint using the provided
-	 * public key and randomness value
+	 * public key and randomness value. Uses the fixed-base tables for G and the
+	 * public key held by the provided context
 	 * 
+	 * @param context
 	 * @param cipher
 	 * @param publicKey
 	 * @param randomness
 	 * @return resulting reencrypted ElGamalECPoint
 	 */
-	public static ElGamalECPoint reencrypt(ElGamalECPoint cipher, ECPoint publicKey, BigInteger randomness) {
-		// gr = existing gr + g.r
-		ECPoint gr = cipher.getGr().add(params.getG().multiply(randomness));
+	public static ElGamalECPoint reencrypt(CurveContext context, ElGamalECPoint cipher, ECPoint publicKey, BigInteger randomness) {
+		return context.getEncrypter(publicKey).reencrypt(cipher, randomness);
+	}
+
+	/**
+	 * Computes the sum of the products of each point and its scalar, sum(k_i *
+	 * P_i), using the bucket (Pippenger) method. Scalars are processed a window
+	 * at a time and all points sharing a window value are added into the same
+	 * bucket, so the cost is roughly one point addition per point per window
+	 * rather than a full scalar multiplication per point. This is most
+	 * effective for many points with short scalars
+	 * 
+	 * @param context
+	 * @param points
+	 * @param scalars
+	 * @return the sum of the products
+	 */
+	public static ECPoint sumOfMultiplies(CurveContext context, List<ECPoint> points, List<BigInteger> scalars) {
+
+		if (points.size() != scalars.size()) {
+			throw new IllegalArgumentException("The number of points and scalars must match");
+		}
+
+		final ECPoint infinity = context.getCurve().getInfinity();
+
+		if (points.isEmpty()) {
+			return infinity;
+		}
+
+		final int size = points.size();
+
+		// use affine points so that bucket additions are mixed additions
+		ECPoint[] bases = normalizeAll(points.toArray(new ECPoint[size]));
+
+		BigInteger[] k = new BigInteger[size];
+		int maxBits = 0;
+		for (int i = 0; i < size; i++) {
+			k[i] = scalars.get(i).mod(context.getOrder());
+			maxBits = Math.max(maxBits, k[i].bitLength());
+		}
+
+		final int width = bucketWindowWidth(size);
+		final int windows = (maxBits + width - 1) / width;
+
+		ECPoint[] buckets = new ECPoint[1 << width];
+		ECPoint result = infinity;
+
+		for (int window = windows - 1; window >= 0; window--) {
 
-		// myr = existing myr + y.r
-		ECPoint myr = cipher.getMyr().add(publicKey.multiply(randomness));
+			if (window != windows - 1) {
+				result = result.timesPow2(width);
+			}
 
-		return new ElGamalECPoint(myr, gr);
+			Arrays.fill(buckets, null);
+
+			final int lowBit = window * width;
+
+			for (int i = 0; i < size; i++) {
+				int digit = 0;
+				for (int j = width - 1; j >= 0; j--) {
+					digit <<= 1;
+					if (k[i].testBit(lowBit + j)) {
+						digit |= 1;
+					}
+				}
+
+				if (digit != 0) {
+					buckets[digit] = buckets[digit] == null ? bases[i] : buckets[digit].add(bases[i]);
+				}
+			}
+
+			// sum(d * bucket[d]) using running sums
+			ECPoint running = infinity;
+			ECPoint windowSum = infinity;
+			for (int digit = buckets.length - 1; digit > 0; digit--) {
+				if (buckets[digit] != null) {
+					running = running.add(buckets[digit]);
+				}
+				windowSum = windowSum.add(running);
+			}
+
+			result = result.add(windowSum);
+		}
+
+		return result;
 	}
 
 	/**
-	 * Prevents the class being externally created
+	 * Normalises the provided points in place to affine coordinates using a
+	 * single simultaneous (Montgomery) inversion: one field inversion plus
+	 * three multiplications per point rather than one inversion per point.
+	 * Points which are null, already normalised or the point at infinity are
+	 * left as they are. Points should be normalised together like this before
+	 * they are compared, hashed or encoded
+	 * 
+	 * @param points
+	 * @return the provided array holding the normalised points
 	 */
-	private ECUtils() {
-		return;
+	public static ECPoint[] normalizeAll(ECPoint[] points) {
+
+		ECCurve curve = null;
+
+		for (ECPoint point : points) {
+			if (point != null) {
+				if (curve == null) {
+					curve = point.getCurve();
+				} else if (!curve.equals(point.getCurve())) {
+					// mixed curves cannot share an inversion
+					for (int i = 0; i < points.length; i++) {
+						if (points[i] != null) {
+							points[i] = points[i].normalize();
+						}
+					}
+					return points;
+				}
+			}
+		}
+
+		if (curve != null) {
+			curve.normalizeAll(points);
+		}
+
+		return points;
 	}
 
 	/**
-	 * Utility method to get the G value of the underlying curve
+	 * Normalises the points of the provided ciphers together using a single
+	 * simultaneous inversion
 	 * 
-	 * @return ECPoint of G
+	 * @param ciphers
+	 * @return a new list of ciphers holding the normalised points, in the
+	 *         same order
 	 */
-	public static ECPoint getG() {
-		return params.getG();
+	public static List<ElGamalECPoint> normalizeCiphers(List<? extends ElGamalECPoint> ciphers) {
+		final int size = ciphers.size();
+
+		ECPoint[] points = new ECPoint[2 * size];
+
+		for (int i = 0; i < size; i++) {
+			points[2 * i] = ciphers.get(i).getMyr();
+			points[2 * i + 1] = ciphers.get(i).getGr();
+		}
+
+		normalizeAll(points);
+
+		List<ElGamalECPoint> normalized = new ArrayList<ElGamalECPoint>(size);
+
+		for (int i = 0; i < size; i++) {
+			normalized.add(new ElGamalECPoint(points[2 * i], points[2 * i + 1]));
+		}
+
+		return normalized;
 	}
 
 	/**
-	 * Utility method to get the Order Upper Bound (N) of the underlying curve
+	 * Chooses the bucket window width for a multi-scalar multiplication
 	 * 
-	 * @return BigInteger of the order of the upper bound (N)
+	 * @param size
+	 * @return the window width in bits
 	 */
-	public static BigInteger getOrderUpperBound() {
-		return params.getN();
+	private static int bucketWindowWidth(int size) {
+		if (size < 4) {
+			return 2;
+		} else if (size < 32) {
+			return 3;
+		} else if (size < 128) {
+			return 5;
+		} else if (size < 1024) {
+			return 7;
+		} else if (size < 8192) {
+			return 9;
+		}
+		return 11;
 	}
 
 	/**
-	 * Get the underlying parameter spec for this instance of ECUtils
-	 * 
-	 * @return ECParameterSpec for the curve being used
+	 * Prevents the class being externally created
 	 */
-	public static ECParameterSpec getParams() {
-		return params;
+	private ECUtils() {
+		return;
 	}
 }
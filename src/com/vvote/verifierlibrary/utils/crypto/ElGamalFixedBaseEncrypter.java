@@ -0,0 +1,134 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto;
+
+import java.math.BigInteger;
+
+import org.bouncycastle.math.ec.ECPoint;
+
+import com.vvote.ec.ElGamalECPoint;
+
+/**
+ * Provides ElGamal encryption and re-encryption under a single public key
+ * using fixed-base multiplication tables for both the generator G and the
+ * public key Y. The randomness value is recoded once and the same window
+ * values are used to look up both g.r and y.r.
+ * 
+ * An encrypter is read-only once constructed and can be shared between
+ * threads.
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class ElGamalFixedBaseEncrypter {
+
+	/**
+	 * Multiplier for the generator
+	 */
+	private final FixedBaseMultiplier generatorMultiplier;
+
+	/**
+	 * Multiplier for the public key
+	 */
+	private final FixedBaseMultiplier publicKeyMultiplier;
+
+	/**
+	 * Constructor for an ElGamalFixedBaseEncrypter
+	 * 
+	 * @param generatorMultiplier
+	 * @param publicKeyMultiplier
+	 */
+	public ElGamalFixedBaseEncrypter(FixedBaseMultiplier generatorMultiplier, FixedBaseMultiplier publicKeyMultiplier) {
+
+		if (generatorMultiplier == null || publicKeyMultiplier == null) {
+			throw new IllegalArgumentException("Multipliers for both the generator and public key must be provided");
+		}
+
+		if (!generatorMultiplier.isCompatible(publicKeyMultiplier)) {
+			throw new IllegalArgumentException("The generator and public key multipliers must use the same order and window width");
+		}
+
+		this.generatorMultiplier = generatorMultiplier;
+		this.publicKeyMultiplier = publicKeyMultiplier;
+	}
+
+	/**
+	 * Getter for the public key
+	 * 
+	 * @return the public key
+	 */
+	public ECPoint getPublicKey() {
+		return this.publicKeyMultiplier.getBase();
+	}
+
+	/**
+	 * Getter for the generator multiplier
+	 * 
+	 * @return generatorMultiplier
+	 */
+	public FixedBaseMultiplier getGeneratorMultiplier() {
+		return this.generatorMultiplier;
+	}
+
+	/**
+	 * Getter for the public key multiplier
+	 * 
+	 * @return publicKeyMultiplier
+	 */
+	public FixedBaseMultiplier getPublicKeyMultiplier() {
+		return this.publicKeyMultiplier;
+	}
+
+	/**
+	 * Encrypts a plaintext using the randomness value provided
+	 * 
+	 * @param plaintext
+	 * @param randomness
+	 * @return resulting encrypted ElGamalECPoint
+	 */
+	public ElGamalECPoint encrypt(ECPoint plaintext, BigInteger randomness) {
+		int[] digits = this.generatorMultiplier.recode(randomness);
+
+		// g^r maps to g.r
+		ECPoint gr = this.generatorMultiplier.multiply(digits);
+
+		// m*y^r maps to m + y.r
+		ECPoint myr = this.publicKeyMultiplier.multiply(digits).add(plaintext);
+
+		return new ElGamalECPoint(myr, gr);
+	}
+
+	/**
+	 * Re-encrypts a cipher using the randomness value provided
+	 * 
+	 * @param cipher
+	 * @param randomness
+	 * @return resulting reencrypted ElGamalECPoint
+	 */
+	public ElGamalECPoint reencrypt(ElGamalECPoint cipher, BigInteger randomness) {
+		int[] digits = this.generatorMultiplier.recode(randomness);
+
+		// gr = existing gr + g.r
+		ECPoint gr = cipher.getGr().add(this.generatorMultiplier.multiply(digits));
+
+		// myr = existing myr + y.r
+		ECPoint myr = cipher.getMyr().add(this.publicKeyMultiplier.multiply(digits));
+
+		return new ElGamalECPoint(myr, gr);
+	}
+}
@@ -0,0 +1,199 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto;
+
+import java.math.BigInteger;
+
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+
+/**
+ * Provides scalar multiplication of a single fixed base point using a
+ * precomputed table. The scalar is split into windows of
+ * <code>width</code> bits and the table holds every multiple
+ * <code>d * 2^(width * i) * base</code> for each window i and non-zero window
+ * value d, so a multiplication needs one point addition per non-zero window
+ * and no point doublings.
+ * 
+ * Table entries are normalised to affine coordinates so each addition is a
+ * cheaper mixed addition. The table is built once and is read-only
+ * afterwards, so a multiplier can be shared between threads.
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class FixedBaseMultiplier {
+
+	/**
+	 * The fixed base point
+	 */
+	private final ECPoint base;
+
+	/**
+	 * The order of the base point
+	 */
+	private final BigInteger order;
+
+	/**
+	 * The window width in bits
+	 */
+	private final int width;
+
+	/**
+	 * The number of windows needed to cover a scalar
+	 */
+	private final int windows;
+
+	/**
+	 * The precomputed multiples - table[i][d - 1] = d * 2^(width * i) * base
+	 */
+	private final ECPoint[][] table;
+
+	/**
+	 * Constructor for a fixed base multiplier
+	 * 
+	 * @param base
+	 * @param order
+	 * @param width
+	 */
+	public FixedBaseMultiplier(ECPoint base, BigInteger order, int width) {
+
+		if (base == null || order == null) {
+			throw new IllegalArgumentException("A base point and its order must be provided");
+		}
+
+		if (width < 1 || width > 8) {
+			throw new IllegalArgumentException("The window width must be between 1 and 8 bits: " + width);
+		}
+
+		this.base = base;
+		this.order = order;
+		this.width = width;
+		this.windows = (order.bitLength() + width - 1) / width;
+
+		final int entries = (1 << width) - 1;
+
+		ECPoint[] all = new ECPoint[this.windows * entries];
+
+		ECPoint windowBase = base;
+
+		for (int i = 0; i < this.windows; i++) {
+			all[i * entries] = windowBase;
+
+			for (int d = 1; d < entries; d++) {
+				all[i * entries + d] = all[i * entries + d - 1].add(windowBase);
+			}
+
+			windowBase = windowBase.timesPow2(width);
+		}
+
+		// use affine points so that each addition is a mixed addition
+		ECCurve curve = base.getCurve();
+		curve.normalizeAll(all);
+
+		this.table = new ECPoint[this.windows][entries];
+
+		for (int i = 0; i < this.windows; i++) {
+			System.arraycopy(all, i * entries, this.table[i], 0, entries);
+		}
+	}
+
+	/**
+	 * Getter for the fixed base point
+	 * 
+	 * @return base
+	 */
+	public ECPoint getBase() {
+		return this.base;
+	}
+
+	/**
+	 * Getter for the order of the base point
+	 * 
+	 * @return order
+	 */
+	public BigInteger getOrder() {
+		return this.order;
+	}
+
+	/**
+	 * Multiplies the fixed base by the scalar provided
+	 * 
+	 * @param scalar
+	 * @return scalar * base
+	 */
+	public ECPoint multiply(BigInteger scalar) {
+		return this.multiply(this.recode(scalar));
+	}
+
+	/**
+	 * Splits a scalar into its window values. The scalar is first reduced by
+	 * the order of the base. The same recoding can be used with any
+	 * multiplier sharing the same order and window width
+	 * 
+	 * @param scalar
+	 * @return the window values, least significant first
+	 */
+	int[] recode(BigInteger scalar) {
+		BigInteger k = scalar.mod(this.order);
+
+		int[] digits = new int[this.windows];
+
+		int bit = 0;
+		for (int i = 0; i < this.windows; i++) {
+			int digit = 0;
+			for (int j = 0; j < this.width; j++, bit++) {
+				if (k.testBit(bit)) {
+					digit |= 1 << j;
+				}
+			}
+			digits[i] = digit;
+		}
+
+		return digits;
+	}
+
+	/**
+	 * Multiplies the fixed base by a recoded scalar
+	 * 
+	 * @param digits
+	 * @return the multiple of the base
+	 */
+	ECPoint multiply(int[] digits) {
+		ECPoint result = this.base.getCurve().getInfinity();
+
+		for (int i = 0; i < digits.length; i++) {
+			if (digits[i] != 0) {
+				result = result.add(this.table[i][digits[i] - 1]);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Checks whether a recoding made by another multiplier can be used with
+	 * this one
+	 * 
+	 * @param other
+	 * @return true if both multipliers use the same order and window width
+	 */
+	boolean isCompatible(FixedBaseMultiplier other) {
+		return this.width == other.width && this.order.equals(other.order);
+	}
+}
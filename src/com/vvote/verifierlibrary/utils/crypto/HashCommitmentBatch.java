@@ -0,0 +1,251 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import com.vvote.verifierlibrary.exceptions.CommitException;
+import com.vvote.verifierlibrary.utils.Utils;
+
+/**
+ * Collects a batch of hash commitments (commitment, witness and random value)
+ * so that they can be verified together with a single call into the
+ * CryptoOpenSSL library. The records are packed into a direct ByteBuffer,
+ * each value preceded by its length as a big endian int, and the buffers are
+ * reused when the batch is cleared.
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class HashCommitmentBatch {
+
+	/**
+	 * The initial capacity of the records buffer in bytes
+	 */
+	private static final int INITIAL_CAPACITY = 16 * 1024;
+
+	/**
+	 * The packed records
+	 */
+	private ByteBuffer records;
+
+	/**
+	 * The result bitmap written by the CryptoOpenSSL library
+	 */
+	private ByteBuffer results;
+
+	/**
+	 * The commitments in the batch
+	 */
+	private final List<byte[]> commitments;
+
+	/**
+	 * The witnesses in the batch
+	 */
+	private final List<byte[]> witnesses;
+
+	/**
+	 * The random values in the batch
+	 */
+	private final List<byte[]> randomValues;
+
+	/**
+	 * Constructor for an empty HashCommitmentBatch
+	 */
+	public HashCommitmentBatch() {
+		this.records = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+		this.results = ByteBuffer.allocateDirect(INITIAL_CAPACITY / 8);
+		this.commitments = new ArrayList<byte[]>();
+		this.witnesses = new ArrayList<byte[]>();
+		this.randomValues = new ArrayList<byte[]>();
+	}
+
+	/**
+	 * Adds a hash commitment to the batch
+	 * 
+	 * @param commitment
+	 * @param witness
+	 * @param randomValue
+	 * @return the index of the hash commitment in the batch
+	 */
+	public int add(byte[] commitment, byte[] witness, byte[] randomValue) {
+
+		this.ensureCapacity(12 + commitment.length + witness.length + randomValue.length);
+
+		this.records.putInt(commitment.length).put(commitment);
+		this.records.putInt(witness.length).put(witness);
+		this.records.putInt(randomValue.length).put(randomValue);
+
+		this.commitments.add(commitment);
+		this.witnesses.add(witness);
+		this.randomValues.add(randomValue);
+
+		return this.commitments.size() - 1;
+	}
+
+	/**
+	 * Adds a hash commitment provided as hex strings to the batch
+	 * 
+	 * @param commitment
+	 * @param witness
+	 * @param randomValue
+	 * @return the index of the hash commitment in the batch
+	 * @throws CommitException
+	 */
+	public int add(String commitment, String witness, String randomValue) throws CommitException {
+
+		byte[] commitmentByte = Utils.decodeHexData(commitment);
+		byte[] witnessByte = Utils.decodeHexData(witness);
+		byte[] randomValueByte = Utils.decodeHexData(randomValue);
+
+		if (commitmentByte == null || witnessByte == null || randomValueByte == null) {
+			throw new CommitException("Unable to decode hash commitment values - commitment: " + commitment + ", witness: " + witness + ", random value: " + randomValue);
+		}
+
+		return this.add(commitmentByte, witnessByte, randomValueByte);
+	}
+
+	/**
+	 * Removes all hash commitments from the batch, keeping the buffers for
+	 * reuse
+	 */
+	public void clear() {
+		this.records.clear();
+		this.commitments.clear();
+		this.witnesses.clear();
+		this.randomValues.clear();
+	}
+
+	/**
+	 * Getter for the number of hash commitments in the batch
+	 * 
+	 * @return the number of hash commitments in the batch
+	 */
+	public int size() {
+		return this.commitments.size();
+	}
+
+	/**
+	 * Getter for a commitment
+	 * 
+	 * @param index
+	 * @return the commitment at the provided index
+	 */
+	public byte[] getCommitment(int index) {
+		return this.commitments.get(index);
+	}
+
+	/**
+	 * Getter for a witness
+	 * 
+	 * @param index
+	 * @return the witness at the provided index
+	 */
+	public byte[] getWitness(int index) {
+		return this.witnesses.get(index);
+	}
+
+	/**
+	 * Getter for a random value
+	 * 
+	 * @param index
+	 * @return the random value at the provided index
+	 */
+	public byte[] getRandomValue(int index) {
+		return this.randomValues.get(index);
+	}
+
+	/**
+	 * Getter for the packed records
+	 * 
+	 * @return the direct buffer holding the packed records
+	 */
+	ByteBuffer getRecords() {
+		return this.records;
+	}
+
+	/**
+	 * Getter for the number of bytes of packed records
+	 * 
+	 * @return the number of bytes of packed records
+	 */
+	int getRecordsLength() {
+		return this.records.position();
+	}
+
+	/**
+	 * Gets the result bitmap, making sure it is large enough for the current
+	 * batch
+	 * 
+	 * @return the direct buffer which will hold the result bitmap
+	 */
+	ByteBuffer getResults() {
+		int required = (this.size() + 7) / 8;
+
+		if (this.results.capacity() < required) {
+			this.results = ByteBuffer.allocateDirect(Math.max(required, 2 * this.results.capacity()));
+		}
+
+		this.results.clear();
+
+		return this.results;
+	}
+
+	/**
+	 * Decodes the result bitmap written for the current batch. Bit i of the
+	 * bitmap, held in byte i / 8, is set if hash commitment i verified
+	 * 
+	 * @return the indexes of the hash commitments which verified
+	 */
+	BitSet getVerified() {
+		ByteBuffer bitmap = this.results.duplicate();
+
+		bitmap.clear();
+		bitmap.limit((this.size() + 7) / 8);
+
+		BitSet verified = BitSet.valueOf(bitmap);
+
+		// ignore any bits set past the end of the batch
+		if (verified.length() > this.size()) {
+			verified.clear(this.size(), verified.length());
+		}
+
+		return verified;
+	}
+
+	/**
+	 * Makes sure there is room for another record, growing the records buffer
+	 * if needed
+	 * 
+	 * @param required
+	 *            the number of bytes needed for the record
+	 */
+	private void ensureCapacity(int required) {
+		if (this.records.remaining() < required) {
+			ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(2 * this.records.capacity(), this.records.position() + required));
+
+			this.records.flip();
+			larger.put(this.records);
+
+			this.records = larger;
+		}
+	}
+}
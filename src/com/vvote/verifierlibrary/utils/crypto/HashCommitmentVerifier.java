@@ -0,0 +1,50 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto;
+
+import java.util.BitSet;
+
+import com.vvote.verifierlibrary.exceptions.CommitException;
+
+/**
+ * An engine for checking hash commitments. A hash commitment opens if
+ * SHA-256(witness || r) equals the commitment, where r is the random value or
+ * the SHA-256 hash of the random value if it is longer than
+ * CryptoConstants.Commitments.RANDOM_VALUE_MAXIMUM_LENGTH bytes.
+ * 
+ * @author James Rumble
+ * 
+ */
+public interface HashCommitmentVerifier {
+
+	/**
+	 * Getter for the name of the engine, used when logging
+	 * 
+	 * @return the name of the engine
+	 */
+	public String getName();
+
+	/**
+	 * Checks every hash commitment in the batch
+	 * 
+	 * @param batch
+	 * @return the indexes of the hash commitments which verified
+	 * @throws CommitException
+	 */
+	public BitSet verify(HashCommitmentBatch batch) throws CommitException;
+}
@@ -0,0 +1,149 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vvote.verifierlibrary.exceptions.CommitException;
+import com.vvote.verifierlibrary.utils.Utils;
+
+/**
+ * Hash commitment engine using the CryptoOpenSSL library, checking the whole
+ * batch with a single jni call. If the loaded library does not provide the
+ * batch check each commitment is checked separately
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class OpenSSLHashCommitmentVerifier implements HashCommitmentVerifier {
+
+	/**
+	 * The calls made into the CryptoOpenSSL library
+	 */
+	interface Library {
+
+		/**
+		 * Verifies every record packed into the records buffer and sets bit i
+		 * of the results buffer if record i verifies
+		 * 
+		 * @param records
+		 * @param recordsLength
+		 * @param count
+		 * @param results
+		 * @return the number of records which verified or -1 if the buffers
+		 *         could not be read
+		 */
+		int verifyHashCommitments(ByteBuffer records, int recordsLength, int count, ByteBuffer results);
+
+		/**
+		 * Verifies a single hash commitment provided as hex strings
+		 * 
+		 * @param commitment
+		 * @param witness
+		 * @param randomValue
+		 * @return whether the commitment check is successful
+		 */
+		boolean verifyHashCommitment(String commitment, String witness, String randomValue);
+	}
+
+	/**
+	 * The CryptoOpenSSL library loaded by <code>CryptoUtils</code>
+	 */
+	private static final class CryptoOpenSSL implements Library {
+
+		@Override
+		public int verifyHashCommitments(ByteBuffer records, int recordsLength, int count, ByteBuffer results) {
+			return CryptoUtils.openSSLVerifyHashCommitments(records, recordsLength, count, results);
+		}
+
+		@Override
+		public boolean verifyHashCommitment(String commitment, String witness, String randomValue) {
+			return CryptoUtils.openSSLVerifyHashCommitment(commitment, witness, randomValue);
+		}
+	}
+
+	/**
+	 * provides logging for the class
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(OpenSSLHashCommitmentVerifier.class);
+
+	/**
+	 * The library the checks are made with
+	 */
+	private final Library library;
+
+	/**
+	 * Flag to identify whether the library provides the batch hash commitment
+	 * check. Libraries built before the batch check was added only provide the
+	 * single string based check
+	 */
+	private volatile boolean batchAvailable = true;
+
+	/**
+	 * Constructor for an engine using the CryptoOpenSSL library
+	 */
+	public OpenSSLHashCommitmentVerifier() {
+		this(new CryptoOpenSSL());
+	}
+
+	/**
+	 * Constructor for an engine using the provided library
+	 * 
+	 * @param library
+	 */
+	OpenSSLHashCommitmentVerifier(Library library) {
+		this.library = library;
+	}
+
+	@Override
+	public String getName() {
+		return "OpenSSL";
+	}
+
+	@Override
+	public BitSet verify(HashCommitmentBatch batch) throws CommitException {
+
+		if (this.batchAvailable) {
+			try {
+				if (this.library.verifyHashCommitments(batch.getRecords(), batch.getRecordsLength(), batch.size(), batch.getResults()) < 0) {
+					logger.error("OpenSSL was unable to read the batch of hash commitments");
+					throw new CommitException("OpenSSL was unable to read the batch of hash commitments");
+				}
+
+				return batch.getVerified();
+			} catch (UnsatisfiedLinkError e) {
+				logger.warn("The loaded CryptoOpenSSL library does not provide batch hash commitment checks - checking each hash commitment separately", e);
+				this.batchAvailable = false;
+			}
+		}
+
+		BitSet verified = new BitSet(batch.size());
+
+		for (int i = 0; i < batch.size(); i++) {
+			if (this.library.verifyHashCommitment(Utils.byteToHexString(batch.getCommitment(i)), Utils.byteToHexString(batch.getWitness(i)), Utils.byteToHexString(batch.getRandomValue(i)))) {
+				verified.set(i);
+			}
+		}
+
+		return verified;
+	}
+}
@@ -0,0 +1,256 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto.bls;
+
+import it.unisa.dia.gas.jpbc.Element;
+import it.unisa.dia.gas.jpbc.Pairing;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vvote.datafiles.wbb.WBBCert;
+import com.vvote.verifierlibrary.exceptions.BLSSignatureException;
+
+/**
+ * Verifies a batch of BLS signatures made under the same public key using a
+ * randomised batch check:
+ * 
+ * e(sum(r_i * sigma_i), g) = e(sum(r_i * H(m_i)), pk)
+ * 
+ * for random short coefficients r_i. The check needs two pairings whatever the
+ * number of signatures and fails, except with probability about 2^-64, if any
+ * signature is invalid. When a batch fails it is bisected until the invalid
+ * signatures are found.
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class BLSBatchVerifier {
+
+	/**
+	 * provides logging for the class
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(BLSBatchVerifier.class);
+
+	/**
+	 * The length in bits of the random coefficients
+	 */
+	private static final int COEFFICIENT_BITS = 64;
+
+	/**
+	 * The pairing for the curve
+	 */
+	private final Pairing pairing;
+
+	/**
+	 * The pairing state for the public key
+	 */
+	private final BLSVerificationKey verificationKey;
+
+	/**
+	 * The hashes mapped onto G1
+	 */
+	private final List<Element> hashes;
+
+	/**
+	 * The signatures
+	 */
+	private final List<Element> signatures;
+
+	/**
+	 * Source of the random coefficients
+	 */
+	private final SecureRandom random;
+
+	/**
+	 * The number of pairings computed so far
+	 */
+	private int pairingCount = 0;
+
+	/**
+	 * Constructor for a BLSBatchVerifier for signatures made under the public
+	 * key of the provided certificate
+	 * 
+	 * @param cert
+	 * @throws BLSSignatureException
+	 */
+	public BLSBatchVerifier(WBBCert cert) throws BLSSignatureException {
+		this(cert.getVerificationKey());
+	}
+
+	/**
+	 * Constructor for a BLSBatchVerifier for signatures made under the
+	 * provided public key
+	 * 
+	 * @param g
+	 *            the generator for the public key
+	 * @param publicKey
+	 * @throws BLSSignatureException
+	 */
+	public BLSBatchVerifier(Element g, Element publicKey) throws BLSSignatureException {
+		this(new BLSVerificationKey(g, publicKey));
+	}
+
+	/**
+	 * Constructor for a BLSBatchVerifier for signatures made under the
+	 * provided verification key
+	 * 
+	 * @param verificationKey
+	 * @throws BLSSignatureException
+	 */
+	public BLSBatchVerifier(BLSVerificationKey verificationKey) throws BLSSignatureException {
+		this.pairing = CurveParams.getInstance().getPairing();
+		this.verificationKey = verificationKey;
+		this.hashes = new ArrayList<Element>();
+		this.signatures = new ArrayList<Element>();
+		this.random = new SecureRandom();
+	}
+
+	/**
+	 * Adds a signature to the batch
+	 * 
+	 * @param hash
+	 *            the signed data
+	 * @param signature
+	 * @return the index of the signature in the batch
+	 */
+	public int add(byte[] hash, Element signature) {
+		this.hashes.add(this.verificationKey.hashToG1(hash));
+		this.signatures.add(signature.getImmutable());
+
+		return this.signatures.size() - 1;
+	}
+
+	/**
+	 * Getter for the number of signatures in the batch
+	 * 
+	 * @return the number of signatures in the batch
+	 */
+	public int size() {
+		return this.signatures.size();
+	}
+
+	/**
+	 * Getter for the number of pairings computed so far
+	 * 
+	 * @return the number of pairings computed
+	 */
+	public int getPairingCount() {
+		return this.pairingCount;
+	}
+
+	/**
+	 * Verifies every signature in the batch
+	 * 
+	 * @return the indexes of the signatures which are valid
+	 */
+	public BitSet verify() {
+
+		logger.debug("Batch verifying {} BLS signatures", this.signatures.size());
+
+		BitSet valid = new BitSet(this.signatures.size());
+
+		if (!this.signatures.isEmpty()) {
+			this.verifyRange(0, this.signatures.size(), valid);
+		}
+
+		logger.debug("Batch verification of {} BLS signatures needed {} pairings", this.signatures.size(), this.pairingCount);
+
+		return valid;
+	}
+
+	/**
+	 * Verifies a range of the batch, bisecting the range if the batch check
+	 * fails
+	 * 
+	 * @param from
+	 * @param to
+	 * @param valid
+	 *            the set of valid signatures to update
+	 */
+	private void verifyRange(int from, int to, BitSet valid) {
+
+		if (to - from == 1) {
+			if (this.checkSingle(from)) {
+				valid.set(from);
+			}
+			return;
+		}
+
+		if (this.checkBatch(from, to)) {
+			valid.set(from, to);
+			return;
+		}
+
+		logger.debug("Batch check failed for BLS signatures {} to {} - bisecting", from, to - 1);
+
+		int middle = (from + to) >>> 1;
+
+		this.verifyRange(from, middle, valid);
+		this.verifyRange(middle, to, valid);
+	}
+
+	/**
+	 * Checks a single signature
+	 * 
+	 * @param index
+	 * @return true if the signature is valid
+	 */
+	private boolean checkSingle(int index) {
+		this.pairingCount += 2;
+
+		return this.verificationKey.verify(this.hashes.get(index), this.signatures.get(index));
+	}
+
+	/**
+	 * Carries out the randomised batch check on a range of the batch
+	 * 
+	 * @param from
+	 * @param to
+	 * @return true if the batch check passes
+	 */
+	private boolean checkBatch(int from, int to) {
+
+		int size = to - from;
+
+		BigInteger[] coefficients = new BigInteger[size];
+
+		for (int i = 0; i < size; i++) {
+			// a zero coefficient would drop the signature from the check
+			do {
+				coefficients[i] = new BigInteger(COEFFICIENT_BITS, this.random);
+			} while (coefficients[i].signum() == 0);
+		}
+
+		Element[] rangeSignatures = this.signatures.subList(from, to).toArray(new Element[size]);
+		Element[] rangeHashes = this.hashes.subList(from, to).toArray(new Element[size]);
+
+		Element combinedSignature = MultiExponentiation.compute(this.pairing.getG1(), rangeSignatures, coefficients);
+		Element combinedHash = MultiExponentiation.compute(this.pairing.getG1(), rangeHashes, coefficients);
+
+		this.pairingCount += 2;
+
+		return this.verificationKey.verify(combinedHash, combinedSignature);
+	}
+}
@@ -24,7 +24,6 @@ import it.unisa.dia.gas.jpbc.Element;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.vvote.thirdparty.ximix.util.LagrangeWeightCalculator;
 import com.vvote.verifierlibrary.exceptions.BLSSignatureException;
 
 /**
@@ -56,6 +55,11 @@ public class BLSCombiner {
 	 */
 	private final int numberOfNodes;
 
+	/**
+	 * The cache of Lagrange weights for the nodes
+	 */
+	private final LagrangeWeightCache weightCache;
+
 	/**
 	 * The current number of signatures held
 	 */
@@ -69,19 +73,44 @@ public class BLSCombiner {
 	 * @throws BLSSignatureException
 	 */
 	public BLSCombiner(int numberOfNodes, int threshold) throws BLSSignatureException {
+		this(new LagrangeWeightCache(numberOfNodes), threshold);
+	}
+
+	/**
+	 * Constructor for a <code>BLSCombiner</code> which shares previously
+	 * computed Lagrange weights with other combiners for the same nodes
+	 * 
+	 * @param weightCache
+	 * @param threshold
+	 * @throws BLSSignatureException
+	 */
+	public BLSCombiner(LagrangeWeightCache weightCache, int threshold) throws BLSSignatureException {
 
-		logger.debug("Creating new combiner with {} peers and a threshold of {}", numberOfNodes, threshold);
-		if (threshold > numberOfNodes) {
+		logger.debug("Creating new combiner with {} peers and a threshold of {}", weightCache.getNumberOfNodes(), threshold);
+		if (threshold > weightCache.getNumberOfNodes()) {
 			logger.error("Cannot create a BLS combiner a larger threshold than number of nodes");
 			throw new BLSSignatureException("Cannot create a BLS combiner a larger threshold than number of nodes");
 		}
 
-		this.numberOfNodes = numberOfNodes;
+		this.weightCache = weightCache;
+		this.numberOfNodes = weightCache.getNumberOfNodes();
 		this.signatures = new Element[this.numberOfNodes];
 
 		this.threshold = threshold;
 	}
 
+	/**
+	 * Gets the default threshold for the provided number of nodes. This is the
+	 * number of shares needed when up to a third of the nodes may be faulty
+	 * (5 of 7 nodes)
+	 * 
+	 * @param numberOfNodes
+	 * @return the default threshold
+	 */
+	public static int getDefaultThreshold(int numberOfNodes) {
+		return numberOfNodes - (numberOfNodes - 1) / 3;
+	}
+
 	/**
 	 * Getter for the signatures list
 	 * 
@@ -133,35 +162,15 @@ public class BLSCombiner {
 		if (this.numberOfSignatures >= this.threshold) {
 			logger.debug("Combining {} signature shares together", this.numberOfSignatures);
 
-			Element combinedSignature = null;
-
-			// If we have a threshold of shares calculate the LagrangeWeight.
+			// If we have a threshold of shares get the LagrangeWeight.
 			// If a share is missing it will be null in the array, this is
 			// important in the lagrange calculation.
-			LagrangeWeightCalculator weightCalculator = new LagrangeWeightCalculator(this.numberOfNodes, CurveParams.getInstance().getPairing().getZr().getOrder());
-
-			// Calculate the actual weights
-			BigInteger[] weights = weightCalculator.computeWeights(this.signatures);
-
-			// Step through the signatures array, applying the weight (if an
-			// element exists) and combining the values
-			for (int i = 0; i < this.signatures.length; i++) {
-				if (combinedSignature == null) {
-					// This is the first element we are going to add to the
-					// combined value so we just set it to the signature share
-					// multiplied by
-					// the weight
-					if (this.signatures[i] != null) {
-						combinedSignature = this.signatures[i].mul(weights[i]);
-					}
-				} else {
-					if (this.signatures[i] != null) {
-						// If we have a signature, apply the weight and combine
-						// with the previous shares
-						combinedSignature = combinedSignature.duplicate().mul(this.signatures[i].mul(weights[i]));
-					}
-				}
-			}
+			BigInteger[] weights = this.weightCache.getWeights(this.signatures);
+
+			// Apply the weights to the shares and combine the values in a
+			// single multi-exponentiation. Missing shares are skipped
+			Element combinedSignature = MultiExponentiation.compute(CurveParams.getInstance().getPairing().getG1(), this.signatures, weights);
+
 			return combinedSignature;
 		}
 
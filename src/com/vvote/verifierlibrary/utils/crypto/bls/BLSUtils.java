@@ -18,7 +18,6 @@
 package com.vvote.verifierlibrary.utils.crypto.bls;
 
 import it.unisa.dia.gas.jpbc.Element;
-import it.unisa.dia.gas.jpbc.Pairing;
 
 import com.vvote.datafiles.wbb.WBBCert;
 import com.vvote.verifierlibrary.exceptions.BLSSignatureException;
@@ -60,19 +59,8 @@ public class BLSUtils {
 	 * @throws BLSSignatureException
 	 */
 	public static boolean verifyBLSSignature(byte[] hash, Element signature, WBBCert cert) throws BLSSignatureException {
-		// Gets a reference to the curve pairing object
-		Pairing pairing = CurveParams.getInstance().getPairing();
-
-		// Map the hash onto an element in G1
-		Element h = pairing.getG1().newElement().setFromHash(hash, 0, hash.length).getImmutable();
-
-		// Create the signature pairing
-		Element sigPairing = pairing.pairing(signature, cert.getPublicKeyEntry().getgElem());
-
-		// Create the hash pairing
-		Element hashPairing = pairing.pairing(h, cert.getPublicKeyEntry().getPublicKeyElem());
-
-		// If the pairing are equal the signature is valid
-		return sigPairing.isEqual(hashPairing);
+		// A single product of pairings against the key state prepared when
+		// the certificate was loaded
+		return cert.getVerificationKey().verify(hash, signature);
 	}
 }
@@ -0,0 +1,128 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto.bls;
+
+import it.unisa.dia.gas.jpbc.Element;
+import it.unisa.dia.gas.jpbc.Pairing;
+
+import com.vvote.verifierlibrary.exceptions.BLSSignatureException;
+
+/**
+ * Holds the fixed pairing state for a BLS public key so that a signature can
+ * be checked with a single product of pairings:
+ * 
+ * e(sigma, g) * e(H(m), pk^-1) = 1
+ * 
+ * which shares the final exponentiation between both pairings rather than
+ * computing and comparing two separate GT elements. The key elements are made
+ * immutable and the inverse of the public key is computed once, when the key
+ * is loaded.
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class BLSVerificationKey {
+
+	/**
+	 * The pairing for the curve
+	 */
+	private final Pairing pairing;
+
+	/**
+	 * The generator g for the public key
+	 */
+	private final Element g;
+
+	/**
+	 * The public key
+	 */
+	private final Element publicKey;
+
+	/**
+	 * The G2 arguments of the product of pairings: g and the inverse of the
+	 * public key
+	 */
+	private final Element[] keyElements;
+
+	/**
+	 * Constructor for a BLSVerificationKey
+	 * 
+	 * @param g
+	 *            the generator for the public key
+	 * @param publicKey
+	 * @throws BLSSignatureException
+	 */
+	public BLSVerificationKey(Element g, Element publicKey) throws BLSSignatureException {
+		this.pairing = CurveParams.getInstance().getPairing();
+		this.g = g.getImmutable();
+		this.publicKey = publicKey.getImmutable();
+		this.keyElements = new Element[] { this.g, this.publicKey.duplicate().invert().getImmutable() };
+	}
+
+	/**
+	 * Getter for the generator
+	 * 
+	 * @return g
+	 */
+	public Element getG() {
+		return this.g;
+	}
+
+	/**
+	 * Getter for the public key
+	 * 
+	 * @return publicKey
+	 */
+	public Element getPublicKey() {
+		return this.publicKey;
+	}
+
+	/**
+	 * Maps the provided hash onto an element in G1
+	 * 
+	 * @param hash
+	 * @return the immutable element of G1 for the hash
+	 */
+	public Element hashToG1(byte[] hash) {
+		return this.pairing.getG1().newElement().setFromHash(hash, 0, hash.length).getImmutable();
+	}
+
+	/**
+	 * Verifies that the signature was made over the provided hash
+	 * 
+	 * @param hash
+	 * @param signature
+	 * @return true if the signature is valid
+	 */
+	public boolean verify(byte[] hash, Element signature) {
+		return this.verify(this.hashToG1(hash), signature);
+	}
+
+	/**
+	 * Verifies that the signature was made over the provided hash which has
+	 * already been mapped onto G1
+	 * 
+	 * @param hashElement
+	 *            the hash as an element of G1
+	 * @param signature
+	 * @return true if the signature is valid
+	 */
+	public boolean verify(Element hashElement, Element signature) {
+		return this.pairing.pairing(new Element[] { signature, hashElement }, this.keyElements).isOne();
+	}
+}
@@ -0,0 +1,137 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto.bls;
+
+import java.math.BigInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vvote.thirdparty.ximix.util.LagrangeWeightCalculator;
+import com.vvote.verifierlibrary.exceptions.BLSSignatureException;
+
+/**
+ * Caches the Lagrange weights for combining signature shares, keyed by the
+ * set of peers which provided a share. Only a handful of subsets of the peers
+ * ever occur in practice so the modular inverses for each subset are only
+ * computed once.
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class LagrangeWeightCache {
+
+	/**
+	 * provides logging for the class
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(LagrangeWeightCache.class);
+
+	/**
+	 * The largest number of peers which can be represented in the bitmask key
+	 */
+	public static final int MAX_NODES = Long.SIZE;
+
+	/**
+	 * The total number of nodes
+	 */
+	private final int numberOfNodes;
+
+	/**
+	 * Calculator for the weights
+	 */
+	private final LagrangeWeightCalculator weightCalculator;
+
+	/**
+	 * The weights for each bitmask of active peers
+	 */
+	private final ConcurrentMap<Long, BigInteger[]> weights;
+
+	/**
+	 * Constructor for a <code>LagrangeWeightCache</code> over the order of the
+	 * BLS curve
+	 * 
+	 * @param numberOfNodes
+	 * @throws BLSSignatureException
+	 */
+	public LagrangeWeightCache(int numberOfNodes) throws BLSSignatureException {
+
+		if (numberOfNodes < 1 || numberOfNodes > MAX_NODES) {
+			logger.error("Cannot cache Lagrange weights for {} peers. The number of peers must be between 1 and {}", numberOfNodes, MAX_NODES);
+			throw new BLSSignatureException("Cannot cache Lagrange weights for " + numberOfNodes + " peers. The number of peers must be between 1 and " + MAX_NODES);
+		}
+
+		this.numberOfNodes = numberOfNodes;
+		this.weightCalculator = new LagrangeWeightCalculator(numberOfNodes, CurveParams.getInstance().getPairing().getZr().getOrder());
+		this.weights = new ConcurrentHashMap<Long, BigInteger[]>();
+	}
+
+	/**
+	 * Getter for the number of nodes
+	 * 
+	 * @return numberOfNodes
+	 */
+	public int getNumberOfNodes() {
+		return this.numberOfNodes;
+	}
+
+	/**
+	 * Getter for the number of subsets of peers for which weights have been
+	 * computed
+	 * 
+	 * @return the number of cached subsets
+	 */
+	public int size() {
+		return this.weights.size();
+	}
+
+	/**
+	 * Gets the Lagrange weights for the provided peers
+	 * 
+	 * @param activePeers
+	 *            an ordered array of peers, entries are null if no peer is
+	 *            present
+	 * @return the Lagrange weights, null for peers which are not present
+	 */
+	public BigInteger[] getWeights(Object[] activePeers) {
+
+		long mask = 0;
+
+		for (int i = 0; i < this.numberOfNodes; i++) {
+			if (activePeers[i] != null) {
+				mask |= 1L << i;
+			}
+		}
+
+		BigInteger[] cached = this.weights.get(mask);
+
+		if (cached == null) {
+			logger.debug("Computing Lagrange weights for active peers: {}", Long.toBinaryString(mask));
+
+			cached = this.weightCalculator.computeWeights(activePeers);
+
+			BigInteger[] existing = this.weights.putIfAbsent(mask, cached);
+			if (existing != null) {
+				cached = existing;
+			}
+		}
+
+		return cached.clone();
+	}
+}
@@ -0,0 +1,143 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto.bls;
+
+import it.unisa.dia.gas.jpbc.Element;
+import it.unisa.dia.gas.jpbc.Field;
+
+import java.math.BigInteger;
+
+/**
+ * Computes a product of powers prod(b_i ^ e_i) as a single simultaneous
+ * multi-exponentiation (Straus' method with a fixed window). The squarings
+ * are shared between all of the bases so the cost is a single exponentiation
+ * plus one multiplication per base per window, rather than one exponentiation
+ * per base.
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class MultiExponentiation {
+
+	/**
+	 * The width in bits of each window
+	 */
+	private static final int WINDOW_BITS = 4;
+
+	/**
+	 * The number of precomputed powers held per base
+	 */
+	private static final int TABLE_SIZE = 1 << WINDOW_BITS;
+
+	/**
+	 * Private constructor to prevent instantiation
+	 */
+	private MultiExponentiation() {
+	}
+
+	/**
+	 * Computes prod(bases[i] ^ exponents[i]) skipping any null bases or
+	 * exponents
+	 * 
+	 * @param field
+	 *            the group the bases belong to
+	 * @param bases
+	 * @param exponents
+	 *            non-negative exponents
+	 * @return a new element holding the product of powers
+	 */
+	public static Element compute(Field<?> field, Element[] bases, BigInteger[] exponents) {
+
+		if (bases.length != exponents.length) {
+			throw new IllegalArgumentException("The number of bases (" + bases.length + ") and exponents (" + exponents.length + ") must match");
+		}
+
+		int maxBits = 0;
+
+		for (int i = 0; i < bases.length; i++) {
+			if (bases[i] != null && exponents[i] != null) {
+				if (exponents[i].signum() < 0) {
+					throw new IllegalArgumentException("Exponents must be non-negative");
+				}
+				maxBits = Math.max(maxBits, exponents[i].bitLength());
+			}
+		}
+
+		Element result = field.newElement().setToOne();
+
+		if (maxBits == 0) {
+			return result;
+		}
+
+		// table[i][d] = bases[i] ^ d
+		Element[][] table = new Element[bases.length][];
+
+		for (int i = 0; i < bases.length; i++) {
+			if (bases[i] != null && exponents[i] != null && exponents[i].signum() != 0) {
+				table[i] = new Element[TABLE_SIZE];
+				table[i][1] = bases[i].getImmutable();
+				for (int d = 2; d < TABLE_SIZE; d++) {
+					table[i][d] = table[i][d - 1].mul(table[i][1]).getImmutable();
+				}
+			}
+		}
+
+		int windows = (maxBits + WINDOW_BITS - 1) / WINDOW_BITS;
+
+		for (int window = windows - 1; window >= 0; window--) {
+
+			if (window != windows - 1) {
+				for (int s = 0; s < WINDOW_BITS; s++) {
+					result.square();
+				}
+			}
+
+			for (int i = 0; i < bases.length; i++) {
+				if (table[i] != null) {
+					int digit = windowValue(exponents[i], window * WINDOW_BITS);
+					if (digit != 0) {
+						result.mul(table[i][digit]);
+					}
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets the value of the window of the exponent starting at the provided
+	 * bit
+	 * 
+	 * @param exponent
+	 * @param startBit
+	 * @return the value of the window
+	 */
+	private static int windowValue(BigInteger exponent, int startBit) {
+		int value = 0;
+
+		for (int b = WINDOW_BITS - 1; b >= 0; b--) {
+			value <<= 1;
+			if (exponent.testBit(startBit + b)) {
+				value |= 1;
+			}
+		}
+
+		return value;
+	}
+}
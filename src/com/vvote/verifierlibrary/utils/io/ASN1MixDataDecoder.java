@@ -0,0 +1,308 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.io;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bouncycastle.asn1.ASN1InputStream;
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vvote.ec.ElGamalECPoint;
+import com.vvote.verifierlibrary.exceptions.ASN1Exception;
+import com.vvote.verifierlibrary.utils.crypto.CurveContext;
+
+/**
+ * Provides a streaming decoder for the asn.1 Mixnet input (ciphers) and output
+ * (plaintexts) files. Each top level asn.1 sequence in a file is a single row
+ * (one packed ballot) which is decoded straight into <code>ElGamalECPoint</code>
+ * or <code>ECPoint</code> objects and handed to a <code>RowHandler</code>, so
+ * no intermediate JSON representation of the file is built
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class ASN1MixDataDecoder {
+
+	/**
+	 * Provides logging for the class
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(ASN1MixDataDecoder.class);
+
+	/**
+	 * Callback receiving each decoded row of a Mixnet data file
+	 * 
+	 * @param <T>
+	 *            the type of the elements of each row
+	 */
+	public interface RowHandler<T> {
+
+		/**
+		 * Handles a single decoded row
+		 * 
+		 * @param row
+		 * @throws ASN1Exception
+		 */
+		void handleRow(List<T> row) throws ASN1Exception;
+	}
+
+	/**
+	 * Decodes a Mixnet input file containing rows of ciphers
+	 * 
+	 * @param context
+	 *            the curve the points are decoded onto
+	 * @param inputFile
+	 * @param handler
+	 * @return the number of rows decoded
+	 * @throws ASN1Exception
+	 */
+	public static int decodeCiphers(CurveContext context, String inputFile, RowHandler<ElGamalECPoint> handler) throws ASN1Exception {
+		try (InputStream is = new BufferedInputStream(new FileInputStream(inputFile))) {
+			return decodeCiphers(context, is, handler);
+		} catch (FileNotFoundException e) {
+			logger.error("Cannot find file", e);
+			throw new ASN1Exception("Cannot find file", e);
+		} catch (IOException e) {
+			logger.error("Cannot read file", e);
+			throw new ASN1Exception("Cannot read file", e);
+		}
+	}
+
+	/**
+	 * Decodes a stream containing rows of ciphers. The stream is not closed
+	 * 
+	 * @param context
+	 *            the curve the points are decoded onto
+	 * @param inputStream
+	 * @param handler
+	 * @return the number of rows decoded
+	 * @throws ASN1Exception
+	 */
+	public static int decodeCiphers(CurveContext context, InputStream inputStream, RowHandler<ElGamalECPoint> handler) throws ASN1Exception {
+
+		final ECCurve curve = context.getCurve();
+
+		int rows = 0;
+
+		try {
+			@SuppressWarnings("resource")
+			ASN1InputStream ais = new ASN1InputStream(inputStream);
+
+			ASN1Primitive obj = null;
+
+			// loop over each row
+			while ((obj = ais.readObject()) != null) {
+
+				ASN1Sequence seq = asSequence(obj);
+
+				List<ElGamalECPoint> row = new ArrayList<ElGamalECPoint>(seq.size());
+
+				// loop over each cipher in the row
+				for (int i = 0; i < seq.size(); i++) {
+					ASN1Sequence cipher = asSequence(seq.getObjectAt(i));
+
+					if (cipher.size() != 2) {
+						logger.error("A cipher must contain exactly two points. Found: {}", cipher.size());
+						throw new ASN1Exception("A cipher must contain exactly two points. Found: " + cipher.size());
+					}
+
+					ECPoint gr = decodePoint(curve, cipher.getObjectAt(0));
+					ECPoint myr = decodePoint(curve, cipher.getObjectAt(1));
+
+					row.add(new ElGamalECPoint(myr, gr));
+				}
+
+				handler.handleRow(row);
+				rows++;
+			}
+		} catch (IOException e) {
+			logger.error("Cannot read asn.1 data", e);
+			throw new ASN1Exception("Cannot read asn.1 data", e);
+		} catch (IllegalArgumentException e) {
+			logger.error("Invalid point found in asn.1 data", e);
+			throw new ASN1Exception("Invalid point found in asn.1 data", e);
+		}
+
+		return rows;
+	}
+
+	/**
+	 * Decodes a Mixnet output file containing rows of plaintexts
+	 * 
+	 * @param context
+	 *            the curve the points are decoded onto
+	 * @param inputFile
+	 * @param handler
+	 * @return the number of rows decoded
+	 * @throws ASN1Exception
+	 */
+	public static int decodePlaintexts(CurveContext context, String inputFile, RowHandler<ECPoint> handler) throws ASN1Exception {
+		try (InputStream is = new BufferedInputStream(new FileInputStream(inputFile))) {
+			return decodePlaintexts(context, is, handler);
+		} catch (FileNotFoundException e) {
+			logger.error("Cannot find file", e);
+			throw new ASN1Exception("Cannot find file", e);
+		} catch (IOException e) {
+			logger.error("Cannot read file", e);
+			throw new ASN1Exception("Cannot read file", e);
+		}
+	}
+
+	/**
+	 * Decodes a stream containing rows of plaintexts. The stream is not closed
+	 * 
+	 * @param context
+	 *            the curve the points are decoded onto
+	 * @param inputStream
+	 * @param handler
+	 * @return the number of rows decoded
+	 * @throws ASN1Exception
+	 */
+	public static int decodePlaintexts(CurveContext context, InputStream inputStream, RowHandler<ECPoint> handler) throws ASN1Exception {
+
+		final ECCurve curve = context.getCurve();
+
+		int rows = 0;
+
+		try {
+			@SuppressWarnings("resource")
+			ASN1InputStream ais = new ASN1InputStream(inputStream);
+
+			ASN1Primitive obj = null;
+
+			// loop over each row
+			while ((obj = ais.readObject()) != null) {
+
+				ASN1Sequence seq = asSequence(obj);
+
+				List<ECPoint> row = new ArrayList<ECPoint>(seq.size());
+
+				// loop over each plaintext in the row
+				for (int i = 0; i < seq.size(); i++) {
+					row.add(decodePoint(curve, seq.getObjectAt(i)));
+				}
+
+				handler.handleRow(row);
+				rows++;
+			}
+		} catch (IOException e) {
+			logger.error("Cannot read asn.1 data", e);
+			throw new ASN1Exception("Cannot read asn.1 data", e);
+		} catch (IllegalArgumentException e) {
+			logger.error("Invalid point found in asn.1 data", e);
+			throw new ASN1Exception("Invalid point found in asn.1 data", e);
+		}
+
+		return rows;
+	}
+
+	/**
+	 * Reads all rows of a Mixnet input file
+	 * 
+	 * @param context
+	 *            the curve the points are decoded onto
+	 * @param inputFile
+	 * @return the rows of ciphers
+	 * @throws ASN1Exception
+	 */
+	public static List<List<ElGamalECPoint>> readCiphers(CurveContext context, String inputFile) throws ASN1Exception {
+		final List<List<ElGamalECPoint>> rows = new ArrayList<List<ElGamalECPoint>>();
+
+		decodeCiphers(context, inputFile, new RowHandler<ElGamalECPoint>() {
+			@Override
+			public void handleRow(List<ElGamalECPoint> row) {
+				rows.add(row);
+			}
+		});
+
+		return rows;
+	}
+
+	/**
+	 * Reads all rows of a Mixnet output file
+	 * 
+	 * @param context
+	 *            the curve the points are decoded onto
+	 * @param inputFile
+	 * @return the rows of plaintexts
+	 * @throws ASN1Exception
+	 */
+	public static List<List<ECPoint>> readPlaintexts(CurveContext context, String inputFile) throws ASN1Exception {
+		final List<List<ECPoint>> rows = new ArrayList<List<ECPoint>>();
+
+		decodePlaintexts(context, inputFile, new RowHandler<ECPoint>() {
+			@Override
+			public void handleRow(List<ECPoint> row) {
+				rows.add(row);
+			}
+		});
+
+		return rows;
+	}
+
+	/**
+	 * Casts an asn.1 object to a sequence
+	 * 
+	 * @param obj
+	 * @return the sequence
+	 * @throws ASN1Exception
+	 */
+	private static ASN1Sequence asSequence(Object obj) throws ASN1Exception {
+		if (obj instanceof ASN1Sequence) {
+			return (ASN1Sequence) obj;
+		}
+
+		logger.error("Expected an asn.1 sequence but found: {}", obj.getClass().getName());
+		throw new ASN1Exception("Expected an asn.1 sequence but found: " + obj.getClass().getName());
+	}
+
+	/**
+	 * Decodes an encoded point held in an asn.1 octet string
+	 * 
+	 * @param curve
+	 * @param obj
+	 * @return the decoded point
+	 * @throws ASN1Exception
+	 */
+	private static ECPoint decodePoint(ECCurve curve, Object obj) throws ASN1Exception {
+		if (obj instanceof ASN1OctetString) {
+			return curve.decodePoint(((ASN1OctetString) obj).getOctets());
+		}
+
+		logger.error("Expected an asn.1 octet string but found: {}", obj.getClass().getName());
+		throw new ASN1Exception("Expected an asn.1 octet string but found: " + obj.getClass().getName());
+	}
+
+	/**
+	 * Prevents the class being externally created
+	 */
+	private ASN1MixDataDecoder() {
+		return;
+	}
+}
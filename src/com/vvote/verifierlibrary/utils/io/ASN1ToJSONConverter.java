@@ -17,15 +17,12 @@
  */
 package com.vvote.verifierlibrary.utils.io;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Enumeration;
+import java.io.Writer;
+import java.util.List;
 
-import org.bouncycastle.asn1.ASN1InputStream;
-import org.bouncycastle.asn1.ASN1Primitive;
-import org.bouncycastle.asn1.ASN1Sequence;
-import org.bouncycastle.asn1.DEROctetString;
 import org.bouncycastle.math.ec.ECPoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,12 +31,14 @@ import com.vvote.ec.ElGamalECPoint;
 import com.vvote.thirdparty.json.orgjson.JSONArray;
 import com.vvote.thirdparty.json.orgjson.JSONException;
 import com.vvote.verifierlibrary.exceptions.ASN1Exception;
-import com.vvote.verifierlibrary.exceptions.JSONIOException;
+import com.vvote.verifierlibrary.utils.crypto.CurveContext;
 import com.vvote.verifierlibrary.utils.crypto.ECUtils;
 
 /**
  * Provides utility methods for converting asn.1 files to json files for easier
- * analysis and debugging
+ * analysis and debugging. The verifier itself reads the asn.1 files directly
+ * using <code>ASN1MixDataDecoder</code>; the conversion here is an optional
+ * export which streams each decoded row to the output file as it is read
  * 
  * Modified from sample code provided by Chris Culnane.
  * 
@@ -56,51 +55,74 @@ public class ASN1ToJSONConverter {
 	/**
 	 * Utility method used for converting asn.1 files to json
 	 * 
+	 * @param context
+	 *            the curve the points in the asn.1 file lie on
 	 * @param inputFile
 	 * @param outputFile
 	 * @param fileType
 	 * @return whether the conversion was successful
 	 * @throws ASN1Exception
 	 */
-	public static boolean asn1ToJSON(String inputFile, String outputFile, FileType fileType) throws ASN1Exception {
+	public static boolean asn1ToJSON(CurveContext context, String inputFile, String outputFile, FileType fileType) throws ASN1Exception {
 
 		logger.debug("Reading in asn.1 file: {}", inputFile);
 
-		JSONArray out = new JSONArray();
-
-		// create the ASN1 input stream
-		try (ASN1InputStream ais = new ASN1InputStream(new FileInputStream(inputFile))) {
-			ASN1Primitive obj = null;
-
-			// loop over each ASN1 primitive
-			while ((obj = ais.readObject()) != null) {
-				switch (fileType) {
-				// convert plaintexts
-				case MIX_OUTPUT:
-					convertASN1ECPoints(obj, out);
-					break;
-				// convert ciphers
-				case MIX_INPUT:
-					convertASN1Ciphers(obj, out);
-					break;
-				default:
-					return false;
-				}
+		if (fileType != FileType.MIX_OUTPUT && fileType != FileType.MIX_INPUT) {
+			return false;
+		}
+
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile))) {
+
+			final JSONRowWriter rowWriter = new JSONRowWriter(writer);
+
+			writer.write('[');
+
+			switch (fileType) {
+			// convert plaintexts
+			case MIX_OUTPUT:
+				ASN1MixDataDecoder.decodePlaintexts(context, inputFile, new ASN1MixDataDecoder.RowHandler<ECPoint>() {
+					@Override
+					public void handleRow(List<ECPoint> row) throws ASN1Exception {
+						JSONArray seqArr = new JSONArray();
+
+						try {
+							for (ECPoint point : row) {
+								seqArr.put(ECUtils.constructJSONFromECPoint(point));
+							}
+						} catch (JSONException e) {
+							logger.error("There was a problem during conversion", e);
+							throw new ASN1Exception("There was a problem during conversion", e);
+						}
+
+						rowWriter.write(seqArr);
+					}
+				});
+				break;
+			// convert ciphers
+			default:
+				ASN1MixDataDecoder.decodeCiphers(context, inputFile, new ASN1MixDataDecoder.RowHandler<ElGamalECPoint>() {
+					@Override
+					public void handleRow(List<ElGamalECPoint> row) throws ASN1Exception {
+						JSONArray seqArr = new JSONArray();
+
+						try {
+							for (ElGamalECPoint cipher : row) {
+								seqArr.put(ECUtils.constructJSONFromCipher(cipher));
+							}
+						} catch (JSONException e) {
+							logger.error("There was a problem during conversion", e);
+							throw new ASN1Exception("There was a problem during conversion", e);
+						}
+
+						rowWriter.write(seqArr);
+					}
+				});
+				break;
 			}
 
-			// write the output JSON to file
-			IOUtils.writeJSONToFile(out, outputFile);
+			writer.write(']');
 
-		} catch (FileNotFoundException e) {
-			logger.error("Cannot find file", e);
-			throw new ASN1Exception("Cannot find file", e);
 		} catch (IOException e) {
-			logger.error("Cannot read file", e);
-			throw new ASN1Exception("Cannot read file", e);
-		} catch (JSONException e) {
-			logger.error("There was a problem during conversion", e);
-			throw new ASN1Exception("There was a problem during conversion", e);
-		} catch (JSONIOException e) {
 			logger.error("Unable to write JSON to file", e);
 			throw new ASN1Exception("Unable to write JSON to file", e);
 		}
@@ -109,68 +131,46 @@ public class ASN1ToJSONConverter {
 	}
 
 	/**
-	 * Converts an ASN.1 file containing ciphers to JSON format
-	 * 
-	 * @param obj
-	 * @param parent
-	 * @throws JSONException
+	 * Writes each row of the JSON output as it is produced
 	 */
-	private static void convertASN1Ciphers(Object obj, JSONArray parent) throws JSONException {
-		// ensure obj is an ASN1Sequence object before the cast
-		if (obj instanceof ASN1Sequence) {
-			ASN1Sequence seq = (ASN1Sequence) obj;
-
-			// check whether the sequence is a re-encrypted candidate ciphertext
-			if (seq.size() == 2 && seq.getObjectAt(0) instanceof DEROctetString) {
-				ECPoint gr = ECUtils.getParams().getCurve().decodePoint(((DEROctetString) seq.getObjectAt(0)).getOctets());
-				ECPoint myr = ECUtils.getParams().getCurve().decodePoint(((DEROctetString) seq.getObjectAt(1)).getOctets());
-				ElGamalECPoint cipher = new ElGamalECPoint(myr, gr);
-				parent.put(ECUtils.constructJSONFromCipher(cipher));
-
-				// if not it is a sequence of ciphers with each needing
-				// conversion
-			} else {
-				Enumeration<?> objs = seq.getObjects();
-				JSONArray seqArr = new JSONArray();
-				while (objs.hasMoreElements()) {
-					convertASN1Ciphers(objs.nextElement(), seqArr);
-				}
-				parent.put(seqArr);
-			}
-		} else {
-			System.err.println("Unknown ASN1 Type:" + obj.getClass().getName());
+	private static final class JSONRowWriter {
+
+		/**
+		 * The underlying writer
+		 */
+		private final Writer writer;
+
+		/**
+		 * Whether the next row is the first row
+		 */
+		private boolean first = true;
+
+		/**
+		 * Constructor for a <code>JSONRowWriter</code>
+		 * 
+		 * @param writer
+		 */
+		private JSONRowWriter(Writer writer) {
+			this.writer = writer;
 		}
 
-	}
-
-	/**
-	 * Converts an ASN.1 file containing ECPoint's to JSON format
-	 * 
-	 * @param obj
-	 * @param parent
-	 * @throws JSONException
-	 */
-	private static void convertASN1ECPoints(Object obj, JSONArray parent) throws JSONException {
-		// check whether obj is an ASN1Sequence object. If its a sequence need
-		// to convert each element
-		if (obj instanceof ASN1Sequence) {
-			ASN1Sequence seq = (ASN1Sequence) obj;
-			Enumeration<?> objs = seq.getObjects();
-			JSONArray seqArr = new JSONArray();
-			// as it is a sequence we need to convert each element of the
-			// sequence
-			while (objs.hasMoreElements()) {
-				convertASN1ECPoints(objs.nextElement(), seqArr);
+		/**
+		 * Writes a single row
+		 * 
+		 * @param row
+		 * @throws ASN1Exception
+		 */
+		private void write(JSONArray row) throws ASN1Exception {
+			try {
+				if (!this.first) {
+					this.writer.write(',');
+				}
+				this.writer.write(row.toString());
+				this.first = false;
+			} catch (IOException e) {
+				logger.error("Unable to write JSON to file", e);
+				throw new ASN1Exception("Unable to write JSON to file", e);
 			}
-			parent.put(seqArr);
-
-			// else we can convert directly the DEROctet
-		} else if (obj instanceof DEROctetString) {
-			ECPoint point = ECUtils.getParams().getCurve().decodePoint(((DEROctetString) obj).getOctets());
-			parent.put(ECUtils.constructJSONFromECPoint(point));
-		} else {
-			System.err.println("Unknown ASN1 Type:" + obj.getClass().getName());
 		}
-
 	}
 }
@@ -0,0 +1,385 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Provides a read-only view over a contiguous region of a file on disk. A
+ * <code>FileRegion</code> may cover a whole file or just the bytes of an entry
+ * stored inside a zip file, which allows stored zip entries (including zip
+ * files nested inside other zip files) to be read and randomly accessed
+ * without first being extracted.
+ * 
+ * A region and the sub regions created from it share a single channel over
+ * the underlying file which is opened on the first positioned read. Closing
+ * any of them closes the shared channel, which is reopened if the region is
+ * read again
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class FileRegion implements Closeable {
+
+	/**
+	 * Size of the buffer used when streaming the region
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * The underlying file
+	 */
+	private final File file;
+
+	/**
+	 * The byte offset of the start of the region in the file
+	 */
+	private final long offset;
+
+	/**
+	 * The length of the region in bytes
+	 */
+	private final long length;
+
+	/**
+	 * The channel shared with the regions created from the same file
+	 */
+	private final SharedChannel channel;
+
+	/**
+	 * Constructor for a <code>FileRegion</code> covering the whole of the
+	 * provided file
+	 * 
+	 * @param file
+	 */
+	public FileRegion(File file) {
+		this(file, 0, file.length());
+	}
+
+	/**
+	 * Constructor for a <code>FileRegion</code>
+	 * 
+	 * @param file
+	 * @param offset
+	 * @param length
+	 */
+	public FileRegion(File file, long offset, long length) {
+		this(file, offset, length, new SharedChannel(file));
+	}
+
+	/**
+	 * Constructor for a <code>FileRegion</code> sharing the channel of another
+	 * region over the same file
+	 * 
+	 * @param file
+	 * @param offset
+	 * @param length
+	 * @param channel
+	 */
+	private FileRegion(File file, long offset, long length, SharedChannel channel) {
+		this.file = file;
+		this.offset = offset;
+		this.length = length;
+		this.channel = channel;
+	}
+
+	/**
+	 * Getter for the underlying file
+	 * 
+	 * @return file
+	 */
+	public File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Getter for the byte offset of the region
+	 * 
+	 * @return offset
+	 */
+	public long getOffset() {
+		return this.offset;
+	}
+
+	/**
+	 * Getter for the length of the region
+	 * 
+	 * @return length
+	 */
+	public long getLength() {
+		return this.length;
+	}
+
+	/**
+	 * Creates a sub region of the current region
+	 * 
+	 * @param subOffset
+	 *            offset relative to the start of the current region
+	 * @param subLength
+	 * @return the sub region
+	 * @throws IOException
+	 */
+	public FileRegion subRegion(long subOffset, long subLength) throws IOException {
+		if (subOffset < 0 || subLength < 0 || subOffset + subLength > this.length) {
+			throw new IOException("Sub region [" + subOffset + ", " + (subOffset + subLength) + ") lies outside of: " + this);
+		}
+		return new FileRegion(this.file, this.offset + subOffset, subLength, this.channel);
+	}
+
+	/**
+	 * Reads bytes from the region into the provided buffer using a single
+	 * positioned read. The buffer is filled completely
+	 * 
+	 * @param position
+	 *            position relative to the start of the region
+	 * @param buffer
+	 * @throws IOException
+	 */
+	public void read(long position, ByteBuffer buffer) throws IOException {
+
+		if (position < 0 || position + buffer.remaining() > this.length) {
+			throw new IOException("Read of " + buffer.remaining() + " bytes at position " + position + " lies outside of: " + this);
+		}
+
+		readFully(this.channel.get(), this.offset + position, buffer);
+	}
+
+	/**
+	 * Reads bytes from a channel until the buffer is full
+	 * 
+	 * @param channel
+	 * @param position
+	 * @param buffer
+	 * @throws IOException
+	 */
+	private static void readFully(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+
+		long currentPosition = position;
+
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, currentPosition);
+
+			if (read < 0) {
+				throw new IOException("Unexpected end of file at position: " + currentPosition);
+			}
+
+			currentPosition += read;
+		}
+	}
+
+	/**
+	 * Opens an input stream over the region. The stream reads through its own
+	 * channel which is closed with the stream
+	 * 
+	 * @return an input stream reading the bytes of the region
+	 * @throws IOException
+	 */
+	public InputStream openStream() throws IOException {
+		return new RegionInputStream(FileChannel.open(this.file.toPath(), StandardOpenOption.READ), this.offset, this.length);
+	}
+
+	/**
+	 * Closes the channel shared by the region and the regions created from the
+	 * same file
+	 */
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+
+	@Override
+	public String toString() {
+		return "FileRegion [file=" + this.file + ", offset=" + this.offset + ", length=" + this.length + "]";
+	}
+
+	/**
+	 * Channel over a file shared by the regions created from it. The channel
+	 * is opened when first needed and reopened if it has been closed, either
+	 * by closing a region or by an interrupted read
+	 */
+	private static final class SharedChannel {
+
+		/**
+		 * The underlying file
+		 */
+		private final File file;
+
+		/**
+		 * The open channel or null if the channel is not open
+		 */
+		private FileChannel channel = null;
+
+		/**
+		 * Constructor for a <code>SharedChannel</code>
+		 * 
+		 * @param file
+		 */
+		private SharedChannel(File file) {
+			this.file = file;
+		}
+
+		/**
+		 * Gets the open channel, opening it if needed
+		 * 
+		 * @return the channel
+		 * @throws IOException
+		 */
+		private synchronized FileChannel get() throws IOException {
+			if (this.channel == null || !this.channel.isOpen()) {
+				this.channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ);
+			}
+			return this.channel;
+		}
+
+		/**
+		 * Closes the channel if it is open
+		 * 
+		 * @throws IOException
+		 */
+		private synchronized void close() throws IOException {
+			if (this.channel != null) {
+				try {
+					this.channel.close();
+				} finally {
+					this.channel = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Input stream over a region of a file channel
+	 */
+	private static final class RegionInputStream extends InputStream {
+
+		/**
+		 * The underlying channel
+		 */
+		private final FileChannel channel;
+
+		/**
+		 * Buffer for data read from the channel
+		 */
+		private final ByteBuffer buffer;
+
+		/**
+		 * Position in the channel of the next read
+		 */
+		private long position;
+
+		/**
+		 * Number of bytes remaining in the channel to be read into the buffer
+		 */
+		private long remaining;
+
+		/**
+		 * Constructor for a <code>RegionInputStream</code>
+		 * 
+		 * @param channel
+		 * @param offset
+		 * @param length
+		 */
+		private RegionInputStream(FileChannel channel, long offset, long length) {
+			this.channel = channel;
+			this.position = offset;
+			this.remaining = length;
+			this.buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, Math.max(length, 1)));
+			this.buffer.flip();
+		}
+
+		/**
+		 * Refills the buffer
+		 * 
+		 * @return false if the end of the region has been reached
+		 * @throws IOException
+		 */
+		private boolean fill() throws IOException {
+			if (this.remaining <= 0) {
+				return false;
+			}
+
+			this.buffer.clear();
+			this.buffer.limit((int) Math.min(this.buffer.capacity(), this.remaining));
+
+			int toRead = this.buffer.limit();
+
+			readFully(this.channel, this.position, this.buffer);
+
+			this.position += toRead;
+			this.remaining -= toRead;
+			this.buffer.flip();
+
+			return true;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (!this.buffer.hasRemaining() && !this.fill()) {
+				return -1;
+			}
+			return this.buffer.get() & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+
+			if (!this.buffer.hasRemaining() && !this.fill()) {
+				return -1;
+			}
+
+			int count = Math.min(len, this.buffer.remaining());
+			this.buffer.get(b, off, count);
+			return count;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			if (n <= 0) {
+				return 0;
+			}
+
+			long skipped = Math.min(n, this.buffer.remaining());
+			this.buffer.position(this.buffer.position() + (int) skipped);
+
+			long fromChannel = Math.min(n - skipped, this.remaining);
+			this.position += fromChannel;
+			this.remaining -= fromChannel;
+
+			return skipped + fromChannel;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return (int) Math.min(Integer.MAX_VALUE, this.buffer.remaining() + this.remaining);
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.channel.close();
+		}
+	}
+}
@@ -20,29 +20,23 @@ package com.vvote.verifierlibrary.utils.io;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Enumeration;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
-import java.util.zip.ZipInputStream;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import au.com.bytecode.opencsv.CSVReader;
 
-import com.vvote.commits.CommitFileNames;
 import com.vvote.thirdparty.json.orgjson.JSONArray;
 import com.vvote.thirdparty.json.orgjson.JSONException;
 import com.vvote.thirdparty.json.orgjson.JSONObject;
@@ -154,90 +148,6 @@ public class IOUtils {
 		return null;
 	}
 
-	/**
-	 * Utility class to extract a zip file
-	 * 
-	 * @param filepath
-	 * @return the location of the extract zip file
-	 * @throws IOException
-	 */
-	public static String extractZipFile(String filepath) throws IOException {
-
-		if (IOUtils.checkExtension(FileType.ZIP, filepath)) {
-			try (ZipFile zipFile = new ZipFile(filepath)) {
-
-				// files in zip file
-				Enumeration<? extends ZipEntry> entries = zipFile.entries();
-
-				// current zip directory
-				File zipDirectory = new File(filepath);
-
-				// output directory - doesn't include the .zip extension
-				File outputDirectory = new File(IOUtils.join(zipDirectory.getParent(), IOUtils.getFileNameWithoutExtension(filepath)));
-
-				// make directory if not exists
-				if (!outputDirectory.exists()) {
-					outputDirectory.mkdir();
-				}
-
-				InputStream is = null;
-				FileOutputStream fos = null;
-				byte[] bytes = null;
-
-				int length = 0;
-
-				// loop over each file in zip file
-				while (entries.hasMoreElements()) {
-					ZipEntry zipEntry = entries.nextElement();
-
-					String entryName = zipEntry.getName();
-
-					// current output file
-					File file = new File(IOUtils.join(outputDirectory.getPath(), entryName));
-
-					File currentOutputFile = new File(getFilePathWithoutExtension(file.getPath()));
-
-					if (currentOutputFile.exists()) {
-						if (getFileNameWithoutExtension(entryName).contains(CommitFileNames.WBB_UPLOAD.getFileName())) {
-
-							try (ZipFile currentZipFile = new ZipFile(file)) {
-								Enumeration<? extends ZipEntry> currentZipEntries = currentZipFile.entries();
-
-								long currentUncompressedZipSize = currentZipEntries.nextElement().getSize();
-								long currentDirectorySize = FileUtils.sizeOfDirectory(currentOutputFile);
-
-								if (currentUncompressedZipSize == currentDirectorySize) {
-									continue;
-								}
-							}
-						}
-					}
-
-					// if directory make it
-					if (entryName.endsWith("/")) {
-						file.mkdirs();
-					} else {
-
-						// write current input zip file to output location
-						is = zipFile.getInputStream(zipEntry);
-						fos = new FileOutputStream(file);
-						bytes = new byte[1024];
-
-						while ((length = is.read(bytes)) >= 0) {
-							fos.write(bytes, 0, length);
-						}
-						is.close();
-						fos.close();
-					}
-				}
-
-				return outputDirectory.getPath();
-			}
-		}
-		logger.error("Provided filepath: {} does not point to a valid zip file", filepath);
-		throw new IOException("Provided filepath: " + filepath + " does not point to a valid zip file");
-	}
-
 	/**
 	 * Gets the name of a file without the extension
 	 * 
@@ -428,7 +338,60 @@ public class IOUtils {
 	}
 
 	/**
-	 * Read in the zip file and store each entry so it can be looked up later
+	 * Reads a JSONObject from a stream, for example a stream over an entry
+	 * held inside a zip file
+	 * 
+	 * @param inputStream
+	 * @param name
+	 *            the name of the data being read, used for logging
+	 * @return The <code>JSONObject</code>
+	 * @throws JSONIOException
+	 */
+	public static JSONObject readJSONObjectFromStream(InputStream inputStream, String name) throws JSONIOException {
+		if (IOUtils.checkExtension(FileType.JSON, name)) {
+			try {
+				logger.debug("Reading JSONObject from: '" + name + "'");
+				return new JSONObject(IOUtils.readStringFromStream(inputStream));
+			} catch (JSONException e) {
+				logger.error("Error when trying to read from: '" + name + "'", e);
+				throw new JSONIOException("Error when trying to read from: '" + name + "'", e);
+			} catch (IOException e) {
+				logger.error("Error when trying to read from: '" + name + "'", e);
+				throw new JSONIOException("Error when trying to read from: '" + name + "'", e);
+			}
+		}
+		logger.error("Provided name: {} does not point to a valid json file", name);
+		throw new JSONIOException("Provided name: " + name + " does not point to a valid json file");
+	}
+
+	/**
+	 * Reads a string from a given stream in the same manner as
+	 * <code>readStringFromFile</code>. The stream is not closed
+	 * 
+	 * @param inputStream
+	 * @return the whole stream being read as a single string
+	 * @throws IOException
+	 */
+	public static String readStringFromStream(InputStream inputStream) throws IOException {
+
+		StringBuffer sb = new StringBuffer();
+		String line = null;
+
+		BufferedReader br = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+
+		while ((line = br.readLine()) != null) {
+			if (line.trim().length() > 0) {
+				sb.append(line);
+			}
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Read in the names of the entries in the zip file. The names are taken
+	 * from the central directory of the zip file so no entry data is
+	 * decompressed
 	 * 
 	 * @param filepath
 	 * @return the list of all files within the provided zip file
@@ -440,19 +403,7 @@ public class IOUtils {
 		logger.debug("Reading zip file contents: {}", filepath);
 
 		if (IOUtils.checkExtension(FileType.ZIP, filepath)) {
-			List<String> zipFiles = new ArrayList<String>();
-
-			ZipEntry zipEntry = null;
-
-			try (ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(filepath))) {
-
-				// loop over each file
-				while ((zipEntry = zipInputStream.getNextEntry()) != null) {
-
-					// add the filename
-					zipFiles.add(zipEntry.getName());
-				}
-			}
+			List<String> zipFiles = new ArrayList<String>(NestedZipFileSystem.getInstance().listEntries(filepath));
 
 			logger.debug("Successfully read the zip file: {}", filepath);
 			return zipFiles;
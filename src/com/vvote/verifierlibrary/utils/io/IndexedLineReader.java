@@ -0,0 +1,213 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.io;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads a file line by line whilst keeping track of the byte offset and byte
+ * length of each line read. This allows an index to be built over a data file
+ * during the first pass over it so that individual lines can later be re-read
+ * using a single positioned read rather than a scan of the whole file
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class IndexedLineReader implements Closeable {
+
+	/**
+	 * Size of the read buffer
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * The underlying input stream
+	 */
+	private final InputStream inputStream;
+
+	/**
+	 * Buffer holding data read from the input stream
+	 */
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+
+	/**
+	 * Number of valid bytes in the buffer
+	 */
+	private int bufferLength = 0;
+
+	/**
+	 * Current position in the buffer
+	 */
+	private int bufferPosition = 0;
+
+	/**
+	 * Byte offset in the file of the start of the buffer
+	 */
+	private long bufferOffset = 0;
+
+	/**
+	 * Holds the bytes of the current line
+	 */
+	private byte[] line = new byte[1024];
+
+	/**
+	 * The byte offset of the last line read
+	 */
+	private long lineOffset = -1;
+
+	/**
+	 * The byte length of the last line read, not including the line terminator
+	 */
+	private int lineLength = -1;
+
+	/**
+	 * Constructor for an <code>IndexedLineReader</code> over the provided file
+	 * 
+	 * @param filePath
+	 * @throws FileNotFoundException
+	 */
+	public IndexedLineReader(String filePath) throws FileNotFoundException {
+		this(new FileInputStream(filePath));
+	}
+
+	/**
+	 * Constructor for an <code>IndexedLineReader</code> over the provided
+	 * input stream. Offsets are relative to the start of the stream
+	 * 
+	 * @param inputStream
+	 */
+	public IndexedLineReader(InputStream inputStream) {
+		this.inputStream = inputStream;
+	}
+
+	/**
+	 * Reads the next line. Lines are terminated by '\n' with an optional
+	 * preceding '\r'
+	 * 
+	 * @return the next line or null if the end of the file has been reached
+	 * @throws IOException
+	 */
+	public String readLine() throws IOException {
+
+		int length = 0;
+		boolean foundData = false;
+
+		this.lineOffset = this.bufferOffset + this.bufferPosition;
+
+		while (true) {
+			if (this.bufferPosition >= this.bufferLength) {
+				if (!this.fill()) {
+					break;
+				}
+			}
+
+			foundData = true;
+
+			int start = this.bufferPosition;
+			int end = start;
+
+			while (end < this.bufferLength && this.buffer[end] != '\n') {
+				end++;
+			}
+
+			int count = end - start;
+
+			if (length + count > this.line.length) {
+				this.line = Arrays.copyOf(this.line, Math.max(this.line.length * 2, length + count));
+			}
+
+			System.arraycopy(this.buffer, start, this.line, length, count);
+			length += count;
+
+			if (end < this.bufferLength) {
+				// skip over the line terminator
+				this.bufferPosition = end + 1;
+				break;
+			}
+
+			this.bufferPosition = end;
+		}
+
+		if (!foundData) {
+			this.lineLength = -1;
+			return null;
+		}
+
+		if (length > 0 && this.line[length - 1] == '\r') {
+			length--;
+		}
+
+		this.lineLength = length;
+
+		return new String(this.line, 0, length, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Refills the buffer
+	 * 
+	 * @return true if more data was read
+	 * @throws IOException
+	 */
+	private boolean fill() throws IOException {
+		this.bufferOffset += this.bufferLength;
+		this.bufferPosition = 0;
+		this.bufferLength = 0;
+
+		int read = 0;
+
+		while ((read = this.inputStream.read(this.buffer)) == 0) {
+			continue;
+		}
+
+		if (read < 0) {
+			return false;
+		}
+
+		this.bufferLength = read;
+		return true;
+	}
+
+	/**
+	 * Getter for the byte offset of the last line read
+	 * 
+	 * @return lineOffset
+	 */
+	public long getLineOffset() {
+		return this.lineOffset;
+	}
+
+	/**
+	 * Getter for the byte length of the last line read
+	 * 
+	 * @return lineLength
+	 */
+	public int getLineLength() {
+		return this.lineLength;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.inputStream.close();
+	}
+}
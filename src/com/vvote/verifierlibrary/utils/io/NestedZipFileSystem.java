@@ -0,0 +1,449 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Provides a read-only, process-wide virtual file system over zip files and
+ * zip files nested inside zip files (for example the inner zip attachments
+ * held inside each Public WBB attachment zip). Listings are read from the
+ * central directory, entries are streamed directly to callers and opened
+ * archives are cached so each archive is only ever opened once.
+ * 
+ * Nothing is written into the directory holding the data being verified. Where
+ * a nested zip file or an entry needs random access but is compressed, its
+ * data is inflated once into a private scratch directory under the system
+ * temporary directory which is removed when the verifier exits. Stored entries
+ * are read in place
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class NestedZipFileSystem {
+
+	/**
+	 * Provides logging for the class
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(NestedZipFileSystem.class);
+
+	/**
+	 * Separator used between nesting levels in cache keys
+	 */
+	private static final String NESTING_SEPARATOR = "!/";
+
+	/**
+	 * Prefix for the scratch directory
+	 */
+	private static final String SCRATCH_DIRECTORY_PREFIX = "vVoteVerifier";
+
+	/**
+	 * The single instance of the file system
+	 */
+	private static final NestedZipFileSystem INSTANCE = new NestedZipFileSystem();
+
+	/**
+	 * Getter for the process-wide file system
+	 * 
+	 * @return the file system instance
+	 */
+	public static NestedZipFileSystem getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Cache of opened archives. Nested path : ZipArchive
+	 */
+	private final Map<String, ZipArchive> archives;
+
+	/**
+	 * Cache of regions for entries which needed random access. Nested path :
+	 * FileRegion
+	 */
+	private final Map<String, FileRegion> regions;
+
+	/**
+	 * Cache of archives which have been extracted to the scratch directory.
+	 * Nested path : extracted directory
+	 */
+	private final Map<String, File> extractedArchives;
+
+	/**
+	 * The scratch directory, created when first needed
+	 */
+	private File scratchDirectory = null;
+
+	/**
+	 * Counter used to name files in the scratch directory
+	 */
+	private long scratchCounter = 0;
+
+	/**
+	 * Private constructor for the file system
+	 */
+	private NestedZipFileSystem() {
+		this.archives = new HashMap<String, ZipArchive>();
+		this.regions = new HashMap<String, FileRegion>();
+		this.extractedArchives = new LinkedHashMap<String, File>();
+	}
+
+	/**
+	 * Builds the cache key for a nested path
+	 * 
+	 * @param zipPath
+	 * @param nestedPath
+	 * @param depth
+	 *            the number of nested path elements to include
+	 * @return the key
+	 */
+	private static String key(String zipPath, String[] nestedPath, int depth) {
+		StringBuilder sb = new StringBuilder(new File(zipPath).getAbsolutePath());
+
+		for (int i = 0; i < depth; i++) {
+			sb.append(NESTING_SEPARATOR);
+			sb.append(nestedPath[i]);
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Gets the archive for a zip file on disk or a zip file nested inside it.
+	 * Each element of the nested path names a zip entry inside the previous
+	 * archive
+	 * 
+	 * @param zipPath
+	 * @param nestedPath
+	 * @return the archive
+	 * @throws IOException
+	 */
+	public synchronized ZipArchive getArchive(String zipPath, String... nestedPath) throws IOException {
+
+		String currentKey = key(zipPath, nestedPath, 0);
+
+		ZipArchive archive = this.archives.get(currentKey);
+
+		if (archive == null) {
+			if (!IOUtils.checkExtension(FileType.ZIP, zipPath)) {
+				logger.error("Provided filepath: {} does not point to a valid zip file", zipPath);
+				throw new IOException("Provided filepath: " + zipPath + " does not point to a valid zip file");
+			}
+
+			logger.debug("Opening zip file: {}", zipPath);
+			archive = new ZipArchive(new FileRegion(new File(zipPath)));
+			this.archives.put(currentKey, archive);
+		}
+
+		for (int i = 0; i < nestedPath.length; i++) {
+			String nestedKey = key(zipPath, nestedPath, i + 1);
+
+			ZipArchive nested = this.archives.get(nestedKey);
+
+			if (nested == null) {
+				logger.debug("Opening nested zip file: {}", nestedKey);
+				nested = new ZipArchive(this.getRegion(archive, nestedPath[i], nestedKey));
+				this.archives.put(nestedKey, nested);
+			}
+
+			archive = nested;
+		}
+
+		return archive;
+	}
+
+	/**
+	 * Gets the entry names of a zip file, read from its central directory
+	 * 
+	 * @param zipPath
+	 * @param nestedPath
+	 * @return the entry names
+	 * @throws IOException
+	 */
+	public Set<String> listEntries(String zipPath, String... nestedPath) throws IOException {
+		return this.getArchive(zipPath, nestedPath).getEntryNames();
+	}
+
+	/**
+	 * Gets the uncompressed size of an entry
+	 * 
+	 * @param zipPath
+	 * @param nestedPath
+	 *            the nested archives followed by the entry name
+	 * @return the uncompressed size of the entry
+	 * @throws IOException
+	 */
+	public long getEntrySize(String zipPath, String... nestedPath) throws IOException {
+		ZipArchive.Entry entry = this.getParentArchive(zipPath, nestedPath).getEntry(nestedPath[nestedPath.length - 1]);
+
+		if (entry == null) {
+			throw new IOException("Unable to find entry: " + key(zipPath, nestedPath, nestedPath.length));
+		}
+
+		return entry.getSize();
+	}
+
+	/**
+	 * Opens a stream over an entry. The entry data is streamed directly from
+	 * the underlying file without being extracted
+	 * 
+	 * @param zipPath
+	 * @param nestedPath
+	 *            the nested archives followed by the entry name
+	 * @return an input stream over the entry
+	 * @throws IOException
+	 */
+	public InputStream openEntry(String zipPath, String... nestedPath) throws IOException {
+		return this.getParentArchive(zipPath, nestedPath).openEntry(nestedPath[nestedPath.length - 1]);
+	}
+
+	/**
+	 * Gets a region holding the uncompressed data of an entry which allows
+	 * random access to the entry. Stored entries are read in place whilst
+	 * compressed entries are inflated once into the scratch directory
+	 * 
+	 * @param zipPath
+	 * @param nestedPath
+	 *            the nested archives followed by the entry name
+	 * @return a region holding the entry data
+	 * @throws IOException
+	 */
+	public synchronized FileRegion getEntryRegion(String zipPath, String... nestedPath) throws IOException {
+		return this.getRegion(this.getParentArchive(zipPath, nestedPath), nestedPath[nestedPath.length - 1], key(zipPath, nestedPath, nestedPath.length));
+	}
+
+	/**
+	 * Extracts the contents of a (possibly nested) zip file into the scratch
+	 * directory, for data which is only accessible through file based readers.
+	 * Each archive is only extracted once per process
+	 * 
+	 * @param zipPath
+	 * @param nestedPath
+	 * @return the directory holding the extracted contents
+	 * @throws IOException
+	 */
+	public synchronized File extractArchive(String zipPath, String... nestedPath) throws IOException {
+
+		String archiveKey = key(zipPath, nestedPath, nestedPath.length);
+
+		File extracted = this.extractedArchives.get(archiveKey);
+
+		if (extracted == null) {
+			ZipArchive archive = this.getArchive(zipPath, nestedPath);
+
+			String name = nestedPath.length > 0 ? nestedPath[nestedPath.length - 1] : zipPath;
+
+			extracted = new File(this.newScratchFile(), IOUtils.getFileNameWithoutExtension(name));
+
+			logger.debug("Extracting {} into the scratch directory: {}", archiveKey, extracted);
+
+			for (String entryName : archive.getEntryNames()) {
+				File output = new File(extracted, entryName);
+
+				if (!output.getCanonicalPath().startsWith(extracted.getCanonicalPath())) {
+					throw new IOException("Zip entry: " + entryName + " lies outside of the extraction directory");
+				}
+
+				if (archive.getEntry(entryName).isDirectory()) {
+					output.mkdirs();
+				} else {
+					output.getParentFile().mkdirs();
+					try (InputStream is = archive.openEntry(entryName)) {
+						copy(is, output);
+					}
+				}
+			}
+
+			this.extractedArchives.put(archiveKey, extracted);
+		}
+
+		return extracted;
+	}
+
+	/**
+	 * Finds a file by name inside any of the archives which have been
+	 * extracted into the scratch directory
+	 * 
+	 * @param name
+	 * @return the path of the found file or null if it cannot be found
+	 */
+	public synchronized String findExtractedFile(String name) {
+
+		String result = null;
+
+		for (File extracted : this.extractedArchives.values()) {
+			result = IOUtils.findFile(name, extracted);
+
+			if (result != null) {
+				return result;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Getter for the directories holding extracted archives
+	 * 
+	 * @return the extracted directories
+	 */
+	public synchronized List<File> getExtractedDirectories() {
+		return Collections.unmodifiableList(new ArrayList<File>(this.extractedArchives.values()));
+	}
+
+	/**
+	 * Closes the channels held by the opened archives and by the regions of
+	 * entries which needed random access. The archives stay cached and reopen
+	 * their channels if they are read again
+	 */
+	public synchronized void closeChannels() {
+		for (Map.Entry<String, ZipArchive> archive : this.archives.entrySet()) {
+			try {
+				archive.getValue().close();
+			} catch (IOException e) {
+				logger.warn("Unable to close zip file: {}", archive.getKey(), e);
+			}
+		}
+
+		for (Map.Entry<String, FileRegion> region : this.regions.entrySet()) {
+			try {
+				region.getValue().close();
+			} catch (IOException e) {
+				logger.warn("Unable to close zip entry: {}", region.getKey(), e);
+			}
+		}
+	}
+
+	/**
+	 * Gets the archive holding the final element of the nested path
+	 * 
+	 * @param zipPath
+	 * @param nestedPath
+	 * @return the parent archive
+	 * @throws IOException
+	 */
+	private ZipArchive getParentArchive(String zipPath, String... nestedPath) throws IOException {
+		if (nestedPath.length == 0) {
+			throw new IOException("An entry name must be provided for: " + zipPath);
+		}
+
+		String[] parentPath = new String[nestedPath.length - 1];
+		System.arraycopy(nestedPath, 0, parentPath, 0, parentPath.length);
+
+		return this.getArchive(zipPath, parentPath);
+	}
+
+	/**
+	 * Gets the region for an entry, inflating it into the scratch directory if
+	 * it is compressed
+	 * 
+	 * @param archive
+	 * @param entryName
+	 * @param entryKey
+	 * @return the region holding the entry data
+	 * @throws IOException
+	 */
+	private FileRegion getRegion(ZipArchive archive, String entryName, String entryKey) throws IOException {
+
+		FileRegion region = this.regions.get(entryKey);
+
+		if (region == null) {
+			region = archive.getStoredRegion(entryName);
+
+			if (region == null) {
+				File scratchFile = new File(this.newScratchFile(), new File(entryName).getName());
+
+				logger.debug("Inflating compressed entry {} into the scratch directory: {}", entryKey, scratchFile);
+
+				try (InputStream is = archive.openEntry(entryName)) {
+					copy(is, scratchFile);
+				}
+
+				region = new FileRegion(scratchFile);
+			}
+
+			this.regions.put(entryKey, region);
+		}
+
+		return region;
+	}
+
+	/**
+	 * Creates a new, uniquely named location inside the scratch directory
+	 * 
+	 * @return a new directory inside the scratch directory
+	 * @throws IOException
+	 */
+	private File newScratchFile() throws IOException {
+		if (this.scratchDirectory == null) {
+			this.scratchDirectory = Files.createTempDirectory(SCRATCH_DIRECTORY_PREFIX).toFile();
+
+			final File directory = this.scratchDirectory;
+
+			Runtime.getRuntime().addShutdownHook(new Thread() {
+				@Override
+				public void run() {
+					FileUtils.deleteQuietly(directory);
+				}
+			});
+
+			logger.debug("Created scratch directory: {}", this.scratchDirectory);
+		}
+
+		File file = new File(this.scratchDirectory, Long.toString(this.scratchCounter++));
+
+		if (!file.mkdirs()) {
+			throw new IOException("Unable to create scratch location: " + file);
+		}
+
+		return file;
+	}
+
+	/**
+	 * Copies a stream to a file
+	 * 
+	 * @param is
+	 * @param output
+	 * @throws IOException
+	 */
+	private static void copy(InputStream is, File output) throws IOException {
+		byte[] bytes = new byte[64 * 1024];
+		int length = 0;
+
+		try (OutputStream os = new FileOutputStream(output)) {
+			while ((length = is.read(bytes)) >= 0) {
+				os.write(bytes, 0, length);
+			}
+		}
+	}
+}
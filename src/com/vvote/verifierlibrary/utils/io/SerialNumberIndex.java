@@ -0,0 +1,184 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vvote.verifierlibrary.utils.serial.SerialNumber;
+import com.vvote.verifierlibrary.utils.serial.SerialNumberSet;
+
+/**
+ * Provides an index from a ballot serial number to the location (byte offset
+ * and byte length) of the line holding the data for that serial number inside
+ * a line based data file. The index is built during the initial pass over a
+ * data file using an <code>IndexedLineReader</code> and allows each later
+ * lookup to be carried out using a single positioned read. It is used by the
+ * ciphers, audit and mix commit data files. Serial numbers are held as
+ * primitive keys with the line locations in parallel arrays so that indexing
+ * millions of ballots does not need an object per ballot
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class SerialNumberIndex {
+
+	/**
+	 * Provides logging for the class
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(SerialNumberIndex.class);
+
+	/**
+	 * The region holding the indexed data file
+	 */
+	private final FileRegion region;
+
+	/**
+	 * The indexed serial numbers
+	 */
+	private final SerialNumberSet serialNumbers;
+
+	/**
+	 * Byte offset of the line for the serial number in the same position
+	 */
+	private long[] offsets;
+
+	/**
+	 * Byte length of the line for the serial number in the same position
+	 */
+	private int[] lengths;
+
+	/**
+	 * Constructor for a <code>SerialNumberIndex</code> over the provided file
+	 * region. Offsets are relative to the start of the region
+	 * 
+	 * @param region
+	 */
+	public SerialNumberIndex(FileRegion region) {
+		this.region = region;
+		this.serialNumbers = new SerialNumberSet();
+		this.offsets = new long[16];
+		this.lengths = new int[16];
+	}
+
+	/**
+	 * Adds the last line read by the provided reader to the index under the
+	 * provided serial number
+	 * 
+	 * @param serialNo
+	 * @param reader
+	 */
+	public void add(String serialNo, IndexedLineReader reader) {
+		this.add(serialNo, reader.getLineOffset(), reader.getLineLength());
+	}
+
+	/**
+	 * Adds a line location to the index
+	 * 
+	 * @param serialNo
+	 * @param offset
+	 * @param length
+	 */
+	public void add(String serialNo, long offset, int length) {
+		int size = this.serialNumbers.size();
+		int position = this.serialNumbers.insert(SerialNumber.key(serialNo));
+
+		if (position < size) {
+			logger.warn("Serial number {} appears more than once in {}. Only the last occurrence will be used", serialNo, this.region);
+		} else if (position == this.offsets.length) {
+			this.offsets = Arrays.copyOf(this.offsets, position * 2);
+			this.lengths = Arrays.copyOf(this.lengths, position * 2);
+		}
+
+		this.offsets[position] = offset;
+		this.lengths[position] = length;
+	}
+
+	/**
+	 * Checks whether the index contains the provided serial number
+	 * 
+	 * @param serialNo
+	 * @return true if the serial number has been indexed
+	 */
+	public boolean contains(String serialNo) {
+		return this.serialNumbers.contains(serialNo);
+	}
+
+	/**
+	 * Getter for the region holding the indexed data file
+	 * 
+	 * @return region
+	 */
+	public FileRegion getRegion() {
+		return this.region;
+	}
+
+	/**
+	 * Getter for the indexed serial numbers
+	 * 
+	 * @return a read only view of the indexed serial numbers in sorted order
+	 */
+	public Set<String> getSerialNumbers() {
+		return Collections.unmodifiableSet(this.serialNumbers);
+	}
+
+	/**
+	 * Reads the line for the provided serial number using a single positioned
+	 * read
+	 * 
+	 * @param serialNo
+	 * @return the line for the serial number or null if the serial number has
+	 *         not been indexed
+	 * @throws IOException
+	 */
+	public String readLine(String serialNo) throws IOException {
+
+		int position = this.serialNumbers.indexOf(serialNo);
+
+		if (position < 0) {
+			return null;
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(this.lengths[position]);
+
+		this.region.read(this.offsets[position], buffer);
+
+		return new String(buffer.array(), 0, this.lengths[position], StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Getter for the number of indexed serial numbers
+	 * 
+	 * @return the number of indexed serial numbers
+	 */
+	public int size() {
+		return this.serialNumbers.size();
+	}
+
+	@Override
+	public String toString() {
+		return "SerialNumberIndex [region=" + this.region + ", size=" + this.serialNumbers.size() + "]";
+	}
+}
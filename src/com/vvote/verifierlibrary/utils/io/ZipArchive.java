@@ -0,0 +1,543 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Provides a read-only view of a zip file held in a <code>FileRegion</code>.
+ * Entry listings are taken directly from the central directory of the zip file
+ * so no entry data needs to be decompressed to find out what the zip file
+ * contains. Entries are streamed directly from the underlying region and stored
+ * entries can additionally be exposed as a <code>FileRegion</code> of their
+ * own, which allows zip files nested inside a zip file to be read without
+ * being extracted. Closing the archive closes the channel held by its region
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class ZipArchive implements Closeable {
+
+	/**
+	 * Signature for the end of central directory record
+	 */
+	private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+	/**
+	 * Signature for the zip64 end of central directory locator
+	 */
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064b50;
+
+	/**
+	 * Signature for the zip64 end of central directory record
+	 */
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+
+	/**
+	 * Signature for a central directory file header
+	 */
+	private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+
+	/**
+	 * Signature for a local file header
+	 */
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+	/**
+	 * Fixed size of the end of central directory record
+	 */
+	private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+
+	/**
+	 * Fixed size of the zip64 end of central directory locator
+	 */
+	private static final int ZIP64_LOCATOR_SIZE = 20;
+
+	/**
+	 * Fixed size of the zip64 end of central directory record
+	 */
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE = 56;
+
+	/**
+	 * Maximum length of the zip file comment
+	 */
+	private static final int MAXIMUM_COMMENT_LENGTH = 0xffff;
+
+	/**
+	 * Fixed size of a central directory file header
+	 */
+	private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+
+	/**
+	 * Fixed size of a local file header
+	 */
+	private static final int LOCAL_HEADER_SIZE = 30;
+
+	/**
+	 * Header id of the zip64 extended information extra field
+	 */
+	private static final int ZIP64_EXTRA_FIELD_ID = 0x0001;
+
+	/**
+	 * Marker used when a 32 bit value is held in the zip64 extra field
+	 */
+	private static final long ZIP64_MARKER = 0xffffffffL;
+
+	/**
+	 * Compression method for stored entries
+	 */
+	public static final int METHOD_STORED = 0;
+
+	/**
+	 * Compression method for deflated entries
+	 */
+	public static final int METHOD_DEFLATED = 8;
+
+	/**
+	 * Representation of a single entry from the central directory
+	 */
+	public static final class Entry {
+
+		/**
+		 * Name of the entry
+		 */
+		private final String name;
+
+		/**
+		 * Compression method
+		 */
+		private final int method;
+
+		/**
+		 * Compressed size
+		 */
+		private final long compressedSize;
+
+		/**
+		 * Uncompressed size
+		 */
+		private final long size;
+
+		/**
+		 * Offset of the local file header
+		 */
+		private final long localHeaderOffset;
+
+		/**
+		 * Constructor for an <code>Entry</code>
+		 * 
+		 * @param name
+		 * @param method
+		 * @param compressedSize
+		 * @param size
+		 * @param localHeaderOffset
+		 */
+		private Entry(String name, int method, long compressedSize, long size, long localHeaderOffset) {
+			this.name = name;
+			this.method = method;
+			this.compressedSize = compressedSize;
+			this.size = size;
+			this.localHeaderOffset = localHeaderOffset;
+		}
+
+		/**
+		 * Getter for the name of the entry
+		 * 
+		 * @return name
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * Getter for the compression method
+		 * 
+		 * @return method
+		 */
+		public int getMethod() {
+			return this.method;
+		}
+
+		/**
+		 * Getter for the compressed size of the entry
+		 * 
+		 * @return compressedSize
+		 */
+		public long getCompressedSize() {
+			return this.compressedSize;
+		}
+
+		/**
+		 * Getter for the uncompressed size of the entry
+		 * 
+		 * @return size
+		 */
+		public long getSize() {
+			return this.size;
+		}
+
+		/**
+		 * Whether the entry is a directory
+		 * 
+		 * @return true if the entry is a directory
+		 */
+		public boolean isDirectory() {
+			return this.name.endsWith("/");
+		}
+
+		@Override
+		public String toString() {
+			return "Entry [name=" + this.name + ", method=" + this.method + ", compressedSize=" + this.compressedSize + ", size=" + this.size + "]";
+		}
+	}
+
+	/**
+	 * The region holding the zip file
+	 */
+	private final FileRegion region;
+
+	/**
+	 * The entries of the zip file in central directory order. Name : Entry
+	 */
+	private final Map<String, Entry> entries;
+
+	/**
+	 * Constructor for a <code>ZipArchive</code>. Reads the central directory
+	 * of the zip file held in the provided region
+	 * 
+	 * @param region
+	 * @throws IOException
+	 */
+	public ZipArchive(FileRegion region) throws IOException {
+		this.region = region;
+		this.entries = Collections.unmodifiableMap(this.readCentralDirectory());
+	}
+
+	/**
+	 * Getter for the region holding the zip file
+	 * 
+	 * @return region
+	 */
+	public FileRegion getRegion() {
+		return this.region;
+	}
+
+	/**
+	 * Getter for the names of the entries in the zip file
+	 * 
+	 * @return the entry names
+	 */
+	public Set<String> getEntryNames() {
+		return this.entries.keySet();
+	}
+
+	/**
+	 * Gets an entry by name
+	 * 
+	 * @param name
+	 * @return the entry or null if there is no entry with the provided name
+	 */
+	public Entry getEntry(String name) {
+		return this.entries.get(name);
+	}
+
+	/**
+	 * Gets an entry by name, failing if the entry doesn't exist
+	 * 
+	 * @param name
+	 * @return the entry
+	 * @throws IOException
+	 */
+	private Entry getRequiredEntry(String name) throws IOException {
+		Entry entry = this.entries.get(name);
+
+		if (entry == null) {
+			throw new IOException("Zip file " + this.region + " does not contain the entry: " + name);
+		}
+
+		return entry;
+	}
+
+	/**
+	 * Gets the region holding the raw (possibly compressed) data for an entry
+	 * 
+	 * @param entry
+	 * @return the raw data region
+	 * @throws IOException
+	 */
+	private FileRegion getRawDataRegion(Entry entry) throws IOException {
+		ByteBuffer header = this.readBuffer(entry.localHeaderOffset, LOCAL_HEADER_SIZE);
+
+		if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+			throw new IOException("Invalid local file header for entry: " + entry.name + " in " + this.region);
+		}
+
+		int nameLength = header.getShort(26) & 0xffff;
+		int extraLength = header.getShort(28) & 0xffff;
+
+		return this.region.subRegion(entry.localHeaderOffset + LOCAL_HEADER_SIZE + nameLength + extraLength, entry.compressedSize);
+	}
+
+	/**
+	 * Gets the region holding the data for a stored (uncompressed) entry
+	 * 
+	 * @param name
+	 * @return the region holding the entry data or null if the entry is
+	 *         compressed
+	 * @throws IOException
+	 */
+	public FileRegion getStoredRegion(String name) throws IOException {
+		Entry entry = this.getRequiredEntry(name);
+
+		if (entry.method != METHOD_STORED) {
+			return null;
+		}
+
+		return this.getRawDataRegion(entry);
+	}
+
+	/**
+	 * Opens a stream over the uncompressed data for an entry
+	 * 
+	 * @param name
+	 * @return an input stream over the entry data
+	 * @throws IOException
+	 */
+	public InputStream openEntry(String name) throws IOException {
+		Entry entry = this.getRequiredEntry(name);
+
+		FileRegion raw = this.getRawDataRegion(entry);
+
+		if (entry.method == METHOD_STORED) {
+			return raw.openStream();
+		} else if (entry.method == METHOD_DEFLATED) {
+			return new EntryInflaterInputStream(raw.openStream(), entry.size);
+		}
+
+		throw new IOException("Unsupported compression method: " + entry.method + " for entry: " + name + " in " + this.region);
+	}
+
+	/**
+	 * Reads a little endian buffer from the region
+	 * 
+	 * @param position
+	 * @param length
+	 * @return the buffer
+	 * @throws IOException
+	 */
+	private ByteBuffer readBuffer(long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		this.region.read(position, buffer);
+		buffer.flip();
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		return buffer;
+	}
+
+	/**
+	 * Reads the entries from the central directory
+	 * 
+	 * @return a map of entry name : entry
+	 * @throws IOException
+	 */
+	private Map<String, Entry> readCentralDirectory() throws IOException {
+
+		if (this.region.getLength() < END_OF_CENTRAL_DIRECTORY_SIZE) {
+			throw new IOException("Not a valid zip file: " + this.region);
+		}
+
+		// search backwards for the end of central directory record
+		int tailLength = (int) Math.min(this.region.getLength(), END_OF_CENTRAL_DIRECTORY_SIZE + MAXIMUM_COMMENT_LENGTH + ZIP64_LOCATOR_SIZE);
+		long tailStart = this.region.getLength() - tailLength;
+
+		ByteBuffer tail = this.readBuffer(tailStart, tailLength);
+
+		int eocd = -1;
+
+		for (int i = tailLength - END_OF_CENTRAL_DIRECTORY_SIZE; i >= 0; i--) {
+			if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+				eocd = i;
+				break;
+			}
+		}
+
+		if (eocd < 0) {
+			throw new IOException("Unable to find the end of central directory record: " + this.region);
+		}
+
+		long entryCount = tail.getShort(eocd + 10) & 0xffff;
+		long centralDirectorySize = tail.getInt(eocd + 12) & ZIP64_MARKER;
+		long centralDirectoryOffset = tail.getInt(eocd + 16) & ZIP64_MARKER;
+
+		// check for the zip64 end of central directory
+		if (eocd >= ZIP64_LOCATOR_SIZE && tail.getInt(eocd - ZIP64_LOCATOR_SIZE) == ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE) {
+			long zip64Offset = tail.getLong(eocd - ZIP64_LOCATOR_SIZE + 8);
+
+			ByteBuffer zip64 = this.readBuffer(zip64Offset, ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE);
+
+			if (zip64.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+				throw new IOException("Invalid zip64 end of central directory record: " + this.region);
+			}
+
+			entryCount = zip64.getLong(32);
+			centralDirectorySize = zip64.getLong(40);
+			centralDirectoryOffset = zip64.getLong(48);
+		}
+
+		if (centralDirectorySize > Integer.MAX_VALUE) {
+			throw new IOException("Central directory is too large: " + this.region);
+		}
+
+		ByteBuffer directory = this.readBuffer(centralDirectoryOffset, (int) centralDirectorySize);
+
+		Map<String, Entry> result = new LinkedHashMap<String, Entry>();
+
+		int position = 0;
+
+		for (long i = 0; i < entryCount; i++) {
+
+			if (directory.getInt(position) != CENTRAL_DIRECTORY_SIGNATURE) {
+				throw new IOException("Invalid central directory file header in: " + this.region);
+			}
+
+			int method = directory.getShort(position + 10) & 0xffff;
+			long compressedSize = directory.getInt(position + 20) & ZIP64_MARKER;
+			long size = directory.getInt(position + 24) & ZIP64_MARKER;
+			int nameLength = directory.getShort(position + 28) & 0xffff;
+			int extraLength = directory.getShort(position + 30) & 0xffff;
+			int commentLength = directory.getShort(position + 32) & 0xffff;
+			long localHeaderOffset = directory.getInt(position + 42) & ZIP64_MARKER;
+
+			byte[] nameBytes = new byte[nameLength];
+			directory.position(position + CENTRAL_DIRECTORY_HEADER_SIZE);
+			directory.get(nameBytes);
+
+			String name = new String(nameBytes, StandardCharsets.UTF_8);
+
+			// the zip64 extra field holds the values which didn't fit
+			if (size == ZIP64_MARKER || compressedSize == ZIP64_MARKER || localHeaderOffset == ZIP64_MARKER) {
+				int extra = position + CENTRAL_DIRECTORY_HEADER_SIZE + nameLength;
+				int extraEnd = extra + extraLength;
+
+				while (extra + 4 <= extraEnd) {
+					int id = directory.getShort(extra) & 0xffff;
+					int length = directory.getShort(extra + 2) & 0xffff;
+
+					if (id == ZIP64_EXTRA_FIELD_ID) {
+						int field = extra + 4;
+
+						if (size == ZIP64_MARKER) {
+							size = directory.getLong(field);
+							field += 8;
+						}
+						if (compressedSize == ZIP64_MARKER) {
+							compressedSize = directory.getLong(field);
+							field += 8;
+						}
+						if (localHeaderOffset == ZIP64_MARKER) {
+							localHeaderOffset = directory.getLong(field);
+						}
+						break;
+					}
+
+					extra += 4 + length;
+				}
+			}
+
+			result.put(name, new Entry(name, method, compressedSize, size, localHeaderOffset));
+
+			position += CENTRAL_DIRECTORY_HEADER_SIZE + nameLength + extraLength + commentLength;
+		}
+
+		return result;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.region.close();
+	}
+
+	@Override
+	public String toString() {
+		return "ZipArchive [region=" + this.region + ", entries=" + this.entries.keySet() + "]";
+	}
+
+	/**
+	 * Inflater input stream for raw deflated zip entry data. Supplies the
+	 * trailing dummy byte required by a 'nowrap' inflater and releases the
+	 * inflater on close
+	 */
+	private static final class EntryInflaterInputStream extends InflaterInputStream {
+
+		/**
+		 * Whether the dummy byte has been supplied
+		 */
+		private boolean eof = false;
+
+		/**
+		 * Whether the stream has been closed
+		 */
+		private boolean closed = false;
+
+		/**
+		 * Constructor for an <code>EntryInflaterInputStream</code>
+		 * 
+		 * @param in
+		 * @param size
+		 */
+		private EntryInflaterInputStream(InputStream in, long size) {
+			super(in, new Inflater(true), (int) Math.max(512, Math.min(size, 64 * 1024)));
+		}
+
+		@Override
+		protected void fill() throws IOException {
+			if (this.eof) {
+				throw new IOException("Unexpected end of zip entry data");
+			}
+
+			this.len = this.in.read(this.buf, 0, this.buf.length);
+
+			if (this.len == -1) {
+				this.buf[0] = 0;
+				this.len = 1;
+				this.eof = true;
+			}
+
+			this.inf.setInput(this.buf, 0, this.len);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!this.closed) {
+				this.closed = true;
+				super.close();
+				this.inf.end();
+			}
+		}
+	}
+}
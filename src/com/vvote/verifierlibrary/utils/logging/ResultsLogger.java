@@ -0,0 +1,309 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.helpers.MarkerIgnoringBase;
+import org.slf4j.spi.LocationAwareLogger;
+
+/**
+ * Provides the results log. Each class writing to the results log has its own
+ * logger below the "results" logger, named after the class, so the source of
+ * an entry is kept when the entry is written later than it was logged.
+ * 
+ * While {@link TaskResults} are set on the current thread the output is added
+ * to those results rather than being written straight through, which allows
+ * tasks running at the same time to have their output written in a fixed
+ * order
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class ResultsLogger extends MarkerIgnoringBase {
+
+	/**
+	 * Serial version
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The name of the parent of every results logger
+	 */
+	public static final String RESULTS_LOGGER = "results";
+
+	/**
+	 * Arguments for an entry without any
+	 */
+	private static final Object[] NO_ARGUMENTS = new Object[0];
+
+	/**
+	 * The results of the task running on each thread, if any
+	 */
+	private static final ThreadLocal<TaskResults> taskResults = new ThreadLocal<TaskResults>();
+
+	/**
+	 * The logger entries are written to
+	 */
+	private final transient Logger target;
+
+	/**
+	 * Constructor for a <code>ResultsLogger</code>
+	 * 
+	 * @param target
+	 */
+	private ResultsLogger(Logger target) {
+		this.target = target;
+		this.name = target.getName();
+	}
+
+	/**
+	 * Gets the results logger for a class
+	 * 
+	 * @param source
+	 *            the class writing to the results log
+	 * @return the results logger
+	 */
+	public static Logger getLogger(Class<?> source) {
+		return new ResultsLogger(LoggerFactory.getLogger(RESULTS_LOGGER + "." + source.getSimpleName()));
+	}
+
+	/**
+	 * Getter for the task results set on the current thread
+	 * 
+	 * @return the task results or null if output is written straight through
+	 */
+	public static TaskResults getTaskResults() {
+		return taskResults.get();
+	}
+
+	/**
+	 * Sets the task results output on the current thread is added to
+	 * 
+	 * @param results
+	 *            the task results or null to write output straight through
+	 * @return the task results previously set on the current thread, to be
+	 *         restored once the task finishes
+	 */
+	public static TaskResults setTaskResults(TaskResults results) {
+		TaskResults previous = taskResults.get();
+
+		if (results == null) {
+			taskResults.remove();
+		} else {
+			taskResults.set(results);
+		}
+
+		return previous;
+	}
+
+	/**
+	 * Checks whether a level is enabled for the logger
+	 * 
+	 * @param level
+	 * @return true if the level is enabled
+	 */
+	private boolean isEnabled(int level) {
+		switch (level) {
+			case LocationAwareLogger.TRACE_INT:
+				return this.target.isTraceEnabled();
+			case LocationAwareLogger.DEBUG_INT:
+				return this.target.isDebugEnabled();
+			case LocationAwareLogger.WARN_INT:
+				return this.target.isWarnEnabled();
+			case LocationAwareLogger.ERROR_INT:
+				return this.target.isErrorEnabled();
+			case LocationAwareLogger.INFO_INT:
+			default:
+				return this.target.isInfoEnabled();
+		}
+	}
+
+	/**
+	 * Logs an entry, adding it to the task results set on the current thread
+	 * if there are any
+	 * 
+	 * @param level
+	 * @param format
+	 * @param arguments
+	 * @param throwable
+	 */
+	private void log(int level, String format, Object[] arguments, Throwable throwable) {
+		if (!this.isEnabled(level)) {
+			return;
+		}
+
+		TaskResults results = taskResults.get();
+
+		if (results != null) {
+			results.add(this.target, level, format, arguments, throwable);
+		} else {
+			TaskResults.write(this.target, level, format, arguments, throwable);
+		}
+	}
+
+	@Override
+	public boolean isTraceEnabled() {
+		return this.target.isTraceEnabled();
+	}
+
+	@Override
+	public void trace(String msg) {
+		this.log(LocationAwareLogger.TRACE_INT, msg, NO_ARGUMENTS, null);
+	}
+
+	@Override
+	public void trace(String format, Object arg) {
+		this.log(LocationAwareLogger.TRACE_INT, format, new Object[] { arg }, null);
+	}
+
+	@Override
+	public void trace(String format, Object arg1, Object arg2) {
+		this.log(LocationAwareLogger.TRACE_INT, format, new Object[] { arg1, arg2 }, null);
+	}
+
+	@Override
+	public void trace(String format, Object... arguments) {
+		this.log(LocationAwareLogger.TRACE_INT, format, arguments, null);
+	}
+
+	@Override
+	public void trace(String msg, Throwable t) {
+		this.log(LocationAwareLogger.TRACE_INT, msg, NO_ARGUMENTS, t);
+	}
+
+	@Override
+	public boolean isDebugEnabled() {
+		return this.target.isDebugEnabled();
+	}
+
+	@Override
+	public void debug(String msg) {
+		this.log(LocationAwareLogger.DEBUG_INT, msg, NO_ARGUMENTS, null);
+	}
+
+	@Override
+	public void debug(String format, Object arg) {
+		this.log(LocationAwareLogger.DEBUG_INT, format, new Object[] { arg }, null);
+	}
+
+	@Override
+	public void debug(String format, Object arg1, Object arg2) {
+		this.log(LocationAwareLogger.DEBUG_INT, format, new Object[] { arg1, arg2 }, null);
+	}
+
+	@Override
+	public void debug(String format, Object... arguments) {
+		this.log(LocationAwareLogger.DEBUG_INT, format, arguments, null);
+	}
+
+	@Override
+	public void debug(String msg, Throwable t) {
+		this.log(LocationAwareLogger.DEBUG_INT, msg, NO_ARGUMENTS, t);
+	}
+
+	@Override
+	public boolean isInfoEnabled() {
+		return this.target.isInfoEnabled();
+	}
+
+	@Override
+	public void info(String msg) {
+		this.log(LocationAwareLogger.INFO_INT, msg, NO_ARGUMENTS, null);
+	}
+
+	@Override
+	public void info(String format, Object arg) {
+		this.log(LocationAwareLogger.INFO_INT, format, new Object[] { arg }, null);
+	}
+
+	@Override
+	public void info(String format, Object arg1, Object arg2) {
+		this.log(LocationAwareLogger.INFO_INT, format, new Object[] { arg1, arg2 }, null);
+	}
+
+	@Override
+	public void info(String format, Object... arguments) {
+		this.log(LocationAwareLogger.INFO_INT, format, arguments, null);
+	}
+
+	@Override
+	public void info(String msg, Throwable t) {
+		this.log(LocationAwareLogger.INFO_INT, msg, NO_ARGUMENTS, t);
+	}
+
+	@Override
+	public boolean isWarnEnabled() {
+		return this.target.isWarnEnabled();
+	}
+
+	@Override
+	public void warn(String msg) {
+		this.log(LocationAwareLogger.WARN_INT, msg, NO_ARGUMENTS, null);
+	}
+
+	@Override
+	public void warn(String format, Object arg) {
+		this.log(LocationAwareLogger.WARN_INT, format, new Object[] { arg }, null);
+	}
+
+	@Override
+	public void warn(String format, Object arg1, Object arg2) {
+		this.log(LocationAwareLogger.WARN_INT, format, new Object[] { arg1, arg2 }, null);
+	}
+
+	@Override
+	public void warn(String format, Object... arguments) {
+		this.log(LocationAwareLogger.WARN_INT, format, arguments, null);
+	}
+
+	@Override
+	public void warn(String msg, Throwable t) {
+		this.log(LocationAwareLogger.WARN_INT, msg, NO_ARGUMENTS, t);
+	}
+
+	@Override
+	public boolean isErrorEnabled() {
+		return this.target.isErrorEnabled();
+	}
+
+	@Override
+	public void error(String msg) {
+		this.log(LocationAwareLogger.ERROR_INT, msg, NO_ARGUMENTS, null);
+	}
+
+	@Override
+	public void error(String format, Object arg) {
+		this.log(LocationAwareLogger.ERROR_INT, format, new Object[] { arg }, null);
+	}
+
+	@Override
+	public void error(String format, Object arg1, Object arg2) {
+		this.log(LocationAwareLogger.ERROR_INT, format, new Object[] { arg1, arg2 }, null);
+	}
+
+	@Override
+	public void error(String format, Object... arguments) {
+		this.log(LocationAwareLogger.ERROR_INT, format, arguments, null);
+	}
+
+	@Override
+	public void error(String msg, Throwable t) {
+		this.log(LocationAwareLogger.ERROR_INT, msg, NO_ARGUMENTS, t);
+	}
+}
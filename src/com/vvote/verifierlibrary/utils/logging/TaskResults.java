@@ -0,0 +1,216 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.spi.LocationAwareLogger;
+
+/**
+ * Holds the results log output of a single task. Output is held until the
+ * task is streamed, when the output held so far is written and any further
+ * output is written straight through, or until it is replayed into the output
+ * of another task. This allows tasks which run at the same time to have their
+ * output written to the results log in a fixed order.
+ * 
+ * A task's output is added using the logger returned by
+ * {@link ResultsLogger#getLogger(Class)} while the task's results are set on
+ * the current thread
+ * 
+ * @author James Rumble
+ * 
+ */
+public final class TaskResults {
+
+	/**
+	 * A single held log entry
+	 */
+	private static final class Entry {
+
+		/**
+		 * The results logger the entry is written to
+		 */
+		private final Logger target;
+
+		/**
+		 * Level of the entry, as a <code>LocationAwareLogger</code> level
+		 */
+		private final int level;
+
+		/**
+		 * Format string for the entry
+		 */
+		private final String format;
+
+		/**
+		 * Arguments for the format string
+		 */
+		private final Object[] arguments;
+
+		/**
+		 * Throwable logged with the entry, if any
+		 */
+		private final Throwable throwable;
+
+		/**
+		 * Constructor for a held log entry
+		 * 
+		 * @param target
+		 * @param level
+		 * @param format
+		 * @param arguments
+		 * @param throwable
+		 */
+		private Entry(Logger target, int level, String format, Object[] arguments, Throwable throwable) {
+			this.target = target;
+			this.level = level;
+			this.format = format;
+			this.arguments = arguments;
+			this.throwable = throwable;
+		}
+	}
+
+	/**
+	 * The held entries in the order they were logged, or null once the task
+	 * is streamed
+	 */
+	private List<Entry> entries;
+
+	/**
+	 * Constructor for <code>TaskResults</code> which hold their output until
+	 * streamed or replayed
+	 */
+	public TaskResults() {
+		this.entries = new ArrayList<Entry>();
+	}
+
+	/**
+	 * Writes the output held so far and writes any further output straight
+	 * through
+	 */
+	public synchronized void stream() {
+		if (this.entries == null) {
+			return;
+		}
+
+		for (Entry entry : this.entries) {
+			write(entry.target, entry.level, entry.format, entry.arguments, entry.throwable);
+		}
+
+		this.entries = null;
+	}
+
+	/**
+	 * Adds the output held so far to the output of another task, or writes
+	 * it straight through if no other task is given, in the order it was
+	 * logged
+	 * 
+	 * @param results
+	 *            the results of the task to add the output to or null
+	 */
+	public void replay(TaskResults results) {
+		List<Entry> held = null;
+
+		synchronized (this) {
+			if (this.entries == null || this.entries.isEmpty()) {
+				return;
+			}
+
+			held = this.entries;
+			this.entries = new ArrayList<Entry>();
+		}
+
+		for (Entry entry : held) {
+			if (results != null) {
+				results.add(entry.target, entry.level, entry.format, entry.arguments, entry.throwable);
+			} else {
+				write(entry.target, entry.level, entry.format, entry.arguments, entry.throwable);
+			}
+		}
+	}
+
+	/**
+	 * Adds a log entry, writing it straight through once the task is
+	 * streamed
+	 * 
+	 * @param target
+	 * @param level
+	 * @param format
+	 * @param arguments
+	 * @param throwable
+	 */
+	synchronized void add(Logger target, int level, String format, Object[] arguments, Throwable throwable) {
+		if (this.entries == null) {
+			write(target, level, format, arguments, throwable);
+		} else {
+			this.entries.add(new Entry(target, level, format, arguments, throwable));
+		}
+	}
+
+	/**
+	 * Writes a log entry to a results logger
+	 * 
+	 * @param target
+	 * @param level
+	 * @param format
+	 * @param arguments
+	 * @param throwable
+	 */
+	static void write(Logger target, int level, String format, Object[] arguments, Throwable throwable) {
+		switch (level) {
+			case LocationAwareLogger.TRACE_INT:
+				if (throwable != null) {
+					target.trace(format, throwable);
+				} else {
+					target.trace(format, arguments);
+				}
+				break;
+			case LocationAwareLogger.DEBUG_INT:
+				if (throwable != null) {
+					target.debug(format, throwable);
+				} else {
+					target.debug(format, arguments);
+				}
+				break;
+			case LocationAwareLogger.WARN_INT:
+				if (throwable != null) {
+					target.warn(format, throwable);
+				} else {
+					target.warn(format, arguments);
+				}
+				break;
+			case LocationAwareLogger.ERROR_INT:
+				if (throwable != null) {
+					target.error(format, throwable);
+				} else {
+					target.error(format, arguments);
+				}
+				break;
+			case LocationAwareLogger.INFO_INT:
+			default:
+				if (throwable != null) {
+					target.info(format, throwable);
+				} else {
+					target.info(format, arguments);
+				}
+				break;
+		}
+	}
+}
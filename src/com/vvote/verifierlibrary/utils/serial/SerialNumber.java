@@ -0,0 +1,516 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.serial;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import com.vvote.JSONConstants;
+
+/**
+ * Provides a compact representation of a ballot serial number. Serial numbers
+ * are made up of the name of the device which generated the ballot and a
+ * non-negative number, written without a sign or leading zeros, separated by
+ * {@link JSONConstants#SERIAL_NO_SEPARATOR}. Device names
+ * are interned into a shared device table so that each serial number can be
+ * held as a single primitive long key made up of the index of its device and
+ * its number. Keys are ordered by device name and then by number, the same
+ * order as the string form of the serial numbers, and can be compared and
+ * sorted without any parsing or allocation
+ *
+ * @author James Rumble
+ *
+ */
+public final class SerialNumber implements Comparable<SerialNumber> {
+
+	/**
+	 * Key returned for a serial number which is malformed or whose device has
+	 * never been seen
+	 */
+	public static final long NO_KEY = -1L;
+
+	/**
+	 * The separator between the device name and the number
+	 */
+	private static final char SEPARATOR = JSONConstants.SERIAL_NO_SEPARATOR.charAt(0);
+
+	/**
+	 * Returned when the number part of a serial number cannot be parsed
+	 */
+	private static final long INVALID_NUMBER = Long.MIN_VALUE;
+
+	/**
+	 * An immutable snapshot of the interned device names. A new snapshot is
+	 * published whenever a new device is seen so that lookups never need to
+	 * lock
+	 */
+	private static final class DeviceTable {
+
+		/**
+		 * Device index : device name
+		 */
+		private final String[] names;
+
+		/**
+		 * Open addressing table over the device names holding device index + 1
+		 * or 0 for an empty slot
+		 */
+		private final int[] slots;
+
+		/**
+		 * Device index : position of the device name in sorted order
+		 */
+		private final int[] ranks;
+
+		/**
+		 * Position in sorted order : device index
+		 */
+		private final int[] devicesByRank;
+
+		/**
+		 * Constructor for a device table holding the provided names
+		 *
+		 * @param names
+		 */
+		private DeviceTable(final String[] names) {
+			this.names = names;
+
+			int capacity = 16;
+
+			while (capacity < names.length * 2) {
+				capacity <<= 1;
+			}
+
+			this.slots = new int[capacity];
+
+			for (int device = 0; device < names.length; device++) {
+				int slot = names[device].hashCode() & (capacity - 1);
+
+				while (this.slots[slot] != 0) {
+					slot = (slot + 1) & (capacity - 1);
+				}
+
+				this.slots[slot] = device + 1;
+			}
+
+			Integer[] sorted = new Integer[names.length];
+
+			for (int device = 0; device < names.length; device++) {
+				sorted[device] = device;
+			}
+
+			Arrays.sort(sorted, new Comparator<Integer>() {
+
+				@Override
+				public int compare(Integer device1, Integer device2) {
+					return names[device1].compareTo(names[device2]);
+				}
+			});
+
+			this.ranks = new int[names.length];
+			this.devicesByRank = new int[names.length];
+
+			for (int rank = 0; rank < sorted.length; rank++) {
+				this.ranks[sorted[rank]] = rank;
+				this.devicesByRank[rank] = sorted[rank];
+			}
+		}
+
+		/**
+		 * Finds the index of the device named by the first characters of the
+		 * provided serial number
+		 *
+		 * @param serialNo
+		 * @param length
+		 *            the length of the device name
+		 * @return the device index or -1 if the device has not been interned
+		 */
+		private int find(String serialNo, int length) {
+			int hash = 0;
+
+			for (int i = 0; i < length; i++) {
+				hash = 31 * hash + serialNo.charAt(i);
+			}
+
+			int slot = hash & (this.slots.length - 1);
+
+			while (this.slots[slot] != 0) {
+				int device = this.slots[slot] - 1;
+
+				if (this.names[device].length() == length && serialNo.startsWith(this.names[device])) {
+					return device;
+				}
+
+				slot = (slot + 1) & (this.slots.length - 1);
+			}
+
+			return -1;
+		}
+	}
+
+	/**
+	 * The current device table
+	 */
+	private static volatile DeviceTable devices = new DeviceTable(new String[0]);
+
+	/**
+	 * Index of the device in the device table
+	 */
+	private final int device;
+
+	/**
+	 * The number of the ballot generated by the device
+	 */
+	private final int number;
+
+	/**
+	 * Constructor for a serial number
+	 *
+	 * @param device
+	 * @param number
+	 */
+	private SerialNumber(int device, int number) {
+		this.device = device;
+		this.number = number;
+	}
+
+	/**
+	 * Creates a serial number from its string form, interning the device name
+	 * if it has not been seen before
+	 *
+	 * @param serialNo
+	 * @return the serial number
+	 */
+	public static SerialNumber valueOf(String serialNo) {
+		return fromKey(key(serialNo));
+	}
+
+	/**
+	 * Creates a serial number from a key
+	 *
+	 * @param key
+	 * @return the serial number
+	 */
+	public static SerialNumber fromKey(long key) {
+		int device = (int) (key >>> 32);
+
+		if (key < 0 || device >= devices.names.length) {
+			throw new IllegalArgumentException("Not a valid serial number key: " + key);
+		}
+
+		return new SerialNumber(device, (int) key);
+	}
+
+	/**
+	 * Gets the key for a serial number, interning the device name if it has
+	 * not been seen before. Only allocates the first time a device is seen
+	 *
+	 * @param serialNo
+	 * @return the key for the serial number
+	 */
+	public static long key(String serialNo) {
+		int separator = separatorOf(serialNo);
+		long number = parseNumber(serialNo, separator + 1);
+
+		if (number == INVALID_NUMBER) {
+			throw new IllegalArgumentException("The serial number is not valid: " + serialNo);
+		}
+
+		int device = devices.find(serialNo, separator);
+
+		if (device < 0) {
+			device = intern(serialNo.substring(0, separator));
+		}
+
+		return toKey(device, (int) number);
+	}
+
+	/**
+	 * Gets the key for a serial number without interning its device. Does not
+	 * allocate
+	 *
+	 * @param serialNo
+	 * @return the key for the serial number or {@link #NO_KEY} if the serial
+	 *         number is malformed or its device has never been seen
+	 */
+	public static long find(String serialNo) {
+		if (serialNo == null) {
+			return NO_KEY;
+		}
+
+		int separator = serialNo.indexOf(SEPARATOR);
+
+		if (separator < 0) {
+			return NO_KEY;
+		}
+
+		long number = parseNumber(serialNo, separator + 1);
+
+		if (number == INVALID_NUMBER) {
+			return NO_KEY;
+		}
+
+		int device = devices.find(serialNo, separator);
+
+		if (device < 0) {
+			return NO_KEY;
+		}
+
+		return toKey(device, (int) number);
+	}
+
+	/**
+	 * Converts a key back to the string form of the serial number
+	 *
+	 * @param key
+	 * @return the serial number as a string
+	 */
+	public static String toString(long key) {
+		return fromKey(key).toString();
+	}
+
+	/**
+	 * Compares two serial number keys by device name and then by number
+	 *
+	 * @param key1
+	 * @param key2
+	 * @return a negative integer, zero, or a positive integer as the first key
+	 *         is less than, equal to, or greater than the second
+	 */
+	public static int compare(long key1, long key2) {
+		int device1 = (int) (key1 >>> 32);
+		int device2 = (int) (key2 >>> 32);
+
+		if (device1 == device2) {
+			return Integer.compare((int) key1, (int) key2);
+		}
+
+		String[] names = devices.names;
+
+		return names[device1].compareTo(names[device2]);
+	}
+
+	/**
+	 * Compares two serial numbers in their string form by device name and then
+	 * by number without creating any substrings
+	 *
+	 * @param serial1
+	 * @param serial2
+	 * @return a negative integer, zero, or a positive integer as the first
+	 *         serial number is less than, equal to, or greater than the second
+	 */
+	public static int compare(String serial1, String serial2) {
+		int separator1 = separatorOf(serial1);
+		int separator2 = separatorOf(serial2);
+
+		int limit = Math.min(separator1, separator2);
+
+		for (int i = 0; i < limit; i++) {
+			char c1 = serial1.charAt(i);
+			char c2 = serial2.charAt(i);
+
+			if (c1 != c2) {
+				return c1 - c2;
+			}
+		}
+
+		if (separator1 != separator2) {
+			return separator1 - separator2;
+		}
+
+		long number1 = parseNumber(serial1, separator1 + 1);
+		long number2 = parseNumber(serial2, separator2 + 1);
+
+		if (number1 == INVALID_NUMBER) {
+			throw new IllegalArgumentException("The serial number is not valid: " + serial1);
+		}
+
+		if (number2 == INVALID_NUMBER) {
+			throw new IllegalArgumentException("The serial number is not valid: " + serial2);
+		}
+
+		return Long.compare(number1, number2);
+	}
+
+	/**
+	 * Sorts a range of serial number keys by device name and then by number.
+	 * The keys are mapped onto the rank of their device name so that a
+	 * primitive sort can be used
+	 *
+	 * @param keys
+	 * @param fromIndex
+	 * @param toIndex
+	 */
+	public static void sort(long[] keys, int fromIndex, int toIndex) {
+		DeviceTable table = devices;
+
+		for (int i = fromIndex; i < toIndex; i++) {
+			keys[i] = ((long) table.ranks[(int) (keys[i] >>> 32)] << 32) | ((keys[i] ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+		}
+
+		Arrays.sort(keys, fromIndex, toIndex);
+
+		for (int i = fromIndex; i < toIndex; i++) {
+			keys[i] = ((long) table.devicesByRank[(int) (keys[i] >>> 32)] << 32) | ((keys[i] ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+		}
+	}
+
+	/**
+	 * Gets the position of the separator in a serial number
+	 *
+	 * @param serialNo
+	 * @return the position of the separator
+	 */
+	private static int separatorOf(String serialNo) {
+		int separator = serialNo.indexOf(SEPARATOR);
+
+		if (separator < 0) {
+			throw new IllegalArgumentException("The serial number is not valid: " + serialNo);
+		}
+
+		return separator;
+	}
+
+	/**
+	 * Parses the number part of a serial number without creating a substring.
+	 * Only the canonical form of a non-negative number is accepted, so that a
+	 * sign or leading zeros cannot give two different serial numbers the same
+	 * key and every key converts back to the serial number it was created from
+	 *
+	 * @param serialNo
+	 * @param from
+	 * @return the number or {@link #INVALID_NUMBER}
+	 */
+	private static long parseNumber(String serialNo, int from) {
+		int length = serialNo.length();
+
+		if (from >= length) {
+			return INVALID_NUMBER;
+		}
+
+		if (serialNo.charAt(from) == '0' && length - from > 1) {
+			return INVALID_NUMBER;
+		}
+
+		long value = 0;
+
+		for (int i = from; i < length; i++) {
+			char c = serialNo.charAt(i);
+
+			if (c < '0' || c > '9') {
+				return INVALID_NUMBER;
+			}
+
+			value = value * 10 + (c - '0');
+
+			if (value > Integer.MAX_VALUE) {
+				return INVALID_NUMBER;
+			}
+		}
+
+		return value;
+	}
+
+	/**
+	 * Interns a device name, publishing a new device table if the device has
+	 * not been seen before
+	 *
+	 * @param name
+	 * @return the index of the device
+	 */
+	private static synchronized int intern(String name) {
+		DeviceTable table = devices;
+
+		int device = table.find(name, name.length());
+
+		if (device < 0) {
+			String[] names = Arrays.copyOf(table.names, table.names.length + 1);
+			device = table.names.length;
+			names[device] = name;
+
+			devices = new DeviceTable(names);
+		}
+
+		return device;
+	}
+
+	/**
+	 * Combines a device index and number into a key
+	 *
+	 * @param device
+	 * @param number
+	 * @return the key
+	 */
+	private static long toKey(int device, int number) {
+		return ((long) device << 32) | (number & 0xFFFFFFFFL);
+	}
+
+	@Override
+	public int compareTo(SerialNumber other) {
+		return compare(this.getKey(), other.getKey());
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof SerialNumber)) {
+			return false;
+		}
+		SerialNumber other = (SerialNumber) obj;
+		return this.device == other.device && this.number == other.number;
+	}
+
+	/**
+	 * Getter for the name of the device which generated the ballot
+	 *
+	 * @return the device name
+	 */
+	public String getDevice() {
+		return devices.names[this.device];
+	}
+
+	/**
+	 * Getter for the key of the serial number
+	 *
+	 * @return the key
+	 */
+	public long getKey() {
+		return toKey(this.device, this.number);
+	}
+
+	/**
+	 * Getter for the number of the ballot generated by the device
+	 *
+	 * @return the number
+	 */
+	public int getNumber() {
+		return this.number;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * this.device + this.number;
+	}
+
+	@Override
+	public String toString() {
+		return this.getDevice() + SEPARATOR + this.number;
+	}
+}
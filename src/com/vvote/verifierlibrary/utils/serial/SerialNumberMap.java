@@ -0,0 +1,254 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.serial;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A hashed map from ballot serial numbers to values with the serial numbers
+ * held as primitive {@link SerialNumber} keys in a {@link SerialNumberSet} and
+ * the values held in a parallel array. Lookups by string do not allocate and
+ * iteration returns the entries in sorted serial number order, so the map can
+ * be used in place of a <code>TreeMap</code> ordered by serial number.
+ *
+ * The map is not synchronized. It can be read by many threads once it is no
+ * longer being modified
+ *
+ * @author James Rumble
+ *
+ * @param <V>
+ *            the type of the values
+ */
+public final class SerialNumberMap<V> extends AbstractMap<String, V> {
+
+	/**
+	 * The serial number keys
+	 */
+	private final SerialNumberSet keys;
+
+	/**
+	 * The values in the same position as their keys
+	 */
+	private Object[] values;
+
+	/**
+	 * Constructor for an empty <code>SerialNumberMap</code>
+	 */
+	public SerialNumberMap() {
+		this(0);
+	}
+
+	/**
+	 * Constructor for an empty <code>SerialNumberMap</code> sized to hold the
+	 * expected number of serial numbers without growing
+	 *
+	 * @param expectedSize
+	 */
+	public SerialNumberMap(int expectedSize) {
+		this.keys = new SerialNumberSet(expectedSize);
+		this.values = new Object[Math.max(expectedSize, 16)];
+	}
+
+	@Override
+	public void clear() {
+		this.keys.clear();
+		Arrays.fill(this.values, null);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return this.keys.contains(key);
+	}
+
+	/**
+	 * Checks whether the map contains a serial number key
+	 *
+	 * @param key
+	 * @return true if the key is present
+	 */
+	public boolean containsKey(long key) {
+		return this.keys.contains(key);
+	}
+
+	@Override
+	public Set<Map.Entry<String, V>> entrySet() {
+		return new AbstractSet<Map.Entry<String, V>>() {
+
+			@Override
+			public Iterator<Map.Entry<String, V>> iterator() {
+				final long[] sorted = SerialNumberMap.this.sortedKeys();
+
+				return new Iterator<Map.Entry<String, V>>() {
+
+					private int next = 0;
+
+					@Override
+					public boolean hasNext() {
+						return this.next < sorted.length;
+					}
+
+					@Override
+					public Map.Entry<String, V> next() {
+						if (this.next >= sorted.length) {
+							throw new NoSuchElementException();
+						}
+						long key = sorted[this.next++];
+						return new AbstractMap.SimpleImmutableEntry<String, V>(SerialNumber.toString(key), SerialNumberMap.this.get(key));
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException("Serial numbers must be removed from the map directly");
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return SerialNumberMap.this.size();
+			}
+		};
+	}
+
+	@Override
+	public V get(Object key) {
+		return key instanceof String ? this.get(SerialNumber.find((String) key)) : null;
+	}
+
+	/**
+	 * Gets the value for a serial number key
+	 *
+	 * @param key
+	 * @return the value or null if the key is not present
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		int position = this.keys.indexOf(key);
+		return position < 0 ? null : (V) this.values[position];
+	}
+
+	/**
+	 * Gets the key held at a position between 0 and <code>size() - 1</code>.
+	 * Positions allow the map to be walked in linear time without sorting
+	 *
+	 * @param position
+	 * @return the key
+	 */
+	public long keyAt(int position) {
+		return this.keys.keyAt(position);
+	}
+
+	/**
+	 * Gets the value held at a position between 0 and <code>size() - 1</code>
+	 *
+	 * @param position
+	 * @return the value
+	 */
+	@SuppressWarnings("unchecked")
+	public V valueAt(int position) {
+		if (position < 0 || position >= this.keys.size()) {
+			throw new IndexOutOfBoundsException("Position: " + position + ", size: " + this.keys.size());
+		}
+		return (V) this.values[position];
+	}
+
+	/**
+	 * Gets a read only view of the serial numbers in sorted order
+	 */
+	@Override
+	public Set<String> keySet() {
+		return Collections.unmodifiableSet(this.keys);
+	}
+
+	@Override
+	public V put(String serialNo, V value) {
+		return this.put(SerialNumber.key(serialNo), value);
+	}
+
+	/**
+	 * Associates a value with a serial number key
+	 *
+	 * @param key
+	 * @param value
+	 * @return the previous value or null if the key was not present
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value) {
+		int position = this.keys.insert(key);
+
+		if (position >= this.values.length) {
+			this.values = Arrays.copyOf(this.values, this.values.length * 2);
+		}
+
+		V previous = (V) this.values[position];
+		this.values[position] = value;
+		return previous;
+	}
+
+	@Override
+	public V remove(Object key) {
+		return key instanceof String ? this.remove(SerialNumber.find((String) key)) : null;
+	}
+
+	/**
+	 * Removes a serial number key and its value
+	 *
+	 * @param key
+	 * @return the removed value or null if the key was not present
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key) {
+		int position = this.keys.indexOf(key);
+
+		if (position < 0) {
+			return null;
+		}
+
+		V previous = (V) this.values[position];
+
+		// the set moves its last key into the removed position so the values
+		// must follow
+		int last = this.keys.size() - 1;
+		this.keys.remove(key);
+		this.values[position] = this.values[last];
+		this.values[last] = null;
+
+		return previous;
+	}
+
+	@Override
+	public int size() {
+		return this.keys.size();
+	}
+
+	/**
+	 * Gets the keys in sorted serial number order
+	 *
+	 * @return a sorted copy of the keys
+	 */
+	public long[] sortedKeys() {
+		return this.keys.toSortedArray();
+	}
+}
@@ -0,0 +1,393 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.serial;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A hashed set of ballot serial numbers held as primitive
+ * {@link SerialNumber} keys. The keys are stored densely in a long array and
+ * found through an open addressing table of positions into that array, so
+ * each serial number costs a handful of bytes rather than a string and a map
+ * entry. Lookups by string do not allocate. Iteration returns the serial
+ * numbers in sorted order.
+ *
+ * Each key has a position between 0 and <code>size() - 1</code> which allows
+ * other collections to hold values for the keys in parallel arrays. Removing
+ * a key moves the key at the last position into the position of the removed
+ * key.
+ *
+ * The set is not synchronized. It can be read by many threads once it is no
+ * longer being modified
+ *
+ * @author James Rumble
+ *
+ */
+public final class SerialNumberSet extends AbstractSet<String> {
+
+	/**
+	 * Marks an empty slot in the table
+	 */
+	private static final int FREE = -1;
+
+	/**
+	 * The minimum table size
+	 */
+	private static final int MINIMUM_CAPACITY = 16;
+
+	/**
+	 * The keys in position order
+	 */
+	private long[] keys;
+
+	/**
+	 * Open addressing table of key positions
+	 */
+	private int[] table;
+
+	/**
+	 * The number of keys held
+	 */
+	private int size = 0;
+
+	/**
+	 * Constructor for an empty <code>SerialNumberSet</code>
+	 */
+	public SerialNumberSet() {
+		this(MINIMUM_CAPACITY);
+	}
+
+	/**
+	 * Constructor for an empty <code>SerialNumberSet</code> sized to hold the
+	 * expected number of serial numbers without growing
+	 *
+	 * @param expectedSize
+	 */
+	public SerialNumberSet(int expectedSize) {
+		if (expectedSize < 0) {
+			throw new IllegalArgumentException("The expected size cannot be negative: " + expectedSize);
+		}
+
+		this.keys = new long[Math.max(expectedSize, MINIMUM_CAPACITY)];
+		this.table = new int[tableSizeFor(this.keys.length)];
+
+		Arrays.fill(this.table, FREE);
+	}
+
+	/**
+	 * Gets a table size which keeps the table at most three quarters full for
+	 * the provided number of keys
+	 *
+	 * @param capacity
+	 * @return the table size
+	 */
+	private static int tableSizeFor(int capacity) {
+		int tableSize = MINIMUM_CAPACITY;
+
+		while (tableSize - (tableSize >>> 2) < capacity) {
+			tableSize <<= 1;
+		}
+
+		return tableSize;
+	}
+
+	/**
+	 * Spreads the bits of a key over the table
+	 *
+	 * @param key
+	 * @return the hash of the key
+	 */
+	private static int hash(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	@Override
+	public boolean add(String serialNo) {
+		return this.add(SerialNumber.key(serialNo));
+	}
+
+	/**
+	 * Adds a serial number key to the set
+	 *
+	 * @param key
+	 * @return true if the key was not already present
+	 */
+	public boolean add(long key) {
+		int previousSize = this.size;
+		this.insert(key);
+		return this.size != previousSize;
+	}
+
+	/**
+	 * Adds a serial number key to the set if it is not already present
+	 *
+	 * @param key
+	 * @return the position of the key
+	 */
+	public int insert(long key) {
+		if (key < 0) {
+			throw new IllegalArgumentException("Not a valid serial number key: " + key);
+		}
+
+		int mask = this.table.length - 1;
+		int slot = hash(key) & mask;
+
+		while (this.table[slot] != FREE) {
+			if (this.keys[this.table[slot]] == key) {
+				return this.table[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		if (this.size == this.keys.length) {
+			this.keys = Arrays.copyOf(this.keys, this.size * 2);
+		}
+
+		int position = this.size++;
+		this.keys[position] = key;
+		this.table[slot] = position;
+
+		if (this.size > this.table.length - (this.table.length >>> 2)) {
+			this.rehash(this.table.length * 2);
+		}
+
+		return position;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(this.table, FREE);
+		this.size = 0;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return o instanceof String && this.indexOf((String) o) >= 0;
+	}
+
+	/**
+	 * Checks whether the set contains a serial number key
+	 *
+	 * @param key
+	 * @return true if the key is present
+	 */
+	public boolean contains(long key) {
+		return this.indexOf(key) >= 0;
+	}
+
+	/**
+	 * Gets the position of a serial number. Does not allocate
+	 *
+	 * @param serialNo
+	 * @return the position of the serial number or -1 if it is not present
+	 */
+	public int indexOf(String serialNo) {
+		return this.indexOf(SerialNumber.find(serialNo));
+	}
+
+	/**
+	 * Gets the position of a serial number key
+	 *
+	 * @param key
+	 * @return the position of the key or -1 if it is not present
+	 */
+	public int indexOf(long key) {
+		if (key < 0) {
+			return -1;
+		}
+
+		int mask = this.table.length - 1;
+		int slot = hash(key) & mask;
+
+		while (this.table[slot] != FREE) {
+			if (this.keys[this.table[slot]] == key) {
+				return this.table[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	@Override
+	public Iterator<String> iterator() {
+		final long[] sorted = this.toSortedArray();
+
+		return new Iterator<String>() {
+
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return this.next < sorted.length;
+			}
+
+			@Override
+			public String next() {
+				if (this.next >= sorted.length) {
+					throw new NoSuchElementException();
+				}
+				return SerialNumber.toString(sorted[this.next++]);
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("Serial numbers must be removed from the set directly");
+			}
+		};
+	}
+
+	/**
+	 * Gets the key held at a position
+	 *
+	 * @param position
+	 * @return the key
+	 */
+	public long keyAt(int position) {
+		if (position < 0 || position >= this.size) {
+			throw new IndexOutOfBoundsException("Position: " + position + ", size: " + this.size);
+		}
+		return this.keys[position];
+	}
+
+	/**
+	 * Rebuilds the table with a new size
+	 *
+	 * @param tableSize
+	 */
+	private void rehash(int tableSize) {
+		this.table = new int[tableSize];
+		Arrays.fill(this.table, FREE);
+
+		int mask = tableSize - 1;
+
+		for (int position = 0; position < this.size; position++) {
+			int slot = hash(this.keys[position]) & mask;
+
+			while (this.table[slot] != FREE) {
+				slot = (slot + 1) & mask;
+			}
+
+			this.table[slot] = position;
+		}
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		return o instanceof String && this.remove(SerialNumber.find((String) o));
+	}
+
+	/**
+	 * Removes a serial number key. The key at the last position is moved into
+	 * the position of the removed key
+	 *
+	 * @param key
+	 * @return true if the key was present
+	 */
+	public boolean remove(long key) {
+		if (key < 0) {
+			return false;
+		}
+
+		int mask = this.table.length - 1;
+		int slot = hash(key) & mask;
+
+		while (this.table[slot] != FREE) {
+			if (this.keys[this.table[slot]] == key) {
+				int position = this.table[slot];
+
+				this.deleteSlot(slot);
+
+				int last = --this.size;
+
+				if (position != last) {
+					// move the last key into the free position
+					this.table[this.slotOf(this.keys[last])] = position;
+					this.keys[position] = this.keys[last];
+				}
+
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Frees a slot in the table, shifting back any following keys which would
+	 * otherwise no longer be found
+	 *
+	 * @param slot
+	 */
+	private void deleteSlot(int slot) {
+		int mask = this.table.length - 1;
+		int hole = slot;
+		int next = (hole + 1) & mask;
+
+		while (this.table[next] != FREE) {
+			int ideal = hash(this.keys[this.table[next]]) & mask;
+
+			if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+				this.table[hole] = this.table[next];
+				hole = next;
+			}
+
+			next = (next + 1) & mask;
+		}
+
+		this.table[hole] = FREE;
+	}
+
+	/**
+	 * Gets the slot holding a key which is known to be present
+	 *
+	 * @param key
+	 * @return the slot
+	 */
+	private int slotOf(long key) {
+		int mask = this.table.length - 1;
+		int slot = hash(key) & mask;
+
+		while (this.keys[this.table[slot]] != key) {
+			slot = (slot + 1) & mask;
+		}
+
+		return slot;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Gets the keys in sorted serial number order
+	 *
+	 * @return a sorted copy of the keys
+	 */
+	public long[] toSortedArray() {
+		long[] sorted = Arrays.copyOf(this.keys, this.size);
+		SerialNumber.sort(sorted, 0, sorted.length);
+		return sorted;
+	}
+}
@@ -32,7 +32,14 @@ import org.junit.runners.Suite;
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
+	com.vvote.datafiles.TestAll.class,
+	com.vvote.ec.TestAll.class,
 	com.vvote.verifier.TestAll.class,
+	com.vvote.verifierlibrary.json.TestAll.class,
+	com.vvote.verifierlibrary.utils.crypto.TestAll.class,
+	com.vvote.verifierlibrary.utils.io.TestAll.class,
+	com.vvote.verifierlibrary.utils.logging.TestAll.class,
+	com.vvote.verifierlibrary.utils.serial.TestAll.class,
 })
 public class TestAll {
 
@@ -0,0 +1,167 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.datafiles;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+/**
+ * The class <code>PreferenceTableTest</code> contains tests for the class
+ * <code>{@link PreferenceTable}</code>.
+ */
+public class PreferenceTableTest {
+
+	/**
+	 * Check that blank and numbered preferences are parsed
+	 */
+	@Test
+	public void testParsePreference() {
+		assertEquals(PreferenceTable.BLANK, PreferenceTable.parsePreference(""));
+		assertEquals(PreferenceTable.BLANK, PreferenceTable.parsePreference(" "));
+		assertEquals(1, PreferenceTable.parsePreference("1"));
+		assertEquals(Short.MAX_VALUE, PreferenceTable.parsePreference(Short.toString(Short.MAX_VALUE)));
+	}
+
+	/**
+	 * Check that a preference of zero is rejected as it would be read as blank
+	 */
+	@Test(expected = NumberFormatException.class)
+	public void testParsePreferenceZero() {
+		PreferenceTable.parsePreference("0");
+	}
+
+	/**
+	 * Check that a preference which is not a number is rejected
+	 */
+	@Test(expected = NumberFormatException.class)
+	public void testParsePreferenceNotNumber() {
+		PreferenceTable.parsePreference("a");
+	}
+
+	/**
+	 * Check that rows are held with their own bounds, including empty rows
+	 */
+	@Test
+	public void testAddRow() {
+		PreferenceTable table = new PreferenceTable();
+
+		assertEquals(0, table.addRow(Arrays.asList("2", " ", "1")));
+		assertEquals(1, table.addRow(Collections.<String> emptyList()));
+		assertEquals(2, table.addRow(Arrays.asList("", "1")));
+
+		assertEquals(3, table.size());
+		assertEquals(3, table.getMaxLength());
+
+		assertEquals(3, table.length(0));
+		assertEquals(0, table.length(1));
+		assertEquals(2, table.length(2));
+
+		assertEquals(2, table.get(table.start(0)));
+		assertEquals(PreferenceTable.BLANK, table.get(table.start(0) + 1));
+		assertEquals(1, table.get(table.end(2) - 1));
+
+		table.trimToSize();
+
+		assertEquals(5, table.end(2));
+	}
+
+	/**
+	 * Check that positions are ordered by preference skipping blanks
+	 */
+	@Test
+	public void testOrder() {
+		PreferenceTable table = new PreferenceTable();
+
+		table.addRow(Arrays.asList("3", " ", "1", "", "2"));
+		table.addRow(Arrays.asList("12", "4"));
+
+		int[] order = new int[table.getMaxLength()];
+
+		int count = table.order(0, order);
+		assertArrayEquals(new int[] { 2, 4, 0 }, Arrays.copyOf(order, count));
+
+		count = table.order(1, order);
+		assertArrayEquals(new int[] { 1, 0 }, Arrays.copyOf(order, count));
+	}
+
+	/**
+	 * Check the ordering against a <code>TreeMap</code> keyed by preference,
+	 * which keeps the last position given a repeated preference
+	 */
+	@Test
+	public void testOrderMatchesTreeMap() {
+		Random random = new Random(25);
+
+		PreferenceTable table = new PreferenceTable();
+
+		String[][] rows = new String[200][];
+
+		for (int row = 0; row < rows.length; row++) {
+			rows[row] = new String[random.nextInt(40)];
+
+			for (int position = 0; position < rows[row].length; position++) {
+				rows[row][position] = random.nextInt(4) == 0 ? " " : Integer.toString(1 + random.nextInt(rows[row].length));
+			}
+
+			table.addRow(Arrays.asList(rows[row]));
+		}
+
+		int[] order = new int[table.getMaxLength()];
+
+		for (int row = 0; row < rows.length; row++) {
+			Map<Integer, Integer> expected = new TreeMap<Integer, Integer>();
+
+			for (int position = 0; position < rows[row].length; position++) {
+				if (!rows[row][position].equals(" ")) {
+					expected.put(Integer.parseInt(rows[row][position]), position);
+				}
+			}
+
+			int count = table.order(row, order);
+
+			List<Integer> actual = new ArrayList<Integer>();
+			for (int i = 0; i < count; i++) {
+				actual.add(order[i]);
+			}
+
+			assertEquals(expected.values().toString(), actual.toString());
+		}
+	}
+
+	/**
+	 * Check that the order array must be able to hold the row
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testOrderShortArray() {
+		PreferenceTable table = new PreferenceTable();
+
+		table.addRow(Arrays.asList("1", "2"));
+
+		table.order(0, new int[1]);
+	}
+}
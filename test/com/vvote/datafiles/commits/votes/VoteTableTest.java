@@ -0,0 +1,230 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.datafiles.commits.votes;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.vvote.datafiles.PreferenceTable;
+import com.vvote.messages.typed.vote.RaceType;
+import com.vvote.messages.typed.vote.VoteMessage;
+import com.vvote.thirdparty.json.orgjson.JSONArray;
+import com.vvote.thirdparty.json.orgjson.JSONObject;
+import com.vvote.verifierlibrary.utils.serial.SerialNumber;
+
+/**
+ * The class <code>VoteTableTest</code> contains tests for the class
+ * <code>{@link VoteTable}</code>.
+ */
+public class VoteTableTest {
+
+	/**
+	 * Creates a vote message with the provided preferences for each race
+	 * 
+	 * @param serialNo
+	 * @param district
+	 * @param la
+	 * @param lcATL
+	 * @param lcBTL
+	 * @return the vote message
+	 * @throws Exception
+	 */
+	static VoteMessage createVoteMessage(String serialNo, String district, String[] la, String[] lcATL, String[] lcBTL) throws Exception {
+		JSONArray races = new JSONArray();
+		races.put(new JSONObject().put("id", "LA").put("preferences", new JSONArray(Arrays.asList(la))));
+		races.put(new JSONObject().put("id", "LC_ATL").put("preferences", new JSONArray(Arrays.asList(lcATL))));
+		races.put(new JSONObject().put("id", "LC_BTL").put("preferences", new JSONArray(Arrays.asList(lcBTL))));
+
+		String vPrefs = join(la) + ":" + join(lcATL) + ":" + join(lcBTL) + ":";
+
+		JSONObject json = new JSONObject();
+		json.put("boothID", "5150102");
+		json.put("serialNo", serialNo);
+		json.put("startEVMSig", "XGzsitSaOxUR3pBGYTXEKd4y6oYQfSPT/fzQ//glYH+qESZIy8Tluw==");
+		json.put("commitTime", "1398582000000");
+		json.put("boothSig", "ZcyMBvok6YRMRM+P/7k8OS0nc0Yirm7KI/Ybn9zQtyt4w2ZJ8s1lBA==");
+		json.put("races", races);
+		json.put("serialSig", "EzlIT1DJCDsh4Jsy8fgoPVTNwQFUaBBUY4cy0mQOfcuer0KZaqJkhg==");
+		json.put("district", district);
+		json.put("type", "vote");
+		json.put("_vPrefs", vPrefs);
+
+		return new VoteMessage(json);
+	}
+
+	/**
+	 * Joins preferences as they appear in the _vPrefs string
+	 * 
+	 * @param preferences
+	 * @return the joined preferences
+	 */
+	private static String join(String[] preferences) {
+		StringBuilder builder = new StringBuilder();
+
+		for (int i = 0; i < preferences.length; i++) {
+			if (i > 0) {
+				builder.append(",");
+			}
+			builder.append(preferences[i]);
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Gets the preferences held in a row
+	 * 
+	 * @param table
+	 * @param row
+	 * @return the preferences
+	 */
+	private static short[] row(PreferenceTable table, int row) {
+		short[] preferences = new short[table.length(row)];
+
+		for (int i = 0; i < preferences.length; i++) {
+			preferences[i] = table.get(table.start(row) + i);
+		}
+
+		return preferences;
+	}
+
+	/**
+	 * Check that an ATL vote is held as three rows with an empty BTL row
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testATLVote() throws Exception {
+		VoteTable votes = new VoteTable();
+
+		int vote = votes.add(createVoteMessage("TableDevice:1", "Broadmeadows", new String[] { "2", "1", "3" }, new String[] { " ", "1" }, new String[] { " ", " ", " ", " " }));
+
+		assertEquals(0, vote);
+		assertEquals(1, votes.size());
+		assertEquals(SerialNumber.key("TableDevice:1"), votes.getSerialNumber(vote));
+		assertEquals("Broadmeadows", votes.getDistrict(vote));
+
+		assertTrue(votes.isLaUsed(vote));
+		assertTrue(votes.isATL(vote));
+		assertFalse(votes.isLcBTLUsed(vote));
+
+		PreferenceTable preferences = votes.getPreferences();
+
+		assertEquals(3, preferences.size());
+		assertEquals(votes.getPreferenceRow(vote, RaceType.LA) + 1, votes.getPreferenceRow(vote, RaceType.LC_ATL));
+		assertEquals(votes.getPreferenceRow(vote, RaceType.LA) + 2, votes.getPreferenceRow(vote, RaceType.LC_BTL));
+
+		assertArrayEquals(new short[] { 2, 1, 3 }, row(preferences, votes.getPreferenceRow(vote, RaceType.LA)));
+		assertArrayEquals(new short[] { PreferenceTable.BLANK, 1 }, row(preferences, votes.getPreferenceRow(vote, RaceType.LC_ATL)));
+		assertEquals(0, preferences.length(votes.getPreferenceRow(vote, RaceType.LC_BTL)));
+	}
+
+	/**
+	 * Check that a BTL vote with an unused LA race holds empty LA and ATL rows
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testBTLVoteWithUnusedRace() throws Exception {
+		VoteTable votes = new VoteTable();
+
+		votes.add(createVoteMessage("TableDevice:2", "Albert Park", new String[] { "1", "2" }, new String[] { " ", "1" }, new String[] { " ", " ", " " }));
+		int vote = votes.add(createVoteMessage("TableDevice:3", "Broadmeadows", new String[] { " ", " ", " " }, new String[] { " ", " " }, new String[] { "3", " ", "1", "2" }));
+
+		assertEquals(1, vote);
+		assertEquals("Broadmeadows", votes.getDistrict(vote));
+
+		assertFalse(votes.isLaUsed(vote));
+		assertFalse(votes.isATL(vote));
+		assertTrue(votes.isLcBTLUsed(vote));
+
+		PreferenceTable preferences = votes.getPreferences();
+
+		assertEquals(6, preferences.size());
+		assertEquals(3, votes.getPreferenceRow(vote, RaceType.LA));
+		assertEquals(0, preferences.length(votes.getPreferenceRow(vote, RaceType.LA)));
+		assertEquals(0, preferences.length(votes.getPreferenceRow(vote, RaceType.LC_ATL)));
+		assertArrayEquals(new short[] { 3, PreferenceTable.BLANK, 1, 2 }, row(preferences, votes.getPreferenceRow(vote, RaceType.LC_BTL)));
+
+		int[] order = new int[preferences.getMaxLength()];
+		int count = preferences.order(votes.getPreferenceRow(vote, RaceType.LC_BTL), order);
+		assertArrayEquals(new int[] { 2, 3, 0 }, Arrays.copyOf(order, count));
+	}
+
+	/**
+	 * Check that votes are found by serial number and districts are shared
+	 * between votes
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testLookup() throws Exception {
+		VoteTable votes = new VoteTable();
+
+		String[] blank = new String[] { " ", " " };
+
+		for (int i = 0; i < 40; i++) {
+			votes.add(createVoteMessage("LookupDevice:" + i, i % 2 == 0 ? "Albert Park" : "Broadmeadows", new String[] { "1", "2" }, blank, blank));
+		}
+
+		assertEquals(40, votes.size());
+
+		int vote = votes.indexOf(SerialNumber.key("LookupDevice:17"));
+		assertEquals(SerialNumber.key("LookupDevice:17"), votes.getSerialNumber(vote));
+		assertEquals("Broadmeadows", votes.getDistrict(vote));
+		assertEquals("Albert Park", votes.getDistrict(votes.indexOf(SerialNumber.key("LookupDevice:38"))));
+
+		assertEquals(-1, votes.indexOf(SerialNumber.find("LookupDevice:40")));
+	}
+
+	/**
+	 * Check that a later vote with the same serial number replaces the earlier
+	 * vote
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testDuplicateSerialNumber() throws Exception {
+		VoteTable votes = new VoteTable();
+
+		String[] blank = new String[] { " ", " " };
+
+		int first = votes.add(createVoteMessage("DuplicateDevice:1", "Albert Park", new String[] { "1", "2" }, blank, blank));
+		int second = votes.add(createVoteMessage("DuplicateDevice:1", "Broadmeadows", blank, new String[] { "1", " " }, blank));
+
+		assertEquals(first, second);
+		assertEquals(1, votes.size());
+		assertEquals("Broadmeadows", votes.getDistrict(second));
+		assertFalse(votes.isLaUsed(second));
+		assertTrue(votes.isATL(second));
+	}
+
+	/**
+	 * Check that votes which do not exist are rejected
+	 */
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testMissingVote() {
+		new VoteTable().getDistrict(0);
+	}
+}
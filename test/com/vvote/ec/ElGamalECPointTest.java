@@ -0,0 +1,155 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.ec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.Test;
+
+import com.vvote.verifierlibrary.utils.crypto.CurveContext;
+
+/**
+ * The class <code>ElGamalECPointTest</code> contains tests for the classes
+ * <code>{@link ElGamalECPoint}</code> and
+ * <code>{@link ElGamalECPointComparator}</code>.
+ */
+public class ElGamalECPointTest {
+
+	/**
+	 * The curve used throughout the tests
+	 */
+	private static final CurveContext curveContext = CurveContext.forElectionCurve();
+
+	/**
+	 * The ordering used before encodings were cached: the unsigned values of
+	 * the uncompressed encodings of g^r and then m * y^r
+	 * 
+	 * @param p1
+	 * @param p2
+	 * @return the comparison result
+	 */
+	private static int referenceCompare(ElGamalECPoint p1, ElGamalECPoint p2) {
+		BigInteger gr1 = new BigInteger(1, p1.getGr().getEncoded(false));
+		BigInteger myr1 = new BigInteger(1, p1.getMyr().getEncoded(false));
+		BigInteger gr2 = new BigInteger(1, p2.getGr().getEncoded(false));
+		BigInteger myr2 = new BigInteger(1, p2.getMyr().getEncoded(false));
+
+		if (gr1.equals(gr2)) {
+			return myr1.compareTo(myr2);
+		}
+		return gr1.compareTo(gr2);
+	}
+
+	/**
+	 * Creates a random point
+	 * 
+	 * @param random
+	 * @return a random point
+	 */
+	private static ECPoint point(Random random) {
+		return curveContext.getG().multiply(new BigInteger(64, random));
+	}
+
+	/**
+	 * Run the compare method test against the previous ordering, including
+	 * points sharing an x coordinate and the point at infinity
+	 */
+	@Test
+	public void testCompare() {
+		Random random = new Random(11);
+		List<ElGamalECPoint> ciphers = new ArrayList<ElGamalECPoint>();
+
+		for (int i = 0; i < 40; i++) {
+			ECPoint gr = point(random);
+			ciphers.add(new ElGamalECPoint(point(random), gr));
+			ciphers.add(new ElGamalECPoint(point(random), gr.negate()));
+			ciphers.add(new ElGamalECPoint(point(random).negate(), gr));
+		}
+		ciphers.add(new ElGamalECPoint(point(random), curveContext.getG().getCurve().getInfinity()));
+
+		List<ElGamalECPoint> expected = new ArrayList<ElGamalECPoint>(ciphers);
+		Collections.shuffle(ciphers, random);
+
+		Collections.sort(expected, new java.util.Comparator<ElGamalECPoint>() {
+			@Override
+			public int compare(ElGamalECPoint p1, ElGamalECPoint p2) {
+				return referenceCompare(p1, p2);
+			}
+		});
+		Collections.sort(ciphers, new ElGamalECPointComparator());
+
+		assertEquals(expected, ciphers);
+
+		for (int i = 0; i < ciphers.size(); i++) {
+			for (int j = 0; j < ciphers.size(); j += 7) {
+				assertEquals(Integer.signum(referenceCompare(ciphers.get(i), ciphers.get(j))), Integer.signum(ciphers.get(i).compareTo(ciphers.get(j))));
+			}
+		}
+	}
+
+	/**
+	 * Run the equals and hashCode methods test with different representations
+	 * of the same points
+	 */
+	@Test
+	public void testEqualsAndHashCode() {
+		Random random = new Random(5);
+		ECPoint myr = point(random);
+		ECPoint gr = point(random);
+
+		ElGamalECPoint cipher = new ElGamalECPoint(myr, gr);
+		ElGamalECPoint normalized = new ElGamalECPoint(myr.normalize(), gr.normalize());
+		ElGamalECPoint indexed = new IndexedElGamalECPoint(cipher, 3);
+
+		assertEquals(cipher, normalized);
+		assertEquals(cipher.hashCode(), normalized.hashCode());
+		assertEquals(cipher, indexed);
+		assertEquals(0, cipher.compareTo(indexed));
+		assertFalse(cipher.equals(new ElGamalECPoint(gr, myr)));
+		assertEquals(66, cipher.getEncoded().length);
+	}
+
+	/**
+	 * Run the multiply and add methods test checking that the ciphers are not
+	 * modified
+	 */
+	@Test
+	public void testArithmeticIsImmutable() {
+		Random random = new Random(3);
+		ElGamalECPoint cipher = new ElGamalECPoint(point(random), point(random));
+		ElGamalECPoint other = new ElGamalECPoint(point(random), point(random));
+		byte[] encoded = cipher.getEncoded();
+
+		ElGamalECPoint doubled = cipher.multiply(BigInteger.valueOf(2));
+		ElGamalECPoint sum = cipher.add(cipher);
+
+		assertEquals(doubled, sum);
+		assertTrue(java.util.Arrays.equals(encoded, cipher.getEncoded()));
+		assertFalse(cipher.equals(cipher.add(other)));
+		assertTrue(java.util.Arrays.equals(encoded, cipher.getEncoded()));
+	}
+}
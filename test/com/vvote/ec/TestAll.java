@@ -15,38 +15,35 @@
  * You should have received a copy of the GNU General Public License
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
-package com.vvote.datafiles.mix;
+package com.vvote.ec;
 
-import java.util.Collections;
-import java.util.List;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
 
 /**
- * Holds a list of preferences
- * 
- * @author James Rumble
- * 
+ * The class <code>TestAll</code> builds a suite that can be used to run all
+ * of the tests within its package as well as within any subpackages of its
+ * package.
+ *
+ * @generatedBy CodePro at 13/07/14 15:40
+ * @author james
+ * @version $Revision: 1.0 $
  */
-public class CSVPreferences {
-
-	/**
-	 * Holds a list of preferences
-	 */
-	private final List<String> preferences;
-
-	/**
-	 * Constructor for a <code>BallotPreferences</code> object
-	 * 
-	 * @param preferences
-	 */
-	public CSVPreferences(List<String> preferences) {
-		this.preferences = preferences;
-	}
+@RunWith(Suite.class)
+@Suite.SuiteClasses({
+	ElGamalECPointTest.class,
+})
+public class TestAll {
 
 	/**
-	 * Getter for the preferences for a single ballot
-	 * @return preferences
+	 * Launch the test.
+	 *
+	 * @param args the command line arguments
+	 *
+	 * @generatedBy CodePro at 13/07/14 15:40
 	 */
-	public List<String> getPreferences() {
-		return Collections.unmodifiableList(this.preferences);
+	public static void main(String[] args) {
+		JUnitCore.runClasses(new Class[] { TestAll.class });
 	}
 }
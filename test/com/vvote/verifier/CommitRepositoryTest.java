@@ -0,0 +1,214 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumSet;
+
+import org.junit.Test;
+
+import com.vvote.messages.types.MessageType;
+import com.vvote.verifier.exceptions.DataStoreException;
+
+/**
+ * The class <code>CommitRepositoryTest</code> contains tests for the class
+ * <code>{@link CommitRepository}</code>.
+ */
+public class CommitRepositoryTest {
+
+	/**
+	 * Base path holding the test commitments
+	 */
+	private static final String basePath = "./testdata/commitments";
+
+	/**
+	 * Commits folder holding the test commitments
+	 */
+	private static final String commitsFolder = "ballotGen";
+
+	/**
+	 * Test that data stores reading the same commits folder share a single
+	 * repository, however the base path is written
+	 */
+	@Test
+	public void testAcquire() {
+		CommitRepository first = CommitRepository.acquire(basePath, "acquire");
+		CommitRepository second = CommitRepository.acquire(basePath + "/../commitments", "acquire");
+		CommitRepository third = CommitRepository.acquire("testdata/commitments", "acquire");
+		CommitRepository other = CommitRepository.acquire(basePath, "acquireOther");
+
+		try {
+			assertSame(first, second);
+			assertSame(first, third);
+			assertNotSame(first, other);
+		} finally {
+			first.release();
+			second.release();
+			third.release();
+			other.release();
+		}
+	}
+
+	/**
+	 * Test that shared data is kept until the last reference is released and
+	 * that a new repository is created once it has been
+	 */
+	@Test
+	public void testRelease() {
+		CommitRepository first = CommitRepository.acquire(basePath, "release");
+		CommitRepository second = CommitRepository.acquire(basePath, "release");
+
+		first.putSharedData("data", "value");
+
+		first.release();
+
+		assertEquals("value", second.getSharedData("data", String.class));
+		assertSame(second, CommitRepository.acquire(basePath, "release"));
+
+		second.release();
+		second.release();
+
+		assertNull(second.getSharedData("data", String.class));
+
+		second.putSharedData("data", "value");
+
+		assertNull(second.getSharedData("data", String.class));
+
+		CommitRepository reacquired = CommitRepository.acquire(basePath, "release");
+
+		try {
+			assertNotSame(second, reacquired);
+			assertNull(reacquired.getSharedData("data", String.class));
+		} finally {
+			reacquired.release();
+		}
+	}
+
+	/**
+	 * Test that releasing a repository more times than it was acquired
+	 * doesn't release a repository acquired afterwards
+	 */
+	@Test
+	public void testReleaseTooManyTimes() {
+		CommitRepository released = CommitRepository.acquire(basePath, "releaseTooManyTimes");
+		released.release();
+
+		CommitRepository reacquired = CommitRepository.acquire(basePath, "releaseTooManyTimes");
+		reacquired.putSharedData("data", "value");
+
+		released.release();
+
+		try {
+			assertSame(reacquired, CommitRepository.acquire(basePath, "releaseTooManyTimes"));
+			reacquired.release();
+
+			assertEquals("value", reacquired.getSharedData("data", String.class));
+		} finally {
+			reacquired.release();
+		}
+	}
+
+	/**
+	 * Test that shared data is only returned when it has the type asked for
+	 */
+	@Test
+	public void testSharedDataType() {
+		CommitRepository repository = CommitRepository.acquire(basePath, "sharedDataType");
+
+		try {
+			repository.putSharedData("data", "value");
+
+			assertEquals("value", repository.getSharedData("data", Object.class));
+			assertNull(repository.getSharedData("data", Integer.class));
+			assertNull(repository.getSharedData("missing", String.class));
+		} finally {
+			repository.release();
+		}
+	}
+
+	/**
+	 * Test that the commits folder is only read once and the commitment data
+	 * is discarded when the last reference is released
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testLoad() throws Exception {
+		CommitRepository first = CommitRepository.acquire(basePath, commitsFolder);
+		CommitRepository second = CommitRepository.acquire(basePath, commitsFolder);
+
+		try {
+			assertFalse(first.isLoaded());
+
+			first.load();
+
+			assertTrue(second.isLoaded());
+
+			second.load();
+
+			assertEquals(1, second.getFinalCommitments().size());
+			assertEquals(5, second.getMessages(EnumSet.of(MessageType.MIX_RANDOM_COMMIT)).size());
+			assertTrue(second.getMessages(EnumSet.of(MessageType.VOTE)).isEmpty());
+			assertTrue(second.getMessages(null).isEmpty());
+		} finally {
+			first.release();
+		}
+
+		assertEquals(1, second.getFinalCommitments().size());
+
+		second.release();
+
+		assertTrue(second.getFinalCommitments().isEmpty());
+		assertTrue(second.getMessages(EnumSet.of(MessageType.MIX_RANDOM_COMMIT)).isEmpty());
+	}
+
+	/**
+	 * Test that a released repository cannot be loaded
+	 * 
+	 * @throws Exception
+	 */
+	@Test(expected = DataStoreException.class)
+	public void testLoadAfterRelease() throws Exception {
+		CommitRepository repository = CommitRepository.acquire(basePath, commitsFolder);
+		repository.release();
+
+		repository.load();
+	}
+
+	/**
+	 * Test loading a commits folder which doesn't exist
+	 * 
+	 * @throws Exception
+	 */
+	@Test(expected = DataStoreException.class)
+	public void testLoadMissingFolder() throws Exception {
+		CommitRepository repository = CommitRepository.acquire(basePath, "missingFolder");
+
+		try {
+			repository.load();
+		} finally {
+			repository.release();
+		}
+	}
+}
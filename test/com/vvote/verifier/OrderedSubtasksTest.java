@@ -0,0 +1,279 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vvote.verifierlibrary.utils.logging.ResultsLogger;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+/**
+ * The class <code>OrderedSubtasksTest</code> contains tests for the class
+ * <code>{@link OrderedSubtasks}</code>.
+ */
+public class OrderedSubtasksTest {
+
+	/**
+	 * Results logger written to by the subtasks
+	 */
+	private static final Logger resultsLogger = ResultsLogger.getLogger(OrderedSubtasksTest.class);
+
+	/**
+	 * Runs a task on a task graph with the given parallelism
+	 * 
+	 * @param parallelism
+	 * @param task
+	 * @return true if the task completed successfully
+	 */
+	private static boolean runInGraph(int parallelism, Callable<Boolean> task) {
+		VerificationTaskGraph graph = new VerificationTaskGraph(parallelism);
+		graph.addTask("task", task);
+		return graph.run();
+	}
+
+	/**
+	 * Creates a subtask which logs and returns its index, taking longer the
+	 * earlier it was submitted
+	 * 
+	 * @param index
+	 * @param count
+	 * @param running
+	 * @param maximumRunning
+	 * @return the subtask
+	 */
+	private static Callable<Integer> indexTask(final int index, final int count, final AtomicInteger running, final AtomicInteger maximumRunning) {
+		return new Callable<Integer>() {
+
+			@Override
+			public Integer call() throws InterruptedException {
+				int current = running.incrementAndGet();
+
+				synchronized (maximumRunning) {
+					maximumRunning.set(Math.max(maximumRunning.get(), current));
+				}
+
+				try {
+					Thread.sleep(count - index);
+					resultsLogger.info("subtask: {}", index);
+					return index;
+				} finally {
+					running.decrementAndGet();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Submits the subtasks with the given indexes, collecting each result in
+	 * order
+	 * 
+	 * @param subtasks
+	 * @param count
+	 * @param maximumRunning
+	 * @return the results in the order they were collected
+	 * @throws ExecutionException
+	 */
+	private static List<Integer> runSubtasks(OrderedSubtasks<Integer> subtasks, int count, AtomicInteger maximumRunning) throws ExecutionException {
+		List<Integer> results = new ArrayList<Integer>();
+
+		AtomicInteger running = new AtomicInteger();
+
+		for (int i = 0; i < count; i++) {
+			if (subtasks.isFull()) {
+				results.add(subtasks.next());
+			}
+
+			subtasks.submit(indexTask(i, count, running, maximumRunning));
+		}
+
+		while (subtasks.hasNext()) {
+			results.add(subtasks.next());
+		}
+
+		return results;
+	}
+
+	/**
+	 * Gets the numbers from 0 up to count
+	 * 
+	 * @param count
+	 * @return the numbers in order
+	 */
+	private static List<Integer> range(int count) {
+		List<Integer> range = new ArrayList<Integer>();
+
+		for (int i = 0; i < count; i++) {
+			range.add(i);
+		}
+
+		return range;
+	}
+
+	/**
+	 * Check that the number of pending subtasks is bounded by the parallelism
+	 * of the task graph
+	 */
+	@Test
+	public void testWindow() {
+		assertEquals(1, new OrderedSubtasks<Integer>(0).getWindow());
+		assertEquals(1, new OrderedSubtasks<Integer>(8).getWindow());
+
+		final List<Integer> windows = Collections.synchronizedList(new ArrayList<Integer>());
+
+		assertTrue(runInGraph(3, new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() {
+				windows.add(new OrderedSubtasks<Integer>(0).getWindow());
+				windows.add(new OrderedSubtasks<Integer>(8).getWindow());
+				windows.add(new OrderedSubtasks<Integer>(2).getWindow());
+				return true;
+			}
+		}));
+
+		assertEquals(Arrays.asList(3, 3, 2), windows);
+	}
+
+	/**
+	 * Check that the results and the results log output of the subtasks are
+	 * in submission order while no more subtasks run at once than allowed
+	 */
+	@Test
+	public void testSubmissionOrder() {
+		final int count = 20;
+
+		final List<Integer> results = new ArrayList<Integer>();
+		final AtomicInteger maximumRunning = new AtomicInteger();
+
+		ListAppender<ILoggingEvent> appender = new ListAppender<ILoggingEvent>();
+		appender.start();
+
+		ch.qos.logback.classic.Logger target = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger("results.OrderedSubtasksTest");
+		target.addAppender(appender);
+
+		try {
+			assertTrue(runInGraph(4, new Callable<Boolean>() {
+
+				@Override
+				public Boolean call() throws ExecutionException {
+					results.addAll(runSubtasks(new OrderedSubtasks<Integer>(3), count, maximumRunning));
+					return true;
+				}
+			}));
+		} finally {
+			target.detachAppender(appender);
+		}
+
+		assertEquals(range(count), results);
+		assertTrue(maximumRunning.get() <= 3);
+
+		assertEquals(count, appender.list.size());
+
+		for (int i = 0; i < count; i++) {
+			assertEquals("subtask: " + i, appender.list.get(i).getFormattedMessage());
+		}
+	}
+
+	/**
+	 * Check that subtasks are run one at a time outside a task graph
+	 * 
+	 * @throws ExecutionException
+	 */
+	@Test
+	public void testOutsideGraph() throws ExecutionException {
+		AtomicInteger maximumRunning = new AtomicInteger();
+
+		assertEquals(range(5), runSubtasks(new OrderedSubtasks<Integer>(0), 5, maximumRunning));
+		assertEquals(1, maximumRunning.get());
+	}
+
+	/**
+	 * Check that an exception thrown by a subtask is the cause of the
+	 * exception thrown when its result is collected and does not affect the
+	 * other subtasks
+	 */
+	@Test
+	public void testSubtaskException() {
+		final List<Object> results = Collections.synchronizedList(new ArrayList<Object>());
+
+		assertTrue(runInGraph(2, new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() {
+				OrderedSubtasks<String> subtasks = new OrderedSubtasks<String>(0);
+
+				subtasks.submit(new Callable<String>() {
+
+					@Override
+					public String call() throws IOException {
+						throw new IOException("failed");
+					}
+				});
+				subtasks.submit(new Callable<String>() {
+
+					@Override
+					public String call() {
+						return "second";
+					}
+				});
+
+				while (subtasks.hasNext()) {
+					try {
+						results.add(subtasks.next());
+					} catch (ExecutionException e) {
+						results.add(e.getCause());
+					}
+				}
+
+				return true;
+			}
+		}));
+
+		assertEquals(2, results.size());
+		assertTrue(results.get(0) instanceof IOException);
+		assertEquals("second", results.get(1));
+	}
+
+	/**
+	 * Check that a subtask cannot be submitted while the maximum number are
+	 * pending
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void testSubmitWhenFull() {
+		OrderedSubtasks<Integer> subtasks = new OrderedSubtasks<Integer>(0);
+
+		subtasks.submit(indexTask(0, 1, new AtomicInteger(), new AtomicInteger()));
+		subtasks.submit(indexTask(0, 1, new AtomicInteger(), new AtomicInteger()));
+	}
+}
@@ -32,7 +32,10 @@ import org.junit.runners.Suite;
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
+	CommitRepositoryTest.class,
+	OrderedSubtasksTest.class,
 	VVoteVerifierTest.class,
+	VerificationTaskGraphTest.class,
 	com.vvote.verifier.commits.TestAll.class,
 })
 public class TestAll {
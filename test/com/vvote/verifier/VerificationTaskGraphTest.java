@@ -0,0 +1,251 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vvote.verifierlibrary.utils.logging.ResultsLogger;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+/**
+ * The class <code>VerificationTaskGraphTest</code> contains tests for the
+ * class <code>{@link VerificationTaskGraph}</code>.
+ */
+public class VerificationTaskGraphTest {
+
+	/**
+	 * Results logger written to by the tasks
+	 */
+	private static final Logger resultsLogger = ResultsLogger.getLogger(VerificationTaskGraphTest.class);
+
+	/**
+	 * Creates a task which records its name when it is run
+	 * 
+	 * @param name
+	 * @param order
+	 * @param result
+	 * @return the task
+	 */
+	private static Callable<Boolean> recordingTask(final String name, final List<String> order, final boolean result) {
+		return new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() {
+				order.add(name);
+				return result;
+			}
+		};
+	}
+
+	/**
+	 * Check that a task is only run once the tasks it depends on have finished
+	 */
+	@Test
+	public void testDependencyOrder() {
+		List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+		VerificationTaskGraph graph = new VerificationTaskGraph(4);
+		graph.addTask("data", recordingTask("data", order, true));
+		graph.addTask("check 1", recordingTask("check 1", order, true), "data");
+		graph.addTask("check 2", recordingTask("check 2", order, true), "data");
+		graph.addTask("result", recordingTask("result", order, true), "check 1", "check 2");
+
+		assertTrue(graph.run());
+		assertEquals(4, order.size());
+		assertEquals("data", order.get(0));
+		assertEquals("result", order.get(3));
+	}
+
+	/**
+	 * Check that independent tasks are run at the same time
+	 */
+	@Test
+	public void testIndependentTasksRunConcurrently() {
+		final CountDownLatch bothStarted = new CountDownLatch(2);
+
+		Callable<Boolean> waitForOther = new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() throws InterruptedException {
+				bothStarted.countDown();
+				return bothStarted.await(10, TimeUnit.SECONDS);
+			}
+		};
+
+		VerificationTaskGraph graph = new VerificationTaskGraph(2);
+		graph.addTask("first", waitForOther);
+		graph.addTask("second", waitForOther);
+
+		assertTrue(graph.run());
+	}
+
+	/**
+	 * Check that a failed task skips the tasks which require it but not those
+	 * which are only ordered after it
+	 */
+	@Test
+	public void testFailedDependency() {
+		List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+		VerificationTaskGraph graph = new VerificationTaskGraph(1);
+		graph.addTask("data", recordingTask("data", order, false));
+		graph.addTask("check", recordingTask("check", order, true), "data");
+		graph.addTaskAfter("release", recordingTask("release", order, true), "check");
+
+		assertFalse(graph.run());
+		assertEquals(2, order.size());
+		assertFalse(order.contains("check"));
+		assertFalse(graph.isSuccessful("check"));
+		assertTrue(graph.isSuccessful("release"));
+	}
+
+	/**
+	 * Check that a task throwing an exception is counted as failed
+	 */
+	@Test
+	public void testTaskException() {
+		VerificationTaskGraph graph = new VerificationTaskGraph(1);
+		graph.addTask("failing", new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() throws Exception {
+				throw new Exception("failed");
+			}
+		});
+
+		assertFalse(graph.run());
+		assertFalse(graph.isSuccessful("failing"));
+	}
+
+	/**
+	 * Check that a task throwing an error is counted as failed and the tasks
+	 * which require it are skipped
+	 */
+	@Test
+	public void testTaskError() {
+		List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+		VerificationTaskGraph graph = new VerificationTaskGraph(1);
+		graph.addTask("failing", new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() {
+				throw new UnsatisfiedLinkError("no library in java.library.path");
+			}
+		});
+		graph.addTask("check", recordingTask("check", order, true), "failing");
+		graph.addTaskAfter("release", recordingTask("release", order, true), "check");
+
+		assertFalse(graph.run());
+		assertFalse(graph.isSuccessful("failing"));
+		assertFalse(graph.isSuccessful("check"));
+		assertTrue(graph.isSuccessful("release"));
+		assertEquals(Collections.singletonList("release"), order);
+	}
+
+	/**
+	 * Check that the results log output of the tasks is written in the order
+	 * the tasks were added, even when a later task finishes first
+	 */
+	@Test
+	public void testResultsInAddOrder() {
+		final CountDownLatch secondFinished = new CountDownLatch(1);
+
+		ListAppender<ILoggingEvent> appender = new ListAppender<ILoggingEvent>();
+		appender.start();
+
+		ch.qos.logback.classic.Logger target = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger("results.VerificationTaskGraphTest");
+		target.addAppender(appender);
+
+		try {
+			VerificationTaskGraph graph = new VerificationTaskGraph(2);
+			graph.addTask("first", new Callable<Boolean>() {
+
+				@Override
+				public Boolean call() throws InterruptedException {
+					resultsLogger.info("first: started");
+					boolean finished = secondFinished.await(10, TimeUnit.SECONDS);
+					resultsLogger.info("first: finished");
+					return finished;
+				}
+			});
+			graph.addTask("second", new Callable<Boolean>() {
+
+				@Override
+				public Boolean call() {
+					resultsLogger.info("second");
+					return true;
+				}
+			});
+			graph.addTaskAfter("signal", new Callable<Boolean>() {
+
+				@Override
+				public Boolean call() {
+					secondFinished.countDown();
+					return true;
+				}
+			}, "second");
+
+			assertTrue(graph.run());
+		} finally {
+			target.detachAppender(appender);
+		}
+
+		List<String> messages = new ArrayList<String>();
+
+		for (ILoggingEvent event : appender.list) {
+			messages.add(event.getFormattedMessage());
+		}
+
+		assertEquals(Arrays.asList("first: started", "first: finished", "second"), messages);
+	}
+
+	/**
+	 * Check that a task cannot depend on a task which has not been added
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownDependency() {
+		new VerificationTaskGraph(1).addTask("check", recordingTask("check", new ArrayList<String>(), true), "data");
+	}
+
+	/**
+	 * Check that two tasks cannot have the same name
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testDuplicateTask() {
+		VerificationTaskGraph graph = new VerificationTaskGraph(1);
+		graph.addTask("data", recordingTask("data", new ArrayList<String>(), true));
+		graph.addTask("data", recordingTask("data", new ArrayList<String>(), true));
+	}
+}
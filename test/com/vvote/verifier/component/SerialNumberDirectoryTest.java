@@ -0,0 +1,92 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifier.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.vvote.commits.CommitIdentifier;
+import com.vvote.commits.exceptions.CommitIdentifierException;
+
+/**
+ * The class <code>SerialNumberDirectoryTest</code> contains tests for the
+ * class <code>{@link SerialNumberDirectory}</code>.
+ */
+public class SerialNumberDirectoryTest {
+
+	/**
+	 * Check that the commitments recorded for a serial number can be looked
+	 * up and that unknown serial numbers have none
+	 * 
+	 * @throws CommitIdentifierException
+	 */
+	@Test
+	public void testGenerationAndAuditCommits() throws CommitIdentifierException {
+		SerialNumberDirectory directory = new SerialNumberDirectory();
+
+		CommitIdentifier generation = new CommitIdentifier("1404893040000", "TestDeviceOne");
+		CommitIdentifier audit = new CommitIdentifier("1404893100000", "TestDeviceOne");
+
+		directory.addGenerationCommit("TestDeviceOne:1", generation);
+		directory.addGenerationCommit("TestDeviceOne:2", generation);
+		directory.addAuditCommit("TestDeviceOne:2", audit);
+
+		assertEquals(2, directory.size());
+
+		assertEquals(1, directory.getGenerationCommits("TestDeviceOne:1").size());
+		assertEquals(generation, directory.getGenerationCommits("TestDeviceOne:1").get(0));
+		assertFalse(directory.isAudited("TestDeviceOne:1"));
+
+		assertTrue(directory.isAudited("TestDeviceOne:2"));
+		assertEquals(audit, directory.getAuditCommits("TestDeviceOne:2").get(0));
+
+		assertNull(directory.get("TestDeviceOne:3"));
+		assertTrue(directory.getGenerationCommits("TestDeviceOne:3").isEmpty());
+		assertTrue(directory.getAuditCommits("TestDeviceOne:3").isEmpty());
+		assertTrue(directory.getMixCommits("TestDeviceOne:3").isEmpty());
+	}
+
+	/**
+	 * Check that a second record of the same kind for a serial number is
+	 * reported and that each commitment is only recorded once
+	 * 
+	 * @throws CommitIdentifierException
+	 */
+	@Test
+	public void testDuplicateRecords() throws CommitIdentifierException {
+		SerialNumberDirectory directory = new SerialNumberDirectory();
+
+		CommitIdentifier boothOne = new CommitIdentifier("1404893040000", "TestBoothOne");
+		CommitIdentifier boothTwo = new CommitIdentifier("1404893040000", "TestBoothTwo");
+
+		assertFalse(directory.addVoteRecord("TestDeviceOne:1", boothOne));
+		assertFalse(directory.addPODRecord("TestDeviceOne:1", boothOne));
+		assertFalse(directory.addCancelRecord("TestDeviceOne:1", boothOne));
+
+		assertTrue(directory.addVoteRecord("TestDeviceOne:1", boothOne));
+		assertTrue(directory.addVoteRecord("TestDeviceOne:1", boothTwo));
+
+		assertEquals(2, directory.get("TestDeviceOne:1").getVoteCommits().size());
+		assertEquals(1, directory.get("TestDeviceOne:1").getPODCommits().size());
+		assertEquals(1, directory.get("TestDeviceOne:1").getCancelCommits().size());
+	}
+}
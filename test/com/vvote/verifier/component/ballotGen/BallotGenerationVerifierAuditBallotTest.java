@@ -0,0 +1,186 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifier.component.ballotGen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.vvote.verifierlibrary.exceptions.CommitException;
+
+/**
+ * The class <code>BallotGenerationVerifierAuditBallotTest</code> contains
+ * tests for the order in which the checks for a single audited ballot are run
+ * by <code>{@link BallotGenerationVerifier}</code>.
+ */
+public class BallotGenerationVerifierAuditBallotTest {
+
+	/**
+	 * Checks for a ballot which record the checks run and pass unless told
+	 * otherwise
+	 */
+	private static final class RecordingChecks implements BallotGenerationVerifier.AuditBallotChecks {
+
+		/**
+		 * The combined randomness values returned
+		 */
+		private final List<MessageDigest> combined = new ArrayList<MessageDigest>();
+
+		/**
+		 * The names of the checks run, in order
+		 */
+		private final List<String> run = new ArrayList<String>();
+
+		/**
+		 * The name of the check which fails or null for none
+		 */
+		private final String failing;
+
+		/**
+		 * Constructor for <code>RecordingChecks</code>
+		 * 
+		 * @param failing
+		 *            the name of the check which fails or null for none
+		 */
+		private RecordingChecks(String failing) {
+			this.failing = failing;
+		}
+
+		/**
+		 * Records a check being run
+		 * 
+		 * @param name
+		 * @return true if the check passes
+		 */
+		private boolean check(String name) {
+			this.run.add(name);
+			return !name.equals(this.failing);
+		}
+
+		@Override
+		public boolean verifyNumberOfRandomnessValues() {
+			return this.check("number");
+		}
+
+		@Override
+		public boolean verifyRandomness() throws CommitException {
+			if ("randomnessError".equals(this.failing)) {
+				throw new CommitException("Unable to read the randomness commitments");
+			}
+			return this.check("randomness");
+		}
+
+		@Override
+		public List<MessageDigest> combineRandomness() {
+			return this.check("combine") ? this.combined : null;
+		}
+
+		@Override
+		public boolean verifyEncryptions(List<MessageDigest> combinedRandomness) throws CommitException {
+			assertSame(this.combined, combinedRandomness);
+			return this.check("encryptions");
+		}
+	}
+
+	/**
+	 * Test that every check is run for a ballot which passes
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testVerified() throws Exception {
+		RecordingChecks checks = new RecordingChecks(null);
+
+		assertTrue(BallotGenerationVerifier.verifyAuditBallot(checks));
+		assertEquals(Arrays.asList("number", "randomness", "combine", "encryptions"), checks.run);
+	}
+
+	/**
+	 * Test that no other check is run when the number of randomness values is
+	 * wrong
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testNumberOfRandomnessValuesFails() throws Exception {
+		RecordingChecks checks = new RecordingChecks("number");
+
+		assertFalse(BallotGenerationVerifier.verifyAuditBallot(checks));
+		assertEquals(Collections.singletonList("number"), checks.run);
+	}
+
+	/**
+	 * Test that the encryptions are still checked when the opening of the
+	 * randomness commitments fails
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testRandomnessFails() throws Exception {
+		RecordingChecks checks = new RecordingChecks("randomness");
+
+		assertFalse(BallotGenerationVerifier.verifyAuditBallot(checks));
+		assertEquals(Arrays.asList("number", "randomness", "combine", "encryptions"), checks.run);
+	}
+
+	/**
+	 * Test that the encryptions are not checked when the randomness values
+	 * cannot be combined
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testCombineRandomnessFails() throws Exception {
+		RecordingChecks checks = new RecordingChecks("combine");
+
+		assertFalse(BallotGenerationVerifier.verifyAuditBallot(checks));
+		assertEquals(Arrays.asList("number", "randomness", "combine"), checks.run);
+	}
+
+	/**
+	 * Test that a failure of the re-encryptions fails the ballot
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testEncryptionsFail() throws Exception {
+		RecordingChecks checks = new RecordingChecks("encryptions");
+
+		assertFalse(BallotGenerationVerifier.verifyAuditBallot(checks));
+		assertEquals(Arrays.asList("number", "randomness", "combine", "encryptions"), checks.run);
+	}
+
+	/**
+	 * Test that an error reading the commitments is passed on
+	 * 
+	 * @throws Exception
+	 */
+	@Test(expected = CommitException.class)
+	public void testRandomnessError() throws Exception {
+		BallotGenerationVerifier.verifyAuditBallot(new RecordingChecks("randomnessError"));
+	}
+}
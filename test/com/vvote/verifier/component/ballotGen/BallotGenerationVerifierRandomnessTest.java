@@ -0,0 +1,121 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifier.component.ballotGen;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.BitSet;
+
+import org.junit.Test;
+
+import com.vvote.verifierlibrary.utils.crypto.DigestHashCommitmentVerifier;
+import com.vvote.verifierlibrary.utils.crypto.HashCommitmentBatch;
+import com.vvote.verifierlibrary.utils.crypto.HashCommitmentBatchTest;
+
+/**
+ * The class <code>BallotGenerationVerifierRandomnessTest</code> contains
+ * tests for the checking of the randomness hash commitments of a ballot in
+ * <code>{@link BallotGenerationVerifier}</code>. The commitments for every
+ * mix server are checked as a single batch for the ballot and each mix
+ * server's range of the batch is then checked for a failure.
+ */
+public class BallotGenerationVerifierRandomnessTest {
+
+	/**
+	 * The number of commitments from the first mix server in the batch, the
+	 * rest are from the second
+	 */
+	private static final int FIRST_SERVER_COUNT = 2;
+
+	/**
+	 * Checks the known commitments as a batch for a ballot holding the
+	 * commitments of two mix servers
+	 * 
+	 * @param failing
+	 *            the index of the commitment which fails or -1 for none
+	 * @return the indexes of the commitments which verified
+	 * @throws Exception
+	 */
+	private static BitSet verifyBallot(int failing) throws Exception {
+		HashCommitmentBatch batch = HashCommitmentBatchTest.createKnownBatch(failing);
+
+		return new DigestHashCommitmentVerifier().verify(batch);
+	}
+
+	/**
+	 * Check that no failure is found when every commitment verifies
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testAllVerified() throws Exception {
+		BitSet verified = verifyBallot(-1);
+
+		int secondServerCount = HashCommitmentBatchTest.KNOWN_COMMITMENTS.length - FIRST_SERVER_COUNT;
+
+		assertEquals(-1, BallotGenerationVerifier.firstFailure(verified, 0, FIRST_SERVER_COUNT));
+		assertEquals(-1, BallotGenerationVerifier.firstFailure(verified, FIRST_SERVER_COUNT, secondServerCount));
+	}
+
+	/**
+	 * Check that a failing commitment in the middle of a mix server's range
+	 * is found, relative to the start of the range, and is not counted as
+	 * verified
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testFailureInMiddleOfServer() throws Exception {
+		BitSet verified = verifyBallot(FIRST_SERVER_COUNT + 1);
+
+		int secondServerCount = HashCommitmentBatchTest.KNOWN_COMMITMENTS.length - FIRST_SERVER_COUNT;
+
+		assertEquals(-1, BallotGenerationVerifier.firstFailure(verified, 0, FIRST_SERVER_COUNT));
+		assertEquals(1, BallotGenerationVerifier.firstFailure(verified, FIRST_SERVER_COUNT, secondServerCount));
+	}
+
+	/**
+	 * Check that a failure at the end of one mix server's range is found for
+	 * that server only
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testFailureAtEndOfServer() throws Exception {
+		BitSet verified = verifyBallot(FIRST_SERVER_COUNT - 1);
+
+		int secondServerCount = HashCommitmentBatchTest.KNOWN_COMMITMENTS.length - FIRST_SERVER_COUNT;
+
+		assertEquals(FIRST_SERVER_COUNT - 1, BallotGenerationVerifier.firstFailure(verified, 0, FIRST_SERVER_COUNT));
+		assertEquals(-1, BallotGenerationVerifier.firstFailure(verified, FIRST_SERVER_COUNT, secondServerCount));
+	}
+
+	/**
+	 * Check that a failure in the last commitment of the batch is found
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testFailureAtEndOfBatch() throws Exception {
+		int last = HashCommitmentBatchTest.KNOWN_COMMITMENTS.length - 1;
+
+		BitSet verified = verifyBallot(last);
+
+		assertEquals(last - FIRST_SERVER_COUNT, BallotGenerationVerifier.firstFailure(verified, FIRST_SERVER_COUNT, last + 1 - FIRST_SERVER_COUNT));
+	}
+}
@@ -17,6 +17,7 @@
  */
 package com.vvote.verifier.component.ballotGen;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
 import org.junit.After;
@@ -25,6 +26,7 @@ import org.junit.Test;
 
 import com.vvote.thirdparty.json.orgjson.JSONObject;
 import com.vvote.verifier.exceptions.SpecException;
+import com.vvote.verifierlibrary.utils.crypto.CommitmentVerificationPolicy;
 import com.vvote.verifierlibrary.utils.io.IOUtils;
 
 /**
@@ -38,6 +40,11 @@ public class BallotGenerationVerifierSpecTest {
 	 */
 	private final static String specFile = "./testdata/ballotGeneration/spec_files/ballotGenSpec.json";
 
+	/**
+	 * The spec file shipped with the verifier
+	 */
+	private final static String shippedSpecFile = "./spec_files/ballotGenSpec.json";
+
 	/**
 	 * The <code>BallotGenerationConfig</code> used throughout the testing
 	 */
@@ -227,4 +234,61 @@ public class BallotGenerationVerifierSpecTest {
 		String result = spec.getSchemaLocation();
 		assertNotNull(result);
 	}
+
+	/**
+	 * Run the CommitmentVerificationPolicy getCommitmentVerificationPolicy()
+	 * method test. The shipped spec cross-checks a sample of the hash
+	 * commitments
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetCommitmentVerificationPolicy_1() throws Exception {
+		BallotGenerationVerifierSpec shippedSpec = new BallotGenerationVerifierSpec(IOUtils.readStringFromFile(shippedSpecFile));
+
+		CommitmentVerificationPolicy policy = shippedSpec.getCommitmentVerificationPolicy();
+
+		assertEquals(CommitmentVerificationPolicy.CrossCheck.SAMPLE, policy.getCrossCheck());
+		assertEquals(10, policy.getSamplePercentage());
+	}
+
+	/**
+	 * Run the int getAuditParallelism() method test. As many audited ballots
+	 * are verified at once as the thread budget allows when the parallelism
+	 * is not specified
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetAuditParallelism_1() throws Exception {
+		assertEquals(0, spec.getAuditParallelism());
+	}
+
+	/**
+	 * Run the int getAuditParallelism() method test.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetAuditParallelism_2() throws Exception {
+		JSONObject jsonspec = new JSONObject(IOUtils.readStringFromFile(specFile));
+		jsonspec.put("auditParallelism", 8);
+
+		BallotGenerationVerifierSpec parallelSpec = new BallotGenerationVerifierSpec(jsonspec);
+
+		assertEquals(8, parallelSpec.getAuditParallelism());
+	}
+
+	/**
+	 * Run the int getAuditParallelism() method test. The shipped spec verifies
+	 * as many audited ballots at once as the thread budget allows
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetAuditParallelism_3() throws Exception {
+		BallotGenerationVerifierSpec shippedSpec = new BallotGenerationVerifierSpec(IOUtils.readStringFromFile(shippedSpecFile));
+
+		assertEquals(0, shippedSpec.getAuditParallelism());
+	}
 }
\ No newline at end of file
@@ -17,6 +17,7 @@
  */
 package com.vvote.verifier.component.ballotGen;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -25,12 +26,15 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.slf4j.LoggerFactory;
 
 import com.vvote.thirdparty.json.orgjson.JSONObject;
+import com.vvote.verifier.VerificationTaskGraph;
 import com.vvote.verifier.exceptions.ComponentDataStoreException;
 import com.vvote.verifier.exceptions.ComponentSpecException;
 import com.vvote.verifier.exceptions.ComponentVerifierException;
@@ -39,6 +43,10 @@ import com.vvote.verifier.exceptions.SpecException;
 import com.vvote.verifier.exceptions.VerifierException;
 import com.vvote.verifierlibrary.exceptions.CommitException;
 import com.vvote.verifierlibrary.utils.io.IOUtils;
+import com.vvote.verifierlibrary.utils.logging.ResultsLogger;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
 
 /**
  * Test class for <code>BallotGenerationVerifier</code>
@@ -267,6 +275,70 @@ public class BallotGenerationVerifierTest {
 		assertTrue(bgv.doVerification());
 	}
 
+	/**
+	 * Runs the verification tasks of a new ballot generation verifier on a
+	 * task graph, collecting the results log output
+	 * 
+	 * @param auditParallelism
+	 * @param threads
+	 * @return the results log messages in the order they were written
+	 * @throws Exception
+	 */
+	private static List<String> runVerificationTasks(int auditParallelism, int threads) throws Exception {
+		JSONObject jsonspec = new JSONObject(IOUtils.readStringFromFile(specFile));
+		jsonspec.put("auditParallelism", auditParallelism);
+
+		BallotGenerationVerifierSpec spec = new BallotGenerationVerifierSpec(jsonspec);
+
+		final BallotGenDataStore dataStore = new BallotGenDataStore(spec, basePath, false);
+
+		BallotGenerationVerifier verifier = new BallotGenerationVerifier(dataStore, spec);
+
+		VerificationTaskGraph graph = new VerificationTaskGraph(threads);
+		graph.addTask("data", new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() {
+				return dataStore.readData();
+			}
+		});
+		verifier.addVerificationTasks(graph, "Ballot Generation", "data");
+
+		ListAppender<ILoggingEvent> appender = new ListAppender<ILoggingEvent>();
+		appender.start();
+
+		ch.qos.logback.classic.Logger target = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(ResultsLogger.RESULTS_LOGGER);
+		target.addAppender(appender);
+
+		try {
+			assertTrue(graph.run());
+		} finally {
+			target.detachAppender(appender);
+		}
+
+		List<String> messages = new ArrayList<String>();
+
+		for (ILoggingEvent event : appender.list) {
+			messages.add(event.getLoggerName() + " - " + event.getFormattedMessage());
+		}
+
+		return messages;
+	}
+
+	/**
+	 * Verify that verifying the audited ballots in parallel on a task graph
+	 * gives the same results log as verifying them one after another
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testParallelVerification() throws Exception {
+		List<String> sequential = runVerificationTasks(1, 1);
+		List<String> parallel = runVerificationTasks(0, 4);
+
+		assertEquals(sequential, parallel);
+	}
+
 	/**
 	 * Verify that the verifications can be carried out successfully for a
 	 * specific serial number
@@ -32,6 +32,8 @@ import org.junit.runners.Suite;
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
+	BallotGenerationVerifierAuditBallotTest.class,
+	BallotGenerationVerifierRandomnessTest.class,
 	BallotGenerationVerifierSpecTest.class,
 	BallotGenerationVerifierTest.class,
 	BallotGenerationConfigTest.class
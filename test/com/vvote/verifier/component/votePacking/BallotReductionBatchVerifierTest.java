@@ -0,0 +1,235 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifier.component.votePacking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vvote.ec.ElGamalECPoint;
+import com.vvote.verifierlibrary.utils.crypto.CurveContext;
+import com.vvote.verifierlibrary.utils.crypto.ElGamalFixedBaseEncrypter;
+
+/**
+ * The class <code>BallotReductionBatchVerifierTest</code> contains tests for
+ * the class <code>{@link BallotReductionBatchVerifier}</code>.
+ */
+public class BallotReductionBatchVerifierTest {
+
+	/**
+	 * The curve used throughout the tests
+	 */
+	private static final CurveContext curveContext = CurveContext.forElectionCurve();
+
+	/**
+	 * The number of base encrypted candidate ids
+	 */
+	private static final int CANDIDATES = 5;
+
+	/**
+	 * The number of ballots in each batch
+	 */
+	private static final int BALLOTS = 9;
+
+	/**
+	 * The number of reductions for each ballot
+	 */
+	private static final int REDUCTIONS = 3;
+
+	/**
+	 * Source of the test randomness, seeded so failures can be reproduced
+	 */
+	private final Random random = new Random(1234);
+
+	/**
+	 * Encrypter for the election public key
+	 */
+	private ElGamalFixedBaseEncrypter encrypter = null;
+
+	/**
+	 * The base encrypted candidate ids
+	 */
+	private List<ElGamalECPoint> baseEncryptedIds = null;
+
+	/**
+	 * The batch verifier used throughout the tests
+	 */
+	private BallotReductionBatchVerifier batchVerifier = null;
+
+	/**
+	 * Perform pre-test initialization.
+	 * 
+	 * @throws Exception
+	 *             if the initialization fails for some reason
+	 */
+	@Before
+	public void setUp() throws Exception {
+		ECPoint publicKey = curveContext.getG().multiply(this.randomness());
+
+		this.encrypter = curveContext.getEncrypter(publicKey);
+
+		this.baseEncryptedIds = new ArrayList<ElGamalECPoint>();
+
+		for (int i = 0; i < CANDIDATES; i++) {
+			this.baseEncryptedIds.add(this.encrypter.encrypt(curveContext.getG().multiply(BigInteger.valueOf(i + 1)), this.randomness()));
+		}
+
+		this.batchVerifier = new BallotReductionBatchVerifier(curveContext, this.baseEncryptedIds, publicKey);
+	}
+
+	/**
+	 * Gets a random value less than the order of the curve
+	 * 
+	 * @return the random value
+	 */
+	private BigInteger randomness() {
+		return new BigInteger(curveContext.getOrder().bitLength() - 1, this.random);
+	}
+
+	/**
+	 * Gets the serial number of a ballot
+	 * 
+	 * @param ballot
+	 * @return the serial number
+	 */
+	private static String serialNo(int ballot) {
+		return "TestDeviceOne:" + ballot;
+	}
+
+	/**
+	 * Adds valid reductions for each ballot, except that the reduction chosen
+	 * for each of the invalid ballots claims the wrong randomness or
+	 * candidate
+	 * 
+	 * @param wrongRandomness
+	 *            ballots whose last reduction claims the wrong randomness
+	 * @param wrongCandidate
+	 *            ballots whose first reduction claims the wrong candidate
+	 */
+	private void addReductions(List<Integer> wrongRandomness, List<Integer> wrongCandidate) {
+		for (int ballot = 0; ballot < BALLOTS; ballot++) {
+			for (int reduction = 0; reduction < REDUCTIONS; reduction++) {
+				int candidateIndex = (ballot + reduction) % CANDIDATES;
+				BigInteger randomness = this.randomness();
+
+				ElGamalECPoint cipher = this.encrypter.reencrypt(this.baseEncryptedIds.get(candidateIndex), randomness);
+
+				if (reduction == REDUCTIONS - 1 && wrongRandomness.contains(ballot)) {
+					randomness = randomness.add(BigInteger.ONE);
+				}
+
+				if (reduction == 0 && wrongCandidate.contains(ballot)) {
+					candidateIndex = (candidateIndex + 1) % CANDIDATES;
+				}
+
+				this.batchVerifier.addReduction(serialNo(ballot), cipher, candidateIndex, randomness);
+			}
+		}
+	}
+
+	/**
+	 * Test that a batch of valid reductions passes the combined check
+	 */
+	@Test
+	public void testVerifyValid() {
+		this.addReductions(Collections.<Integer> emptyList(), Collections.<Integer> emptyList());
+
+		assertTrue(this.batchVerifier.verify().isEmpty());
+	}
+
+	/**
+	 * Test that a single reduction with the wrong randomness fails the
+	 * combined check and is found by bisecting the batch
+	 */
+	@Test
+	public void testVerifyWrongRandomness() {
+		this.addReductions(Arrays.asList(6), Collections.<Integer> emptyList());
+
+		assertEquals(new TreeSet<String>(Arrays.asList(serialNo(6))), this.batchVerifier.verify());
+	}
+
+	/**
+	 * Test that a single reduction claiming the wrong candidate fails the
+	 * combined check and is found by bisecting the batch
+	 */
+	@Test
+	public void testVerifyWrongCandidate() {
+		this.addReductions(Collections.<Integer> emptyList(), Arrays.asList(0));
+
+		assertEquals(new TreeSet<String>(Arrays.asList(serialNo(0))), this.batchVerifier.verify());
+	}
+
+	/**
+	 * Test that every invalid ballot is found when the failures lie in both
+	 * halves of the batch
+	 */
+	@Test
+	public void testVerifyMultipleInvalid() {
+		this.addReductions(Arrays.asList(1, 8), Arrays.asList(4));
+
+		assertEquals(new TreeSet<String>(Arrays.asList(serialNo(1), serialNo(4), serialNo(8))), this.batchVerifier.verify());
+	}
+
+	/**
+	 * Test that verifying clears the pending reductions
+	 */
+	@Test
+	public void testVerifyClearsPending() {
+		this.addReductions(Arrays.asList(3), Collections.<Integer> emptyList());
+
+		assertFalse(this.batchVerifier.verify().isEmpty());
+		assertTrue(this.batchVerifier.verify().isEmpty());
+
+		this.addReductions(Collections.<Integer> emptyList(), Collections.<Integer> emptyList());
+
+		assertTrue(this.batchVerifier.verify().isEmpty());
+	}
+
+	/**
+	 * Test that the batch is full once enough reductions are pending
+	 */
+	@Test
+	public void testIsFull() {
+		ElGamalECPoint cipher = this.encrypter.reencrypt(this.baseEncryptedIds.get(0), BigInteger.ONE);
+
+		int added = 0;
+
+		while (!this.batchVerifier.isFull()) {
+			this.batchVerifier.addReduction(serialNo(added), cipher, 0, BigInteger.ONE);
+			added++;
+		}
+
+		assertEquals(16384, added);
+
+		this.batchVerifier.verify();
+
+		assertFalse(this.batchVerifier.isFull());
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifier.component.votePacking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.vvote.ec.ElGamalECPoint;
+import com.vvote.verifierlibrary.utils.crypto.CurveContext;
+
+/**
+ * The class <code>CipherPackerTest</code> contains tests for the class
+ * <code>{@link CipherPacker}</code>.
+ */
+public class CipherPackerTest {
+
+	/**
+	 * The curve used throughout the tests
+	 */
+	private static final CurveContext curveContext = CurveContext.forElectionCurve();
+
+	/**
+	 * Creates a list of random ciphers
+	 * 
+	 * @param count
+	 * @return a list of random ciphers
+	 */
+	private static List<ElGamalECPoint> randomCiphers(int count) {
+		Random random = new Random(7);
+		List<ElGamalECPoint> ciphers = new ArrayList<ElGamalECPoint>();
+
+		for (int i = 0; i < count; i++) {
+			ciphers.add(new ElGamalECPoint(curveContext.getG().multiply(new BigInteger(64, random)), curveContext.getG().multiply(new BigInteger(64, random))));
+		}
+
+		return ciphers;
+	}
+
+	/**
+	 * Run the pack method comparing against packing with scalar
+	 * multiplications and checking that the input ciphers are not modified
+	 */
+	@Test
+	public void testPack() {
+		List<ElGamalECPoint> ciphers = randomCiphers(11);
+
+		List<ElGamalECPoint> originals = new ArrayList<ElGamalECPoint>();
+		for (ElGamalECPoint cipher : ciphers) {
+			originals.add(new ElGamalECPoint(cipher.getMyr(), cipher.getGr()));
+		}
+
+		for (int packingSize = 1; packingSize <= 12; packingSize++) {
+			List<ElGamalECPoint> packed = CipherPacker.pack(ciphers, packingSize);
+
+			assertEquals((ciphers.size() + packingSize - 1) / packingSize, packed.size());
+
+			for (int block = 0; block < packed.size(); block++) {
+				ElGamalECPoint expected = null;
+
+				for (int k = 1; k <= packingSize && block * packingSize + k - 1 < ciphers.size(); k++) {
+					ElGamalECPoint cipher = ciphers.get(block * packingSize + k - 1);
+					ElGamalECPoint weighted = new ElGamalECPoint(cipher.getMyr().multiply(BigInteger.valueOf(k)), cipher.getGr().multiply(BigInteger.valueOf(k)));
+
+					if (expected == null) {
+						expected = weighted;
+					} else {
+						expected = expected.add(weighted);
+					}
+				}
+
+				assertEquals(expected, packed.get(block));
+			}
+		}
+
+		assertEquals(originals, ciphers);
+	}
+
+	/**
+	 * Run the pad method
+	 */
+	@Test
+	public void testPad() {
+		List<ElGamalECPoint> ciphers = randomCiphers(3);
+		ElGamalECPoint padding = randomCiphers(1).get(0);
+
+		assertSame(ciphers, CipherPacker.pad(ciphers, 3, padding));
+
+		List<ElGamalECPoint> padded = CipherPacker.pad(ciphers, 5, padding);
+
+		assertEquals(5, padded.size());
+		assertEquals(3, ciphers.size());
+		assertEquals(ciphers, padded.subList(0, 3));
+		assertSame(padding, padded.get(3));
+		assertSame(padding, padded.get(4));
+	}
+}
@@ -0,0 +1,110 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifier.component.votePacking;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.Test;
+
+import com.vvote.ec.ElGamalECPoint;
+import com.vvote.verifierlibrary.utils.crypto.CurveContext;
+
+/**
+ * The class <code>PackedRowIndexTest</code> contains tests for the class
+ * <code>{@link PackedRowIndex}</code>.
+ */
+public class PackedRowIndexTest {
+
+	/**
+	 * The curve used throughout the tests
+	 */
+	private static final CurveContext curveContext = CurveContext.forElectionCurve();
+
+	/**
+	 * Gets k * G
+	 * 
+	 * @param k
+	 * @return k * G in projective form
+	 */
+	private static ECPoint point(int k) {
+		return curveContext.getG().multiply(BigInteger.valueOf(k));
+	}
+
+	/**
+	 * Run the match method checking that every indexed row can only be
+	 * matched once and that rows are compared independently of their
+	 * coordinate representation.
+	 */
+	@Test
+	public void testMatchPointRows() {
+		List<List<ECPoint>> indexed = new ArrayList<List<ECPoint>>();
+		indexed.add(Arrays.asList(point(1), point(2)));
+		indexed.add(Arrays.asList(point(3), point(4)));
+		indexed.add(Arrays.asList(point(1), point(2)));
+		indexed.add(Arrays.asList(point(5)));
+
+		PackedRowIndex index = new PackedRowIndex(PackedRowIndex.keyPointRows(indexed));
+
+		assertEquals(4, index.size());
+
+		List<List<ECPoint>> rows = new ArrayList<List<ECPoint>>();
+		rows.add(Arrays.asList(point(1).normalize(), point(2).normalize()));
+		rows.add(Arrays.asList(point(1), point(2)));
+		rows.add(Arrays.asList(point(1), point(2)));
+		rows.add(Arrays.asList(point(4), point(3)));
+		rows.add(Arrays.asList(point(3), point(4)));
+
+		List<PackedRowIndex.RowKey> keys = PackedRowIndex.keyPointRows(rows);
+
+		assertEquals(PackedRowIndex.MatchResult.MATCHED, index.match(keys.get(0)));
+		assertEquals(PackedRowIndex.MatchResult.MATCHED, index.match(keys.get(1)));
+		assertEquals(PackedRowIndex.MatchResult.DUPLICATE, index.match(keys.get(2)));
+		assertEquals(PackedRowIndex.MatchResult.UNMATCHED, index.match(keys.get(3)));
+		assertEquals(PackedRowIndex.MatchResult.MATCHED, index.match(keys.get(4)));
+
+		assertEquals(Arrays.asList(3), index.getUnmatchedRows());
+	}
+
+	/**
+	 * Run the match method for rows of ciphers
+	 */
+	@Test
+	public void testMatchCipherRows() {
+		List<List<ElGamalECPoint>> indexed = new ArrayList<List<ElGamalECPoint>>();
+		indexed.add(Arrays.asList(new ElGamalECPoint(point(1), point(2)), new ElGamalECPoint(point(3), point(4))));
+		indexed.add(Arrays.asList(new ElGamalECPoint(point(2), point(1)), new ElGamalECPoint(point(3), point(4))));
+
+		PackedRowIndex index = new PackedRowIndex(PackedRowIndex.keyCipherRows(indexed));
+
+		List<List<ElGamalECPoint>> rows = new ArrayList<List<ElGamalECPoint>>();
+		rows.add(Arrays.asList(new ElGamalECPoint(point(2).normalize(), point(1).normalize()), new ElGamalECPoint(point(3), point(4))));
+		rows.add(Arrays.asList(new ElGamalECPoint(point(1), point(2))));
+
+		List<PackedRowIndex.RowKey> keys = PackedRowIndex.keyCipherRows(rows);
+
+		assertEquals(PackedRowIndex.MatchResult.MATCHED, index.match(keys.get(0)));
+		assertEquals(PackedRowIndex.MatchResult.UNMATCHED, index.match(keys.get(1)));
+		assertEquals(Arrays.asList(0), index.getUnmatchedRows());
+	}
+}
@@ -0,0 +1,122 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifier.component.votePacking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vvote.verifierlibrary.utils.crypto.CurveContext;
+
+/**
+ * The class <code>PlaintextPackerTest</code> contains tests for the classes
+ * <code>{@link PlaintextPacker}</code> and
+ * <code>{@link PlaintextMultiplesTable}</code>.
+ */
+public class PlaintextPackerTest {
+
+	/**
+	 * The curve used throughout the tests
+	 */
+	private static final CurveContext curveContext = CurveContext.forElectionCurve();
+
+	/**
+	 * The plaintext candidate ids
+	 */
+	private List<ECPoint> plaintextIds = null;
+
+	/**
+	 * Perform pre-test initialization.
+	 * 
+	 * @throws Exception
+	 *             if the initialization fails for some reason
+	 */
+	@Before
+	public void setUp() throws Exception {
+		this.plaintextIds = new ArrayList<ECPoint>();
+
+		for (int i = 0; i < 6; i++) {
+			this.plaintextIds.add(curveContext.getG().multiply(BigInteger.valueOf(1000 + 17 * i)));
+		}
+	}
+
+	/**
+	 * Packs the candidate ids using scalar multiplications
+	 * 
+	 * @param candidateIndexes
+	 * @param packingSize
+	 * @return the expected packing
+	 */
+	private List<ECPoint> expectedPacking(List<Integer> candidateIndexes, int packingSize) {
+		List<ECPoint> packed = new ArrayList<ECPoint>();
+		ECPoint current = null;
+
+		for (int i = 0; i < candidateIndexes.size(); i++) {
+			ECPoint weighted = this.plaintextIds.get(candidateIndexes.get(i)).multiply(BigInteger.valueOf(i % packingSize + 1));
+			current = (current == null) ? weighted : current.add(weighted);
+
+			if (i % packingSize == packingSize - 1) {
+				packed.add(current);
+				current = null;
+			}
+		}
+
+		if (current != null) {
+			packed.add(current);
+		}
+
+		return packed;
+	}
+
+	/**
+	 * Run the pack method for rows with shared and repeated prefixes
+	 */
+	@Test
+	public void testPack() {
+		List<List<Integer>> rows = new ArrayList<List<Integer>>();
+		rows.add(Arrays.asList(0, 1, 2, 3, 4, 5));
+		rows.add(Arrays.asList(0, 1, 2, 3, 4, 5));
+		rows.add(Arrays.asList(0, 1, 2, 5));
+		rows.add(Arrays.asList(0, 1));
+		rows.add(Arrays.asList(5, 4, 3, 2, 1, 0));
+		rows.add(new ArrayList<Integer>());
+
+		for (int packingSize = 1; packingSize <= 7; packingSize++) {
+			PlaintextPacker packer = new PlaintextPacker(new PlaintextMultiplesTable(this.plaintextIds, packingSize));
+
+			List<ECPoint> previous = null;
+
+			for (List<Integer> row : rows) {
+				List<ECPoint> packed = packer.pack(row);
+
+				assertEquals(this.expectedPacking(row, packingSize), packed);
+				assertNotSame(previous, packed);
+
+				previous = packed;
+			}
+		}
+	}
+}
@@ -32,6 +32,11 @@ import org.junit.runners.Suite;
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
+	BallotReductionBatchVerifierTest.class,
+	CipherPackerTest.class,
+	PackedRowIndexTest.class,
+	PlaintextPackerTest.class,
+	VotePackingDataStoreTest.class,
 	VotePackingVerifierTest.class,
 })
 public class TestAll {
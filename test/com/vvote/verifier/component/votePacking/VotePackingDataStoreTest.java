@@ -0,0 +1,283 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifier.component.votePacking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import com.vvote.commits.CommitFileMessage;
+import com.vvote.commits.FinalCommitment;
+import com.vvote.datafiles.PreferenceTable;
+import com.vvote.datafiles.commits.votes.VotingProcess;
+import com.vvote.messages.typed.vote.CancelMessage;
+import com.vvote.messages.typed.vote.PODMessage;
+import com.vvote.messages.typed.vote.RaceType;
+import com.vvote.messages.typed.vote.VoteMessage;
+import com.vvote.thirdparty.json.orgjson.JSONArray;
+import com.vvote.thirdparty.json.orgjson.JSONObject;
+import com.vvote.verifierlibrary.utils.io.IOUtils;
+import com.vvote.verifierlibrary.utils.serial.SerialNumber;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+/**
+ * The class <code>VotePackingDataStoreTest</code> contains tests for the
+ * class <code>{@link VotePackingDataStore}</code>.
+ */
+public class VotePackingDataStoreTest {
+
+	/**
+	 * The vote packing spec file
+	 */
+	private final static String specFile = "./spec_files/votePackingSpec.json";
+
+	/**
+	 * The commitment the messages are added from
+	 */
+	private final static String commitFile = "./testdata/commitments/votes/1403247600000.json";
+
+	/**
+	 * The data store used throughout the tests
+	 */
+	private VotePackingDataStore dataStore = null;
+
+	/**
+	 * The commitment the messages are added from
+	 */
+	private FinalCommitment commitment = null;
+
+	/**
+	 * Perform pre-test initialization.
+	 * 
+	 * @throws Exception
+	 *             if the initialization fails for some reason
+	 */
+	@Before
+	public void setUp() throws Exception {
+		VotePackingVerifierSpec spec = new VotePackingVerifierSpec(IOUtils.readStringFromFile(specFile));
+
+		this.dataStore = new VotePackingDataStore(spec, "./testdata", false);
+		this.commitment = new FinalCommitment(new CommitFileMessage(commitFile));
+	}
+
+	/**
+	 * Perform post-test clean-up.
+	 * 
+	 * @throws Exception
+	 *             if the clean-up fails for some reason
+	 */
+	@After
+	public void tearDown() throws Exception {
+		this.dataStore.release();
+		this.dataStore = null;
+	}
+
+	/**
+	 * Creates a pod message with no ballot reductions
+	 * 
+	 * @param serialNo
+	 * @param district
+	 * @return the pod message
+	 * @throws Exception
+	 */
+	private static PODMessage createPODMessage(String serialNo, String district) throws Exception {
+		JSONObject json = new JSONObject();
+		json.put("boothID", "TestDeviceOne");
+		json.put("serialNo", serialNo);
+		json.put("ballotReductions", new JSONArray("[[],[],[]]"));
+		json.put("commitTime", "1403247600000");
+		json.put("boothSig", "Maxvg0qPOAYrvs0PTbvo5P5Q+E4uijodlRNI5X56FDttsPvzB5sFng==");
+		json.put("district", district);
+		json.put("type", "pod");
+
+		return new PODMessage(json);
+	}
+
+	/**
+	 * Creates a vote message with LA preferences only
+	 * 
+	 * @param serialNo
+	 * @param district
+	 * @param la
+	 * @return the vote message
+	 * @throws Exception
+	 */
+	private static VoteMessage createVoteMessage(String serialNo, String district, String... la) throws Exception {
+		JSONArray races = new JSONArray();
+		races.put(new JSONObject().put("id", "LA").put("preferences", new JSONArray(Arrays.asList(la))));
+		races.put(new JSONObject().put("id", "LC_ATL").put("preferences", new JSONArray(Arrays.asList(" ", " "))));
+		races.put(new JSONObject().put("id", "LC_BTL").put("preferences", new JSONArray(Arrays.asList(" ", " ", " "))));
+
+		StringBuilder vPrefs = new StringBuilder();
+		for (int i = 0; i < la.length; i++) {
+			if (i > 0) {
+				vPrefs.append(",");
+			}
+			vPrefs.append(la[i]);
+		}
+		vPrefs.append(": , : , , :");
+
+		JSONObject json = new JSONObject();
+		json.put("boothID", "TestEVMOne");
+		json.put("serialNo", serialNo);
+		json.put("startEVMSig", "GQGToO6lBsFSODqgUPAHGd4rHbFYkU4UnDoTez7gOPzsG9qLQnKjqw==");
+		json.put("commitTime", "1403247600000");
+		json.put("boothSig", "G2NOtdW/mV/ys/hwlf8WkAa9dtFD0iNeGMNm0k1E1Ts8wfrmYJvm8g==");
+		json.put("races", races);
+		json.put("serialSig", "EKbUaNQPq4kapgveFklhPeRT754M6SQ6a4eoTTSv3xWVxgIArSNxGw==");
+		json.put("district", district);
+		json.put("type", "vote");
+		json.put("_vPrefs", vPrefs.toString());
+
+		return new VoteMessage(json);
+	}
+
+	/**
+	 * Creates a cancel message
+	 * 
+	 * @param serialNo
+	 * @param district
+	 * @return the cancel message
+	 * @throws Exception
+	 */
+	private static CancelMessage createCancelMessage(String serialNo, String district) throws Exception {
+		JSONObject json = new JSONObject();
+		json.put("boothID", "TestDeviceOne");
+		json.put("serialNo", serialNo);
+		json.put("commitTime", "1403247600000");
+		json.put("boothSig", "Maxvg0qPOAYrvs0PTbvo5P5Q+E4uijodlRNI5X56FDttsPvzB5sFng==");
+		json.put("cancelAuthSig", "EKbUaNQPq4kapgveFklhPeRT754M6SQ6a4eoTTSv3xWVxgIArSNxGw==");
+		json.put("cancelAuthID", "CancelAuthority");
+		json.put("serialSig", "EKbUaNQPq4kapgveFklhPeRT754M6SQ6a4eoTTSv3xWVxgIArSNxGw==");
+		json.put("district", district);
+		json.put("type", "cancel");
+
+		return new CancelMessage(json);
+	}
+
+	/**
+	 * Organises the vote messages capturing the messages written to the
+	 * results log
+	 * 
+	 * @param messages
+	 *            the results log messages
+	 * @return whether the organisation took place successfully
+	 */
+	private boolean organise(List<String> messages) {
+		ListAppender<ILoggingEvent> appender = new ListAppender<ILoggingEvent>();
+		appender.start();
+
+		ch.qos.logback.classic.Logger target = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger("results.VotePackingDataStore");
+		target.addAppender(appender);
+
+		try {
+			return this.dataStore.organiseVoteMessages();
+		} finally {
+			target.detachAppender(appender);
+
+			for (ILoggingEvent event : appender.list) {
+				messages.add(event.getFormattedMessage());
+			}
+		}
+	}
+
+	/**
+	 * Test that pod and vote messages are joined by serial number, skipping
+	 * cancelled ballots and ballots missing either message
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testOrganiseVoteMessages() throws Exception {
+		assertTrue(this.dataStore.addMessage(createPODMessage("TestDeviceOne:1", "Northcote"), this.commitment));
+		assertTrue(this.dataStore.addMessage(createPODMessage("TestDeviceOne:2", "Northcote"), this.commitment));
+		assertTrue(this.dataStore.addMessage(createPODMessage("TestDeviceOne:3", "Northcote"), this.commitment));
+
+		assertTrue(this.dataStore.addMessage(createVoteMessage("TestDeviceOne:1", "Northcote", "1", "2"), this.commitment));
+		assertTrue(this.dataStore.addMessage(createVoteMessage("TestDeviceOne:2", "Northcote", "2", "1"), this.commitment));
+		assertTrue(this.dataStore.addMessage(createVoteMessage("TestDeviceOne:4", "Northcote", "1", "2"), this.commitment));
+
+		assertTrue(this.dataStore.addMessage(createCancelMessage("TestDeviceOne:2", "Northcote"), this.commitment));
+
+		List<String> messages = new ArrayList<String>();
+
+		assertTrue(this.organise(messages));
+
+		assertEquals(1, this.dataStore.getVotingProcesses().size());
+
+		// matched
+		VotingProcess process = this.dataStore.getVotingProcesses().get("TestDeviceOne:1");
+		assertEquals("TestDeviceOne:1", process.getPodMessage().getSerialNo());
+		assertEquals(this.dataStore.getVotes().indexOf(SerialNumber.key("TestDeviceOne:1")), process.getVote());
+
+		// cancelled
+		assertFalse(this.dataStore.getVotingProcesses().containsKey("TestDeviceOne:2"));
+
+		// pod message only
+		assertFalse(this.dataStore.getVotingProcesses().containsKey("TestDeviceOne:3"));
+
+		// vote message only
+		assertFalse(this.dataStore.getVotingProcesses().containsKey("TestDeviceOne:4"));
+		assertEquals(Arrays.asList("No pod message was found for vote message: TestDeviceOne:4"), messages);
+	}
+
+	/**
+	 * Test that the last pod and vote messages added for a serial number are
+	 * the ones joined
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testOrganiseDuplicateMessages() throws Exception {
+		assertTrue(this.dataStore.addMessage(createPODMessage("TestDeviceOne:1", "Northcote"), this.commitment));
+		assertTrue(this.dataStore.addMessage(createVoteMessage("TestDeviceOne:1", "Northcote", "1", "2"), this.commitment));
+
+		assertTrue(this.dataStore.addMessage(createPODMessage("TestDeviceOne:1", "Broadmeadows"), this.commitment));
+		assertTrue(this.dataStore.addMessage(createVoteMessage("TestDeviceOne:1", "Broadmeadows", "2", "1"), this.commitment));
+
+		List<String> messages = new ArrayList<String>();
+
+		assertTrue(this.organise(messages));
+
+		assertTrue(messages.isEmpty());
+		assertEquals(1, this.dataStore.getVotes().size());
+		assertEquals(1, this.dataStore.getVotingProcesses().size());
+
+		VotingProcess process = this.dataStore.getVotingProcesses().get("TestDeviceOne:1");
+		assertEquals("Broadmeadows", process.getPodMessage().getDistrict());
+		assertEquals("Broadmeadows", this.dataStore.getVotes().getDistrict(process.getVote()));
+
+		PreferenceTable preferences = this.dataStore.getVotes().getPreferences();
+		int row = this.dataStore.getVotes().getPreferenceRow(process.getVote(), RaceType.LA);
+
+		assertEquals(2, preferences.length(row));
+		assertEquals(2, preferences.get(preferences.start(row)));
+		assertEquals(1, preferences.get(preferences.start(row) + 1));
+	}
+}
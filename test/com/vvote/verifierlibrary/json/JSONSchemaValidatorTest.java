@@ -0,0 +1,115 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.json;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vvote.JSONSchema;
+import com.vvote.thirdparty.json.orgjson.JSONObject;
+import com.vvote.verifierlibrary.utils.io.IOUtils;
+
+/**
+ * The class <code>JSONSchemaValidatorTest</code> contains tests for the class
+ * <code>{@link JSONSchemaValidator}</code>.
+ */
+public class JSONSchemaValidatorTest {
+
+	/**
+	 * Valid spec file
+	 */
+	private static final String specFile = "./spec_files/ballotGenSpec.json";
+
+	/**
+	 * A valid vote message
+	 */
+	private static final String vote = "{\"type\":\"vote\",\"serialNo\":\"TestDeviceOne:12\",\"district\":\"Broadmeadows\",\"boothID\":\"TestDeviceOne\",\"boothSig\":\"QUJD\",\"serialSig\":\"QUJD\","
+			+ "\"startEVMSig\":[{\"WBBID\":\"Peer1\",\"WBBSig\":\"QUJD\"}],\"races\":[{\"id\":\"LA\",\"preferences\":[\"1\",\" \"]},{\"id\":\"LC_ATL\",\"preferences\":[]},{\"id\":\"LC_BTL\",\"preferences\":[\"12\"]}]}";
+
+	/**
+	 * The vote schema validator
+	 */
+	private JSONSchemaValidator voteValidator = null;
+
+	/**
+	 * Perform pre-test initialization.
+	 * 
+	 * @throws Exception
+	 *             if the initialization fails for some reason
+	 */
+	@Before
+	public void setUp() throws Exception {
+		this.voteValidator = JSONSchemaStore.getValidator(JSONSchema.VOTE_SCHEMA);
+		assertNotNull(this.voteValidator);
+	}
+
+	/**
+	 * Validates a valid vote message
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testValidVote() throws Exception {
+		assertTrue(this.voteValidator.validate(new JSONObject(vote)));
+	}
+
+	/**
+	 * A missing required property, a bad pattern, a wrong enum value and a
+	 * wrong type in an array item must all fail
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testInvalidVotes() throws Exception {
+		JSONObject json = new JSONObject(vote);
+		json.remove("district");
+		assertFalse(this.voteValidator.validate(json));
+
+		json = new JSONObject(vote);
+		json.put("serialNo", "TestDeviceOne-12");
+		assertFalse(this.voteValidator.validate(json));
+
+		json = new JSONObject(vote);
+		json.put("type", "pod");
+		assertFalse(this.voteValidator.validate(json));
+
+		json = new JSONObject(vote);
+		json.getJSONArray("races").getJSONObject(0).getJSONArray("preferences").put(1);
+		assertFalse(this.voteValidator.validate(json));
+	}
+
+	/**
+	 * Additional properties must fail where the schema doesn't allow them
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testSpecAdditionalProperties() throws Exception {
+		JSONSchemaValidator validator = JSONSchemaStore.getValidator(JSONSchema.BALLOT_GEN_SCHEMA);
+
+		JSONObject spec = new JSONObject(IOUtils.readStringFromFile(specFile));
+		assertTrue(validator.validate(spec));
+
+		spec.put("unknownField", "value");
+		assertFalse(validator.validate(spec));
+	}
+}
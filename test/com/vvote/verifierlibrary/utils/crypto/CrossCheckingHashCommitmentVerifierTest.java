@@ -0,0 +1,197 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vvote.verifierlibrary.exceptions.CommitException;
+
+/**
+ * The class <code>CrossCheckingHashCommitmentVerifierTest</code> contains
+ * tests for the classes
+ * <code>{@link CrossCheckingHashCommitmentVerifier}</code>,
+ * <code>{@link DigestHashCommitmentVerifier}</code> and
+ * <code>{@link CommitmentVerificationPolicy}</code>.
+ */
+public class CrossCheckingHashCommitmentVerifierTest {
+
+	/**
+	 * Number of commitments in the batch
+	 */
+	private static final int BATCH_SIZE = 400;
+
+	/**
+	 * Cross-checking engine which records how many commitments it checked and
+	 * rejects every commitment with an odd first byte
+	 */
+	private static final class RecordingVerifier implements HashCommitmentVerifier {
+
+		/**
+		 * The number of commitments checked
+		 */
+		private int checked = 0;
+
+		@Override
+		public String getName() {
+			return "Recording";
+		}
+
+		@Override
+		public BitSet verify(HashCommitmentBatch batch) throws CommitException {
+			BitSet verified = new BitSet(batch.size());
+			for (int i = 0; i < batch.size(); i++) {
+				if ((batch.getCommitment(i)[0] & 1) == 0) {
+					verified.set(i);
+				}
+			}
+			this.checked += batch.size();
+			return verified;
+		}
+	}
+
+	/**
+	 * The batch of commitments
+	 */
+	private HashCommitmentBatch batch = null;
+
+	/**
+	 * Whether each commitment in the batch is valid
+	 */
+	private boolean[] valid = null;
+
+	/**
+	 * Perform pre-test initialization.
+	 * 
+	 * @throws Exception
+	 *             if the initialization fails for some reason
+	 */
+	@Before
+	public void setUp() throws Exception {
+		Random random = new Random(3);
+		MessageDigest md = MessageDigest.getInstance("SHA-256");
+
+		this.batch = new HashCommitmentBatch();
+		this.valid = new boolean[BATCH_SIZE];
+
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			byte[] witness = new byte[32];
+			byte[] randomValue = new byte[(i % 2 == 0) ? 32 : 48];
+			random.nextBytes(witness);
+			random.nextBytes(randomValue);
+
+			md.update(witness);
+			byte[] commitment = md.digest((randomValue.length > 32) ? MessageDigest.getInstance("SHA-256").digest(randomValue) : randomValue);
+
+			this.valid[i] = random.nextInt(4) != 0;
+			if (!this.valid[i]) {
+				commitment[31] ^= 0x01;
+			}
+
+			this.batch.add(commitment, witness, randomValue);
+		}
+	}
+
+	/**
+	 * Run the verify method of the primary digest engine
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testDigestVerifier() throws Exception {
+		BitSet verified = new DigestHashCommitmentVerifier().verify(this.batch);
+
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			assertEquals(this.valid[i], verified.get(i));
+		}
+	}
+
+	/**
+	 * Run the verify method with each cross-check policy
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testCrossCheckPolicies() throws Exception {
+		List<HashCommitmentVerifier> crossCheckers = new ArrayList<HashCommitmentVerifier>();
+
+		// always - every commitment is cross-checked and must be accepted by
+		// both engines
+		RecordingVerifier recording = new RecordingVerifier();
+		crossCheckers.add(recording);
+		CrossCheckingHashCommitmentVerifier verifier = new CrossCheckingHashCommitmentVerifier(new DigestHashCommitmentVerifier(), crossCheckers,
+				CommitmentVerificationPolicy.ALWAYS);
+		BitSet verified = verifier.verify(this.batch);
+
+		assertEquals(BATCH_SIZE, recording.checked);
+		assertEquals(BATCH_SIZE, verifier.getCrossCheckedCount());
+		assertTrue(verifier.getDisagreementCount() > 0);
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			assertEquals(this.valid[i] && (this.batch.getCommitment(i)[0] & 1) == 0, verified.get(i));
+		}
+
+		// on failure - only rejected commitments are cross-checked so the
+		// primary result stands
+		recording = new RecordingVerifier();
+		crossCheckers.set(0, recording);
+		verifier = new CrossCheckingHashCommitmentVerifier(new DigestHashCommitmentVerifier(), crossCheckers, new CommitmentVerificationPolicy(
+				CommitmentVerificationPolicy.CrossCheck.ON_FAILURE, 0, 0));
+		verified = verifier.verify(this.batch);
+
+		int invalid = 0;
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			assertEquals(this.valid[i], verified.get(i));
+			if (!this.valid[i]) {
+				invalid++;
+			}
+		}
+		assertEquals(invalid, recording.checked);
+
+		// sample - roughly the requested percentage is cross-checked and the
+		// same commitments are chosen every time
+		CommitmentVerificationPolicy policy = new CommitmentVerificationPolicy(CommitmentVerificationPolicy.CrossCheck.SAMPLE, 25, 7);
+		recording = new RecordingVerifier();
+		crossCheckers.set(0, recording);
+		verifier = new CrossCheckingHashCommitmentVerifier(new DigestHashCommitmentVerifier(), crossCheckers, policy);
+		verified = verifier.verify(this.batch);
+
+		int sampled = 0;
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			boolean isSampled = policy.isSampled(this.batch.getCommitment(i));
+			assertEquals(isSampled, policy.isSampled(this.batch.getCommitment(i)));
+			if (isSampled) {
+				sampled++;
+			}
+			assertEquals(this.valid[i] && !(isSampled && (this.batch.getCommitment(i)[0] & 1) != 0), verified.get(i));
+		}
+		assertEquals(sampled, recording.checked);
+		assertTrue(sampled > BATCH_SIZE / 8 && sampled < BATCH_SIZE / 2);
+
+		assertFalse(new CommitmentVerificationPolicy(CommitmentVerificationPolicy.CrossCheck.SAMPLE, 0, 7).isSampled(this.batch.getCommitment(0)));
+	}
+}
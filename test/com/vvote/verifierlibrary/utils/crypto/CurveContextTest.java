@@ -0,0 +1,93 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.Test;
+
+import com.vvote.ec.ElGamalECPoint;
+
+/**
+ * The class <code>CurveContextTest</code> contains tests for the class
+ * <code>{@link CurveContext}</code>.
+ */
+public class CurveContextTest {
+
+	/**
+	 * Check that the same curve is recognised under a different name and that
+	 * a different curve is not
+	 */
+	@Test
+	public void testIsSameCurve() {
+		CurveContext p256 = new CurveContext("P-256");
+
+		assertTrue(p256.isSameCurve(new CurveContext("secp256r1")));
+		assertFalse(p256.isSameCurve(new CurveContext("P-384")));
+		assertFalse(p256.isSameCurve(null));
+	}
+
+	/**
+	 * Check that an unknown curve cannot be used
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownCurve() {
+		new CurveContext("not-a-curve");
+	}
+
+	/**
+	 * Check that the tables for a public key are only built once by a context
+	 * but are not shared with another context
+	 */
+	@Test
+	public void testGetEncrypter() {
+		CurveContext context = CurveContext.forElectionCurve();
+		ECPoint publicKey = context.multiplyG(BigInteger.valueOf(12345)).normalize();
+
+		ElGamalFixedBaseEncrypter encrypter = context.getEncrypter(publicKey);
+
+		assertSame(encrypter, context.getEncrypter(publicKey));
+		assertNotSame(encrypter, CurveContext.forElectionCurve().getEncrypter(publicKey));
+	}
+
+	/**
+	 * Check that contexts for different curves can be used side by side
+	 */
+	@Test
+	public void testIndependentCurves() {
+		CurveContext p256 = new CurveContext("P-256");
+		CurveContext p384 = new CurveContext("P-384");
+
+		BigInteger randomness = BigInteger.valueOf(987654321);
+
+		ElGamalECPoint p256Cipher = ECUtils.encrypt(p256, p256.getG(), p256.getG().twice(), randomness);
+		ElGamalECPoint p384Cipher = ECUtils.encrypt(p384, p384.getG(), p384.getG().twice(), randomness);
+
+		assertEquals(p256.getCurve(), p256Cipher.getGr().getCurve());
+		assertEquals(p384.getCurve(), p384Cipher.getGr().getCurve());
+		assertTrue(p256Cipher.getGr().equals(p256.getG().multiply(randomness)));
+		assertTrue(p384Cipher.getGr().equals(p384.getG().multiply(randomness)));
+	}
+}
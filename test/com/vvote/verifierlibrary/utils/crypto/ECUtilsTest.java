@@ -0,0 +1,97 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.Test;
+
+import com.vvote.ec.ElGamalECPoint;
+
+/**
+ * The class <code>ECUtilsTest</code> contains tests for the batch
+ * normalisation methods of the class <code>{@link ECUtils}</code>.
+ */
+public class ECUtilsTest {
+
+	/**
+	 * The curve used throughout the tests
+	 */
+	private static final CurveContext curveContext = CurveContext.forElectionCurve();
+
+	/**
+	 * Run the ECPoint[] normalizeAll(ECPoint[]) method test with projective
+	 * points, the point at infinity and a missing point
+	 */
+	@Test
+	public void testNormalizeAll() {
+		Random random = new Random(13);
+		ECPoint[] points = new ECPoint[20];
+		ECPoint[] expected = new ECPoint[points.length];
+
+		for (int i = 0; i < points.length; i++) {
+			points[i] = curveContext.getG().multiply(new BigInteger(64, random));
+			expected[i] = points[i].normalize();
+		}
+		points[3] = curveContext.getG().getCurve().getInfinity();
+		expected[3] = points[3];
+		points[7] = null;
+		expected[7] = null;
+
+		ECUtils.normalizeAll(points);
+
+		for (int i = 0; i < points.length; i++) {
+			if (expected[i] == null) {
+				assertNull(points[i]);
+			} else {
+				assertTrue(points[i].isNormalized());
+				assertEquals(expected[i], points[i]);
+			}
+		}
+	}
+
+	/**
+	 * Run the List normalizeCiphers(List) method test
+	 */
+	@Test
+	public void testNormalizeCiphers() {
+		Random random = new Random(17);
+		List<ElGamalECPoint> ciphers = new ArrayList<ElGamalECPoint>();
+
+		for (int i = 0; i < 10; i++) {
+			ciphers.add(ECUtils.reencrypt(curveContext, new ElGamalECPoint(curveContext.getG(), curveContext.getG()), curveContext.getG().twice(), new BigInteger(64, random)));
+		}
+
+		List<ElGamalECPoint> normalized = ECUtils.normalizeCiphers(ciphers);
+
+		assertEquals(ciphers, normalized);
+
+		for (ElGamalECPoint cipher : normalized) {
+			assertTrue(cipher.getGr().isNormalized());
+			assertTrue(cipher.getMyr().isNormalized());
+		}
+	}
+}
@@ -0,0 +1,136 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import org.bouncycastle.math.ec.ECPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vvote.ec.ElGamalECPoint;
+
+/**
+ * Compares ElGamal re-encryption using the fixed-base tables with the generic
+ * BouncyCastle scalar multiplication previously used by <code>ECUtils</code>.
+ * Run directly, optionally passing the number of re-encryptions to time.
+ * 
+ * @author James Rumble
+ * 
+ */
+public class FixedBaseMultiplierBenchmark {
+
+	/**
+	 * Provides logging for the class
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(FixedBaseMultiplierBenchmark.class);
+
+	/**
+	 * The curve used throughout the tests
+	 */
+	private static final CurveContext curveContext = CurveContext.forElectionCurve();
+
+	/**
+	 * Default number of re-encryptions timed for each method
+	 */
+	private static final int DEFAULT_OPERATIONS = 2000;
+
+	/**
+	 * Number of untimed rounds used to warm up the JIT
+	 */
+	private static final int WARM_UP_ROUNDS = 2;
+
+	/**
+	 * Runs the benchmark
+	 * 
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		int operations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_OPERATIONS;
+
+		SecureRandom random = new SecureRandom();
+
+		final BigInteger order = curveContext.getOrder();
+		final ECPoint g = curveContext.getG();
+		final ECPoint publicKey = g.multiply(new BigInteger(order.bitLength(), random).mod(order)).normalize();
+		final ElGamalECPoint cipher = new ElGamalECPoint(g.multiply(BigInteger.TEN).normalize(), g);
+
+		BigInteger[] randomness = new BigInteger[operations];
+		for (int i = 0; i < operations; i++) {
+			randomness[i] = new BigInteger(order.bitLength(), random).mod(order);
+		}
+
+		for (int round = 0; round <= WARM_UP_ROUNDS; round++) {
+			boolean report = round == WARM_UP_ROUNDS;
+
+			long start = System.nanoTime();
+			for (BigInteger r : randomness) {
+				ECPoint gr = cipher.getGr().add(g.multiply(r));
+				ECPoint myr = cipher.getMyr().add(publicKey.multiply(r));
+				normalize(gr, myr);
+			}
+			long bouncyCastle = System.nanoTime() - start;
+
+			if (report) {
+				log("BouncyCastle multiply", bouncyCastle, operations, bouncyCastle);
+			}
+
+			for (int width = 2; width <= 6; width++) {
+				start = System.nanoTime();
+				FixedBaseMultiplier generatorMultiplier = new FixedBaseMultiplier(g, order, width);
+				ElGamalFixedBaseEncrypter encrypter = new ElGamalFixedBaseEncrypter(generatorMultiplier, new FixedBaseMultiplier(publicKey, order, width));
+				long setup = System.nanoTime() - start;
+
+				start = System.nanoTime();
+				for (BigInteger r : randomness) {
+					ElGamalECPoint result = encrypter.reencrypt(cipher, r);
+					normalize(result.getGr(), result.getMyr());
+				}
+				long fixedBase = System.nanoTime() - start;
+
+				if (report) {
+					log("Fixed base, width " + width + " (setup " + setup / 1000000 + "ms)", fixedBase, operations, bouncyCastle);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Normalises the points so both methods produce affine results
+	 * 
+	 * @param first
+	 * @param second
+	 */
+	private static void normalize(ECPoint first, ECPoint second) {
+		first.normalize();
+		second.normalize();
+	}
+
+	/**
+	 * Logs a single result
+	 * 
+	 * @param name
+	 * @param time
+	 * @param operations
+	 * @param baseline
+	 */
+	private static void log(String name, long time, int operations, long baseline) {
+		logger.info("{}: {} us/op, {}x", name, String.format("%.1f", time / 1000.0 / operations), String.format("%.2f", (double) baseline / time));
+	}
+}
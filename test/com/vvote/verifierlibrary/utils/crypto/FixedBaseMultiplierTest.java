@@ -0,0 +1,120 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vvote.ec.ElGamalECPoint;
+
+/**
+ * The class <code>FixedBaseMultiplierTest</code> contains tests for the
+ * classes <code>{@link FixedBaseMultiplier}</code> and
+ * <code>{@link ElGamalFixedBaseEncrypter}</code>.
+ */
+public class FixedBaseMultiplierTest {
+
+	/**
+	 * The curve used throughout the tests
+	 */
+	private static final CurveContext curveContext = CurveContext.forElectionCurve();
+
+	/**
+	 * Number of random scalars checked
+	 */
+	private static final int RANDOM_SCALARS = 50;
+
+	/**
+	 * The order of the curve
+	 */
+	private BigInteger order = null;
+
+	/**
+	 * A public key
+	 */
+	private ECPoint publicKey = null;
+
+	/**
+	 * Scalars to check, including edge cases
+	 */
+	private BigInteger[] scalars = null;
+
+	/**
+	 * Perform pre-test initialization.
+	 * 
+	 * @throws Exception
+	 *             if the initialization fails for some reason
+	 */
+	@Before
+	public void setUp() throws Exception {
+		Random random = new Random(42);
+
+		this.order = curveContext.getOrder();
+		this.publicKey = curveContext.getG().multiply(new BigInteger(this.order.bitLength() - 1, random)).normalize();
+
+		this.scalars = new BigInteger[RANDOM_SCALARS + 5];
+		this.scalars[0] = BigInteger.ZERO;
+		this.scalars[1] = BigInteger.ONE;
+		this.scalars[2] = this.order.subtract(BigInteger.ONE);
+		this.scalars[3] = this.order.add(BigInteger.TEN);
+		this.scalars[4] = BigInteger.valueOf(-7);
+
+		for (int i = 5; i < this.scalars.length; i++) {
+			this.scalars[i] = new BigInteger(this.order.bitLength(), random);
+		}
+	}
+
+	/**
+	 * Fixed-base multiplication must match generic multiplication for every
+	 * window width
+	 */
+	@Test
+	public void testMultiply() {
+		for (int width = 1; width <= 8; width += 3) {
+			FixedBaseMultiplier multiplier = new FixedBaseMultiplier(this.publicKey, this.order, width);
+
+			for (BigInteger scalar : this.scalars) {
+				assertEquals(this.publicKey.multiply(scalar.mod(this.order)), multiplier.multiply(scalar));
+			}
+		}
+	}
+
+	/**
+	 * Joint re-encryption must match re-encryption using generic
+	 * multiplication
+	 */
+	@Test
+	public void testReencrypt() {
+		ECPoint g = curveContext.getG();
+		ElGamalECPoint cipher = new ElGamalECPoint(g.multiply(BigInteger.valueOf(3)), g.multiply(BigInteger.valueOf(5)));
+
+		for (BigInteger scalar : this.scalars) {
+			BigInteger r = scalar.mod(this.order);
+			ElGamalECPoint expected = new ElGamalECPoint(cipher.getMyr().add(this.publicKey.multiply(r)), cipher.getGr().add(g.multiply(r)));
+
+			assertTrue(expected.equals(ECUtils.reencrypt(curveContext, cipher, this.publicKey, scalar)));
+		}
+	}
+}
@@ -0,0 +1,246 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+import org.junit.Test;
+
+import com.vvote.verifierlibrary.exceptions.CommitException;
+import com.vvote.verifierlibrary.utils.Utils;
+
+/**
+ * The class <code>HashCommitmentBatchTest</code> contains tests for the class
+ * <code>{@link HashCommitmentBatch}</code>.
+ */
+public class HashCommitmentBatchTest {
+
+	/**
+	 * Known hash commitments as hex strings: witness, random value and
+	 * SHA-256(witness || random value). The random value of the fourth is
+	 * longer than 32 bytes so it is hashed before being committed to
+	 */
+	public static final String[][] KNOWN_COMMITMENTS = {
+			{ "fce4266a10ee91054fee362597c2b4aed15b510173d71e1fcf336c2316a83ae6", "f8161c1980478295eb64672f081e55d7f783061f3e272e0c7db2875754425fc4",
+					"d1024305acc3798d3487506b2074c34a83591900a66c01f6ded465b2e3cd7c58" },
+			{ "b1fd97cfe5beb441b11fbe3f5d7310efe313763203223671308ca42e30ffabd6", "2febe1ef872568512878fb8b031bc02b7ed328904086d5e8e0f4757936fd01b8",
+					"c41e2f4877a79b5810ea72a0520fc5e1257eba8e9f078ee6dcd336e241706891" },
+			{ "49c59a4c3db68aae1d9c7c682582289dd9cb45c11c2ba59ec3f5ca22f798b3d1", "e653ff6d5daac493223202672eb1571a292fb70e36aeaf93e007820f82110994",
+					"a110d38d43b54ac04e71f170304936154eb1e8dedc4e49f57c8e18b1b8e96ffc" },
+			{ "2dfb8461e77e5f800ed036480c2135c5f19f30984821056ece895fdb907e238b",
+					"2840f2099aa6465aab0f3bbc965240467d2525b632c7760f2220d4f871fd0a5bc8dee78f8c7b466c881847accc196998",
+					"b3a8e5aa1d4594840b1a31c31b8bfef0b2d8d4a0ed14cbda59605d9c9c08c9e0" },
+			{ "a60732f3714ab357027190c14637a0f345aad4b56614101829433a8156f6a55f", "0d10c0e4f1e241e55a9419eadab6a3cd83d58454b99835da119aa82062fdd890",
+					"c11f9fc20542a0a8b0ab28a56c2368401d94b82f7590d013914f67de46f000e5" } };
+
+	/**
+	 * Creates a batch holding each of the known hash commitments, with the
+	 * commitment at the provided index altered so that it fails
+	 * 
+	 * @param failing
+	 *            the index of the commitment which fails or -1 for none
+	 * @return the batch
+	 * @throws CommitException
+	 */
+	public static HashCommitmentBatch createKnownBatch(int failing) throws CommitException {
+		HashCommitmentBatch batch = new HashCommitmentBatch();
+
+		for (int i = 0; i < KNOWN_COMMITMENTS.length; i++) {
+			byte[] commitment = Utils.decodeHexData(KNOWN_COMMITMENTS[i][2]);
+
+			if (i == failing) {
+				commitment[commitment.length - 1] ^= 0x01;
+			}
+
+			batch.add(commitment, Utils.decodeHexData(KNOWN_COMMITMENTS[i][0]), Utils.decodeHexData(KNOWN_COMMITMENTS[i][1]));
+		}
+
+		return batch;
+	}
+
+	/**
+	 * Reads a length prefixed value from the packed records
+	 * 
+	 * @param records
+	 * @return the value
+	 */
+	private static byte[] readValue(ByteBuffer records) {
+		byte[] value = new byte[records.getInt()];
+		records.get(value);
+		return value;
+	}
+
+	/**
+	 * Check that each hash commitment is packed as three big endian length
+	 * prefixed values in the order added
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testPackedRecords() throws Exception {
+		HashCommitmentBatch batch = createKnownBatch(-1);
+
+		assertEquals(KNOWN_COMMITMENTS.length, batch.size());
+
+		ByteBuffer records = batch.getRecords().duplicate();
+		records.flip();
+
+		assertEquals(batch.getRecordsLength(), records.remaining());
+
+		for (int i = 0; i < KNOWN_COMMITMENTS.length; i++) {
+			assertArrayEquals(Utils.decodeHexData(KNOWN_COMMITMENTS[i][2]), readValue(records));
+			assertArrayEquals(Utils.decodeHexData(KNOWN_COMMITMENTS[i][0]), readValue(records));
+			assertArrayEquals(Utils.decodeHexData(KNOWN_COMMITMENTS[i][1]), readValue(records));
+
+			assertArrayEquals(Utils.decodeHexData(KNOWN_COMMITMENTS[i][2]), batch.getCommitment(i));
+			assertArrayEquals(Utils.decodeHexData(KNOWN_COMMITMENTS[i][0]), batch.getWitness(i));
+			assertArrayEquals(Utils.decodeHexData(KNOWN_COMMITMENTS[i][1]), batch.getRandomValue(i));
+		}
+
+		assertEquals(0, records.remaining());
+	}
+
+	/**
+	 * Check that the records buffer grows to hold a large batch without
+	 * losing the records already packed
+	 */
+	@Test
+	public void testGrowth() {
+		HashCommitmentBatch batch = new HashCommitmentBatch();
+
+		int count = 1000;
+
+		for (int i = 0; i < count; i++) {
+			byte[] value = new byte[32];
+			value[0] = (byte) i;
+			value[1] = (byte) (i >> 8);
+			assertEquals(i, batch.add(value, value, value));
+		}
+
+		assertEquals(count, batch.size());
+		assertEquals(count * (12 + 3 * 32), batch.getRecordsLength());
+
+		ByteBuffer records = batch.getRecords().duplicate();
+		records.flip();
+
+		for (int i = 0; i < count; i++) {
+			for (int j = 0; j < 3; j++) {
+				byte[] value = readValue(records);
+				assertEquals((byte) i, value[0]);
+				assertEquals((byte) (i >> 8), value[1]);
+			}
+		}
+	}
+
+	/**
+	 * Check that clearing the batch keeps the buffers for reuse
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testClear() throws Exception {
+		HashCommitmentBatch batch = createKnownBatch(-1);
+
+		ByteBuffer records = batch.getRecords();
+
+		batch.clear();
+
+		assertEquals(0, batch.size());
+		assertEquals(0, batch.getRecordsLength());
+		assertSame(records, batch.getRecords());
+
+		batch.add(KNOWN_COMMITMENTS[0][2], KNOWN_COMMITMENTS[0][0], KNOWN_COMMITMENTS[0][1]);
+
+		assertEquals(1, batch.size());
+		assertArrayEquals(Utils.decodeHexData(KNOWN_COMMITMENTS[0][2]), batch.getCommitment(0));
+	}
+
+	/**
+	 * Check that a hash commitment which is not valid hex is rejected
+	 * 
+	 * @throws Exception
+	 */
+	@Test(expected = CommitException.class)
+	public void testAddInvalidHex() throws Exception {
+		new HashCommitmentBatch().add("not hex", KNOWN_COMMITMENTS[0][0], KNOWN_COMMITMENTS[0][1]);
+	}
+
+	/**
+	 * Check that the result bitmap is decoded with bit i of byte i / 8 giving
+	 * the result for hash commitment i, ignoring anything past the end of the
+	 * batch
+	 */
+	@Test
+	public void testResultBitmap() {
+		HashCommitmentBatch batch = new HashCommitmentBatch();
+
+		for (int i = 0; i < 10; i++) {
+			batch.add(new byte[] { (byte) i }, new byte[1], new byte[1]);
+		}
+
+		ByteBuffer results = batch.getResults();
+
+		assertTrue(results.capacity() >= 2);
+
+		// every commitment verified except 4, with bits set past the end
+		results.put(0, (byte) 0xEF);
+		results.put(1, (byte) 0xFF);
+		if (results.capacity() > 2) {
+			results.put(2, (byte) 0xFF);
+		}
+
+		BitSet verified = batch.getVerified();
+
+		assertEquals(9, verified.cardinality());
+		assertFalse(verified.get(4));
+		assertTrue(verified.get(9));
+		assertEquals(10, verified.length());
+	}
+
+	/**
+	 * Check that the result bitmap grows with the batch
+	 */
+	@Test
+	public void testResultBitmapGrowth() {
+		HashCommitmentBatch batch = new HashCommitmentBatch();
+
+		int count = 20000;
+
+		for (int i = 0; i < count; i++) {
+			batch.add(new byte[1], new byte[1], new byte[1]);
+		}
+
+		ByteBuffer results = batch.getResults();
+
+		assertTrue(results.capacity() >= (count + 7) / 8);
+
+		results.put((count - 1) / 8, (byte) (1 << ((count - 1) % 8)));
+
+		BitSet verified = batch.getVerified();
+
+		assertEquals(1, verified.cardinality());
+		assertTrue(verified.get(count - 1));
+	}
+}
@@ -0,0 +1,230 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.BitSet;
+
+import org.junit.Test;
+
+import com.vvote.verifierlibrary.exceptions.CommitException;
+import com.vvote.verifierlibrary.utils.Utils;
+
+/**
+ * The class <code>OpenSSLHashCommitmentVerifierTest</code> contains tests for
+ * the class <code>{@link OpenSSLHashCommitmentVerifier}</code>. The
+ * CryptoOpenSSL library is replaced by a Java implementation of its calls so
+ * the tests run without the native library.
+ */
+public class OpenSSLHashCommitmentVerifierTest {
+
+	/**
+	 * Java implementation of the CryptoOpenSSL library calls, optionally
+	 * without the batch check as in libraries built before it was added
+	 */
+	private static final class JavaLibrary implements OpenSSLHashCommitmentVerifier.Library {
+
+		/**
+		 * Whether the batch check is provided
+		 */
+		private final boolean batchAvailable;
+
+		/**
+		 * The number of batch checks attempted
+		 */
+		private int batchCalls = 0;
+
+		/**
+		 * The number of single checks made
+		 */
+		private int singleCalls = 0;
+
+		/**
+		 * Constructor for a JavaLibrary
+		 * 
+		 * @param batchAvailable
+		 */
+		private JavaLibrary(boolean batchAvailable) {
+			this.batchAvailable = batchAvailable;
+		}
+
+		@Override
+		public int verifyHashCommitments(ByteBuffer records, int recordsLength, int count, ByteBuffer results) {
+			this.batchCalls++;
+
+			if (!this.batchAvailable) {
+				throw new UnsatisfiedLinkError("openSSLVerifyHashCommitments");
+			}
+
+			ByteBuffer packed = records.duplicate();
+			packed.clear();
+			packed.limit(recordsLength);
+
+			int verified = 0;
+
+			for (int i = 0; i < count; i++) {
+				if (verify(readValue(packed), readValue(packed), readValue(packed))) {
+					results.put(i / 8, (byte) (results.get(i / 8) | (1 << (i % 8))));
+					verified++;
+				}
+			}
+
+			return verified;
+		}
+
+		@Override
+		public boolean verifyHashCommitment(String commitment, String witness, String randomValue) {
+			this.singleCalls++;
+
+			return verify(Utils.decodeHexData(commitment), Utils.decodeHexData(witness), Utils.decodeHexData(randomValue));
+		}
+
+		/**
+		 * Reads a length prefixed value from the packed records
+		 * 
+		 * @param records
+		 * @return the value
+		 */
+		private static byte[] readValue(ByteBuffer records) {
+			byte[] value = new byte[records.getInt()];
+			records.get(value);
+			return value;
+		}
+
+		/**
+		 * Checks a single hash commitment
+		 * 
+		 * @param commitment
+		 * @param witness
+		 * @param randomValue
+		 * @return whether the commitment check is successful
+		 */
+		private static boolean verify(byte[] commitment, byte[] witness, byte[] randomValue) {
+			try {
+				MessageDigest md = MessageDigest.getInstance("SHA-256");
+
+				byte[] value = (randomValue.length > 32) ? MessageDigest.getInstance("SHA-256").digest(randomValue) : randomValue;
+
+				md.update(witness);
+
+				return MessageDigest.isEqual(md.digest(value), commitment);
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	/**
+	 * Library whose batch check is unable to read the buffers
+	 */
+	private static final class UnreadableLibrary implements OpenSSLHashCommitmentVerifier.Library {
+
+		@Override
+		public int verifyHashCommitments(ByteBuffer records, int recordsLength, int count, ByteBuffer results) {
+			return -1;
+		}
+
+		@Override
+		public boolean verifyHashCommitment(String commitment, String witness, String randomValue) {
+			return true;
+		}
+	}
+
+	/**
+	 * Checks the result for each known hash commitment
+	 * 
+	 * @param verified
+	 * @param failing
+	 */
+	private static void assertKnownResults(BitSet verified, int failing) {
+		for (int i = 0; i < HashCommitmentBatchTest.KNOWN_COMMITMENTS.length; i++) {
+			assertEquals(i != failing, verified.get(i));
+		}
+	}
+
+	/**
+	 * Check that a batch is checked with a single call, with the result
+	 * bitmap decoded for a failing commitment in the middle of the batch
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testBatch() throws Exception {
+		JavaLibrary library = new JavaLibrary(true);
+		OpenSSLHashCommitmentVerifier verifier = new OpenSSLHashCommitmentVerifier(library);
+
+		assertKnownResults(verifier.verify(HashCommitmentBatchTest.createKnownBatch(-1)), -1);
+		assertKnownResults(verifier.verify(HashCommitmentBatchTest.createKnownBatch(2)), 2);
+
+		assertEquals(2, library.batchCalls);
+		assertEquals(0, library.singleCalls);
+	}
+
+	/**
+	 * Check that each commitment is checked separately when the library does
+	 * not provide the batch check, which is only attempted once
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testFallbackWhenBatchUnavailable() throws Exception {
+		JavaLibrary library = new JavaLibrary(false);
+		OpenSSLHashCommitmentVerifier verifier = new OpenSSLHashCommitmentVerifier(library);
+
+		assertKnownResults(verifier.verify(HashCommitmentBatchTest.createKnownBatch(2)), 2);
+		assertKnownResults(verifier.verify(HashCommitmentBatchTest.createKnownBatch(-1)), -1);
+
+		assertEquals(1, library.batchCalls);
+		assertEquals(2 * HashCommitmentBatchTest.KNOWN_COMMITMENTS.length, library.singleCalls);
+	}
+
+	/**
+	 * Check that a batch the library cannot read is an error rather than a
+	 * result
+	 * 
+	 * @throws Exception
+	 */
+	@Test(expected = CommitException.class)
+	public void testUnreadableBatch() throws Exception {
+		new OpenSSLHashCommitmentVerifier(new UnreadableLibrary()).verify(HashCommitmentBatchTest.createKnownBatch(-1));
+	}
+
+	/**
+	 * Check that the Java engines, which need no native library, agree on
+	 * the known commitments with a failing commitment in the middle of the
+	 * batch
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testJavaEngines() throws Exception {
+		HashCommitmentVerifier[] engines = { new DigestHashCommitmentVerifier(), new JavaSecurityHashCommitmentVerifier(), new BouncyCastleHashCommitmentVerifier() };
+
+		for (HashCommitmentVerifier engine : engines) {
+			assertKnownResults(engine.verify(HashCommitmentBatchTest.createKnownBatch(2)), 2);
+			assertTrue(engine.getName(), engine.verify(HashCommitmentBatchTest.createKnownBatch(-1)).cardinality() == HashCommitmentBatchTest.KNOWN_COMMITMENTS.length);
+			assertFalse(engine.getName(), engine.verify(HashCommitmentBatchTest.createKnownBatch(0)).get(0));
+		}
+	}
+}
@@ -0,0 +1,183 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto.bls;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import it.unisa.dia.gas.jpbc.Element;
+import it.unisa.dia.gas.jpbc.Pairing;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vvote.verifierlibrary.exceptions.BLSSignatureException;
+
+/**
+ * The class <code>BLSBatchVerifierTest</code> contains tests for the class
+ * <code>{@link BLSBatchVerifier}</code>.
+ */
+public class BLSBatchVerifierTest {
+
+	/**
+	 * Number of signatures in the batch
+	 */
+	private static final int BATCH_SIZE = 32;
+
+	/**
+	 * The pairing for the curve
+	 */
+	private Pairing pairing;
+
+	/**
+	 * The generator for the public key
+	 */
+	private Element g;
+
+	/**
+	 * The secret key
+	 */
+	private Element secretKey;
+
+	/**
+	 * The public key
+	 */
+	private Element publicKey;
+
+	/**
+	 * Source of the signed data
+	 */
+	private Random random;
+
+	/**
+	 * Perform pre-test initialization.
+	 * 
+	 * @throws BLSSignatureException
+	 */
+	@Before
+	public void setUp() throws BLSSignatureException {
+		this.pairing = CurveParams.getInstance().getPairing();
+		this.g = this.pairing.getG2().newRandomElement().getImmutable();
+		this.secretKey = this.pairing.getZr().newRandomElement().getImmutable();
+		this.publicKey = this.g.powZn(this.secretKey).getImmutable();
+		this.random = new Random(7);
+	}
+
+	/**
+	 * Signs the provided data
+	 * 
+	 * @param data
+	 * @return the signature
+	 */
+	private Element sign(byte[] data) {
+		return this.pairing.getG1().newElement().setFromHash(data, 0, data.length).powZn(this.secretKey);
+	}
+
+	/**
+	 * Adds a batch of signatures, corrupting those at the provided indexes
+	 * 
+	 * @param verifier
+	 * @param corrupted
+	 */
+	private void fillBatch(BLSBatchVerifier verifier, BitSet corrupted) {
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			byte[] data = new byte[32];
+			this.random.nextBytes(data);
+
+			Element signature = this.sign(data);
+
+			if (corrupted.get(i)) {
+				data[0] ^= 1;
+			}
+
+			assertEquals(i, verifier.add(data, signature));
+		}
+	}
+
+	/**
+	 * Run the BitSet verify() method test with a batch of valid signatures
+	 * 
+	 * @throws BLSSignatureException
+	 */
+	@Test
+	public void testVerifyValidBatch() throws BLSSignatureException {
+		BLSBatchVerifier verifier = new BLSBatchVerifier(this.g, this.publicKey);
+		this.fillBatch(verifier, new BitSet());
+
+		BitSet valid = verifier.verify();
+
+		assertEquals(BATCH_SIZE, valid.cardinality());
+		assertEquals(2, verifier.getPairingCount());
+	}
+
+	/**
+	 * Run the BitSet verify() method test with invalid signatures in the batch
+	 * 
+	 * @throws BLSSignatureException
+	 */
+	@Test
+	public void testVerifyInvalidSignatures() throws BLSSignatureException {
+		BitSet corrupted = new BitSet();
+		corrupted.set(3);
+		corrupted.set(BATCH_SIZE - 1);
+
+		BLSBatchVerifier verifier = new BLSBatchVerifier(this.g, this.publicKey);
+		this.fillBatch(verifier, corrupted);
+
+		BitSet valid = verifier.verify();
+
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			assertEquals(!corrupted.get(i), valid.get(i));
+		}
+		assertTrue(verifier.getPairingCount() < 4 * BATCH_SIZE);
+	}
+
+	/**
+	 * Run the BitSet verify() method test with a signature under a different
+	 * key
+	 * 
+	 * @throws BLSSignatureException
+	 */
+	@Test
+	public void testVerifyWrongKey() throws BLSSignatureException {
+		BLSBatchVerifier verifier = new BLSBatchVerifier(this.g, this.publicKey);
+
+		byte[] data = new byte[32];
+		this.random.nextBytes(data);
+
+		verifier.add(data, this.pairing.getG1().newElement().setFromHash(data, 0, data.length).powZn(this.pairing.getZr().newRandomElement()));
+
+		assertFalse(verifier.verify().get(0));
+	}
+
+	/**
+	 * Run the BitSet verify() method test with an empty batch
+	 * 
+	 * @throws BLSSignatureException
+	 */
+	@Test
+	public void testVerifyEmptyBatch() throws BLSSignatureException {
+		BLSBatchVerifier verifier = new BLSBatchVerifier(this.g, this.publicKey);
+
+		assertTrue(verifier.verify().isEmpty());
+		assertEquals(0, verifier.getPairingCount());
+	}
+}
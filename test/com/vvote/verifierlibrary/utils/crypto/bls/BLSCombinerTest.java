@@ -0,0 +1,177 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto.bls;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import it.unisa.dia.gas.jpbc.Element;
+import it.unisa.dia.gas.jpbc.Pairing;
+
+import java.math.BigInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vvote.verifierlibrary.exceptions.BLSSignatureException;
+
+/**
+ * The class <code>BLSCombinerTest</code> contains tests for the classes
+ * <code>{@link BLSCombiner}</code>, <code>{@link LagrangeWeightCache}</code>
+ * and <code>{@link MultiExponentiation}</code>.
+ */
+public class BLSCombinerTest {
+
+	/**
+	 * Number of peers
+	 */
+	private static final int PEERS = 7;
+
+	/**
+	 * Threshold
+	 */
+	private static final int THRESHOLD = 5;
+
+	/**
+	 * The pairing for the curve
+	 */
+	private Pairing pairing;
+
+	/**
+	 * The hash of the signed data as an element of G1
+	 */
+	private Element hash;
+
+	/**
+	 * The joint secret key
+	 */
+	private BigInteger secretKey;
+
+	/**
+	 * The signature shares of each peer
+	 */
+	private byte[][] shares;
+
+	/**
+	 * Perform pre-test initialization. The joint secret key is shared with a
+	 * random polynomial of degree THRESHOLD - 1 and each peer i signs with
+	 * the share f(i + 1)
+	 * 
+	 * @throws BLSSignatureException
+	 */
+	@Before
+	public void setUp() throws BLSSignatureException {
+		this.pairing = CurveParams.getInstance().getPairing();
+		BigInteger order = this.pairing.getZr().getOrder();
+
+		byte[] data = "audit commit".getBytes();
+		this.hash = this.pairing.getG1().newElement().setFromHash(data, 0, data.length).getImmutable();
+
+		BigInteger[] coefficients = new BigInteger[THRESHOLD];
+		for (int i = 0; i < THRESHOLD; i++) {
+			coefficients[i] = this.pairing.getZr().newRandomElement().toBigInteger();
+		}
+		this.secretKey = coefficients[0];
+
+		this.shares = new byte[PEERS][];
+		for (int peer = 0; peer < PEERS; peer++) {
+			BigInteger x = BigInteger.valueOf(peer + 1);
+			BigInteger share = BigInteger.ZERO;
+			for (int i = THRESHOLD - 1; i >= 0; i--) {
+				share = share.multiply(x).add(coefficients[i]).mod(order);
+			}
+			this.shares[peer] = this.hash.pow(share).toBytes();
+		}
+	}
+
+	/**
+	 * Run the Element combineSignatures() method test for different subsets
+	 * of the peers sharing a weight cache
+	 * 
+	 * @throws BLSSignatureException
+	 */
+	@Test
+	public void testCombineSignatures() throws BLSSignatureException {
+		Element expected = this.hash.pow(this.secretKey);
+
+		LagrangeWeightCache weightCache = new LagrangeWeightCache(PEERS);
+
+		int[][] subsets = { { 0, 1, 2, 3, 4 }, { 2, 3, 4, 5, 6 }, { 0, 1, 2, 3, 4, 5, 6 }, { 0, 1, 2, 3, 4 } };
+
+		for (int[] subset : subsets) {
+			BLSCombiner combiner = new BLSCombiner(weightCache, THRESHOLD);
+			for (int peer : subset) {
+				combiner.addShare(this.shares[peer], peer);
+			}
+			assertTrue(expected.isEqual(combiner.combineSignatures()));
+		}
+
+		assertEquals(3, weightCache.size());
+	}
+
+	/**
+	 * Run the Element combineSignatures() method test with too few shares
+	 * 
+	 * @throws BLSSignatureException
+	 */
+	@Test(expected = BLSSignatureException.class)
+	public void testCombineSignaturesBelowThreshold() throws BLSSignatureException {
+		BLSCombiner combiner = new BLSCombiner(PEERS, THRESHOLD);
+		for (int peer = 0; peer < THRESHOLD - 1; peer++) {
+			combiner.addShare(this.shares[peer], peer);
+		}
+		combiner.combineSignatures();
+	}
+
+	/**
+	 * Run the Element compute(Field,Element[],BigInteger[]) method test
+	 * against separate exponentiations
+	 */
+	@Test
+	public void testMultiExponentiation() {
+		Element[] bases = new Element[6];
+		BigInteger[] exponents = new BigInteger[6];
+		Element expected = this.pairing.getG1().newElement().setToOne();
+
+		for (int i = 0; i < bases.length; i++) {
+			exponents[i] = this.pairing.getZr().newRandomElement().toBigInteger().shiftRight(i * 16);
+			bases[i] = this.pairing.getG1().newRandomElement().getImmutable();
+		}
+
+		// a missing base and a zero exponent contribute nothing
+		bases[3] = null;
+		exponents[5] = BigInteger.ZERO;
+
+		for (int i = 0; i < 5; i++) {
+			if (bases[i] != null) {
+				expected.mul(bases[i].pow(exponents[i]));
+			}
+		}
+
+		assertTrue(expected.isEqual(MultiExponentiation.compute(this.pairing.getG1(), bases, exponents)));
+	}
+
+	/**
+	 * Run the int getDefaultThreshold(int) method test
+	 */
+	@Test
+	public void testGetDefaultThreshold() {
+		assertEquals(5, BLSCombiner.getDefaultThreshold(7));
+		assertEquals(3, BLSCombiner.getDefaultThreshold(4));
+		assertEquals(1, BLSCombiner.getDefaultThreshold(1));
+	}
+}
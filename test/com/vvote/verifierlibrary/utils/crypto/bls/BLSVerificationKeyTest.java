@@ -0,0 +1,112 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.crypto.bls;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import it.unisa.dia.gas.jpbc.Element;
+import it.unisa.dia.gas.jpbc.Pairing;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vvote.verifierlibrary.exceptions.BLSSignatureException;
+
+/**
+ * The class <code>BLSVerificationKeyTest</code> contains tests for the class
+ * <code>{@link BLSVerificationKey}</code>.
+ */
+public class BLSVerificationKeyTest {
+
+	/**
+	 * The pairing for the curve
+	 */
+	private Pairing pairing;
+
+	/**
+	 * The generator for the public key
+	 */
+	private Element g;
+
+	/**
+	 * The secret key
+	 */
+	private Element secretKey;
+
+	/**
+	 * The verification key under test
+	 */
+	private BLSVerificationKey verificationKey;
+
+	/**
+	 * The signed data
+	 */
+	private byte[] data;
+
+	/**
+	 * Perform pre-test initialization.
+	 * 
+	 * @throws BLSSignatureException
+	 */
+	@Before
+	public void setUp() throws BLSSignatureException {
+		this.pairing = CurveParams.getInstance().getPairing();
+		this.g = this.pairing.getG2().newRandomElement().getImmutable();
+		this.secretKey = this.pairing.getZr().newRandomElement().getImmutable();
+		this.verificationKey = new BLSVerificationKey(this.g, this.g.powZn(this.secretKey));
+		this.data = "joint signature".getBytes();
+	}
+
+	/**
+	 * Run the boolean verify(byte[],Element) method test and check that the
+	 * product of pairings agrees with comparing the two pairings directly
+	 */
+	@Test
+	public void testVerifyValidSignature() {
+		Element signature = this.pairing.getG1().newElement().setFromHash(this.data, 0, this.data.length).powZn(this.secretKey);
+
+		assertTrue(this.verificationKey.verify(this.data, signature));
+		assertTrue(this.pairing.pairing(signature, this.g).isEqual(this.pairing.pairing(this.verificationKey.hashToG1(this.data), this.verificationKey.getPublicKey())));
+	}
+
+	/**
+	 * Run the boolean verify(byte[],Element) method test with a signature over
+	 * different data
+	 */
+	@Test
+	public void testVerifyInvalidSignature() {
+		byte[] other = "other data".getBytes();
+		Element signature = this.pairing.getG1().newElement().setFromHash(other, 0, other.length).powZn(this.secretKey);
+
+		assertFalse(this.verificationKey.verify(this.data, signature));
+	}
+
+	/**
+	 * Run the boolean verify(byte[],Element) method test and check that the
+	 * key elements cannot be changed by callers
+	 */
+	@Test
+	public void testKeyIsImmutable() {
+		Element signature = this.pairing.getG1().newElement().setFromHash(this.data, 0, this.data.length).powZn(this.secretKey);
+
+		this.verificationKey.getPublicKey().twice();
+		this.verificationKey.getG().square();
+
+		assertTrue(this.verificationKey.verify(this.data, signature));
+	}
+}
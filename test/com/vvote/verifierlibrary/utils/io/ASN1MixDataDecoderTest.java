@@ -0,0 +1,244 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.Test;
+
+import com.vvote.ec.ElGamalECPoint;
+import com.vvote.verifierlibrary.exceptions.ASN1Exception;
+import com.vvote.verifierlibrary.utils.crypto.CurveContext;
+
+/**
+ * The class <code>ASN1MixDataDecoderTest</code> contains tests for the class
+ * <code>{@link ASN1MixDataDecoder}</code>.
+ */
+public class ASN1MixDataDecoderTest {
+
+	/**
+	 * The curve used throughout the tests
+	 */
+	private static final CurveContext curveContext = CurveContext.forElectionCurve();
+
+	/**
+	 * Gets k * G
+	 * 
+	 * @param k
+	 * @return k * G
+	 */
+	private static ECPoint point(int k) {
+		return curveContext.getG().multiply(BigInteger.valueOf(k)).normalize();
+	}
+
+	/**
+	 * Encodes a point as an asn.1 octet string
+	 * 
+	 * @param point
+	 * @return the octet string
+	 */
+	private static ASN1Encodable encode(ECPoint point) {
+		return new DEROctetString(point.getEncoded());
+	}
+
+	/**
+	 * Encodes a cipher as an asn.1 sequence of gr followed by myr
+	 * 
+	 * @param cipher
+	 * @return the sequence
+	 */
+	private static ASN1Encodable encode(ElGamalECPoint cipher) {
+		return new DERSequence(new ASN1Encodable[] { encode(cipher.getGr()), encode(cipher.getMyr()) });
+	}
+
+	/**
+	 * Writes each row as a top level asn.1 sequence
+	 * 
+	 * @param rows
+	 * @return the encoded rows
+	 * @throws IOException
+	 */
+	private static byte[] write(ASN1Encodable[]... rows) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+		for (ASN1Encodable[] row : rows) {
+			os.write(new DERSequence(row).getEncoded());
+		}
+
+		return os.toByteArray();
+	}
+
+	/**
+	 * Decodes rows of ciphers
+	 * 
+	 * @param data
+	 * @return the decoded rows
+	 * @throws ASN1Exception
+	 */
+	private static List<List<ElGamalECPoint>> decodeCiphers(byte[] data) throws ASN1Exception {
+		final List<List<ElGamalECPoint>> rows = new ArrayList<List<ElGamalECPoint>>();
+
+		int count = ASN1MixDataDecoder.decodeCiphers(curveContext, new ByteArrayInputStream(data), new ASN1MixDataDecoder.RowHandler<ElGamalECPoint>() {
+			@Override
+			public void handleRow(List<ElGamalECPoint> row) {
+				rows.add(row);
+			}
+		});
+
+		assertEquals(rows.size(), count);
+
+		return rows;
+	}
+
+	/**
+	 * Decodes rows of plaintexts
+	 * 
+	 * @param data
+	 * @return the decoded rows
+	 * @throws ASN1Exception
+	 */
+	private static List<List<ECPoint>> decodePlaintexts(byte[] data) throws ASN1Exception {
+		final List<List<ECPoint>> rows = new ArrayList<List<ECPoint>>();
+
+		int count = ASN1MixDataDecoder.decodePlaintexts(curveContext, new ByteArrayInputStream(data), new ASN1MixDataDecoder.RowHandler<ECPoint>() {
+			@Override
+			public void handleRow(List<ECPoint> row) {
+				rows.add(row);
+			}
+		});
+
+		assertEquals(rows.size(), count);
+
+		return rows;
+	}
+
+	/**
+	 * Test decoding valid rows of ciphers
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testDecodeCiphers() throws Exception {
+		ElGamalECPoint first = new ElGamalECPoint(point(2), point(3));
+		ElGamalECPoint second = new ElGamalECPoint(point(5), point(7));
+		ElGamalECPoint third = new ElGamalECPoint(point(11), point(13));
+
+		List<List<ElGamalECPoint>> rows = decodeCiphers(write(new ASN1Encodable[] { encode(first), encode(second) }, new ASN1Encodable[] { encode(third) }));
+
+		assertEquals(2, rows.size());
+		assertEquals(Arrays.asList(first, second), rows.get(0));
+		assertEquals(Arrays.asList(third), rows.get(1));
+
+		assertTrue(rows.get(0).get(0).getGr().equals(point(3)));
+		assertTrue(rows.get(0).get(0).getMyr().equals(point(2)));
+	}
+
+	/**
+	 * Test decoding valid rows of plaintexts
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testDecodePlaintexts() throws Exception {
+		List<List<ECPoint>> rows = decodePlaintexts(write(new ASN1Encodable[] { encode(point(1)), encode(point(2)) }, new ASN1Encodable[] { encode(point(3)) }));
+
+		assertEquals(2, rows.size());
+		assertEquals(Arrays.asList(point(1), point(2)), rows.get(0));
+		assertEquals(Arrays.asList(point(3)), rows.get(1));
+	}
+
+	/**
+	 * Test decoding an empty stream
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testDecodeEmpty() throws Exception {
+		assertTrue(decodeCiphers(new byte[0]).isEmpty());
+		assertTrue(decodePlaintexts(new byte[0]).isEmpty());
+	}
+
+	/**
+	 * Test decoding a stream truncated part way through a row
+	 * 
+	 * @throws Exception
+	 */
+	@Test(expected = ASN1Exception.class)
+	public void testDecodeTruncated() throws Exception {
+		byte[] data = write(new ASN1Encodable[] { encode(point(1)), encode(point(2)) });
+
+		decodePlaintexts(Arrays.copyOf(data, data.length - 5));
+	}
+
+	/**
+	 * Test decoding a cipher which doesn't hold two points
+	 * 
+	 * @throws Exception
+	 */
+	@Test(expected = ASN1Exception.class)
+	public void testDecodeMalformedCipher() throws Exception {
+		decodeCiphers(write(new ASN1Encodable[] { new DERSequence(new ASN1Encodable[] { encode(point(1)), encode(point(2)), encode(point(3)) }) }));
+	}
+
+	/**
+	 * Test decoding a point which isn't an octet string
+	 * 
+	 * @throws Exception
+	 */
+	@Test(expected = ASN1Exception.class)
+	public void testDecodeMalformedElement() throws Exception {
+		decodePlaintexts(write(new ASN1Encodable[] { new ASN1Integer(1) }));
+	}
+
+	/**
+	 * Test decoding an octet string which isn't a point on the curve
+	 * 
+	 * @throws Exception
+	 */
+	@Test(expected = ASN1Exception.class)
+	public void testDecodeInvalidPoint() throws Exception {
+		byte[] encoded = point(1).getEncoded();
+		encoded[0] = 0x7f;
+
+		decodePlaintexts(write(new ASN1Encodable[] { new DEROctetString(encoded) }));
+	}
+
+	/**
+	 * Test decoding a row which isn't a sequence
+	 * 
+	 * @throws Exception
+	 */
+	@Test(expected = ASN1Exception.class)
+	public void testDecodeRowNotSequence() throws Exception {
+		decodeCiphers(new DEROctetString(point(1).getEncoded()).getEncoded());
+	}
+}
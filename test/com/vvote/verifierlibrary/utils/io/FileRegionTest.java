@@ -0,0 +1,202 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The class <code>FileRegionTest</code> contains tests for the class
+ * <code>{@link FileRegion}</code>.
+ */
+public class FileRegionTest {
+
+	/**
+	 * The content of the file used throughout the tests
+	 */
+	private static final String content = "0123456789abcdefghij";
+
+	/**
+	 * The file used throughout the tests
+	 */
+	private File file = null;
+
+	/**
+	 * Perform pre-test initialization.
+	 * 
+	 * @throws Exception
+	 *             if the initialization fails for some reason
+	 */
+	@Before
+	public void setUp() throws Exception {
+		this.file = File.createTempFile("FileRegionTest", ".txt");
+
+		try (FileOutputStream outputStream = new FileOutputStream(this.file)) {
+			outputStream.write(content.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Perform post-test clean-up.
+	 * 
+	 * @throws Exception
+	 *             if the clean-up fails for some reason
+	 */
+	@After
+	public void tearDown() throws Exception {
+		this.file.delete();
+		this.file = null;
+	}
+
+	/**
+	 * Reads bytes from a region
+	 * 
+	 * @param region
+	 * @param position
+	 * @param length
+	 * @return the bytes read as a string
+	 * @throws IOException
+	 */
+	private static String read(FileRegion region, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		region.read(position, buffer);
+		return new String(buffer.array(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads the whole of a stream
+	 * 
+	 * @param is
+	 * @return the bytes read
+	 * @throws IOException
+	 */
+	static byte[] readAll(InputStream is) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		byte[] bytes = new byte[7];
+		int length = 0;
+
+		while ((length = is.read(bytes)) >= 0) {
+			os.write(bytes, 0, length);
+		}
+
+		return os.toByteArray();
+	}
+
+	/**
+	 * Test positioned reads from a region and its sub regions
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testRead() throws IOException {
+		try (FileRegion region = new FileRegion(this.file)) {
+			assertEquals(content.length(), region.getLength());
+			assertEquals(content, read(region, 0, content.length()));
+			assertEquals("9ab", read(region, 9, 3));
+
+			FileRegion subRegion = region.subRegion(5, 10);
+
+			assertEquals(5, subRegion.getOffset());
+			assertEquals(10, subRegion.getLength());
+			assertEquals("56789abcde", read(subRegion, 0, 10));
+			assertEquals("cde", read(subRegion.subRegion(7, 3), 0, 3));
+		}
+	}
+
+	/**
+	 * Test that a region can be read again after it, or a region sharing its
+	 * channel, has been closed
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testReadAfterClose() throws IOException {
+		FileRegion region = new FileRegion(this.file);
+		FileRegion subRegion = region.subRegion(10, 10);
+
+		assertEquals("0123", read(region, 0, 4));
+		assertEquals("abcd", read(subRegion, 0, 4));
+
+		subRegion.close();
+
+		assertEquals("0123", read(region, 0, 4));
+
+		region.close();
+		region.close();
+
+		assertEquals("abcd", read(subRegion, 0, 4));
+
+		region.close();
+	}
+
+	/**
+	 * Test that a read past the end of the region fails
+	 * 
+	 * @throws IOException
+	 */
+	@Test(expected = IOException.class)
+	public void testReadOutsideRegion() throws IOException {
+		try (FileRegion region = new FileRegion(this.file).subRegion(5, 10)) {
+			read(region, 8, 3);
+		}
+	}
+
+	/**
+	 * Test that a sub region must lie inside the region
+	 * 
+	 * @throws IOException
+	 */
+	@Test(expected = IOException.class)
+	public void testSubRegionOutsideRegion() throws IOException {
+		new FileRegion(this.file).subRegion(15, 6);
+	}
+
+	/**
+	 * Test streaming a region
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testOpenStream() throws IOException {
+		FileRegion region = new FileRegion(this.file).subRegion(2, 15);
+
+		try (InputStream is = region.openStream()) {
+			assertArrayEquals("23456789abcdefg".getBytes(StandardCharsets.UTF_8), readAll(is));
+			assertEquals(-1, is.read());
+		}
+
+		try (InputStream is = region.openStream()) {
+			assertEquals('2', is.read());
+			assertEquals(5, is.skip(5));
+			assertEquals(9, is.available());
+			assertArrayEquals("89abcdefg".getBytes(StandardCharsets.UTF_8), readAll(is));
+		}
+	}
+}
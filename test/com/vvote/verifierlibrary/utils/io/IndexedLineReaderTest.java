@@ -0,0 +1,127 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * The class <code>IndexedLineReaderTest</code> contains tests for the class
+ * <code>{@link IndexedLineReader}</code>.
+ */
+public class IndexedLineReaderTest {
+
+	/**
+	 * Creates a reader over the provided content
+	 * 
+	 * @param content
+	 * @return the reader
+	 */
+	private static IndexedLineReader reader(String content) {
+		return new IndexedLineReader(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Reads a line checking its content, offset and length
+	 * 
+	 * @param reader
+	 * @param line
+	 * @param offset
+	 * @param length
+	 * @throws IOException
+	 */
+	private static void assertLine(IndexedLineReader reader, String line, long offset, int length) throws IOException {
+		assertEquals(line, reader.readLine());
+		assertEquals(offset, reader.getLineOffset());
+		assertEquals(length, reader.getLineLength());
+	}
+
+	/**
+	 * Test reading lines with each kind of line terminator
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testReadLine() throws IOException {
+		try (IndexedLineReader reader = reader("a\nbc\r\n\nlast")) {
+			assertLine(reader, "a", 0, 1);
+			assertLine(reader, "bc", 2, 2);
+			assertLine(reader, "", 6, 0);
+			assertLine(reader, "last", 7, 4);
+
+			assertNull(reader.readLine());
+			assertEquals(-1, reader.getLineLength());
+		}
+	}
+
+	/**
+	 * Test that the offset and length of a line are given in bytes rather
+	 * than characters
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testMultiByteCharacters() throws IOException {
+		try (IndexedLineReader reader = reader("été\nb\n")) {
+			assertLine(reader, "été", 0, 5);
+			assertLine(reader, "b", 6, 1);
+
+			assertNull(reader.readLine());
+		}
+	}
+
+	/**
+	 * Test reading a line longer than the read buffer
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testLongLine() throws IOException {
+		char[] chars = new char[150000];
+		Arrays.fill(chars, 'x');
+		String longLine = new String(chars);
+
+		try (IndexedLineReader reader = reader("first\n" + longLine + "\nlast\n")) {
+			assertLine(reader, "first", 0, 5);
+			assertLine(reader, longLine, 6, longLine.length());
+			assertLine(reader, "last", 7 + longLine.length(), 4);
+
+			assertNull(reader.readLine());
+		}
+	}
+
+	/**
+	 * Test reading an empty stream
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testEmpty() throws IOException {
+		try (IndexedLineReader reader = reader("")) {
+			assertNull(reader.readLine());
+			assertEquals(-1, reader.getLineLength());
+		}
+	}
+}
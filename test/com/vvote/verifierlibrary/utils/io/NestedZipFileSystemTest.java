@@ -0,0 +1,204 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The class <code>NestedZipFileSystemTest</code> contains tests for the class
+ * <code>{@link NestedZipFileSystem}</code>.
+ */
+public class NestedZipFileSystemTest {
+
+	/**
+	 * The file system used throughout the tests
+	 */
+	private static final NestedZipFileSystem fileSystem = NestedZipFileSystem.getInstance();
+
+	/**
+	 * The zip file used throughout the tests
+	 */
+	private File file = null;
+
+	/**
+	 * Perform pre-test initialization.
+	 * 
+	 * @throws Exception
+	 *             if the initialization fails for some reason
+	 */
+	@Before
+	public void setUp() throws Exception {
+		this.file = File.createTempFile("NestedZipFileSystemTest", ".zip");
+		ZipArchiveTest.writeTestZip(this.file);
+	}
+
+	/**
+	 * Perform post-test clean-up.
+	 * 
+	 * @throws Exception
+	 *             if the clean-up fails for some reason
+	 */
+	@After
+	public void tearDown() throws Exception {
+		fileSystem.closeChannels();
+
+		this.file.delete();
+		this.file = null;
+	}
+
+	/**
+	 * Reads the whole of an entry
+	 * 
+	 * @param nestedPath
+	 * @return the entry content
+	 * @throws IOException
+	 */
+	private String read(String... nestedPath) throws IOException {
+		try (InputStream is = fileSystem.openEntry(this.file.getPath(), nestedPath)) {
+			return new String(FileRegionTest.readAll(is), StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Reads the whole of a region
+	 * 
+	 * @param region
+	 * @return the region content
+	 * @throws IOException
+	 */
+	private static String read(FileRegion region) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate((int) region.getLength());
+		region.read(0, buffer);
+		return new String(buffer.array(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Test listing and reading entries of the zip file and of the zip files
+	 * nested inside it
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testOpenEntry() throws IOException {
+		String path = this.file.getPath();
+
+		assertEquals(new HashSet<String>(Arrays.asList("stored.txt", "deflated.txt", "dir/", "dir/inner.zip", "deflatedInner.zip")), fileSystem.listEntries(path));
+		assertEquals(new HashSet<String>(Arrays.asList("nested.txt")), fileSystem.listEntries(path, "dir/inner.zip"));
+		assertEquals(new HashSet<String>(Arrays.asList("nested.txt")), fileSystem.listEntries(path, "deflatedInner.zip"));
+
+		assertEquals(ZipArchiveTest.STORED_CONTENT, this.read("stored.txt"));
+		assertEquals(ZipArchiveTest.DEFLATED_CONTENT, this.read("deflated.txt"));
+		assertEquals(ZipArchiveTest.NESTED_CONTENT, this.read("dir/inner.zip", "nested.txt"));
+		assertEquals(ZipArchiveTest.NESTED_CONTENT, this.read("deflatedInner.zip", "nested.txt"));
+
+		assertEquals(ZipArchiveTest.DEFLATED_CONTENT.length(), fileSystem.getEntrySize(path, "deflated.txt"));
+		assertEquals(ZipArchiveTest.NESTED_CONTENT.length(), fileSystem.getEntrySize(path, "dir/inner.zip", "nested.txt"));
+	}
+
+	/**
+	 * Test that stored entries are read in place whilst compressed entries are
+	 * inflated into the scratch directory
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testGetEntryRegion() throws IOException {
+		String path = this.file.getPath();
+
+		FileRegion stored = fileSystem.getEntryRegion(path, "stored.txt");
+
+		assertEquals(this.file.getAbsoluteFile(), stored.getFile().getAbsoluteFile());
+		assertEquals(ZipArchiveTest.STORED_CONTENT, read(stored));
+
+		FileRegion deflated = fileSystem.getEntryRegion(path, "deflated.txt");
+
+		assertFalse(this.file.getAbsoluteFile().equals(deflated.getFile().getAbsoluteFile()));
+		assertEquals(ZipArchiveTest.DEFLATED_CONTENT, read(deflated));
+		assertSame(deflated, fileSystem.getEntryRegion(path, "deflated.txt"));
+
+		FileRegion nested = fileSystem.getEntryRegion(path, "dir/inner.zip", "nested.txt");
+
+		assertEquals(ZipArchiveTest.NESTED_CONTENT, read(nested));
+	}
+
+	/**
+	 * Test that archives are cached and can still be read once their channels
+	 * have been closed
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testCloseChannels() throws IOException {
+		String path = this.file.getPath();
+
+		ZipArchive archive = fileSystem.getArchive(path, "dir/inner.zip");
+
+		assertSame(archive, fileSystem.getArchive(path, "dir/inner.zip"));
+
+		FileRegion stored = fileSystem.getEntryRegion(path, "stored.txt");
+
+		assertEquals(ZipArchiveTest.STORED_CONTENT, read(stored));
+
+		fileSystem.closeChannels();
+
+		assertSame(archive, fileSystem.getArchive(path, "dir/inner.zip"));
+		assertEquals(ZipArchiveTest.STORED_CONTENT, read(stored));
+		assertEquals(ZipArchiveTest.NESTED_CONTENT, this.read("dir/inner.zip", "nested.txt"));
+	}
+
+	/**
+	 * Test extracting a nested zip file into the scratch directory
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testExtractArchive() throws IOException {
+		File extracted = fileSystem.extractArchive(this.file.getPath(), "deflatedInner.zip");
+
+		assertTrue(new File(extracted, "nested.txt").isFile());
+		assertSame(extracted, fileSystem.extractArchive(this.file.getPath(), "deflatedInner.zip"));
+		assertEquals(new File(extracted, "nested.txt").getPath(), fileSystem.findExtractedFile("nested.txt"));
+		assertNull(fileSystem.findExtractedFile("missing.txt"));
+	}
+
+	/**
+	 * Test that only zip files can be opened
+	 * 
+	 * @throws IOException
+	 */
+	@Test(expected = IOException.class)
+	public void testNotZipFile() throws IOException {
+		fileSystem.getArchive(this.file.getPath() + ".txt");
+	}
+}
@@ -0,0 +1,182 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The class <code>SerialNumberIndexTest</code> contains tests for the class
+ * <code>{@link SerialNumberIndex}</code>.
+ */
+public class SerialNumberIndexTest {
+
+	/**
+	 * The data file used throughout the tests
+	 */
+	private File file = null;
+
+	/**
+	 * Perform pre-test initialization.
+	 * 
+	 * @throws Exception
+	 *             if the initialization fails for some reason
+	 */
+	@Before
+	public void setUp() throws Exception {
+		this.file = File.createTempFile("SerialNumberIndexTest", ".txt");
+	}
+
+	/**
+	 * Perform post-test clean-up.
+	 * 
+	 * @throws Exception
+	 *             if the clean-up fails for some reason
+	 */
+	@After
+	public void tearDown() throws Exception {
+		this.file.delete();
+		this.file = null;
+	}
+
+	/**
+	 * Writes the provided content to the data file
+	 * 
+	 * @param content
+	 * @throws IOException
+	 */
+	private void write(String content) throws IOException {
+		try (FileOutputStream outputStream = new FileOutputStream(this.file)) {
+			outputStream.write(content.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Indexes each line of a region by the serial number before its first
+	 * comma
+	 * 
+	 * @param region
+	 * @return the index
+	 * @throws IOException
+	 */
+	private static SerialNumberIndex index(FileRegion region) throws IOException {
+		SerialNumberIndex index = new SerialNumberIndex(region);
+
+		try (IndexedLineReader reader = new IndexedLineReader(region.openStream())) {
+			String line = null;
+
+			while ((line = reader.readLine()) != null) {
+				index.add(line.substring(0, line.indexOf(',')), reader);
+			}
+		}
+
+		return index;
+	}
+
+	/**
+	 * Test that each line can be read back by serial number, including a
+	 * serial number which is a prefix of another
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testReadLine() throws IOException {
+		this.write("TestDeviceOne:10,ten\nTestDeviceOne:1,one\r\nTestDeviceOne:100,one hundred\nTestDeviceTwo:1,two");
+
+		SerialNumberIndex index = index(new FileRegion(this.file));
+
+		assertEquals(4, index.size());
+
+		assertEquals("TestDeviceOne:1,one", index.readLine("TestDeviceOne:1"));
+		assertEquals("TestDeviceOne:10,ten", index.readLine("TestDeviceOne:10"));
+		assertEquals("TestDeviceOne:100,one hundred", index.readLine("TestDeviceOne:100"));
+		assertEquals("TestDeviceTwo:1,two", index.readLine("TestDeviceTwo:1"));
+
+		assertEquals(4, index.getSerialNumbers().size());
+		assertTrue(index.getSerialNumbers().containsAll(Arrays.asList("TestDeviceOne:1", "TestDeviceOne:10", "TestDeviceOne:100", "TestDeviceTwo:1")));
+	}
+
+	/**
+	 * Test looking up a serial number which has not been indexed, including a
+	 * prefix of an indexed serial number
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testMissingSerialNumber() throws IOException {
+		this.write("TestDeviceOne:10,ten\nTestDeviceOne:100,one hundred\n");
+
+		SerialNumberIndex index = index(new FileRegion(this.file));
+
+		assertTrue(index.contains("TestDeviceOne:10"));
+		assertFalse(index.contains("TestDeviceOne:1"));
+		assertFalse(index.contains("TestDeviceOne:1000"));
+
+		assertNull(index.readLine("TestDeviceOne:1"));
+		assertNull(index.readLine("TestDeviceOne:1000"));
+	}
+
+	/**
+	 * Test that the last occurrence of a repeated serial number is used
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testDuplicateSerialNumber() throws IOException {
+		this.write("TestDeviceOne:1,first\nTestDeviceOne:2,two\nTestDeviceOne:1,second\n");
+
+		SerialNumberIndex index = index(new FileRegion(this.file));
+
+		assertEquals(2, index.size());
+		assertEquals("TestDeviceOne:1,second", index.readLine("TestDeviceOne:1"));
+		assertEquals("TestDeviceOne:2,two", index.readLine("TestDeviceOne:2"));
+	}
+
+	/**
+	 * Test that offsets are relative to the start of the indexed region
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testSubRegion() throws IOException {
+		String header = "header line\n";
+		String content = "TestDeviceOne:1,one\nTestDeviceOne:2,two\n";
+
+		this.write(header + content + "trailer");
+
+		FileRegion region = new FileRegion(this.file).subRegion(header.length(), content.length());
+		SerialNumberIndex index = index(region);
+
+		assertEquals(region, index.getRegion());
+		assertEquals(2, index.size());
+		assertEquals("TestDeviceOne:1,one", index.readLine("TestDeviceOne:1"));
+		assertEquals("TestDeviceOne:2,two", index.readLine("TestDeviceOne:2"));
+	}
+}
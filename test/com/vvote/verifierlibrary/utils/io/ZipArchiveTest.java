@@ -0,0 +1,294 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The class <code>ZipArchiveTest</code> contains tests for the class
+ * <code>{@link ZipArchive}</code>.
+ */
+public class ZipArchiveTest {
+
+	/**
+	 * Content of the stored entry
+	 */
+	static final String STORED_CONTENT = "stored entry content";
+
+	/**
+	 * Content of the deflated entry
+	 */
+	static final String DEFLATED_CONTENT = createDeflatedContent();
+
+	/**
+	 * Content of the entry inside each nested zip file
+	 */
+	static final String NESTED_CONTENT = "nested entry content";
+
+	/**
+	 * The zip file used throughout the tests
+	 */
+	private File file = null;
+
+	/**
+	 * Creates a compressible entry content
+	 * 
+	 * @return the content
+	 */
+	private static String createDeflatedContent() {
+		StringBuilder sb = new StringBuilder();
+
+		for (int i = 0; i < 1000; i++) {
+			sb.append("deflated entry content ").append(i).append('\n');
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Adds an entry to a zip file
+	 * 
+	 * @param zip
+	 * @param name
+	 * @param data
+	 * @param method
+	 * @throws IOException
+	 */
+	private static void addEntry(ZipOutputStream zip, String name, byte[] data, int method) throws IOException {
+		ZipEntry entry = new ZipEntry(name);
+		entry.setMethod(method);
+
+		if (method == ZipEntry.STORED) {
+			CRC32 crc = new CRC32();
+			crc.update(data);
+
+			entry.setSize(data.length);
+			entry.setCompressedSize(data.length);
+			entry.setCrc(crc.getValue());
+		}
+
+		zip.putNextEntry(entry);
+		zip.write(data);
+		zip.closeEntry();
+	}
+
+	/**
+	 * Creates a zip file holding a single entry
+	 * 
+	 * @param name
+	 * @param data
+	 * @param method
+	 * @return the zip file
+	 * @throws IOException
+	 */
+	private static byte[] createZip(String name, byte[] data, int method) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+		try (ZipOutputStream zip = new ZipOutputStream(os)) {
+			addEntry(zip, name, data, method);
+		}
+
+		return os.toByteArray();
+	}
+
+	/**
+	 * Writes the zip file used by the tests. It holds a stored entry, a
+	 * deflated entry, a directory, a stored zip file holding a deflated entry
+	 * and a deflated zip file holding a stored entry
+	 * 
+	 * @param file
+	 * @throws IOException
+	 */
+	static void writeTestZip(File file) throws IOException {
+		try (OutputStream os = new FileOutputStream(file); ZipOutputStream zip = new ZipOutputStream(os)) {
+			addEntry(zip, "stored.txt", STORED_CONTENT.getBytes(StandardCharsets.UTF_8), ZipEntry.STORED);
+			addEntry(zip, "deflated.txt", DEFLATED_CONTENT.getBytes(StandardCharsets.UTF_8), ZipEntry.DEFLATED);
+			addEntry(zip, "dir/", new byte[0], ZipEntry.STORED);
+			addEntry(zip, "dir/inner.zip", createZip("nested.txt", NESTED_CONTENT.getBytes(StandardCharsets.UTF_8), ZipEntry.DEFLATED), ZipEntry.STORED);
+			addEntry(zip, "deflatedInner.zip", createZip("nested.txt", NESTED_CONTENT.getBytes(StandardCharsets.UTF_8), ZipEntry.STORED), ZipEntry.DEFLATED);
+		}
+	}
+
+	/**
+	 * Reads the whole of an entry
+	 * 
+	 * @param archive
+	 * @param name
+	 * @return the entry content
+	 * @throws IOException
+	 */
+	private static String read(ZipArchive archive, String name) throws IOException {
+		try (InputStream is = archive.openEntry(name)) {
+			return new String(FileRegionTest.readAll(is), StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Perform pre-test initialization.
+	 * 
+	 * @throws Exception
+	 *             if the initialization fails for some reason
+	 */
+	@Before
+	public void setUp() throws Exception {
+		this.file = File.createTempFile("ZipArchiveTest", ".zip");
+		writeTestZip(this.file);
+	}
+
+	/**
+	 * Perform post-test clean-up.
+	 * 
+	 * @throws Exception
+	 *             if the clean-up fails for some reason
+	 */
+	@After
+	public void tearDown() throws Exception {
+		this.file.delete();
+		this.file = null;
+	}
+
+	/**
+	 * Test listing the entries from the central directory
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testEntries() throws IOException {
+		try (ZipArchive archive = new ZipArchive(new FileRegion(this.file))) {
+			assertEquals(Arrays.asList("stored.txt", "deflated.txt", "dir/", "dir/inner.zip", "deflatedInner.zip"), new ArrayList<String>(archive.getEntryNames()));
+
+			ZipArchive.Entry stored = archive.getEntry("stored.txt");
+
+			assertEquals(ZipArchive.METHOD_STORED, stored.getMethod());
+			assertEquals(STORED_CONTENT.length(), stored.getSize());
+			assertEquals(STORED_CONTENT.length(), stored.getCompressedSize());
+
+			ZipArchive.Entry deflated = archive.getEntry("deflated.txt");
+
+			assertEquals(ZipArchive.METHOD_DEFLATED, deflated.getMethod());
+			assertEquals(DEFLATED_CONTENT.length(), deflated.getSize());
+			assertTrue(deflated.getCompressedSize() < deflated.getSize());
+
+			assertTrue(archive.getEntry("dir/").isDirectory());
+			assertNull(archive.getEntry("missing.txt"));
+		}
+	}
+
+	/**
+	 * Test reading stored and deflated entries
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testOpenEntry() throws IOException {
+		try (ZipArchive archive = new ZipArchive(new FileRegion(this.file))) {
+			assertEquals(STORED_CONTENT, read(archive, "stored.txt"));
+			assertEquals(DEFLATED_CONTENT, read(archive, "deflated.txt"));
+			assertEquals("", read(archive, "dir/"));
+		}
+	}
+
+	/**
+	 * Test that only stored entries are exposed as a region
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testGetStoredRegion() throws IOException {
+		try (ZipArchive archive = new ZipArchive(new FileRegion(this.file))) {
+			FileRegion region = archive.getStoredRegion("stored.txt");
+
+			assertNotNull(region);
+			assertEquals(STORED_CONTENT.length(), region.getLength());
+
+			try (InputStream is = region.openStream()) {
+				assertArrayEquals(STORED_CONTENT.getBytes(StandardCharsets.UTF_8), FileRegionTest.readAll(is));
+			}
+
+			assertNull(archive.getStoredRegion("deflated.txt"));
+		}
+	}
+
+	/**
+	 * Test reading a zip file stored inside the zip file in place
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testNestedArchive() throws IOException {
+		try (ZipArchive archive = new ZipArchive(new FileRegion(this.file))) {
+			ZipArchive nested = new ZipArchive(archive.getStoredRegion("dir/inner.zip"));
+
+			assertEquals(Arrays.asList("nested.txt"), new ArrayList<String>(nested.getEntryNames()));
+			assertEquals(NESTED_CONTENT, read(nested, "nested.txt"));
+
+			// closing the nested archive closes the shared channel which is
+			// reopened by the outer archive
+			nested.close();
+
+			assertEquals(STORED_CONTENT, read(archive, "stored.txt"));
+		}
+	}
+
+	/**
+	 * Test opening an entry which doesn't exist
+	 * 
+	 * @throws IOException
+	 */
+	@Test(expected = IOException.class)
+	public void testMissingEntry() throws IOException {
+		try (ZipArchive archive = new ZipArchive(new FileRegion(this.file))) {
+			archive.openEntry("missing.txt");
+		}
+	}
+
+	/**
+	 * Test reading a file which isn't a zip file
+	 * 
+	 * @throws IOException
+	 */
+	@Test(expected = IOException.class)
+	public void testNotZipFile() throws IOException {
+		try (FileOutputStream os = new FileOutputStream(this.file)) {
+			os.write(DEFLATED_CONTENT.getBytes(StandardCharsets.UTF_8));
+		}
+
+		new ZipArchive(new FileRegion(this.file));
+	}
+}
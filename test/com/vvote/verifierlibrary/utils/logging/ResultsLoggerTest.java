@@ -0,0 +1,202 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+/**
+ * The class <code>ResultsLoggerTest</code> contains tests for the classes
+ * <code>{@link ResultsLogger}</code> and <code>{@link TaskResults}</code>.
+ */
+public class ResultsLoggerTest {
+
+	/**
+	 * The results logger under test
+	 */
+	private static final Logger resultsLogger = ResultsLogger.getLogger(ResultsLoggerTest.class);
+
+	/**
+	 * Collects the entries written to the results logger
+	 */
+	private ListAppender<ILoggingEvent> appender = null;
+
+	/**
+	 * Attaches an appender to the results logger
+	 */
+	@Before
+	public void setUp() {
+		this.appender = new ListAppender<ILoggingEvent>();
+		this.appender.start();
+		getTarget().addAppender(this.appender);
+	}
+
+	/**
+	 * Detaches the appender and clears the task results on the thread
+	 */
+	@After
+	public void tearDown() {
+		getTarget().detachAppender(this.appender);
+		ResultsLogger.setTaskResults(null);
+	}
+
+	/**
+	 * Gets the logback logger the results logger writes to
+	 * 
+	 * @return the logback logger
+	 */
+	private static ch.qos.logback.classic.Logger getTarget() {
+		return (ch.qos.logback.classic.Logger) LoggerFactory.getLogger("results.ResultsLoggerTest");
+	}
+
+	/**
+	 * Gets the messages written so far
+	 * 
+	 * @return the formatted messages
+	 */
+	private List<String> getMessages() {
+		List<String> messages = new ArrayList<String>();
+
+		for (ILoggingEvent event : this.appender.list) {
+			messages.add(event.getFormattedMessage());
+		}
+
+		return messages;
+	}
+
+	/**
+	 * Check that each class has a logger below the results logger
+	 */
+	@Test
+	public void testLoggerName() {
+		assertEquals("results.ResultsLoggerTest", resultsLogger.getName());
+	}
+
+	/**
+	 * Check that output is written straight through without task results
+	 */
+	@Test
+	public void testWriteStraightThrough() {
+		assertNull(ResultsLogger.getTaskResults());
+
+		resultsLogger.info("first: {}", 1);
+		resultsLogger.warn("second: {} {}", 2, "b");
+
+		assertEquals(Arrays.asList("first: 1", "second: 2 b"), this.getMessages());
+	}
+
+	/**
+	 * Check that output is held in the task results until they are streamed
+	 * and then written straight through
+	 */
+	@Test
+	public void testHeldUntilStreamed() {
+		TaskResults results = new TaskResults();
+
+		assertNull(ResultsLogger.setTaskResults(results));
+		assertSame(results, ResultsLogger.getTaskResults());
+
+		resultsLogger.info("first");
+		resultsLogger.error("second: {}", "b");
+
+		assertTrue(this.getMessages().isEmpty());
+
+		results.stream();
+
+		assertEquals(Arrays.asList("first", "second: b"), this.getMessages());
+
+		resultsLogger.info("third");
+
+		assertEquals(Arrays.asList("first", "second: b", "third"), this.getMessages());
+	}
+
+	/**
+	 * Check that replaying task results adds the output to other task
+	 * results, after the output they already hold
+	 */
+	@Test
+	public void testReplayIntoTaskResults() {
+		TaskResults task = new TaskResults();
+		TaskResults subtask = new TaskResults();
+
+		ResultsLogger.setTaskResults(task);
+		resultsLogger.info("task");
+
+		ResultsLogger.setTaskResults(subtask);
+		resultsLogger.info("subtask");
+
+		subtask.replay(task);
+		subtask.replay(task);
+
+		assertTrue(this.getMessages().isEmpty());
+
+		task.stream();
+
+		assertEquals(Arrays.asList("task", "subtask"), this.getMessages());
+	}
+
+	/**
+	 * Check that replaying without other task results writes the output
+	 * straight through
+	 */
+	@Test
+	public void testReplayStraightThrough() {
+		TaskResults results = new TaskResults();
+
+		ResultsLogger.setTaskResults(results);
+		resultsLogger.info("held");
+		ResultsLogger.setTaskResults(null);
+
+		resultsLogger.info("direct");
+
+		results.replay(null);
+
+		assertEquals(Arrays.asList("direct", "held"), this.getMessages());
+	}
+
+	/**
+	 * Check that a throwable logged with a message is kept when held
+	 */
+	@Test
+	public void testThrowable() {
+		TaskResults results = new TaskResults();
+
+		ResultsLogger.setTaskResults(results);
+		resultsLogger.error("failed", new IllegalStateException("cause"));
+		results.stream();
+
+		assertEquals(1, this.appender.list.size());
+		assertEquals("failed", this.appender.list.get(0).getFormattedMessage());
+		assertEquals("cause", this.appender.list.get(0).getThrowableProxy().getMessage());
+	}
+}
@@ -0,0 +1,150 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.serial;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * The class <code>SerialNumberMapTest</code> contains tests for the class
+ * <code>{@link SerialNumberMap}</code>.
+ */
+public class SerialNumberMapTest {
+
+	/**
+	 * Check that values can be added, replaced and removed by serial number
+	 */
+	@Test
+	public void testPutGetRemove() {
+		SerialNumberMap<String> map = new SerialNumberMap<String>();
+
+		assertNull(map.put("MapDevice:1", "one"));
+		assertNull(map.put("MapDevice:2", "two"));
+		assertEquals("one", map.put("MapDevice:1", "uno"));
+
+		assertEquals(2, map.size());
+		assertEquals("uno", map.get("MapDevice:1"));
+		assertEquals("two", map.get(SerialNumber.key("MapDevice:2")));
+		assertTrue(map.containsKey("MapDevice:2"));
+		assertFalse(map.containsKey("MapDevice:3"));
+		assertNull(map.get("UnknownMapDevice:1"));
+		assertNull(map.get(Integer.valueOf(1)));
+
+		assertEquals("uno", map.remove("MapDevice:1"));
+		assertNull(map.remove("MapDevice:1"));
+		assertEquals(1, map.size());
+		assertEquals("two", map.get("MapDevice:2"));
+	}
+
+	/**
+	 * Check that the map iterates in serial number order
+	 */
+	@Test
+	public void testSortedIteration() {
+		SerialNumberMap<Integer> map = new SerialNumberMap<Integer>();
+
+		map.put("OrderDeviceB:1", 3);
+		map.put("OrderDeviceA:10", 2);
+		map.put("OrderDeviceA:9", 1);
+
+		assertEquals(Arrays.asList("OrderDeviceA:9", "OrderDeviceA:10", "OrderDeviceB:1"), new ArrayList<String>(map.keySet()));
+		assertEquals(Arrays.asList(1, 2, 3), new ArrayList<Integer>(map.values()));
+	}
+
+	/**
+	 * Check the map against a <code>HashMap</code> over many random additions
+	 * and removals so that the table grows and keys are moved on removal
+	 */
+	@Test
+	public void testAgainstHashMap() {
+		Random random = new Random(42);
+
+		SerialNumberMap<Integer> map = new SerialNumberMap<Integer>();
+		Map<String, Integer> expected = new HashMap<String, Integer>();
+
+		for (int i = 0; i < 20000; i++) {
+			String serialNo = "RandomDevice" + random.nextInt(4) + ":" + random.nextInt(5000);
+
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(serialNo), map.remove(serialNo));
+			} else {
+				assertEquals(expected.put(serialNo, i), map.put(serialNo, i));
+			}
+		}
+
+		assertEquals(expected.size(), map.size());
+		assertEquals(expected, map);
+
+		for (String serialNo : expected.keySet()) {
+			assertEquals(expected.get(serialNo), map.get(serialNo));
+		}
+	}
+
+	/**
+	 * Check that walking the map by position visits every entry once
+	 */
+	@Test
+	public void testPositions() {
+		SerialNumberMap<String> map = new SerialNumberMap<String>();
+
+		map.put("PositionDevice:1", "one");
+		map.put("PositionDevice:2", "two");
+		map.put("PositionDevice:3", "three");
+		map.remove("PositionDevice:1");
+
+		Map<String, String> walked = new HashMap<String, String>();
+
+		for (int position = 0; position < map.size(); position++) {
+			walked.put(SerialNumber.toString(map.keyAt(position)), map.valueAt(position));
+		}
+
+		assertEquals(map, walked);
+	}
+
+	/**
+	 * Check that a position outside the map cannot be used
+	 */
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testPositionOutOfBounds() {
+		SerialNumberMap<String> map = new SerialNumberMap<String>();
+
+		map.put("PositionDevice:1", "one");
+		map.valueAt(1);
+	}
+
+	/**
+	 * Check that a negative position cannot be used
+	 */
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testNegativePosition() {
+		SerialNumberMap<String> map = new SerialNumberMap<String>();
+
+		map.put("PositionDevice:1", "one");
+		map.valueAt(-1);
+	}
+}
@@ -0,0 +1,153 @@
+/**
+ * This file is part of vVoteVerifier which is designed to be used as a verifiation tool for the vVote Election System.
+ * Copyright (C) 2014  James Rumble (jerumble@gmail.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.vvote.verifierlibrary.utils.serial;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.vvote.verifierlibrary.utils.comparators.BallotSerialNumberComparator;
+
+/**
+ * The class <code>SerialNumberTest</code> contains tests for the class
+ * <code>{@link SerialNumber}</code>.
+ */
+public class SerialNumberTest {
+
+	/**
+	 * Check that a serial number survives conversion to a key and back
+	 */
+	@Test
+	public void testValueOf() {
+		SerialNumber serialNumber = SerialNumber.valueOf("TestDeviceOne:1234");
+
+		assertEquals("TestDeviceOne", serialNumber.getDevice());
+		assertEquals(1234, serialNumber.getNumber());
+		assertEquals("TestDeviceOne:1234", serialNumber.toString());
+		assertEquals(serialNumber, SerialNumber.fromKey(SerialNumber.key("TestDeviceOne:1234")));
+		assertEquals("TestDeviceOne:1234", SerialNumber.toString(serialNumber.getKey()));
+	}
+
+	/**
+	 * Check that finding a serial number does not intern an unseen device
+	 */
+	@Test
+	public void testFind() {
+		assertEquals(SerialNumber.NO_KEY, SerialNumber.find("UnseenDevice:1"));
+		assertEquals(SerialNumber.NO_KEY, SerialNumber.find("UnseenDevice:1"));
+
+		long key = SerialNumber.key("SeenDevice:1");
+
+		assertEquals(key, SerialNumber.find("SeenDevice:1"));
+		assertEquals(SerialNumber.NO_KEY, SerialNumber.find("SeenDevice:"));
+		assertEquals(SerialNumber.NO_KEY, SerialNumber.find("SeenDevice:x1"));
+		assertEquals(SerialNumber.NO_KEY, SerialNumber.find("SeenDevice"));
+		assertEquals(SerialNumber.NO_KEY, SerialNumber.find(null));
+	}
+
+	/**
+	 * Check that a malformed serial number cannot be used
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testMalformed() {
+		SerialNumber.key("TestDeviceOne:99999999999");
+	}
+
+	/**
+	 * Check that serial numbers with a sign or leading zeros cannot be used
+	 */
+	@Test
+	public void testNonCanonical() {
+		long key = SerialNumber.key("CanonicalDevice:7");
+
+		for (String serialNo : Arrays.asList("CanonicalDevice:007", "CanonicalDevice:+7", "CanonicalDevice:-7", "CanonicalDevice:00", "CanonicalDevice:-0")) {
+			assertEquals(SerialNumber.NO_KEY, SerialNumber.find(serialNo));
+
+			try {
+				SerialNumber.key(serialNo);
+				fail("Expected the serial number to be rejected: " + serialNo);
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+
+		assertEquals(key, SerialNumber.find("CanonicalDevice:7"));
+	}
+
+	/**
+	 * Check that every serial number converts to a key and back to the same
+	 * string
+	 */
+	@Test
+	public void testRoundTrip() {
+		for (String serialNo : Arrays.asList("RoundTripDevice:0", "RoundTripDevice:7", "RoundTripDevice:10", "RoundTripDevice:2147483647")) {
+			assertEquals(serialNo, SerialNumber.toString(SerialNumber.key(serialNo)));
+			assertEquals(serialNo, SerialNumber.valueOf(serialNo).toString());
+		}
+	}
+
+	/**
+	 * Check that keys sort in the same order as the serial numbers regardless
+	 * of the order in which the devices were first seen
+	 */
+	@Test
+	public void testSort() {
+		List<String> serialNumbers = Arrays.asList("SortDeviceZ:2", "SortDeviceA:10", "SortDeviceZ:0", "SortDeviceM:3", "SortDeviceA:9", "SortDeviceA:100");
+
+		long[] keys = new long[serialNumbers.size()];
+
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = SerialNumber.key(serialNumbers.get(i));
+		}
+
+		SerialNumber.sort(keys, 0, keys.length);
+
+		String[] sorted = new String[keys.length];
+
+		for (int i = 0; i < keys.length; i++) {
+			sorted[i] = SerialNumber.toString(keys[i]);
+		}
+
+		assertArrayEquals(new String[] { "SortDeviceA:9", "SortDeviceA:10", "SortDeviceA:100", "SortDeviceM:3", "SortDeviceZ:0", "SortDeviceZ:2" }, sorted);
+
+		for (int i = 1; i < keys.length; i++) {
+			assertTrue(SerialNumber.compare(keys[i - 1], keys[i]) < 0);
+			assertTrue(SerialNumber.compare(sorted[i - 1], sorted[i]) < 0);
+		}
+	}
+
+	/**
+	 * Check that the comparator orders serial numbers by device and then
+	 * numerically
+	 */
+	@Test
+	public void testComparator() {
+		List<String> serialNumbers = Arrays.asList("Device:20", "Dev:3", "Device:3", "Device:100");
+
+		Collections.sort(serialNumbers, new BallotSerialNumberComparator());
+
+		assertEquals(Arrays.asList("Dev:3", "Device:3", "Device:20", "Device:100"), serialNumbers);
+	}
+}